@@ -0,0 +1,55 @@
+package com.organicnow.backend.controller;
+
+import com.organicnow.backend.dto.AssetStatusDurationReportDto;
+import com.organicnow.backend.dto.AssetStatusSnapshotDto;
+import com.organicnow.backend.dto.OccupancyReportDto;
+import com.organicnow.backend.service.AssetStatusHistoryService;
+import com.organicnow.backend.service.OccupancyAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/analytics")
+@CrossOrigin(origins = "http://localhost:5173", allowCredentials = "true")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private final OccupancyAnalyticsService occupancyAnalyticsService;
+    private final AssetStatusHistoryService assetStatusHistoryService;
+
+    // ✅ /analytics/occupancy?from=2023-01-01&to=2025-12-31&granularity=MONTH
+    @GetMapping("/occupancy")
+    public ResponseEntity<OccupancyReportDto> getOccupancy(@RequestParam(required = false) String from,
+                                                           @RequestParam(required = false) String to,
+                                                           @RequestParam(required = false) String granularity) {
+        try {
+            return ResponseEntity.ok(occupancyAnalyticsService.getOccupancy(from, to, granularity));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // ✅ /analytics/assets/status?at=2025-06-01T12:00:00&groupId=2 — สถานะของทุก asset ณ เวลานั้น
+    @GetMapping("/assets/status")
+    public ResponseEntity<AssetStatusSnapshotDto> getAssetStatusesAsOf(@RequestParam(required = false) String at,
+                                                                       @RequestParam(required = false) Long groupId) {
+        try {
+            return ResponseEntity.ok(assetStatusHistoryService.getStatusesAsOf(at, groupId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // ✅ /analytics/assets/time-in-status?from=2025-01-01&to=2025-07-01&groupId=2
+    @GetMapping("/assets/time-in-status")
+    public ResponseEntity<AssetStatusDurationReportDto> getAssetTimeInStatus(@RequestParam(required = false) String from,
+                                                                             @RequestParam(required = false) String to,
+                                                                             @RequestParam(required = false) Long groupId) {
+        try {
+            return ResponseEntity.ok(assetStatusHistoryService.getTimeInStatus(from, to, groupId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
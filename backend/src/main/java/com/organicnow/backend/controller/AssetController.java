@@ -1,7 +1,10 @@
 package com.organicnow.backend.controller;
 
 import com.organicnow.backend.dto.ApiResponse;
+import com.organicnow.backend.dto.AssetBulkRequest;
+import com.organicnow.backend.dto.AssetBulkResultDto;
 import com.organicnow.backend.dto.AssetDto;
+import com.organicnow.backend.dto.AssetPageDto;
 import com.organicnow.backend.model.Asset;
 import com.organicnow.backend.service.AssetService;
 import lombok.Data;
@@ -40,6 +43,34 @@ public class AssetController {
         return new ApiResponse<>("success", assetService.getAvailableAssets());
     }
 
+    // ✅ picker ของว่างแบบแบ่งหน้า: /assets/available/page?groupId=2&name=tab&page=0&size=50
+    @GetMapping("/available/page")
+    public ApiResponse<AssetPageDto> getAvailableAssetPage(
+            @RequestParam(required = false) Long groupId,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size
+    ) {
+        return new ApiResponse<>("success", assetService.getAvailableAssetPage(groupId, name, page, size));
+    }
+
+    // ✅ picker asset ทั้งหมด (ไม่รวม deleted) แบบแบ่งหน้า: /assets/page?groupId=2&name=tab&status=in_use
+    @GetMapping("/page")
+    public ResponseEntity<ApiResponse<AssetPageDto>> getAssetOptionPage(
+            @RequestParam(required = false) Long groupId,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size
+    ) {
+        try {
+            return ResponseEntity.ok(new ApiResponse<>("success",
+                    assetService.getAssetOptionPage(groupId, name, status, page, size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // ✅ Bulk create: /assets/bulk?assetGroupId=2&name=table&qty=24
     @PostMapping("/bulk")
     public ResponseEntity<ApiResponse<Integer>> createBulk(
@@ -70,6 +101,27 @@ public class AssetController {
         return ResponseEntity.noContent().build();
     }
 
+    // ✅ Bulk soft delete: { "assetIds": [1, 2, 3] }
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<ApiResponse<AssetBulkResultDto>> softDeleteBulk(@RequestBody AssetBulkRequest req) {
+        try {
+            return ResponseEntity.ok(new ApiResponse<>("success", assetService.softDeleteAssets(req.getAssetIds())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // ✅ Bulk เปลี่ยนสถานะ: { "assetIds": [1, 2, 3], "status": "broken" }
+    @PatchMapping("/bulk-status")
+    public ResponseEntity<ApiResponse<AssetBulkResultDto>> updateStatusBulk(@RequestBody AssetBulkRequest req) {
+        try {
+            return ResponseEntity.ok(new ApiResponse<>("success",
+                    assetService.updateStatuses(req.getAssetIds(), req.getStatus())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // ✅ เปลี่ยนสถานะ asset เฉพาะชิ้น (เช่น maintenance)
     @PatchMapping("/{id}/status")
     public ResponseEntity<Asset> updateStatus(@PathVariable Long id, @RequestBody UpdateStatusReq req) {
@@ -1,5 +1,6 @@
 package com.organicnow.backend.controller;
 
+import com.organicnow.backend.dto.AssetBulkResultDto;
 import com.organicnow.backend.model.AssetGroup;
 import com.organicnow.backend.service.AssetGroupService;
 import org.springframework.http.ResponseEntity;
@@ -43,10 +44,11 @@ public class AssetGroupController {
     // Delete Asset Group (ลบ Asset ด้วย)
     @DeleteMapping("/delete/{id}")
     public ResponseEntity<Map<String, Object>> deleteAssetGroup(@PathVariable Long id) {
-        int deletedAssets = assetGroupService.deleteAssetGroup(id);
+        AssetBulkResultDto result = assetGroupService.deleteAssetGroup(id);
         return ResponseEntity.ok(Map.of(
                 "message", "deleted_group",
-                "deletedAssets", deletedAssets
+                "deletedAssets", result.getAffected(),
+                "detachedFromRooms", result.getDetachedFromRooms()
         ));
     }
 }
\ No newline at end of file
@@ -1,8 +1,12 @@
 package com.organicnow.backend.controller;
 
 import com.organicnow.backend.dto.DashboardDto;
+import com.organicnow.backend.dto.FinanceMonthlyDto;
+import com.organicnow.backend.dto.MaintainMonthlyDto;
+import com.organicnow.backend.dto.RollupRebuildResultDto;
 import com.organicnow.backend.service.DashboardService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
@@ -15,9 +19,40 @@ public class DashboardController {
 
     private final DashboardService dashboardService;
 
+    // ✅ ?parallel=false → โหลดทีละ section (ไม่ส่ง = ตาม dashboard.parallel.enabled)
     @GetMapping
-    public DashboardDto getDashboardData() {
-        return dashboardService.getDashboardData();
+    public DashboardDto getDashboardData(@RequestParam(required = false) Boolean parallel) {
+        return parallel == null
+                ? dashboardService.getDashboardData()
+                : dashboardService.getDashboardData(parallel);
+    }
+
+    // ✅ การเงินรายเดือนช่วงใดก็ได้ เช่น /dashboard/finances?from=2023-01&to=2024-12 (ไม่ส่ง = 12 เดือนล่าสุด)
+    @GetMapping("/finances")
+    public ResponseEntity<List<FinanceMonthlyDto>> getFinanceStats(@RequestParam(required = false) String from,
+                                                                   @RequestParam(required = false) String to) {
+        try {
+            return ResponseEntity.ok(dashboardService.getFinanceStats(from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // ✅ รีเควสซ่อมรายเดือนช่วงใดก็ได้
+    @GetMapping("/maintains")
+    public ResponseEntity<List<MaintainMonthlyDto>> getMaintainRequests(@RequestParam(required = false) String from,
+                                                                        @RequestParam(required = false) String to) {
+        try {
+            return ResponseEntity.ok(dashboardService.getMaintainRequests(from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // ✅ สร้าง finance_monthly / maintain_monthly ใหม่จากตารางจริง
+    @PostMapping("/rollups/rebuild")
+    public RollupRebuildResultDto rebuildRollups() {
+        return dashboardService.rebuildRollups();
     }
 }
 
@@ -1,14 +1,29 @@
 package com.organicnow.backend.controller;
 
+import com.organicnow.backend.dto.BillingRunRequest;
+import com.organicnow.backend.dto.BillingRunResultDto;
+import com.organicnow.backend.dto.BulkPaymentRequest;
+import com.organicnow.backend.dto.BulkPaymentResultDto;
 import com.organicnow.backend.dto.CreateInvoiceRequest;
 import com.organicnow.backend.dto.InvoiceDto;
+import com.organicnow.backend.dto.InvoiceFilterRequest;
+import com.organicnow.backend.dto.InvoicePageDto;
 import com.organicnow.backend.dto.UpdateInvoiceRequest;
+import com.organicnow.backend.service.InvoiceBillingService;
+import com.organicnow.backend.service.InvoiceExportService;
+import com.organicnow.backend.service.IdempotencyService;
+import com.organicnow.backend.service.InvoicePaymentService;
 import com.organicnow.backend.service.InvoiceService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -17,9 +32,21 @@ import java.util.Optional;
 public class InvoiceController {
 
     private final InvoiceService invoiceService;
+    private final InvoiceBillingService invoiceBillingService;
+    private final InvoiceExportService invoiceExportService;
+    private final IdempotencyService idempotencyService;
+    private final InvoicePaymentService invoicePaymentService;
 
-    public InvoiceController(InvoiceService invoiceService) {
+    public InvoiceController(InvoiceService invoiceService,
+                             InvoiceBillingService invoiceBillingService,
+                             InvoiceExportService invoiceExportService,
+                             IdempotencyService idempotencyService,
+                             InvoicePaymentService invoicePaymentService) {
         this.invoiceService = invoiceService;
+        this.invoiceBillingService = invoiceBillingService;
+        this.invoiceExportService = invoiceExportService;
+        this.idempotencyService = idempotencyService;
+        this.invoicePaymentService = invoicePaymentService;
     }
 
     // Get all invoices
@@ -33,6 +60,63 @@ public class InvoiceController {
         }
     }
 
+    // Get invoices page (keyset pagination + server-side filters)
+    // ex. /invoice/page?size=20&status=0&floor=1&startDate=2025-01-01&cursor=...
+    @GetMapping("/page")
+    public ResponseEntity<InvoicePageDto> getInvoicePage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) Integer floor,
+            @RequestParam(required = false) String room,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) Integer minAmount,
+            @RequestParam(required = false) Integer maxAmount) {
+        try {
+            InvoiceFilterRequest filter = InvoiceFilterRequest.builder()
+                    .cursor(cursor)
+                    .size(size)
+                    .status(status)
+                    .floor(floor)
+                    .room(room)
+                    .startDate(startDate != null ? LocalDateTime.parse(startDate + "T00:00:00") : null)
+                    .endDate(endDate != null ? LocalDateTime.parse(endDate + "T23:59:59") : null)
+                    .minAmount(minAmount)
+                    .maxAmount(maxAmount)
+                    .build();
+            return ResponseEntity.ok(invoiceService.getInvoicePage(filter));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Export invoices (stream ทีละแถว ไม่โหลดทั้งตารางเข้า memory)
+    // ex. /invoice/export?format=csv&status=1&startDate=2025-01-01&endDate=2025-01-31
+    // archived=false → เฉพาะ invoice ปัจจุบัน (ไม่อ่าน invoice_archive)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(defaultValue = "true") boolean archived) {
+        try {
+            InvoiceExportService.Format exportFormat = InvoiceExportService.Format.from(format);
+            LocalDateTime start = startDate != null ? LocalDateTime.parse(startDate + "T00:00:00") : null;
+            LocalDateTime end = endDate != null ? LocalDateTime.parse(endDate + "T23:59:59") : null;
+
+            StreamingResponseBody body = out -> invoiceExportService.export(exportFormat, status, start, end, archived, out);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(exportFormat.contentType))
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"invoices." + exportFormat.extension + "\"")
+                    .body(body);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // Get invoice by ID
     @GetMapping("/{id}")
     public ResponseEntity<InvoiceDto> getInvoiceById(@PathVariable Long id) {
@@ -134,11 +218,18 @@ public class InvoiceController {
     }
 
     // Create new invoice
+    // ✅ ส่ง header Idempotency-Key มาด้วย → retry ซ้ำได้ จะได้ invoice เดิม (ไม่สร้างซ้ำ)
     @PostMapping("/create")
-    public ResponseEntity<?> createInvoice(@RequestBody CreateInvoiceRequest request) {
+    public ResponseEntity<?> createInvoice(@RequestBody CreateInvoiceRequest request,
+                                           @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         try {
-            InvoiceDto saved = invoiceService.createInvoice(request);
-            return ResponseEntity.ok(saved);
+            if (idempotencyKey == null || idempotencyKey.isBlank()) {
+                return ResponseEntity.ok(invoiceService.createInvoice(request));
+            }
+            return idempotencyService.execute("POST /invoice/create", idempotencyKey, request, InvoiceDto.class,
+                    () -> ResponseEntity.ok(invoiceService.createInvoice(request)));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Create invoice failed: " + e.getMessage());
         }
@@ -146,10 +237,16 @@ public class InvoiceController {
 
     // Update invoice
     @PutMapping("/update/{id}")
-    public ResponseEntity<InvoiceDto> updateInvoice(@PathVariable Long id, @RequestBody UpdateInvoiceRequest request) {
+    public ResponseEntity<InvoiceDto> updateInvoice(@PathVariable Long id, @RequestBody UpdateInvoiceRequest request,
+                                                    @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         try {
-            InvoiceDto updatedInvoice = invoiceService.updateInvoice(id, request);
-            return ResponseEntity.ok(updatedInvoice);
+            if (idempotencyKey == null || idempotencyKey.isBlank()) {
+                return ResponseEntity.ok(invoiceService.updateInvoice(id, request));
+            }
+            return idempotencyService.execute("PUT /invoice/update/" + id, idempotencyKey, request, InvoiceDto.class,
+                    () -> ResponseEntity.ok(invoiceService.updateInvoice(id, request)));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -161,6 +258,8 @@ public class InvoiceController {
         try {
             InvoiceDto paidInvoice = invoiceService.markAsPaid(id);
             return ResponseEntity.ok(paidInvoice);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -172,6 +271,8 @@ public class InvoiceController {
         try {
             InvoiceDto cancelledInvoice = invoiceService.cancelInvoice(id);
             return ResponseEntity.ok(cancelledInvoice);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -183,6 +284,50 @@ public class InvoiceController {
         try {
             InvoiceDto invoiceWithPenalty = invoiceService.addPenalty(id, penaltyAmount);
             return ResponseEntity.ok(invoiceWithPenalty);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Bulk payment: บันทึกการชำระหลายใบในครั้งเดียว (ผลลัพธ์รายใบ)
+    @PostMapping("/payments/bulk")
+    public ResponseEntity<BulkPaymentResultDto> markPaidBulk(@RequestBody BulkPaymentRequest request,
+                                                             @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        try {
+            if (idempotencyKey == null || idempotencyKey.isBlank()) {
+                return ResponseEntity.ok(invoicePaymentService.markPaid(request));
+            }
+            // ✅ retry ด้วย key เดิม → ได้ผลรายใบชุดเดิม (ไม่กลายเป็น ALREADY_PAID ทั้งหมด)
+            return idempotencyService.execute("POST /invoice/payments/bulk", idempotencyKey, request, BulkPaymentResultDto.class,
+                    () -> ResponseEntity.ok(invoicePaymentService.markPaid(request)));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Run penalty job now (ปกติรันโดย InvoicePenaltyScheduler)
+    @PostMapping("/penalties/apply")
+    public ResponseEntity<Map<String, Object>> applyOverduePenalties() {
+        try {
+            int updated = invoiceService.applyOverduePenalties();
+            return ResponseEntity.ok(Map.of(
+                    "message", "penalties_applied",
+                    "updated", updated
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Monthly billing run: ออกบิลให้ทุกสัญญา active ของรอบเดือน (รันซ้ำได้)
+    @PostMapping("/billing-run")
+    public ResponseEntity<BillingRunResultDto> runMonthlyBilling(@RequestBody BillingRunRequest request) {
+        try {
+            return ResponseEntity.ok(invoiceBillingService.runMonthlyBilling(request));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
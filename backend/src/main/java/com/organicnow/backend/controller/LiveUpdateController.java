@@ -0,0 +1,22 @@
+package com.organicnow.backend.controller;
+
+import com.organicnow.backend.service.LiveUpdateService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/events")
+@CrossOrigin(origins = "http://localhost:5173", allowCredentials = "true")
+@RequiredArgsConstructor
+public class LiveUpdateController {
+
+    private final LiveUpdateService liveUpdateService;
+
+    // ✅ SSE stream แทนการ poll: unread-count / notification / room-status / resync
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return liveUpdateService.subscribe();
+    }
+}
@@ -1,13 +1,19 @@
 package com.organicnow.backend.controller;
 
+import com.organicnow.backend.dto.AvailabilitySearchResultDto;
+import com.organicnow.backend.dto.RoomAssetBulkResultDto;
 import com.organicnow.backend.dto.RoomDetailDto;
+import com.organicnow.backend.dto.RoomPageDto;
 import com.organicnow.backend.dto.RoomUpdateDto;
+import com.organicnow.backend.service.RoomAssetAssignmentService;
+import com.organicnow.backend.service.RoomAvailabilityService;
 import com.organicnow.backend.service.RoomService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/room")
@@ -27,6 +33,8 @@ import java.util.List;
 public class RoomController {
 
     private final RoomService roomService;
+    private final RoomAvailabilityService roomAvailabilityService;
+    private final RoomAssetAssignmentService roomAssetAssignmentService;
 
     // ✅ ดึงข้อมูลห้องแบบละเอียด
     @GetMapping("/{id}/detail")
@@ -50,6 +58,38 @@ public class RoomController {
         return getAllRooms();
     }
 
+    // ✅ room list แบบแบ่งหน้า + filter
+    // ex. /room/page?floor=2&status=occupied&tenant=som&page=0&size=50
+    @GetMapping("/page")
+    public ResponseEntity<RoomPageDto> getRoomPage(
+            @RequestParam(required = false) Integer floor,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String tenant,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(roomService.getRoomPage(floor, status, tenant, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // ✅ ค้นห้องว่างตามช่วงวัน (จาก index ใน memory)
+    // ex. /room/availability?start=2026-01-01&end=2026-06-30&floor=2
+    //     /room/availability?start=2026-01-01&packageId=3   (end = start + ระยะสัญญาของ package)
+    @GetMapping("/availability")
+    public ResponseEntity<AvailabilitySearchResultDto> searchAvailability(
+            @RequestParam(required = false) String start,
+            @RequestParam(required = false) String end,
+            @RequestParam(required = false) Integer floor,
+            @RequestParam(required = false) Long packageId) {
+        try {
+            return ResponseEntity.ok(roomAvailabilityService.search(start, end, floor, packageId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // ✅ เพิ่ม Asset เข้า Room
     @PostMapping("/{roomId}/assets/{assetId}")
     public ResponseEntity<?> addAssetToRoom(
@@ -92,6 +132,16 @@ public class RoomController {
         }
     }
 
+    // ✅ อัปเดต Asset หลายห้องในครั้งเดียว: { "12": [1, 2, 3], "13": [] } (roomId → asset ทั้งชุดของห้อง)
+    @PutMapping("/assets/bulk")
+    public ResponseEntity<RoomAssetBulkResultDto> updateRoomAssetsBulk(@RequestBody Map<Long, List<Long>> roomAssets) {
+        try {
+            return ResponseEntity.ok(roomAssetAssignmentService.assign(roomAssets));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // ✅ อัปเดตข้อมูลพื้นฐานของห้อง (floor, number)
     @PutMapping("/{id}")
     public ResponseEntity<?> updateRoomInfo(
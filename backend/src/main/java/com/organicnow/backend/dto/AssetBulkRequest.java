@@ -0,0 +1,10 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+import java.util.List;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class AssetBulkRequest {
+    private List<Long> assetIds;
+    private String status; // ใช้กับ bulk-status: available | maintenance | broken | deleted
+}
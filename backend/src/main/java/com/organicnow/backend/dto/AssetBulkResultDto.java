@@ -0,0 +1,11 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class AssetBulkResultDto {
+    private int requested;          // จำนวน id ใน request (ไม่นับซ้ำ) / 1 สำหรับการลบกลุ่ม
+    private int affected;           // asset ที่ถูกเปลี่ยน/ลบจริง
+    private int detachedFromRooms;  // แถว room_asset ที่ถูกตัดออก
+    private long elapsedMs;
+}
@@ -27,6 +27,16 @@ public class AssetDto {
         this.status = "Active"; // ค่า default
     }
 
+    // 🆕 Constructor สำหรับ asset picker แบบแบ่งหน้า (status จริงของ asset)
+    public AssetDto(Long assetId, String assetName, String assetType, Integer floor, String room, String status) {
+        this.assetId = assetId;
+        this.assetName = assetName;
+        this.assetType = assetType;
+        this.floor = floor;
+        this.room = room;
+        this.status = status;
+    }
+
     // ===== Getters & Setters =====
     public Long getAssetId() { return assetId; }
     public void setAssetId(Long assetId) { this.assetId = assetId; }
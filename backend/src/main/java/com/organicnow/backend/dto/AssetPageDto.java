@@ -0,0 +1,18 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AssetPageDto {
+    private List<AssetDto> items;   // asset ในหน้านี้ (เรียงตามชื่อ)
+    private int page;               // เริ่มที่ 0
+    private int size;               // ขนาดหน้าที่ใช้จริง
+    private long totalElements;     // จำนวน asset ทั้งหมดที่ตรงกับ filter
+    private int totalPages;
+}
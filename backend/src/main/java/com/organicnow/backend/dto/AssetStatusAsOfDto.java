@@ -0,0 +1,18 @@
+package com.organicnow.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssetStatusAsOfDto {
+    private Long assetId;
+    private String assetName;        // ชื่อ ณ เวลานั้น (snapshot ใน event — asset อาจถูกลบ/เปลี่ยนชื่อไปแล้ว)
+    private Long assetGroupId;
+    private String status;
+    private LocalDateTime since;      // เวลาที่เปลี่ยนเป็นสถานะนี้
+}
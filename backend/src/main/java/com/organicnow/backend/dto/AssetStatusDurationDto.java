@@ -0,0 +1,17 @@
+package com.organicnow.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssetStatusDurationDto {
+    private Long assetGroupId;
+    private String assetGroupName;
+    private String status;
+    private int assets;               // จำนวน asset ที่อยู่ในสถานะนี้ (ช่วงใดช่วงหนึ่ง) ภายในช่วงเวลา
+    private long totalSeconds;        // เวลารวมของทุก asset ในสถานะนี้
+    private double avgHoursPerAsset;
+}
@@ -0,0 +1,13 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class AssetStatusDurationReportDto {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<AssetStatusDurationDto> durations;   // เรียงตามกลุ่ม แล้วตามสถานะ
+}
@@ -0,0 +1,15 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class AssetStatusSnapshotDto {
+    private LocalDateTime at;
+    private int totalAssets;
+    private Map<String, Long> counts;          // จำนวน asset ต่อสถานะ ณ เวลา at
+    private List<AssetStatusAsOfDto> assets;   // สถานะของแต่ละ asset (เรียงตาม assetId)
+}
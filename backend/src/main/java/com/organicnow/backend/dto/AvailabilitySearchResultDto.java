@@ -0,0 +1,15 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class AvailabilitySearchResultDto {
+    private LocalDate start;
+    private LocalDate end;                          // ถ้าไม่ส่งมา = start + ระยะสัญญาของ package
+    private List<RoomAvailabilityDto> availableRooms;
+    private List<RoomAvailabilityDto> occupiedRooms;
+    private long tookMicros;                        // เวลาค้นใน index (ไม่รวม resolve package)
+}
@@ -0,0 +1,29 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class BillingRunRequest {
+    // รอบบิล รูปแบบ yyyy-MM เช่น "2025-10"
+    private String billingMonth;
+
+    // ถ้าไม่ส่งมา → วันที่ 1 ของรอบบิล + 30 วัน (เหมือน createInvoice)
+    private LocalDateTime dueDate;
+
+    // อัตราต่อหน่วย (ไม่ส่งมา → ค่า default เดียวกับ createInvoice)
+    private Integer waterRate;
+    private Integer electricityRate;
+
+    // เลขมิเตอร์ที่จดมาของแต่ละห้อง
+    private List<MeterReading> readings;
+
+    // Nested DTO สำหรับหน่วยน้ำ/ไฟของแต่ละห้อง
+    @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+    public static class MeterReading {
+        private String roomNumber;
+        private Integer waterUnit;
+        private Integer electricityUnit;
+    }
+}
@@ -0,0 +1,14 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+import java.util.List;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class BillingRunResultDto {
+    private String billingMonth;
+    private int activeContracts;   // สัญญา active ในรอบบิลนี้
+    private int created;           // สร้าง invoice ใหม่
+    private int skippedExisting;   // มี invoice ของรอบนี้อยู่แล้ว (รันซ้ำ)
+    private List<String> missingReadings; // ห้องที่ไม่มีเลขมิเตอร์ → ไม่ออกบิล
+    private long elapsedMs;
+}
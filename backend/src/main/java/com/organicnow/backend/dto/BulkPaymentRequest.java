@@ -0,0 +1,19 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class BulkPaymentRequest {
+    // รายการโอนเงินที่กระทบยอดแล้ว (เช่น จาก statement ธนาคารสิ้นเดือน)
+    private List<Payment> payments;
+
+    // Nested DTO สำหรับการชำระของแต่ละใบ
+    @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+    public static class Payment {
+        private Long invoiceId;
+        private LocalDateTime payDate; // ไม่ส่งมา → เวลาปัจจุบัน
+        private Integer payMethod;     // 1=เงินสด, 2=โอนเงิน, 3=เช็ค (ไม่ส่งมา → คงค่าเดิม)
+    }
+}
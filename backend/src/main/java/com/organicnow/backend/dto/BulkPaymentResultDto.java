@@ -0,0 +1,28 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+import java.util.List;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class BulkPaymentResultDto {
+    private int requested;
+    private int paid;
+    private int failed;
+    private List<Outcome> results; // เรียงตามลำดับใน request
+    private long elapsedMs;
+
+    public enum Status {
+        PAID,          // บันทึกการชำระแล้ว
+        ALREADY_PAID,  // ชำระไปก่อนหน้านี้แล้ว
+        CANCELLED,     // ใบถูกยกเลิก
+        NOT_FOUND,     // ไม่มี invoice นี้
+        DUPLICATE,     // invoiceId ซ้ำใน request เดียวกัน (ใช้รายการแรก)
+        INVALID        // ไม่มี invoiceId
+    }
+
+    @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+    public static class Outcome {
+        private Long invoiceId;
+        private Status status;
+    }
+}
@@ -1,5 +1,6 @@
 package com.organicnow.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,4 +15,14 @@ public class DashboardDto {
     private List<Map<String, Object>> rooms;         // ห้องกับสถานะ
     private List<MaintainMonthlyDto> maintains;      // รีเควสซ่อมย้อนหลัง 12 เดือน
     private List<FinanceMonthlyDto> finances;       // การเงินย้อนหลัง 12 เดือน
+
+    // ✅ section ที่โหลดไม่สำเร็จ (เช่น "finances" → "timeout") ข้อมูล section นั้นเป็น null; ว่าง = ครบทุก section
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, String> errors;
+
+    public DashboardDto(List<Map<String, Object>> rooms,
+                        List<MaintainMonthlyDto> maintains,
+                        List<FinanceMonthlyDto> finances) {
+        this(rooms, maintains, finances, Map.of());
+    }
 }
@@ -0,0 +1,16 @@
+package com.organicnow.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FloorTurnoverDto {
+    private Integer floor;
+    private int rooms;
+    private int moveIns;              // ห้องว่าง → มีผู้เช่า ภายในช่วง (ไม่นับที่มีผู้เช่าอยู่แล้ว ณ วันแรก)
+    private int moveOuts;             // มีผู้เช่า → ว่าง ภายในช่วง
+    private double turnoverRate;      // moveOuts / rooms
+}
@@ -2,6 +2,7 @@ package com.organicnow.backend.dto;
 
 import lombok.*;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Getter
 @Setter
@@ -44,6 +45,49 @@ public class InvoiceDto {
     private Integer electricityUnit;
     private Integer penalty; // จาก penaltyTotal > 0 ? 1 : 0
     private LocalDateTime penaltyDate; // จาก penaltyAppliedAt
+    private List<InvoiceItemDto> items; // รายการ invoice_item (list / page / รายใบ)
+
+    // ---------- Constructor สำหรับ JPQL (projection: ไม่ต้องโหลด entity) ----------
+    public InvoiceDto(Long id, Long contractId,
+                      LocalDateTime createDate, LocalDateTime dueDate,
+                      Integer invoiceStatus, LocalDateTime payDate, Integer payMethod,
+                      Integer subTotal, Integer penaltyTotal, Integer netAmount,
+                      LocalDateTime penaltyAppliedAt,
+                      String firstName, String lastName, String nationalId,
+                      String phoneNumber, String email, String packageName,
+                      LocalDateTime signDate, LocalDateTime startDate, LocalDateTime endDate,
+                      Integer floor, String room, Integer rent,
+                      Integer water, Integer waterUnit,
+                      Integer electricity, Integer electricityUnit) {
+        this.id = id;
+        this.contractId = contractId;
+        this.createDate = createDate;
+        this.dueDate = dueDate;
+        this.invoiceStatus = invoiceStatus;
+        this.payDate = payDate;
+        this.payMethod = payMethod;
+        this.subTotal = subTotal;
+        this.penaltyTotal = penaltyTotal;
+        this.netAmount = netAmount;
+        this.penaltyAppliedAt = penaltyAppliedAt;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.nationalId = nationalId;
+        this.phoneNumber = phoneNumber;
+        this.email = email;
+        this.packageName = packageName;
+        this.signDate = signDate;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.floor = floor;
+        this.room = room;
+        this.rent = rent;
+        this.water = water;
+        this.waterUnit = waterUnit;
+        this.electricity = electricity;
+        this.electricityUnit = electricityUnit;
+        this.penaltyDate = penaltyAppliedAt;
+    }
 
     // Status text helper
     public String getStatusText() {
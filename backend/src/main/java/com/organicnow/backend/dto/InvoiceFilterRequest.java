@@ -0,0 +1,25 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InvoiceFilterRequest {
+
+    private Integer status;             // 0=ยังไม่ชำระ, 1=ชำระแล้ว, 2=ยกเลิก
+    private Integer floor;              // ชั้น
+    private String room;                // เลขห้อง
+    private LocalDateTime startDate;    // create_date >= startDate
+    private LocalDateTime endDate;      // create_date <= endDate
+    private Integer minAmount;          // net_amount >= minAmount
+    private Integer maxAmount;          // net_amount <= maxAmount
+
+    // ===== keyset pagination =====
+    private String cursor;              // continuation token จากหน้าก่อนหน้า (null = หน้าแรก)
+    private Integer size;               // จำนวนต่อหน้า
+}
@@ -0,0 +1,17 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InvoiceItemDto {
+    private Long invoiceId;
+    private Long feeId;
+    private String feeName;   // ค่าเช่า / ค่าน้ำ / ค่าไฟ
+    private Integer quantity; // จำนวนหน่วย
+    private Integer unitFee;  // ราคาต่อหน่วย (snapshot)
+    private Integer totalFee; // quantity × unitFee (หรือยอดที่กรอกมา)
+}
@@ -0,0 +1,17 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InvoicePageDto {
+    private List<InvoiceDto> items;     // invoice ในหน้านี้ (create_date, invoice_id ใหม่ → เก่า)
+    private String nextCursor;          // ส่งกลับมาเป็น cursor เพื่อดึงหน้าถัดไป (null = หมดแล้ว)
+    private boolean hasMore;            // ยังมีหน้าถัดไปหรือไม่
+    private int size;                   // ขนาดหน้าที่ใช้จริง
+}
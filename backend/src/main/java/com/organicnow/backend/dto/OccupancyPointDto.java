@@ -0,0 +1,16 @@
+package com.organicnow.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccupancyPointDto {
+    private String period;            // วันแรกของช่วง (yyyy-MM-dd) ตัดตาม from
+    private int days;                 // จำนวนวันในช่วง (ช่วงแรก/สุดท้ายอาจไม่เต็มสัปดาห์/เดือน)
+    private long occupiedRoomDays;    // ห้อง-วัน ที่มีสัญญา
+    private long roomDays;            // ห้องทั้งหมด × days
+    private double occupancyRate;     // occupiedRoomDays / roomDays (0..1)
+}
@@ -0,0 +1,17 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class OccupancyReportDto {
+    private LocalDate from;
+    private LocalDate to;
+    private String granularity;               // DAY | WEEK | MONTH
+    private int totalRooms;
+    private List<OccupancyPointDto> curve;    // อัตราเข้าพักต่อช่วง
+    private List<RoomVacancyDto> vacancies;   // ระยะเวลาว่างต่อห้อง
+    private List<FloorTurnoverDto> turnover;  // การย้ายเข้า/ออกต่อชั้น
+}
@@ -0,0 +1,10 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class RollupRebuildResultDto {
+    private int financeMonths;    // จำนวนเดือนใน finance_monthly หลังสร้างใหม่
+    private int maintainMonths;   // จำนวนเดือนใน maintain_monthly หลังสร้างใหม่
+    private long elapsedMs;
+}
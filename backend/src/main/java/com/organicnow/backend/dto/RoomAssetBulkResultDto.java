@@ -0,0 +1,14 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+import java.util.List;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class RoomAssetBulkResultDto {
+    private int rooms;                     // จำนวนห้องใน request
+    private int added;                     // แถว room_asset ที่เพิ่ม
+    private int removed;                   // แถว room_asset ที่ลบ
+    private int unchanged;                 // ผูกอยู่แล้ว ไม่ต้องทำอะไร
+    private List<Long> rejectedAssetIds;   // ไม่ว่าง (อยู่ห้องอื่น / ไม่ใช่ available / ไม่มีอยู่) → ไม่ได้ผูก
+    private long elapsedMs;
+}
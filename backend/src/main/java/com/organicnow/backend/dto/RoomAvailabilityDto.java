@@ -0,0 +1,18 @@
+package com.organicnow.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomAvailabilityDto {
+    private Long roomId;
+    private String roomNumber;
+    private Integer floor;
+    private boolean available;          // ว่างตลอดช่วงที่ค้น
+    private LocalDate nextAvailableFrom; // ห้องไม่ว่าง: วันแรกที่ว่างต่อเนื่องยาวเท่าช่วงที่ค้น (null = สัญญาไม่มีวันสิ้นสุด)
+}
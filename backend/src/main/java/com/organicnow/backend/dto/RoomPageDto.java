@@ -0,0 +1,18 @@
+package com.organicnow.backend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RoomPageDto {
+    private List<RoomDetailDto> items;  // ห้องในหน้านี้ (เรียงชั้น, เลขห้อง) พร้อม assets + requests
+    private int page;                   // เริ่มที่ 0
+    private int size;                   // ขนาดหน้าที่ใช้จริง
+    private long totalElements;         // จำนวนห้องทั้งหมดที่ตรงกับ filter
+    private int totalPages;
+}
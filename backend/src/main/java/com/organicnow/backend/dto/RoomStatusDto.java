@@ -0,0 +1,12 @@
+package com.organicnow.backend.dto;
+
+/**
+ * แถวของ grid สถานะห้องบน Dashboard
+ * status: 0 = available, 1 = unavailable (มีสัญญา active), 2 = repair (มีงานซ่อมค้าง)
+ */
+public record RoomStatusDto(Long roomId, String roomNumber, Integer status) {
+
+    public static final int AVAILABLE = 0;
+    public static final int UNAVAILABLE = 1;
+    public static final int REPAIR = 2;
+}
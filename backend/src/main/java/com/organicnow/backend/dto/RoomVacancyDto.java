@@ -0,0 +1,17 @@
+package com.organicnow.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomVacancyDto {
+    private Long roomId;
+    private String roomNumber;
+    private Integer floor;
+    private int vacantDays;           // รวมวันที่ว่างในช่วง
+    private int vacancyPeriods;       // จำนวนช่วงว่างต่อเนื่อง
+    private int longestVacancyDays;   // ช่วงว่างที่ยาวที่สุด
+}
@@ -0,0 +1,26 @@
+package com.organicnow.backend.event;
+
+import java.util.Set;
+
+/**
+ * ✅ มีการสร้าง/แก้ไข/ลบ/หมดอายุ contract หรือแก้ชั้น/เลขห้อง (RoomService.updateRoom)
+ *    roomIds = ห้องที่ได้รับผลกระทบ (ว่าง = อาจกระทบทุกห้อง เช่น bulk update ของ scheduler)
+ */
+public record ContractChangedEvent(Set<Long> roomIds) {
+
+    public static ContractChangedEvent allRooms() {
+        return new ContractChangedEvent(Set.of());
+    }
+
+    public static ContractChangedEvent ofRooms(Long... roomIds) {
+        Set<Long> ids = new java.util.HashSet<>();
+        for (Long id : roomIds) {
+            if (id != null) ids.add(id);
+        }
+        return new ContractChangedEvent(Set.copyOf(ids));
+    }
+
+    public boolean affectsAllRooms() {
+        return roomIds.isEmpty();
+    }
+}
@@ -0,0 +1,27 @@
+package com.organicnow.backend.event;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * ✅ มีการสร้าง/แก้ไข/ลบ/ชำระ/คิด penalty invoice
+ *    invoiceIds = invoice ที่เปลี่ยน (ว่าง = อาจกระทบหลายใบ เช่น billing run, penalty scheduler)
+ */
+public record InvoiceChangedEvent(Set<Long> invoiceIds) {
+
+    public static InvoiceChangedEvent allInvoices() {
+        return new InvoiceChangedEvent(Set.of());
+    }
+
+    public static InvoiceChangedEvent ofInvoices(Long... invoiceIds) {
+        Set<Long> ids = new HashSet<>();
+        for (Long id : invoiceIds) {
+            if (id != null) ids.add(id);
+        }
+        return new InvoiceChangedEvent(Set.copyOf(ids));
+    }
+
+    public boolean affectsAllInvoices() {
+        return invoiceIds.isEmpty();
+    }
+}
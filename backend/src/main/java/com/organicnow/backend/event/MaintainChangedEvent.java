@@ -0,0 +1,8 @@
+package com.organicnow.backend.event;
+
+/**
+ * ✅ มีการสร้าง/แก้ไข/ลบ รีเควสซ่อม
+ *    maintainId = รีเควสที่เปลี่ยน
+ */
+public record MaintainChangedEvent(Long maintainId) {
+}
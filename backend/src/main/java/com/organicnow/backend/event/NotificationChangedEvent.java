@@ -0,0 +1,18 @@
+package com.organicnow.backend.event;
+
+import com.organicnow.backend.dto.NotificationDto;
+
+/**
+ * ✅ มีการสร้าง/อ่าน/ลบ notification (จำนวนที่ยังไม่อ่านอาจเปลี่ยน)
+ *    created = notification ที่เพิ่งสร้าง (null = อ่านแล้ว/ลบ)
+ */
+public record NotificationChangedEvent(NotificationDto created) {
+
+    public static NotificationChangedEvent created(NotificationDto notification) {
+        return new NotificationChangedEvent(notification);
+    }
+
+    public static NotificationChangedEvent updated() {
+        return new NotificationChangedEvent(null);
+    }
+}
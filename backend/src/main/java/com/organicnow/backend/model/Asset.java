@@ -12,8 +12,11 @@ import lombok.*;
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Asset {
 
+    // ✅ sequence แบบ pooled (จองทีละ 50) → Hibernate รวม INSERT เป็น JDBC batch ได้ (IDENTITY ต้อง insert ทีละแถว)
+    //    SQL ที่ insert เอง (data.sql) ใช้ default nextval('asset_seq') ไม่ชนกับช่วงที่ Hibernate จองไว้
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "asset_seq")
+    @SequenceGenerator(name = "asset_seq", sequenceName = "asset_seq", allocationSize = 50)
     @Column(name = "asset_id")
     private Long id;
 
@@ -8,7 +8,15 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "contract")
+@Table(
+        name = "contract",
+        indexes = {
+                // invoice ตาม tenant / search ตามชื่อ tenant
+                @Index(name = "idx_contract_tenant", columnList = "tenant_id"),
+                // หา contract active ของห้อง: room_id + status = 1 + end_date >= now
+                @Index(name = "idx_contract_room_status_end", columnList = "room_id, status, end_date")
+        }
+)
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Contract {
 
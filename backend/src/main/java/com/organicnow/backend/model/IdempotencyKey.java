@@ -0,0 +1,49 @@
+package com.organicnow.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * ✅ เก็บผลลัพธ์ของ request ที่มี Idempotency-Key (ใช้ replay เมื่อ client retry)
+ *    statusCode = null → กำลังประมวลผล (claim ไว้แล้ว) จนถึง lockedUntil
+ */
+@Entity
+@Table(
+        name = "idempotency_key",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_scope_key", columnNames = {"scope", "idem_key"}),
+        indexes = @Index(name = "idx_idempotency_expires", columnList = "expires_at")
+)
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class IdempotencyKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "idempotency_id")
+    private Long id;
+
+    @Column(name = "scope", nullable = false, length = 100)
+    private String scope; // เช่น "POST /invoice/create"
+
+    @Column(name = "idem_key", nullable = false, length = 100)
+    private String idemKey; // ค่าจาก header Idempotency-Key
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash; // SHA-256 ของ request body (กันใช้ key ซ้ำกับ payload อื่น)
+
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody; // JSON
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil; // lease ของ claim: เลยเวลานี้แล้วยังไม่มีผล → request ถัดไปยึด key ได้
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
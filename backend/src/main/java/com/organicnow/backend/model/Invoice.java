@@ -6,7 +6,29 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "invoice")
+@Table(
+        name = "invoice",
+        uniqueConstraints = {
+                // billing run: 1 สัญญา ออกบิลได้ครั้งเดียวต่อรอบเดือน (billing_month null = บิลที่สร้างเอง)
+                @UniqueConstraint(name = "uk_invoice_contract_billing_month", columnNames = {"contract_id", "billing_month"})
+        },
+        indexes = {
+                // FK → contract (postgres ไม่สร้าง index ให้ FK อัตโนมัติ)
+                @Index(name = "idx_invoice_contract", columnList = "contract_id"),
+                // keyset pagination: ORDER BY create_date DESC, invoice_id DESC
+                @Index(name = "idx_invoice_create_date_id", columnList = "create_date, invoice_id"),
+                // filter ตามสถานะ + keyset
+                @Index(name = "idx_invoice_status_create_date", columnList = "invoice_status, create_date, invoice_id"),
+                // penalty job: invoice_status = 0 AND penalty_total = 0 AND due_date < now
+                @Index(name = "idx_invoice_status_penalty_due", columnList = "invoice_status, penalty_total, due_date"),
+                // overdue list: invoice_status = 0 AND due_date < now
+                @Index(name = "idx_invoice_status_due", columnList = "invoice_status, due_date"),
+                // filter ตามชั้น/ห้อง + keyset
+                @Index(name = "idx_invoice_floor_room", columnList = "requested_floor, requested_room, create_date"),
+                // filter ตามช่วงยอดเงิน
+                @Index(name = "idx_invoice_net_amount", columnList = "net_amount")
+        }
+)
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Invoice {
 
@@ -26,6 +48,9 @@ public class Invoice {
     @Column(name = "due_date", nullable = false)
     private LocalDateTime dueDate; // วันครบกำหนดชำระ
 
+    @Column(name = "billing_month", length = 7)
+    private String billingMonth; // รอบบิล yyyy-MM (เฉพาะบิลจาก billing run)
+
     /** 0=ยังไม่ชำระ, 1=ชำระแล้ว, 2=ยกเลิก */
     @Min(0) @Max(2)
     @Column(name = "invoice_status", nullable = false)
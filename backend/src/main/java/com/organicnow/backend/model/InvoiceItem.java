@@ -3,7 +3,8 @@ package com.organicnow.backend.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
-
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 @Entity
 @Table(
@@ -29,8 +30,17 @@ public class InvoiceItem {
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "invoice_id", nullable = false,
             foreignKey = @ForeignKey(name = "fk_invoice_item_invoice"))
+    @OnDelete(action = OnDeleteAction.CASCADE) // ✅ ลบ invoice แล้วรายการหายตาม (FK ON DELETE CASCADE)
     private Invoice invoice; // Invoice_id -> Invoice
 
+    @PositiveOrZero
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity; // จำนวนหน่วย (ค่าเช่า = 1)
+
+    @PositiveOrZero
+    @Column(name = "unit_fee", nullable = false)
+    private Integer unitFee; // ราคาต่อหน่วย ณ วันออกบิล (snapshot จาก Fee)
+
     @PositiveOrZero
     @Column(name = "total_fee", nullable = false)
     private Integer totalFee; // ราคาที่ต้องจ่าย (snapshot)
@@ -0,0 +1,121 @@
+package com.organicnow.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Synchronize;
+
+import java.time.LocalDateTime;
+
+/**
+ * ✅ Read model ของ invoice (denormalized: invoice + contract + room + tenant + package + contract type)
+ *    เขียนโดย trigger ใน DB เท่านั้น (ดู data.sql: invoice_view_refresh) — ฝั่ง app อ่านอย่างเดียว
+ */
+@Entity
+@Immutable
+@Synchronize({"invoice", "contract", "tenant", "room", "package_plan", "contract_type"}) // ให้ Hibernate flush ตารางต้นทางก่อน query read model
+@Table(
+        name = "invoice_view",
+        indexes = {
+                // tenant detail: invoice ตาม contract เรียงใหม่ → เก่า
+                @Index(name = "idx_invoice_view_contract", columnList = "contract_id, invoice_id"),
+                // refresh เมื่อ tenant เปลี่ยน
+                @Index(name = "idx_invoice_view_tenant", columnList = "tenant_id"),
+                // dashboard: สรุปการเงิน 12 เดือน
+                @Index(name = "idx_invoice_view_finance", columnList = "create_date, invoice_status, penalty_total")
+        }
+)
+@Getter @NoArgsConstructor @AllArgsConstructor @Builder
+public class InvoiceView {
+
+    @Id
+    @Column(name = "invoice_id")
+    private Long invoiceId;
+
+    @Column(name = "contract_id", nullable = false)
+    private Long contractId;
+
+    @Column(name = "tenant_id")
+    private Long tenantId;
+
+    @Column(name = "room_id")
+    private Long roomId;
+
+    @Column(name = "create_date", nullable = false)
+    private LocalDateTime createDate;
+
+    @Column(name = "due_date", nullable = false)
+    private LocalDateTime dueDate;
+
+    @Column(name = "invoice_status", nullable = false)
+    private Integer invoiceStatus;
+
+    @Column(name = "pay_date")
+    private LocalDateTime payDate;
+
+    @Column(name = "pay_method")
+    private Integer payMethod;
+
+    @Column(name = "sub_total", nullable = false)
+    private Integer subTotal;
+
+    @Column(name = "penalty_total", nullable = false)
+    private Integer penaltyTotal;
+
+    @Column(name = "net_amount", nullable = false)
+    private Integer netAmount;
+
+    @Column(name = "penalty_applied_at")
+    private LocalDateTime penaltyAppliedAt;
+
+    // tenant
+    @Column(name = "first_name")
+    private String firstName;
+
+    @Column(name = "last_name")
+    private String lastName;
+
+    @Column(name = "national_id")
+    private String nationalId;
+
+    @Column(name = "phone_number")
+    private String phoneNumber;
+
+    @Column(name = "email")
+    private String email;
+
+    // package / contract
+    @Column(name = "package_name")
+    private String packageName;
+
+    @Column(name = "sign_date")
+    private LocalDateTime signDate;
+
+    @Column(name = "start_date")
+    private LocalDateTime startDate;
+
+    @Column(name = "end_date")
+    private LocalDateTime endDate;
+
+    // room + ค่าใช้จ่าย (ค่าจาก request ก่อน ถ้าไม่มีค่อยใช้จาก contract)
+    @Column(name = "floor")
+    private Integer floor;
+
+    @Column(name = "room")
+    private String room;
+
+    @Column(name = "rent")
+    private Integer rent;
+
+    @Column(name = "water")
+    private Integer water;
+
+    @Column(name = "water_unit")
+    private Integer waterUnit;
+
+    @Column(name = "electricity")
+    private Integer electricity;
+
+    @Column(name = "electricity_unit")
+    private Integer electricityUnit;
+}
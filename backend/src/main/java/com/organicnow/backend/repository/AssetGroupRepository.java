@@ -2,9 +2,17 @@ package com.organicnow.backend.repository;
 
 import com.organicnow.backend.model.AssetGroup;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AssetGroupRepository extends JpaRepository<AssetGroup, Long> {
     boolean existsByAssetGroupName(String assetGroupName);
-}
\ No newline at end of file
+
+    // ✅ ลบด้วย DELETE ตรง → คืนจำนวนแถว (0 = ไม่มีกลุ่มนี้)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM AssetGroup g WHERE g.id = :id")
+    int deleteGroupById(@Param("id") Long id);
+}
@@ -0,0 +1,43 @@
+package com.organicnow.backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * เลขรันของชื่อ asset ต่อ (กลุ่ม, ชื่อขึ้นต้น) เช่น table-001, table-002 (ตาราง asset_name_counter)
+ * - bulk create จองช่วงเลขด้วย upsert แถวเดียว (row lock) → ไม่ต้องโหลด asset ทั้งกลุ่มมาหาเลขล่าสุด
+ *   และ request ที่สร้างพร้อมกันไม่ได้เลขซ้ำ
+ * - trigger ใน data.sql ดันเลขตามชื่อที่สร้าง/แก้นอก bulk (เช่น สร้างเดี่ยวเป็น table-050) กันชื่อชนกัน
+ */
+@Repository
+@RequiredArgsConstructor
+public class AssetNumberingRepository {
+
+    // ยังไม่มีแถว = กลุ่มนี้ยังไม่มีชื่อที่ลงท้ายด้วยเลข → เริ่มที่ 1
+    static final String RESERVE_SQL = """
+        INSERT INTO asset_name_counter AS c (asset_group_id, name_prefix, last_no)
+        VALUES (?, ?, ?)
+        ON CONFLICT (asset_group_id, name_prefix)
+        DO UPDATE SET last_no = c.last_no + EXCLUDED.last_no
+        RETURNING last_no
+        """;
+
+    static final String DELETE_GROUP_SQL = "DELETE FROM asset_name_counter WHERE asset_group_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** ✅ จองเลข qty ตัวถัดไป → คืนเลขสุดท้าย (ช่วงที่ได้ = last - qty + 1 .. last) */
+    public int reserve(Long assetGroupId, String namePrefix, int qty) {
+        Integer last = jdbcTemplate.queryForObject(RESERVE_SQL, Integer.class, assetGroupId, namePrefix, qty);
+        if (last == null) {
+            throw new IllegalStateException("Counter reservation returned no row for " + namePrefix);
+        }
+        return last;
+    }
+
+    /** ✅ ลบ counter ของกลุ่ม (ตอนลบกลุ่ม) */
+    public int deleteGroup(Long assetGroupId) {
+        return jdbcTemplate.update(DELETE_GROUP_SQL, assetGroupId);
+    }
+}
@@ -2,10 +2,14 @@ package com.organicnow.backend.repository;
 
 import com.organicnow.backend.dto.AssetDto;
 import com.organicnow.backend.model.Asset;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface AssetRepository extends JpaRepository<Asset, Long> {
@@ -47,7 +51,7 @@ public interface AssetRepository extends JpaRepository<Asset, Long> {
     // ✅ ใช้ใน AssetGroupService
     List<Asset> findByAssetGroupId(Long assetGroupId);
 
-    // ✅ ดึงเฉพาะ asset ที่ยังไม่ถูกใช้ และสถานะยัง available
+    // ✅ ดึงเฉพาะ asset ที่ยังไม่ถูกใช้ และสถานะยัง available (anti-join ด้วย NOT EXISTS)
     @Query("""
         SELECT new com.organicnow.backend.dto.AssetDto(
             a.id, a.assetName, ag.assetGroupName, null, null
@@ -55,7 +59,76 @@ public interface AssetRepository extends JpaRepository<Asset, Long> {
         FROM Asset a
         JOIN a.assetGroup ag
         WHERE a.status = 'available'
-          AND a.id NOT IN (SELECT ra.asset.id FROM RoomAsset ra)
+          AND NOT EXISTS (SELECT 1 FROM RoomAsset ra WHERE ra.asset = a)
         """)
     List<AssetDto> findAvailableAssets();
-}
\ No newline at end of file
+
+    // ✅ เงื่อนไขร่วมของ asset picker (กลุ่ม, ชื่อขึ้นต้น = LIKE 'xxx%' ที่ escape แล้ว)
+    //    a.status <> 'deleted' ต้องอยู่ใน WHERE ตรง ๆ เพื่อให้ใช้ partial index idx_asset_live_* (data.sql) ได้
+    String ASSET_PICKER_FILTER = """
+          AND a.status <> 'deleted'
+          AND (:groupId IS NULL OR ag.id = :groupId)
+          AND (:namePrefix IS NULL OR LOWER(a.assetName) LIKE :namePrefix ESCAPE '!')
+    """;
+
+    String AVAILABLE_PAGE_FROM = """
+        FROM Asset a
+        JOIN a.assetGroup ag
+        WHERE a.status = 'available'
+          AND NOT EXISTS (SELECT 1 FROM RoomAsset ra WHERE ra.asset = a)
+    """ + ASSET_PICKER_FILTER;
+
+    // ✅ picker ของว่าง แบบแบ่งหน้า (เรียงชื่อ)
+    @Query(value = """
+        SELECT new com.organicnow.backend.dto.AssetDto(
+            a.id, a.assetName, ag.assetGroupName, null, null, a.status
+        )
+    """ + AVAILABLE_PAGE_FROM + """
+        ORDER BY a.assetName, a.id
+    """, countQuery = "SELECT count(a) " + AVAILABLE_PAGE_FROM)
+    Page<AssetDto> findAvailablePage(@Param("groupId") Long groupId,
+                                     @Param("namePrefix") String namePrefix,
+                                     Pageable pageable);
+
+    String OPTION_PAGE_FROM = """
+        FROM Asset a
+        JOIN a.assetGroup ag
+        LEFT JOIN RoomAsset ra ON ra.asset = a
+        LEFT JOIN ra.room r
+        WHERE (:status IS NULL OR a.status = :status)
+    """ + ASSET_PICKER_FILTER;
+
+    // ✅ asset ทั้งหมด (ไม่รวม deleted) แบบแบ่งหน้า + ห้องที่อยู่ (ถ้ามี)
+    @Query(value = """
+        SELECT new com.organicnow.backend.dto.AssetDto(
+            a.id, a.assetName, ag.assetGroupName, r.roomFloor, r.roomNumber, a.status
+        )
+    """ + OPTION_PAGE_FROM + """
+        ORDER BY a.assetName, a.id
+    """, countQuery = "SELECT count(a) " + OPTION_PAGE_FROM)
+    Page<AssetDto> findOptionPage(@Param("groupId") Long groupId,
+                                  @Param("namePrefix") String namePrefix,
+                                  @Param("status") String status,
+                                  Pageable pageable);
+
+    // ✅ bulk soft delete (asset ที่ deleted อยู่แล้วไม่นับ)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+           UPDATE Asset a SET a.status = 'deleted'
+           WHERE a.id IN :assetIds AND a.status <> 'deleted'
+           """)
+    int softDeleteByIds(@Param("assetIds") Collection<Long> assetIds);
+
+    // ✅ bulk เปลี่ยนสถานะ (ไม่แตะ asset ที่ deleted แล้ว)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+           UPDATE Asset a SET a.status = :status
+           WHERE a.id IN :assetIds AND a.status <> 'deleted'
+           """)
+    int updateStatusByIds(@Param("assetIds") Collection<Long> assetIds, @Param("status") String status);
+
+    // ✅ ลบ asset ทั้งกลุ่มด้วย DELETE เดียว (แทน deleteAll ที่ลบทีละแถว)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Asset a WHERE a.assetGroup.id = :assetGroupId")
+    int deleteAllInGroup(@Param("assetGroupId") Long assetGroupId);
+}
@@ -0,0 +1,128 @@
+package com.organicnow.backend.repository;
+
+import com.organicnow.backend.dto.AssetStatusAsOfDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * อ่าน asset_status_event (append-only, เขียนโดย trigger บน asset — ดู data.sql)
+ * - as-of: event ล่าสุดต่อ asset ที่ ts ≤ เวลาที่ถาม (DISTINCT ON บน index (asset_id, ts)), ชื่อจาก snapshot ใน event
+ * - stream: event ในช่วง + event ล่าสุดก่อนช่วงต่อ asset เรียงตาม asset แล้วตามเวลา → ฝั่ง Java รวมเวลาต่อสถานะรอบเดียว
+ */
+@Repository
+@RequiredArgsConstructor
+public class AssetStatusHistoryRepository {
+
+    public static final String REMOVED = "removed";
+
+    @FunctionalInterface
+    public interface EventHandler {
+        void accept(long assetId, long assetGroupId, String status, LocalDateTime ts);
+    }
+
+    // asset ที่ event ล่าสุดเป็น removed = ยังไม่มี/ถูกลบไปแล้ว ณ เวลานั้น (ชื่อจาก snapshot ใน event)
+    static final String AS_OF_SQL = """
+        SELECT s.asset_id, s.asset_name, s.asset_group_id, s.status, s.ts
+        FROM (
+            SELECT DISTINCT ON (e.asset_id) e.asset_id, e.asset_name, e.asset_group_id, e.status, e.ts
+            FROM asset_status_event e
+            WHERE e.ts <= ?
+            ORDER BY e.asset_id, e.ts DESC, e.event_id DESC
+        ) s
+        WHERE s.status <> 'removed'
+          AND (CAST(? AS bigint) IS NULL OR s.asset_group_id = ?)
+        ORDER BY s.asset_id
+        """;
+
+    // ✅ event ในช่วง [from, to) + event ล่าสุดก่อน from ต่อ asset (สถานะตั้งต้นของช่วง)
+    //    asset ที่มีสถานะ ณ from = asset ที่ยังอยู่ หรือถูกลบหลัง from (มี event removed ตั้งแต่ from)
+    //    event ก่อน from อ่านทีละ asset ผ่าน index (asset_id, ts) แถวเดียว → ไม่ scan ประวัติทั้งหมด
+    static final String EVENTS_SQL = """
+        WITH ids AS (
+            SELECT asset_id FROM asset
+            UNION
+            SELECT asset_id FROM asset_status_event WHERE ts >= ?
+        )
+        SELECT l.asset_id, l.asset_group_id, l.status, l.ts, l.event_id
+        FROM ids
+        CROSS JOIN LATERAL (
+            SELECT e.asset_id, e.asset_group_id, e.status, e.ts, e.event_id
+            FROM asset_status_event e
+            WHERE e.asset_id = ids.asset_id AND e.ts < ?
+            ORDER BY e.ts DESC, e.event_id DESC
+            LIMIT 1
+        ) l
+        UNION ALL
+        SELECT asset_id, asset_group_id, status, ts, event_id
+        FROM asset_status_event
+        WHERE ts >= ? AND ts < ?
+        ORDER BY asset_id, ts, event_id
+        """;
+
+    static final String GROUP_NAMES_SQL = "SELECT asset_group_id, asset_group_name FROM asset_group";
+
+    static final int FETCH_SIZE = 2000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** ✅ สถานะของทุก asset ณ เวลา at (groupId = null → ทุกกลุ่ม) */
+    @Transactional(readOnly = true) // PostgreSQL ใช้ fetch size (cursor) ได้เฉพาะใน transaction
+    public List<AssetStatusAsOfDto> findStatusesAsOf(LocalDateTime at, Long groupId) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(AS_OF_SQL);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setTimestamp(1, Timestamp.valueOf(at));
+            if (groupId == null) {
+                ps.setNull(2, Types.BIGINT);
+                ps.setNull(3, Types.BIGINT);
+            } else {
+                ps.setLong(2, groupId);
+                ps.setLong(3, groupId);
+            }
+            return ps;
+        }, (rs, rowNum) -> new AssetStatusAsOfDto(
+                rs.getLong("asset_id"),
+                rs.getString("asset_name"),
+                rs.getLong("asset_group_id"),
+                rs.getString("status"),
+                rs.getTimestamp("ts").toLocalDateTime()));
+    }
+
+    /** ✅ ส่ง event ของช่วง [from, to) (รวม event ล่าสุดก่อน from ต่อ asset) ให้ handler เรียงตาม (asset, เวลา) */
+    @Transactional(readOnly = true)
+    public void streamEvents(LocalDateTime from, LocalDateTime to, EventHandler handler) {
+        Timestamp start = Timestamp.valueOf(from);
+        Timestamp end = Timestamp.valueOf(to);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(EVENTS_SQL);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setTimestamp(1, start);
+            ps.setTimestamp(2, start);
+            ps.setTimestamp(3, start);
+            ps.setTimestamp(4, end);
+            return ps;
+        }, (RowCallbackHandler) rs -> handler.accept(
+                rs.getLong("asset_id"),
+                rs.getLong("asset_group_id"),
+                rs.getString("status"),
+                rs.getTimestamp("ts").toLocalDateTime()));
+    }
+
+    public Map<Long, String> findGroupNames() {
+        Map<Long, String> names = new HashMap<>();
+        jdbcTemplate.query(GROUP_NAMES_SQL, (RowCallbackHandler) rs ->
+                names.put(rs.getLong("asset_group_id"), rs.getString("asset_group_name")));
+        return names;
+    }
+}
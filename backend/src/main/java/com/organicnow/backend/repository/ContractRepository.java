@@ -4,10 +4,12 @@ import com.organicnow.backend.model.Contract;
 import com.organicnow.backend.model.Room;
 import com.organicnow.backend.dto.TenantDto;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -74,5 +76,56 @@ public interface ContractRepository extends JpaRepository<Contract, Long> {
     """)
     int updateExpiredContracts();
     
+    // ✅ สัญญา active ที่คาบเกี่ยวกับรอบบิล (ใช้สำหรับ billing run) — fetch room มาในคิวรีเดียว
+    @Query("""
+        select c
+        from Contract c
+        join fetch c.room r
+        where c.status = 1
+          and c.startDate <= :periodEnd
+          and c.endDate >= :periodStart
+        order by r.roomFloor, r.roomNumber
+    """)
+    List<Contract> findActiveContractsForPeriod(@Param("periodStart") LocalDateTime periodStart,
+                                                @Param("periodEnd") LocalDateTime periodEnd);
+
+    // ✅ contract ปัจจุบันของห้องจาก (floor, room number) — ใช้ index idx_contract_room_status_end
+    //    roomFloor = null → ใช้เลขห้องอย่างเดียว (room_number unique อยู่แล้ว)
+    @Query("""
+        select c
+        from Contract c
+        join c.room r
+        where r.roomNumber = :roomNumber
+          and (:roomFloor is null or r.roomFloor = :roomFloor)
+          and c.status = 1
+          and c.endDate >= CURRENT_TIMESTAMP
+        order by c.signDate desc
+        limit 1
+    """)
+    Optional<Contract> findActiveContractByRoom(@Param("roomFloor") Integer roomFloor,
+                                                @Param("roomNumber") String roomNumber);
+
     Optional<Contract> findByRoomAndPackagePlan_IdAndStatus(Room room, Long packageId, Integer status);
+
+    // ✅ ช่วงเวลาที่ห้องถูกจอง (room_id, start_date, end_date) สำหรับ RoomAvailabilityIndex
+    //    นับสัญญาที่ยังไม่เริ่ม (0) และ active (1) ที่ยังไม่จบก่อน :from; end_date ว่าง = ไม่มีวันสิ้นสุด
+    @Query("""
+        select c.room.id, c.startDate, c.endDate
+        from Contract c
+        where c.status in (0, 1)
+          and c.startDate is not null
+          and (c.endDate is null or c.endDate >= :from)
+    """)
+    List<Object[]> findBlockingIntervals(@Param("from") LocalDateTime from);
+
+    @Query("""
+        select c.room.id, c.startDate, c.endDate
+        from Contract c
+        where c.room.id in :roomIds
+          and c.status in (0, 1)
+          and c.startDate is not null
+          and (c.endDate is null or c.endDate >= :from)
+    """)
+    List<Object[]> findBlockingIntervalsForRooms(@Param("roomIds") Collection<Long> roomIds,
+                                                 @Param("from") LocalDateTime from);
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.organicnow.backend.repository;
+
+import com.organicnow.backend.dto.FinanceMonthlyDto;
+import com.organicnow.backend.dto.MaintainMonthlyDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * อ่าน/สร้างใหม่ rollup รายเดือนของ Dashboard (finance_monthly, maintain_monthly)
+ * ตาราง + trigger ที่อัปเดตแบบ delta อยู่ใน data.sql → อ่านได้ไม่เกิน 1 แถวต่อเดือน ไม่ scan ตารางจริง
+ */
+@Repository
+@RequiredArgsConstructor
+public class DashboardRollupRepository {
+
+    // เดือนที่ทุกช่องเป็น 0 (เช่น invoice ถูกลบหมด) ไม่ส่งออก เหมือน GROUP BY บนตารางจริง
+    static final String FINANCE_SQL = """
+        SELECT to_char(month, 'YYYY-MM') AS month, on_time, penalty, overdue
+        FROM finance_monthly
+        WHERE month >= ? AND month <= ?
+          AND (on_time <> 0 OR penalty <> 0 OR overdue <> 0)
+        ORDER BY month
+        """;
+
+    static final String MAINTAIN_SQL = """
+        SELECT to_char(month, 'YYYY-MM') AS month, total
+        FROM maintain_monthly
+        WHERE month >= ? AND month <= ?
+          AND total <> 0
+        ORDER BY month
+        """;
+
+    static final String REBUILD_FINANCE_SQL = "SELECT finance_monthly_rebuild()";
+    static final String REBUILD_MAINTAIN_SQL = "SELECT maintain_monthly_rebuild()";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** ✅ สรุปการเงินรายเดือน from..to (รวมทั้งสองเดือน) */
+    public List<FinanceMonthlyDto> findFinanceMonthly(YearMonth from, YearMonth to) {
+        return jdbcTemplate.query(FINANCE_SQL,
+                (rs, rowNum) -> new FinanceMonthlyDto(
+                        rs.getString("month"),
+                        rs.getLong("on_time"),
+                        rs.getLong("penalty"),
+                        rs.getLong("overdue")),
+                firstDay(from), firstDay(to));
+    }
+
+    /** ✅ จำนวนรีเควสซ่อมรายเดือน from..to (รวมทั้งสองเดือน) */
+    public List<MaintainMonthlyDto> findMaintainMonthly(YearMonth from, YearMonth to) {
+        return jdbcTemplate.query(MAINTAIN_SQL,
+                (rs, rowNum) -> new MaintainMonthlyDto(rs.getString("month"), rs.getLong("total")),
+                firstDay(from), firstDay(to));
+    }
+
+    /** @return จำนวนเดือนใน finance_monthly หลังสร้างใหม่ */
+    public int rebuildFinanceMonthly() {
+        Integer months = jdbcTemplate.queryForObject(REBUILD_FINANCE_SQL, Integer.class);
+        return months != null ? months : 0;
+    }
+
+    /** @return จำนวนเดือนใน maintain_monthly หลังสร้างใหม่ */
+    public int rebuildMaintainMonthly() {
+        Integer months = jdbcTemplate.queryForObject(REBUILD_MAINTAIN_SQL, Integer.class);
+        return months != null ? months : 0;
+    }
+
+    private static Date firstDay(YearMonth month) {
+        return Date.valueOf(month.atDay(1));
+    }
+}
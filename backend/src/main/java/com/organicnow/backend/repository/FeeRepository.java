@@ -0,0 +1,10 @@
+package com.organicnow.backend.repository;
+
+import com.organicnow.backend.model.Fee;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface FeeRepository extends JpaRepository<Fee, Long> {
+    Optional<Fee> findByFeeName(String feeName);
+}
@@ -0,0 +1,75 @@
+package com.organicnow.backend.repository;
+
+import com.organicnow.backend.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+
+    Optional<IdempotencyKey> findByScopeAndIdemKey(String scope, String idemKey);
+
+    /**
+     * ✅ จอง key (atomic): insert ใหม่ หรือยึดแถวเดิมที่หมดอายุแล้ว / ค้างที่ lease หมดแล้ว (เช่น server ล่มกลางทาง)
+     *    คืน 1 = ได้สิทธิ์ประมวลผล, 0 = มีคนจองไว้แล้ว (กำลังทำ / ทำเสร็จแล้ว)
+     *    created_at = เวลาที่จอง ใช้เป็นตัวระบุเจ้าของ claim ใน complete / release
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO idempotency_key (scope, idem_key, request_hash, created_at, locked_until, expires_at)
+        VALUES (:scope, :idemKey, :requestHash, :now, :lockedUntil, :expiresAt)
+        ON CONFLICT (scope, idem_key) DO UPDATE
+            SET request_hash = EXCLUDED.request_hash,
+                status_code = NULL,
+                response_body = NULL,
+                created_at = EXCLUDED.created_at,
+                locked_until = EXCLUDED.locked_until,
+                expires_at = EXCLUDED.expires_at
+            WHERE idempotency_key.expires_at < EXCLUDED.created_at
+               OR (idempotency_key.status_code IS NULL AND idempotency_key.locked_until < EXCLUDED.created_at)
+    """, nativeQuery = true)
+    int claim(@Param("scope") String scope,
+              @Param("idemKey") String idemKey,
+              @Param("requestHash") String requestHash,
+              @Param("now") LocalDateTime now,
+              @Param("lockedUntil") LocalDateTime lockedUntil,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    // ✅ บันทึกผลลัพธ์หลังทำสำเร็จ (เฉพาะเจ้าของ claim — ถ้า lease หมดแล้วถูกยึดไป จะได้ 0)
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE IdempotencyKey k
+        SET k.statusCode = :statusCode, k.responseBody = :responseBody
+        WHERE k.scope = :scope AND k.idemKey = :idemKey AND k.createdAt = :claimedAt
+    """)
+    int complete(@Param("scope") String scope,
+                 @Param("idemKey") String idemKey,
+                 @Param("claimedAt") LocalDateTime claimedAt,
+                 @Param("statusCode") Integer statusCode,
+                 @Param("responseBody") String responseBody);
+
+    // ✅ ปล่อย key ที่ทำไม่สำเร็จ → client retry ได้ทันที
+    @Modifying
+    @Transactional
+    @Query("""
+        DELETE FROM IdempotencyKey k
+        WHERE k.scope = :scope AND k.idemKey = :idemKey AND k.createdAt = :claimedAt AND k.statusCode IS NULL
+    """)
+    int release(@Param("scope") String scope,
+                @Param("idemKey") String idemKey,
+                @Param("claimedAt") LocalDateTime claimedAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
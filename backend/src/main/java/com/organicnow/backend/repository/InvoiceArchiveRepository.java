@@ -0,0 +1,92 @@
+package com.organicnow.backend.repository;
+
+import com.organicnow.backend.dto.InvoiceDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * อ่าน cold tier (invoice_archive แบ่ง partition รายเดือนตาม create_date) — ใช้เฉพาะ export
+ * ข้อมูลผู้เช่า/ห้อง/แพ็กเกจ snapshot ไว้ในแถวตอนย้าย (InvoiceArchiveService)
+ * ไม่ได้ map เป็น entity เพราะ Hibernate (ddl-auto) สร้างตาราง partitioned ไม่ได้ → ตารางสร้างใน data.sql
+ */
+@Repository
+public class InvoiceArchiveRepository {
+
+    static final int FETCH_SIZE = 500;
+
+    // ✅ คอลัมน์/ลำดับเดียวกับ InvoiceRepository.INVOICE_DTO_SELECT — อ่านจาก snapshot ในแถวเท่านั้น (ไม่ join ตารางจริง)
+    static final String ARCHIVE_DTO_SELECT = """
+        SELECT a.invoice_id, a.contract_id, a.create_date, a.due_date, a.invoice_status, a.pay_date, a.pay_method,
+               a.sub_total, a.penalty_total, a.sub_total + a.penalty_total AS net_amount, a.penalty_applied_at,
+               COALESCE(a.first_name, 'N/A') AS first_name, COALESCE(a.last_name, '') AS last_name,
+               COALESCE(a.national_id, '') AS national_id, COALESCE(a.phone_number, '') AS phone_number,
+               COALESCE(a.email, '') AS email, COALESCE(a.package_name, 'N/A') AS package_name,
+               a.sign_date, a.start_date, a.end_date,
+               COALESCE(a.requested_floor, a.room_floor) AS floor,
+               COALESCE(a.requested_room, a.room_number) AS room,
+               COALESCE(a.requested_rent, a.contract_rent) AS rent,
+               COALESCE(a.requested_water, 0) AS water, COALESCE(a.requested_water_unit, 0) AS water_unit,
+               COALESCE(a.requested_electricity, 0) AS electricity,
+               COALESCE(a.requested_electricity_unit, 0) AS electricity_unit
+        FROM invoice_archive a
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InvoiceArchiveRepository(DataSource dataSource) {
+        // ✅ template ของตัวเองที่มี fetch size → cursor ฝั่ง DB ไม่โหลด archive ทั้งหมดเข้า heap
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * ✅ Export: เงื่อนไข create_date ใส่เฉพาะที่ส่งมา → Postgres ตัด partition ที่ไม่เกี่ยวออก (partition pruning)
+     *    ต้องเรียกภายใน transaction และปิด Stream หลังใช้งาน
+     */
+    public Stream<InvoiceDto> streamDtosForExport(Integer status, LocalDateTime startDate, LocalDateTime endDate) {
+        StringBuilder sql = new StringBuilder(ARCHIVE_DTO_SELECT).append("WHERE TRUE");
+        List<Object> args = new ArrayList<>();
+        if (status != null) {
+            sql.append(" AND a.invoice_status = ?");
+            args.add(status);
+        }
+        if (startDate != null) {
+            sql.append(" AND a.create_date >= ?");
+            args.add(Timestamp.valueOf(startDate));
+        }
+        if (endDate != null) {
+            sql.append(" AND a.create_date <= ?");
+            args.add(Timestamp.valueOf(endDate));
+        }
+        sql.append(" ORDER BY a.invoice_id");
+        return jdbcTemplate.queryForStream(sql.toString(), DTO_MAPPER, args.toArray());
+    }
+
+    static final RowMapper<InvoiceDto> DTO_MAPPER = (rs, rowNum) -> new InvoiceDto(
+            rs.getLong("invoice_id"), rs.getLong("contract_id"),
+            toLocalDateTime(rs, "create_date"), toLocalDateTime(rs, "due_date"),
+            rs.getInt("invoice_status"), toLocalDateTime(rs, "pay_date"), (Integer) rs.getObject("pay_method"),
+            rs.getInt("sub_total"), rs.getInt("penalty_total"), rs.getInt("net_amount"),
+            toLocalDateTime(rs, "penalty_applied_at"),
+            rs.getString("first_name"), rs.getString("last_name"), rs.getString("national_id"),
+            rs.getString("phone_number"), rs.getString("email"), rs.getString("package_name"),
+            toLocalDateTime(rs, "sign_date"), toLocalDateTime(rs, "start_date"), toLocalDateTime(rs, "end_date"),
+            (Integer) rs.getObject("floor"), rs.getString("room"), (Integer) rs.getObject("rent"),
+            rs.getInt("water"), rs.getInt("water_unit"),
+            rs.getInt("electricity"), rs.getInt("electricity_unit"));
+
+    private static LocalDateTime toLocalDateTime(ResultSet rs, String column) throws SQLException {
+        Timestamp ts = rs.getTimestamp(column);
+        return ts != null ? ts.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,34 @@
+package com.organicnow.backend.repository;
+
+import com.organicnow.backend.dto.InvoiceItemDto;
+import com.organicnow.backend.model.InvoiceItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface InvoiceItemRepository extends JpaRepository<InvoiceItem, Long> {
+
+    // ✅ รายการของหลาย invoice ใน query เดียว (ใช้ทีละหน้า) — index uk_invoice_item_invoice_fee นำด้วย invoice_id
+    @Query("""
+        SELECT new com.organicnow.backend.dto.InvoiceItemDto(
+            ii.invoice.id, f.id, f.feeName, ii.quantity, ii.unitFee, ii.totalFee)
+        FROM InvoiceItem ii
+        JOIN ii.fee f
+        WHERE ii.invoice.id IN :invoiceIds
+        ORDER BY ii.invoice.id, f.id
+        """)
+    List<InvoiceItemDto> findDtosByInvoiceIds(@Param("invoiceIds") Collection<Long> invoiceIds);
+
+    // ✅ /invoice/list: รายการของทุก invoice ใน query เดียว (ไม่ต้องส่ง id ทั้งตารางเป็น IN list)
+    @Query("""
+        SELECT new com.organicnow.backend.dto.InvoiceItemDto(
+            ii.invoice.id, f.id, f.feeName, ii.quantity, ii.unitFee, ii.totalFee)
+        FROM InvoiceItem ii
+        JOIN ii.fee f
+        ORDER BY ii.invoice.id, f.id
+        """)
+    List<InvoiceItemDto> findAllDtos();
+}
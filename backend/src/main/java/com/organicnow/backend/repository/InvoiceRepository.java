@@ -1,38 +1,50 @@
 package com.organicnow.backend.repository;
 
+import com.organicnow.backend.dto.InvoiceDto;
 import com.organicnow.backend.model.Invoice;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
+public interface InvoiceRepository extends JpaRepository<Invoice, Long>, InvoiceRepositoryCustom {
+
+    /**
+     * ✅ SELECT กลางสำหรับ search/filter: project เป็น InvoiceDto ตรง ๆ (ไม่ hydrate entity)
+     *    ห้อง/ค่าเช่าใช้ค่าจาก request ก่อน ถ้าไม่มีค่อยใช้จาก contract
+     */
+    String INVOICE_DTO_SELECT = """
+        SELECT new com.organicnow.backend.dto.InvoiceDto(
+            i.id, c.id, i.createDate, i.dueDate, i.invoiceStatus, i.payDate, i.payMethod,
+            i.subTotal, i.penaltyTotal, i.subTotal + i.penaltyTotal, i.penaltyAppliedAt,
+            COALESCE(t.firstName, 'N/A'), COALESCE(t.lastName, ''), COALESCE(t.nationalId, ''),
+            COALESCE(t.phoneNumber, ''), COALESCE(t.email, ''), COALESCE(ct.name, 'N/A'),
+            c.signDate, c.startDate, c.endDate,
+            COALESCE(i.requestedFloor, r.roomFloor), COALESCE(i.requestedRoom, r.roomNumber),
+            COALESCE(i.requestedRent, CAST(c.rentAmountSnapshot AS Integer)),
+            COALESCE(i.requestedWater, 0), COALESCE(i.requestedWaterUnit, 0),
+            COALESCE(i.requestedElectricity, 0), COALESCE(i.requestedElectricityUnit, 0)
+        )
+        FROM Invoice i
+        JOIN i.contact c
+        LEFT JOIN c.room r
+        LEFT JOIN c.tenant t
+        LEFT JOIN c.packagePlan p
+        LEFT JOIN p.contractType ct
+    """;
 
     // ✅ ของคุณ: ดึง invoice ตาม contract (เรียงจากใหม่ไปเก่า)
     List<Invoice> findByContact_IdOrderByIdDesc(Long contractId);
 
     // ✅ ของเพื่อน: ดึง invoice ตาม contract
     List<Invoice> findByContact_Id(Long contractId);
-    
-    /**
-     * ✅ Dashboard: สรุปการเงินย้อนหลัง 12 เดือน
-     *   - onTime  = จ่ายตรงเวลา (invoice_status = 1 และ penalty_total = 0)
-     *   - penalty = จ่ายแต่มีค่าปรับ (invoice_status = 1 และ penalty_total > 0)
-     *   - overdue = ค้างจ่าย (invoice_status = 0)
-     */
-    @Query(value = """
-        SELECT to_char(i.create_date, 'YYYY-MM') AS month,
-               SUM(CASE WHEN i.invoice_status = 1 AND (i.penalty_total IS NULL OR i.penalty_total = 0) THEN 1 ELSE 0 END) AS onTime,
-               SUM(CASE WHEN i.invoice_status = 1 AND i.penalty_total > 0 THEN 1 ELSE 0 END) AS penalty,
-               SUM(CASE WHEN i.invoice_status = 0 THEN 1 ELSE 0 END) AS overdue
-        FROM invoice i
-        WHERE i.create_date >= date_trunc('month', CURRENT_DATE) - INTERVAL '11 months'
-        GROUP BY to_char(i.create_date, 'YYYY-MM')
-        ORDER BY month
-    """, nativeQuery = true)
-    List<Object[]> countFinanceLast12Months();
 
     /**
      * ✅ ดึงข้อมูล Invoice พร้อม Tenant ที่ถูกต้อง (ตาม room และ contract)
@@ -55,4 +67,126 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
         ORDER BY i.invoice_id DESC
     """, nativeQuery = true)
     List<Object[]> findAllInvoicesWithTenantDetails();
-}
\ No newline at end of file
+
+    /**
+     * ✅ Penalty job: คิด penalty 10% ของค่าเช่าให้ invoice ที่ยังไม่ชำระและเกินกำหนด ด้วย UPDATE เดียว
+     *   - ค่าเช่า = requested_rent ถ้ามี ไม่งั้นใช้ rent_amount_snapshot ของ contract
+     *   - วันเริ่มคิด penalty = penalty_applied_at ถ้ามี ไม่งั้นใช้ due_date
+     *   - ใช้ index idx_invoice_status_penalty_due (invoice_status, penalty_total, due_date)
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        UPDATE invoice i
+        SET penalty_total      = ROUND(COALESCE(i.requested_rent, TRUNC(c.rent_amount_snapshot), 0) * 0.1),
+            net_amount         = i.sub_total + ROUND(COALESCE(i.requested_rent, TRUNC(c.rent_amount_snapshot), 0) * 0.1),
+            penalty_applied_at = COALESCE(i.penalty_applied_at, :now)
+        FROM contract c
+        WHERE c.contract_id = i.contract_id
+          AND i.invoice_status = 0
+          AND i.penalty_total = 0
+          AND ((i.penalty_applied_at IS NULL AND i.due_date < :now)
+               OR i.penalty_applied_at < :now)
+          AND COALESCE(i.requested_rent, TRUNC(c.rent_amount_snapshot), 0) > 0
+    """, nativeQuery = true)
+    int applyOverduePenalties(@Param("now") LocalDateTime now);
+
+    // ===== Targeted updates (ไม่ต้อง findById + save ทั้ง entity) =====
+    // ✅ เปลี่ยนได้เฉพาะใบที่ยังไม่ชำระ (status 0) → 0 แถว = ไม่มีใบนี้ หรือสถานะไม่ใช่ 0
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Invoice i
+        SET i.invoiceStatus = 1,
+            i.payDate = :payDate,
+            i.payMethod = COALESCE(:payMethod, i.payMethod)
+        WHERE i.id = :id AND i.invoiceStatus = 0
+    """)
+    int markPaid(@Param("id") Long id,
+                 @Param("payDate") LocalDateTime payDate,
+                 @Param("payMethod") Integer payMethod);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Invoice i SET i.invoiceStatus = 2 WHERE i.id = :id AND i.invoiceStatus = 0")
+    int cancel(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Invoice i
+        SET i.penaltyTotal = i.penaltyTotal + :amount,
+            i.netAmount = i.subTotal + i.penaltyTotal + :amount,
+            i.penaltyAppliedAt = COALESCE(i.penaltyAppliedAt, :now)
+        WHERE i.id = :id AND i.invoiceStatus = 0
+    """)
+    int addPenalty(@Param("id") Long id,
+                   @Param("amount") Integer amount,
+                   @Param("now") LocalDateTime now);
+
+    // ===== Search / Filter (DTO projection) =====
+
+    /**
+     * ✅ ค้นหาแบบ free-text: ชื่อ/นามสกุล tenant, เลขบัตรประชาชน, เลขห้อง
+     *   - pattern ต้องเป็นตัวพิมพ์เล็ก ครอบด้วย % และ escape ด้วย '!' แล้ว
+     *   - หา contract ที่ตรงก่อน (tenant/room เป็นตารางเล็ก + trigram index) แล้วค่อยไล่ invoice ผ่าน idx_invoice_contract
+     */
+    @Query(INVOICE_DTO_SELECT + """
+        WHERE c.id IN (
+                SELECT c2.id FROM Contract c2
+                JOIN c2.tenant t2
+                JOIN c2.room r2
+                WHERE LOWER(t2.firstName) LIKE :pattern ESCAPE '!'
+                   OR LOWER(t2.lastName) LIKE :pattern ESCAPE '!'
+                   OR LOWER(t2.nationalId) LIKE :pattern ESCAPE '!'
+                   OR LOWER(r2.roomNumber) LIKE :pattern ESCAPE '!'
+            )
+           OR LOWER(i.requestedRoom) LIKE :pattern ESCAPE '!'
+        ORDER BY i.createDate DESC, i.id DESC
+    """)
+    List<InvoiceDto> searchDtos(@Param("pattern") String pattern, Pageable pageable);
+
+    @Query(INVOICE_DTO_SELECT + """
+        WHERE c.id = :contractId
+        ORDER BY i.createDate DESC, i.id DESC
+    """)
+    List<InvoiceDto> findDtosByContractId(@Param("contractId") Long contractId);
+
+    @Query(INVOICE_DTO_SELECT + """
+        WHERE r.id = :roomId
+        ORDER BY i.createDate DESC, i.id DESC
+    """)
+    List<InvoiceDto> findDtosByRoomId(@Param("roomId") Long roomId);
+
+    @Query(INVOICE_DTO_SELECT + """
+        WHERE t.id = :tenantId
+        ORDER BY i.createDate DESC, i.id DESC
+    """)
+    List<InvoiceDto> findDtosByTenantId(@Param("tenantId") Long tenantId);
+
+    @Query(INVOICE_DTO_SELECT + """
+        WHERE i.invoiceStatus = :status
+        ORDER BY i.createDate DESC, i.id DESC
+    """)
+    List<InvoiceDto> findDtosByStatus(@Param("status") Integer status);
+
+    // ค้างจ่ายและเลยวันครบกำหนด (ใช้ idx_invoice_status_due)
+    @Query(INVOICE_DTO_SELECT + """
+        WHERE i.invoiceStatus = 0
+          AND i.dueDate < :now
+        ORDER BY i.dueDate, i.id
+    """)
+    List<InvoiceDto> findOverdueDtos(@Param("now") LocalDateTime now);
+
+    @Query(INVOICE_DTO_SELECT + """
+        WHERE i.createDate BETWEEN :startDate AND :endDate
+        ORDER BY i.createDate DESC, i.id DESC
+    """)
+    List<InvoiceDto> findDtosByCreateDateBetween(@Param("startDate") LocalDateTime startDate,
+                                                 @Param("endDate") LocalDateTime endDate);
+
+    @Query(INVOICE_DTO_SELECT + """
+        WHERE i.netAmount BETWEEN :minAmount AND :maxAmount
+        ORDER BY i.netAmount, i.id
+    """)
+    List<InvoiceDto> findDtosByNetAmountBetween(@Param("minAmount") Integer minAmount,
+                                                @Param("maxAmount") Integer maxAmount);
+}
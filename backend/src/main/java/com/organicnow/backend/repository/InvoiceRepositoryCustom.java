@@ -0,0 +1,40 @@
+package com.organicnow.backend.repository;
+
+import com.organicnow.backend.dto.InvoiceDto;
+import com.organicnow.backend.model.Invoice;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * query ของ InvoiceRepository ที่ต้องประกอบ JPQL ตามตัวกรองที่ส่งมา (implement ใน InvoiceRepositoryImpl)
+ */
+public interface InvoiceRepositoryCustom {
+
+    /**
+     * ✅ Keyset pagination สำหรับหน้า invoice list (เรียง create_date, invoice_id ใหม่ → เก่า)
+     *   - cursorDate/cursorId = แถวสุดท้ายของหน้าก่อนหน้า (null = หน้าแรก)
+     *   - ส่ง Pageable ขนาด size + 1 มาเพื่อเช็คว่ามีหน้าถัดไปหรือไม่ (ไม่ต้อง count ทั้งตาราง)
+     *   - ตัวกรองที่เป็น null ไม่ถูกใส่ใน WHERE เลย → generic plan ยังใช้
+     *     idx_invoice_create_date_id / idx_invoice_status_create_date / idx_invoice_floor_room ได้
+     */
+    List<Invoice> findPageAfter(Integer status,
+                                Integer floor,
+                                String room,
+                                LocalDateTime startDate,
+                                LocalDateTime endDate,
+                                Integer minAmount,
+                                Integer maxAmount,
+                                LocalDateTime cursorDate,
+                                Long cursorId,
+                                Pageable pageable);
+
+    /**
+     * ✅ Export: stream แถว InvoiceDto ด้วย forward-only cursor (fetch size) — ไม่โหลดทั้งตารางเข้า heap
+     *    ตัวกรองที่เป็น null ไม่ถูกใส่ใน WHERE → ใช้ idx_invoice_create_date_id / idx_invoice_status_create_date ได้
+     *    ต้องเรียกภายใน transaction และปิด Stream หลังใช้งาน
+     */
+    Stream<InvoiceDto> streamDtosForExport(Integer status, LocalDateTime startDate, LocalDateTime endDate);
+}
@@ -0,0 +1,110 @@
+package com.organicnow.backend.repository;
+
+import com.organicnow.backend.dto.InvoiceDto;
+import com.organicnow.backend.model.Invoice;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+/**
+ * ✅ ประกอบ WHERE เฉพาะตัวกรองที่ส่งมา (แบบเดียวกับ InvoiceArchiveRepository.streamDtosForExport)
+ *    แทน (:x IS NULL OR ...) ซึ่งทำให้ planner เลือก index ไม่ได้เมื่อใช้ generic plan
+ */
+class InvoiceRepositoryImpl implements InvoiceRepositoryCustom {
+
+    static final String PAGE_SELECT = """
+        SELECT i FROM Invoice i
+        LEFT JOIN FETCH i.contact c
+        LEFT JOIN FETCH c.room r
+        LEFT JOIN FETCH c.tenant t
+        LEFT JOIN FETCH c.packagePlan p
+        LEFT JOIN FETCH p.contractType ct
+        WHERE 1 = 1
+        """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Invoice> findPageAfter(Integer status, Integer floor, String room,
+                                       LocalDateTime startDate, LocalDateTime endDate,
+                                       Integer minAmount, Integer maxAmount,
+                                       LocalDateTime cursorDate, Long cursorId,
+                                       Pageable pageable) {
+        StringBuilder jpql = new StringBuilder(PAGE_SELECT);
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (status != null) {
+            jpql.append(" AND i.invoiceStatus = :status");
+            params.put("status", status);
+        }
+        if (floor != null) {
+            jpql.append(" AND (i.requestedFloor = :floor OR (i.requestedFloor IS NULL AND r.roomFloor = :floor))");
+            params.put("floor", floor);
+        }
+        if (room != null) {
+            jpql.append(" AND (i.requestedRoom = :room OR (i.requestedRoom IS NULL AND r.roomNumber = :room))");
+            params.put("room", room);
+        }
+        if (startDate != null) {
+            jpql.append(" AND i.createDate >= :startDate");
+            params.put("startDate", startDate);
+        }
+        if (endDate != null) {
+            jpql.append(" AND i.createDate <= :endDate");
+            params.put("endDate", endDate);
+        }
+        if (minAmount != null) {
+            jpql.append(" AND i.netAmount >= :minAmount");
+            params.put("minAmount", minAmount);
+        }
+        if (maxAmount != null) {
+            jpql.append(" AND i.netAmount <= :maxAmount");
+            params.put("maxAmount", maxAmount);
+        }
+        if (cursorDate != null && cursorId != null) {
+            jpql.append(" AND (i.createDate < :cursorDate OR (i.createDate = :cursorDate AND i.id < :cursorId))");
+            params.put("cursorDate", cursorDate);
+            params.put("cursorId", cursorId);
+        }
+        jpql.append(" ORDER BY i.createDate DESC, i.id DESC");
+
+        TypedQuery<Invoice> query = entityManager.createQuery(jpql.toString(), Invoice.class);
+        params.forEach(query::setParameter);
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        return query.getResultList();
+    }
+
+    @Override
+    public Stream<InvoiceDto> streamDtosForExport(Integer status, LocalDateTime startDate, LocalDateTime endDate) {
+        StringBuilder jpql = new StringBuilder(InvoiceRepository.INVOICE_DTO_SELECT).append(" WHERE 1 = 1");
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (status != null) {
+            jpql.append(" AND i.invoiceStatus = :status");
+            params.put("status", status);
+        }
+        if (startDate != null) {
+            jpql.append(" AND i.createDate >= :startDate");
+            params.put("startDate", startDate);
+        }
+        if (endDate != null) {
+            jpql.append(" AND i.createDate <= :endDate");
+            params.put("endDate", endDate);
+        }
+        jpql.append(" ORDER BY i.id");
+
+        TypedQuery<InvoiceDto> query = entityManager.createQuery(jpql.toString(), InvoiceDto.class);
+        params.forEach(query::setParameter);
+        query.setHint(HINT_FETCH_SIZE, 500);
+        return query.getResultStream();
+    }
+}
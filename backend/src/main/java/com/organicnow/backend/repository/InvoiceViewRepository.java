@@ -0,0 +1,30 @@
+package com.organicnow.backend.repository;
+
+import com.organicnow.backend.dto.InvoiceDto;
+import com.organicnow.backend.model.InvoiceView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InvoiceViewRepository extends JpaRepository<InvoiceView, Long> {
+
+    // ✅ /invoice/list: อ่านจาก invoice_view ตารางเดียว ไม่ต้อง join 6 ตาราง
+    @Query("""
+        SELECT new com.organicnow.backend.dto.InvoiceDto(
+            v.invoiceId, v.contractId, v.createDate, v.dueDate, v.invoiceStatus, v.payDate, v.payMethod,
+            v.subTotal, v.penaltyTotal, v.netAmount, v.penaltyAppliedAt,
+            v.firstName, v.lastName, v.nationalId, v.phoneNumber, v.email, v.packageName,
+            v.signDate, v.startDate, v.endDate,
+            v.floor, v.room, v.rent, v.water, v.waterUnit, v.electricity, v.electricityUnit
+        )
+        FROM InvoiceView v
+        ORDER BY v.invoiceId
+    """)
+    List<InvoiceDto> findAllDtos();
+
+    // ✅ tenant detail: invoice ของ contract (ใหม่ → เก่า) ใช้ idx_invoice_view_contract
+    List<InvoiceView> findByContractIdOrderByInvoiceIdDesc(Long contractId);
+}
@@ -3,9 +3,11 @@ package com.organicnow.backend.repository;
 import com.organicnow.backend.dto.RequestDto;
 import com.organicnow.backend.model.Maintain;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface MaintainRepository extends JpaRepository<Maintain, Long> {
@@ -21,6 +23,16 @@ public interface MaintainRepository extends JpaRepository<Maintain, Long> {
     """)
     List<RequestDto> findRequestsByRoomId(@Param("roomId") Long roomId);
 
+    // ✅ ดึง request ของ "หลายห้อง" ทีเดียว (room_id, id, issueTitle, scheduledDate, finishDate)
+    //    เรียงภายในห้องเหมือน findRequestsByRoomId → จัดกลุ่มใน memory ได้เลย
+    @Query("""
+        SELECT m.room.id, m.id, m.issueTitle, m.scheduledDate, m.finishDate
+        FROM Maintain m
+        WHERE m.room.id IN :roomIds
+        ORDER BY m.room.id, m.scheduledDate DESC
+    """)
+    List<Object[]> findRequestsByRoomIds(@Param("roomIds") Collection<Long> roomIds);
+
     // ✅ ใช้สำหรับ Dashboard: เช็กว่าห้องยังมีงานซ่อมที่ยังไม่เสร็จ
     @Query("""
         select case when count(m) > 0 then true else false end
@@ -30,14 +42,27 @@ public interface MaintainRepository extends JpaRepository<Maintain, Long> {
     """)
     boolean existsActiveMaintainByRoomId(Long roomId);
 
-    // ✅ Dashboard: นับจำนวน maintain ต่อเดือน (12 เดือนล่าสุด)
+    // ✅ ก่อนตัด asset ออกจากห้องแบบ bulk: ใบแจ้งซ่อมยังอยู่ แต่เลิกอ้าง room_asset ที่จะถูกลบ (FK)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
     @Query(value = """
-        SELECT to_char(m.create_date, 'YYYY-MM') AS month,
-               COUNT(m.maintain_id) AS total
-        FROM maintain m
-        WHERE m.create_date >= date_trunc('month', CURRENT_DATE) - INTERVAL '11 months'
-        GROUP BY to_char(m.create_date, 'YYYY-MM')
-        ORDER BY month
+        UPDATE maintain m SET room_asset_id = NULL
+        FROM room_asset ra
+        WHERE m.room_asset_id = ra.room_asset_id
+          AND ra.asset_id IN (:assetIds)
     """, nativeQuery = true)
-    List<Object[]> countRequestsLast12Months();
-}
\ No newline at end of file
+    int unlinkRoomAssetsOfAssets(@Param("assetIds") Collection<Long> assetIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+        UPDATE maintain m SET room_asset_id = NULL
+        FROM room_asset ra
+        JOIN asset a ON a.asset_id = ra.asset_id
+        WHERE m.room_asset_id = ra.room_asset_id
+          AND a.asset_group_id = :assetGroupId
+    """, nativeQuery = true)
+    int unlinkRoomAssetsOfGroup(@Param("assetGroupId") Long assetGroupId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE maintain SET room_asset_id = NULL WHERE room_asset_id IN (:roomAssetIds)", nativeQuery = true)
+    int unlinkRoomAssets(@Param("roomAssetIds") Collection<Long> roomAssetIds);
+}
@@ -0,0 +1,82 @@
+package com.organicnow.backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * อ่านช่วงเวลาของ contract สำหรับ occupancy analytics
+ * - ส่งออกเป็น "จุดปลาย" (+1 วันเริ่ม, -1 วันถัดจากวันสิ้นสุด) เรียงตามวันจาก DB
+ *   แล้ว stream ทีละแถว (fetch size) → ฝั่ง Java ทำ sweep-line รอบเดียว ไม่ต้องถือทุก contract ใน memory
+ * - ไม่นับสัญญาที่ยกเลิก (status = 3); end_date ว่าง = ยังไม่มีวันสิ้นสุด
+ */
+@Repository
+@RequiredArgsConstructor
+public class OccupancyRepository {
+
+    public record RoomRow(long roomId, String roomNumber, Integer floor) {}
+
+    @FunctionalInterface
+    public interface EndpointHandler {
+        void accept(long roomId, LocalDate day, int delta);
+    }
+
+    static final String ROOMS_SQL =
+            "SELECT room_id, room_number, room_floor FROM room ORDER BY room_floor, room_number";
+
+    // วันเดียวกัน: +1 มาก่อน -1 → ห้องที่สัญญาหนึ่งจบแล้วอีกสัญญาเริ่มต่อทันทีไม่ถูกนับว่าว่าง
+    static final String ENDPOINTS_SQL = """
+        WITH c AS (
+            SELECT room_id,
+                   GREATEST(start_date::date, ?) AS first_day,
+                   end_date::date AS last_day
+            FROM contract
+            WHERE status <> 3
+              AND start_date IS NOT NULL
+              AND start_date::date <= ?
+              AND (end_date IS NULL OR end_date::date >= ?)
+        )
+        SELECT room_id, first_day AS day, 1 AS delta FROM c
+        UNION ALL
+        SELECT room_id, last_day + 1 AS day, -1 AS delta FROM c
+        WHERE last_day IS NOT NULL AND last_day < ?
+        ORDER BY day, delta DESC
+        """;
+
+    static final int FETCH_SIZE = 2000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<RoomRow> findRooms() {
+        return jdbcTemplate.query(ROOMS_SQL, (rs, rowNum) -> new RoomRow(
+                rs.getLong("room_id"),
+                rs.getString("room_number"),
+                (Integer) rs.getObject("room_floor")));
+    }
+
+    /** ✅ ส่งจุดปลายของสัญญาที่ทับช่วง from..to (รวมทั้งสองวัน) ให้ handler ตามลำดับวัน */
+    @Transactional(readOnly = true) // PostgreSQL ใช้ fetch size (cursor) ได้เฉพาะใน transaction
+    public void streamEndpoints(LocalDate from, LocalDate to, EndpointHandler handler) {
+        Date fromDate = Date.valueOf(from);
+        Date toDate = Date.valueOf(to);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(ENDPOINTS_SQL);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setDate(1, fromDate);
+            ps.setDate(2, toDate);
+            ps.setDate(3, fromDate);
+            ps.setDate(4, toDate);
+            return ps;
+        }, (RowCallbackHandler) rs -> handler.accept(
+                rs.getLong("room_id"),
+                rs.getDate("day").toLocalDate(),
+                rs.getInt("delta")));
+    }
+}
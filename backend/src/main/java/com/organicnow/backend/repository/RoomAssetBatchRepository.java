@@ -0,0 +1,62 @@
+package com.organicnow.backend.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * คำสั่งแบบ batch ของการผูก asset เข้าห้อง (ใช้กับ bulk assignment หลายห้อง)
+ * - claim: ล็อก asset ที่จะผูกเรียงตาม id (กัน deadlock) แล้วเปลี่ยน available → in_use เฉพาะตัวที่ยังว่าง
+ *   request อื่นที่ claim ตัวเดียวกันพร้อมกันจะรอล็อก แล้วเห็นว่าไม่ available แล้ว → ไม่ได้ตัวนั้น
+ * - insert: room_asset หลายแถวด้วย INSERT ... SELECT FROM unnest เดียว
+ * unique index ux_room_asset_asset (data.sql) กันไว้อีกชั้น: asset หนึ่งชิ้นอยู่ได้ห้องเดียว
+ */
+@Repository
+@RequiredArgsConstructor
+public class RoomAssetBatchRepository {
+
+    static final String CLAIM_SQL = """
+        WITH target AS (
+            SELECT a.asset_id
+            FROM asset a
+            WHERE a.asset_id = ANY(?)
+              AND a.status = 'available'
+              AND NOT EXISTS (SELECT 1 FROM room_asset ra WHERE ra.asset_id = a.asset_id)
+            ORDER BY a.asset_id
+            FOR UPDATE
+        )
+        UPDATE asset a SET status = 'in_use'
+        FROM target t
+        WHERE a.asset_id = t.asset_id
+          AND a.status = 'available'
+        RETURNING a.asset_id
+        """;
+
+    static final String INSERT_SQL = """
+        INSERT INTO room_asset (room_id, asset_id)
+        SELECT p.room_id, p.asset_id
+        FROM unnest(CAST(? AS bigint[]), CAST(? AS bigint[])) AS p(room_id, asset_id)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** ✅ จอง asset ที่ยังว่าง (available และไม่อยู่ในห้องใด) → คืน id ที่จองได้ */
+    public List<Long> claimAvailable(Collection<Long> assetIds) {
+        Long[] ids = assetIds.toArray(new Long[0]);
+        return jdbcTemplate.query(CLAIM_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                (rs, rowNum) -> rs.getLong(1));
+    }
+
+    /** ✅ insert room_asset หลายแถว (roomIds[i] คู่กับ assetIds[i]) */
+    public int insertAll(Long[] roomIds, Long[] assetIds) {
+        if (roomIds.length == 0) return 0;
+        return jdbcTemplate.update(INSERT_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", roomIds));
+            ps.setArray(2, ps.getConnection().createArrayOf("bigint", assetIds));
+        });
+    }
+}
@@ -3,9 +3,11 @@ package com.organicnow.backend.repository;
 import com.organicnow.backend.dto.AssetDto;
 import com.organicnow.backend.model.RoomAsset;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,4 +46,26 @@ public interface RoomAssetRepository extends JpaRepository<RoomAsset, Long> {
            WHERE r.id IN :roomIds
            """)
     List<Object[]> findAssetsByRoomIds(@Param("roomIds") List<Long> roomIds);
+
+    // ✅ ตัด asset หลายชิ้นออกจากห้องด้วย DELETE เดียว
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM room_asset WHERE asset_id IN (:assetIds)", nativeQuery = true)
+    int deleteByAssetIds(@Param("assetIds") Collection<Long> assetIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+           DELETE FROM room_asset ra
+           USING asset a
+           WHERE a.asset_id = ra.asset_id
+             AND a.asset_group_id = :assetGroupId
+           """, nativeQuery = true)
+    int deleteByAssetGroupId(@Param("assetGroupId") Long assetGroupId);
+
+    // ✅ การผูกปัจจุบันของ "หลายห้อง" ทีเดียว (room_asset_id, room_id, asset_id) สำหรับ bulk assignment
+    @Query("""
+           SELECT ra.id, ra.room.id, ra.asset.id
+           FROM RoomAsset ra
+           WHERE ra.room.id IN :roomIds
+           """)
+    List<Object[]> findAssignmentsByRoomIds(@Param("roomIds") Collection<Long> roomIds);
 }
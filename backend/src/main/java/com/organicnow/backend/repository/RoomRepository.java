@@ -1,8 +1,11 @@
 package com.organicnow.backend.repository;
 
 import com.organicnow.backend.dto.RoomDetailDto;
+import com.organicnow.backend.dto.RoomStatusDto;
 import com.organicnow.backend.model.Contract;
 import com.organicnow.backend.model.Room;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -29,6 +32,39 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
     """)
     List<RoomDetailDto> findAllRooms();
 
+    // ✅ หน้า room management: กรองชั้น / สถานะ (occupied | available) / ชื่อผู้เช่า แล้วแบ่งหน้า
+    //    join เหมือน findAllRooms; ชื่อผู้เช่าใช้ LIKE บน lower(first/last name) → idx_tenant_*_trgm
+    String ROOM_PAGE_FROM = """
+        FROM Room r
+        LEFT JOIN Contract c ON r.id = c.room.id AND c.status = 1
+        LEFT JOIN Tenant t ON c.tenant.id = t.id
+        LEFT JOIN PackagePlan p ON c.packagePlan.id = p.id
+        LEFT JOIN ContractType ct ON p.contractType.id = ct.id
+        WHERE (:floor IS NULL OR r.roomFloor = :floor)
+          AND (:status IS NULL
+               OR (:status = 'occupied' AND c.id IS NOT NULL)
+               OR (:status = 'available' AND c.id IS NULL))
+          AND (:tenant IS NULL
+               OR LOWER(t.firstName) LIKE :tenant ESCAPE '!'
+               OR LOWER(t.lastName) LIKE :tenant ESCAPE '!')
+    """;
+
+    @Query(value = """
+        SELECT new com.organicnow.backend.dto.RoomDetailDto(
+            r.id, r.roomNumber, r.roomFloor,
+            CASE WHEN c.id IS NOT NULL THEN 'occupied' ELSE 'available' END,
+            COALESCE(t.firstName, ''), COALESCE(t.lastName, ''),
+            COALESCE(t.phoneNumber, ''), COALESCE(t.email, ''),
+            COALESCE(ct.name, ''), c.signDate, c.startDate, c.endDate
+        )
+    """ + ROOM_PAGE_FROM + """
+        ORDER BY r.roomFloor, r.roomNumber, r.id
+    """, countQuery = "SELECT count(r) " + ROOM_PAGE_FROM)
+    Page<RoomDetailDto> findRoomPage(@Param("floor") Integer floor,
+                                     @Param("status") String status,
+                                     @Param("tenant") String tenantPattern,
+                                     Pageable pageable);
+
     // ✅ ดึงห้องตาม id (แก้ไขให้ดูสัญญาที่ยังไม่หมดอายุ)
     @Query("""
         SELECT new com.organicnow.backend.dto.RoomDetailDto(
@@ -47,6 +83,29 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
     """)
     RoomDetailDto findRoomDetail(@Param("roomId") Long roomId);
 
+    // ✅ Dashboard: สถานะทุกห้องใน query เดียว (แทนการ exists ทีละห้อง 2 ครั้ง)
+    //    สัญญา active มาก่อนงานซ่อม → 1 = unavailable, 2 = repair, 0 = available
+    //    EXISTS ใช้ idx_contract_room_status_end / idx_maintain_room_open
+    @Query("""
+        SELECT new com.organicnow.backend.dto.RoomStatusDto(
+            r.id, r.roomNumber,
+            CASE
+                WHEN EXISTS (
+                    SELECT 1 FROM Contract c
+                    WHERE c.room = r AND c.status = 1 AND c.endDate >= CURRENT_TIMESTAMP
+                ) THEN 1
+                WHEN EXISTS (
+                    SELECT 1 FROM Maintain m
+                    WHERE m.room = r AND m.finishDate IS NULL
+                ) THEN 2
+                ELSE 0
+            END
+        )
+        FROM Room r
+        ORDER BY r.id
+    """)
+    List<RoomStatusDto> findRoomStatuses();
+
     Optional<Room> findByRoomNumber(String roomNumber);
     
     Optional<Room> findByRoomFloorAndRoomNumber(Integer roomFloor, String roomNumber);
@@ -65,4 +124,4 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
     """)
     Contract findCurrentContractByRoomFloorAndNumber(@Param("roomFloor") Integer roomFloor, 
                                                     @Param("roomNumber") String roomNumber);
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.event.ContractChangedEvent;
+import com.organicnow.backend.model.Contract;
+import com.organicnow.backend.repository.ContractRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * หา contract ที่ active ของห้องจาก (floor, room number)
+ * - query ผ่าน index room(room_floor, room_number) → contract(room_id, status, end_date)
+ * - cache เลขห้อง → contract id ไว้ใน memory (ขนาดไม่เกินจำนวนห้อง เพราะ cache เฉพาะที่เจอจริง)
+ * - ล้าง cache เมื่อมี ContractChangedEvent (หลัง commit)
+ */
+@Service
+@RequiredArgsConstructor
+public class ActiveContractResolver {
+
+    private record CachedContract(Long contractId, LocalDateTime endDate) {}
+
+    private final ContractRepository contractRepository;
+
+    private final Map<String, CachedContract> cache = new ConcurrentHashMap<>();
+
+    public Optional<Contract> resolve(Integer floor, String roomNumber) {
+        if (roomNumber == null || roomNumber.isBlank()) return Optional.empty();
+        String number = roomNumber.trim();
+        String key = floor + "|" + number;
+
+        CachedContract cached = cache.get(key);
+        if (cached != null) {
+            if (!cached.endDate().isBefore(LocalDateTime.now())) {
+                return Optional.of(contractRepository.getReferenceById(cached.contractId()));
+            }
+            cache.remove(key, cached); // หมดอายุระหว่างรอ scheduler
+        }
+
+        Optional<Contract> found = contractRepository.findActiveContractByRoom(floor, number);
+        found.ifPresent(c -> cache.put(key, new CachedContract(c.getId(), c.getEndDate())));
+        return found;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContractChanged(ContractChangedEvent event) {
+        // ห้องเปลี่ยน contract ไม่บ่อย → ล้างทั้งหมดง่ายและปลอดภัยกว่า map roomId → key
+        cache.clear();
+    }
+
+    int cachedRooms() {
+        return cache.size();
+    }
+}
@@ -1,10 +1,13 @@
 package com.organicnow.backend.service;
 
+import com.organicnow.backend.dto.AssetBulkResultDto;
 import com.organicnow.backend.dto.AssetGroupDropdownDto;
-import com.organicnow.backend.model.Asset;
 import com.organicnow.backend.model.AssetGroup;
 import com.organicnow.backend.repository.AssetGroupRepository;
+import com.organicnow.backend.repository.AssetNumberingRepository;
 import com.organicnow.backend.repository.AssetRepository;
+import com.organicnow.backend.repository.MaintainRepository;
+import com.organicnow.backend.repository.RoomAssetRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,6 +20,9 @@ public class AssetGroupService {
 
     private final AssetGroupRepository assetGroupRepository;
     private final AssetRepository assetRepository;
+    private final RoomAssetRepository roomAssetRepository;
+    private final MaintainRepository maintainRepository;
+    private final AssetNumberingRepository assetNumberingRepository;
 
     // ✅ Dropdown
     @Transactional(readOnly = true)
@@ -56,16 +62,21 @@ public class AssetGroupService {
         return assetGroupRepository.save(existingAssetGroup);
     }
 
-    // ✅ Delete group + assets
-    public int deleteAssetGroup(Long id) {
-        List<Asset> assets = assetRepository.findByAssetGroupId(id);
-        int deletedCount = assets.size();
-
-        if (!assets.isEmpty()) {
-            assetRepository.deleteAll(assets);
-        }
-
-        assetGroupRepository.deleteById(id);
-        return deletedCount;
+    // ✅ Delete group + assets: คำสั่ง set-based ชุดเดียว ไม่โหลด entity (เดิม deleteAll = DELETE ทีละแถว)
+    //    ใบแจ้งซ่อมเลิกอ้าง room_asset → ตัดออกจากห้อง → ลบ asset → ลบ counter เลขรัน → ลบกลุ่ม
+    @Transactional
+    public AssetBulkResultDto deleteAssetGroup(Long id) {
+        long started = System.currentTimeMillis();
+        maintainRepository.unlinkRoomAssetsOfGroup(id);
+        int detached = roomAssetRepository.deleteByAssetGroupId(id);
+        int deleted = assetRepository.deleteAllInGroup(id);
+        assetNumberingRepository.deleteGroup(id);
+        assetGroupRepository.deleteGroupById(id);
+        return AssetBulkResultDto.builder()
+                .requested(1)
+                .affected(deleted)
+                .detachedFromRooms(detached)
+                .elapsedMs(System.currentTimeMillis() - started)
+                .build();
     }
 }
\ No newline at end of file
@@ -1,25 +1,41 @@
 package com.organicnow.backend.service;
 
+import com.organicnow.backend.dto.AssetBulkResultDto;
 import com.organicnow.backend.dto.AssetDto;
+import com.organicnow.backend.dto.AssetPageDto;
 import com.organicnow.backend.model.Asset;
 import com.organicnow.backend.model.AssetGroup;
 import com.organicnow.backend.repository.AssetGroupRepository;
+import com.organicnow.backend.repository.AssetNumberingRepository;
 import com.organicnow.backend.repository.AssetRepository;
+import com.organicnow.backend.repository.MaintainRepository;
 import com.organicnow.backend.repository.RoomAssetRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
 public class AssetService {
 
+    static final int BULK_FLUSH_SIZE = 500;
+    static final int MAX_BULK_IDS = 10_000;
+    static final Set<String> BULK_STATUSES = Set.of("available", "maintenance", "broken", "deleted");
+    static final Set<String> PICKER_STATUSES = Set.of("available", "in_use", "maintenance", "broken");
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+
     private final AssetRepository assetRepository;
     private final AssetGroupRepository assetGroupRepository;
     private final RoomAssetRepository roomAssetRepository;
+    private final AssetNumberingRepository assetNumberingRepository;
+    private final MaintainRepository maintainRepository;
+    private final EntityManager entityManager;
 
     // ✅ ดูทั้งหมด (stock + ที่ใช้อยู่) แต่ไม่รวม deleted
     public List<AssetDto> getAllAssets() {
@@ -69,45 +85,140 @@ public class AssetService {
         return assetRepository.save(existing);
     }
 
-    // ✅ Bulk create: สร้างของจริงหลายชิ้นในคราวเดียว เช่น โต๊ะ 24 ตัว
+    // ✅ Bulk soft delete: ตัดออกจากห้อง + status = deleted ด้วยคำสั่งชุดเดียว (ไม่ find/save ทีละชิ้น)
+    @Transactional
+    public AssetBulkResultDto softDeleteAssets(List<Long> assetIds) {
+        long started = System.currentTimeMillis();
+        Set<Long> ids = normalizeIds(assetIds);
+        int detached = detachFromRooms(ids);
+        int affected = assetRepository.softDeleteByIds(ids);
+        return toResult(ids.size(), affected, detached, started);
+    }
+
+    // ✅ Bulk เปลี่ยนสถานะ (available | maintenance | broken) + ตัดออกจากห้อง
+    //    in_use ตั้งผ่านการผูกของเข้าห้องเท่านั้น; deleted → เหมือน softDeleteAssets
+    @Transactional
+    public AssetBulkResultDto updateStatuses(List<Long> assetIds, String status) {
+        String normalized = status != null ? status.trim().toLowerCase(Locale.ROOT) : "";
+        if (!BULK_STATUSES.contains(normalized)) {
+            throw new IllegalArgumentException("status must be one of " + BULK_STATUSES + ": " + status);
+        }
+        if ("deleted".equals(normalized)) {
+            return softDeleteAssets(assetIds);
+        }
+        long started = System.currentTimeMillis();
+        Set<Long> ids = normalizeIds(assetIds);
+        int detached = detachFromRooms(ids);
+        int affected = assetRepository.updateStatusByIds(ids, normalized);
+        return toResult(ids.size(), affected, detached, started);
+    }
+
+    // ใบแจ้งซ่อมที่อ้าง room_asset เลิกอ้างก่อน (FK) แล้วลบ room_asset ทั้งชุด
+    private int detachFromRooms(Set<Long> ids) {
+        maintainRepository.unlinkRoomAssetsOfAssets(ids);
+        return roomAssetRepository.deleteByAssetIds(ids);
+    }
+
+    private Set<Long> normalizeIds(List<Long> assetIds) {
+        Set<Long> ids = new LinkedHashSet<>();
+        if (assetIds != null) {
+            assetIds.stream().filter(Objects::nonNull).forEach(ids::add);
+        }
+        if (ids.isEmpty()) throw new IllegalArgumentException("assetIds is required");
+        if (ids.size() > MAX_BULK_IDS) {
+            throw new IllegalArgumentException("Too many assetIds (max " + MAX_BULK_IDS + ")");
+        }
+        return ids;
+    }
+
+    private AssetBulkResultDto toResult(int requested, int affected, int detached, long started) {
+        return AssetBulkResultDto.builder()
+                .requested(requested)
+                .affected(affected)
+                .detachedFromRooms(detached)
+                .elapsedMs(System.currentTimeMillis() - started)
+                .build();
+    }
+
+    // ✅ Bulk create: สร้างของจริงหลายชิ้นในคราวเดียว เช่น โต๊ะ 24 ตัว (หรือหลายพันชิ้นตอนเปิดตึกใหม่)
+    //    เลขรันจองจาก asset_name_counter ครั้งเดียว, insert เป็น JDBC batch แล้ว flush/clear ทีละก้อน
+    //    ไม่ให้ persistence context โตตาม qty
     @Transactional
     public List<Asset> createBulk(Long assetGroupId, String assetName, int qty) {
         if (qty <= 0) throw new IllegalArgumentException("qty must be > 0");
+        if (assetName == null || assetName.isBlank()) throw new IllegalArgumentException("name is required");
 
         AssetGroup group = assetGroupRepository.findById(assetGroupId)
                 .orElseThrow(() -> new IllegalArgumentException("AssetGroup not found"));
 
-        // 🔍 ดึงชื่อทั้งหมดในกลุ่มนี้ที่ขึ้นต้นด้วย assetName (เช่น "table")
-        List<Asset> existingAssets = assetRepository.findByAssetGroupId(assetGroupId);
-        int maxIndex = existingAssets.stream()
-                .filter(a -> a.getAssetName().startsWith(assetName + "-"))
-                .mapToInt(a -> {
-                    try {
-                        return Integer.parseInt(a.getAssetName()
-                                .replace(assetName + "-", ""));
-                    } catch (NumberFormatException e) {
-                        return 0;
-                    }
-                })
-                .max()
-                .orElse(0);
-
-        List<Asset> result = new ArrayList<>();
-        for (int i = 1; i <= qty; i++) {
-            String numberedName = assetName + "-" + String.format("%03d", maxIndex + i); // ✅ เช่น table-001
-            Asset a = Asset.builder()
+        String prefix = assetName.trim();
+        int first = assetNumberingRepository.reserve(group.getId(), prefix, qty) - qty + 1;
+
+        List<Asset> result = new ArrayList<>(qty);
+        List<Asset> chunk = new ArrayList<>(Math.min(qty, BULK_FLUSH_SIZE));
+        for (int i = 0; i < qty; i++) {
+            chunk.add(Asset.builder()
                     .assetGroup(group)
-                    .assetName(numberedName)
+                    .assetName(prefix + "-" + String.format("%03d", first + i)) // ✅ เช่น table-001
                     .status("available")
-                    .build();
-            result.add(a);
+                    .build());
+            if (chunk.size() == BULK_FLUSH_SIZE || i == qty - 1) {
+                result.addAll(assetRepository.saveAll(chunk));
+                assetRepository.flush();
+                entityManager.clear();
+                chunk.clear();
+            }
         }
-
-        return assetRepository.saveAll(result);
+        return result;
     }
 
     // ✅ ใช้สำหรับดึงเฉพาะ asset ที่ยังว่าง
     public List<AssetDto> getAvailableAssets() {
         return assetRepository.findAvailableAssets();
     }
+
+    // ✅ picker ของว่างแบบแบ่งหน้า: groupId / ชื่อขึ้นต้น (ไม่สนตัวพิมพ์) เป็น optional
+    public AssetPageDto getAvailableAssetPage(Long groupId, String name, Integer page, Integer size) {
+        PageRequest pageable = toPageRequest(page, size);
+        return toPage(assetRepository.findAvailablePage(groupId, toPrefixPattern(name), pageable), pageable);
+    }
+
+    // ✅ picker asset ทั้งหมด (ไม่รวม deleted) แบบแบ่งหน้า: status ต้องเป็น available / in_use / maintenance / broken
+    public AssetPageDto getAssetOptionPage(Long groupId, String name, String status, Integer page, Integer size) {
+        String statusFilter = null;
+        if (status != null && !status.isBlank()) {
+            statusFilter = status.trim().toLowerCase(Locale.ROOT);
+            if (!PICKER_STATUSES.contains(statusFilter)) {
+                throw new IllegalArgumentException("Invalid status: " + status);
+            }
+        }
+        PageRequest pageable = toPageRequest(page, size);
+        return toPage(assetRepository.findOptionPage(groupId, toPrefixPattern(name), statusFilter, pageable), pageable);
+    }
+
+    private static PageRequest toPageRequest(Integer page, Integer size) {
+        int pageNo = (page == null || page < 0) ? 0 : page;
+        int pageSize = (size == null || size <= 0) ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        return PageRequest.of(pageNo, pageSize);
+    }
+
+    private static AssetPageDto toPage(Page<AssetDto> result, PageRequest pageable) {
+        return AssetPageDto.builder()
+                .items(result.getContent())
+                .page(pageable.getPageNumber())
+                .size(pageable.getPageSize())
+                .totalElements(result.getTotalElements())
+                .totalPages(result.getTotalPages())
+                .build();
+    }
+
+    // ✅ ชื่อขึ้นต้น → LIKE 'xxx%' (escape ด้วย '!' ให้ %, _ เป็นตัวอักษรธรรมดา) ใช้ index lower(asset_name) ได้
+    private static String toPrefixPattern(String name) {
+        if (name == null || name.isBlank()) return null;
+        String escaped = name.trim().toLowerCase(Locale.ROOT)
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return escaped + "%";
+    }
 }
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.AssetStatusAsOfDto;
+import com.organicnow.backend.dto.AssetStatusDurationReportDto;
+import com.organicnow.backend.dto.AssetStatusSnapshotDto;
+import com.organicnow.backend.repository.AssetStatusHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ประวัติสถานะ asset จาก asset_status_event
+ * - สถานะ ณ เวลาใดก็ได้ (as-of)
+ * - เวลาที่อยู่ในแต่ละสถานะต่อกลุ่ม ภายในช่วง (AssetStatusSweep รอบเดียวบน event ที่ stream มาจาก DB)
+ */
+@Service
+@RequiredArgsConstructor
+public class AssetStatusHistoryService {
+
+    static final int DEFAULT_RANGE_DAYS = 30;
+
+    private final AssetStatusHistoryRepository historyRepository;
+
+    // ✅ at = yyyy-MM-dd หรือ yyyy-MM-ddTHH:mm[:ss] (ไม่ส่ง = ตอนนี้)
+    public AssetStatusSnapshotDto getStatusesAsOf(String at, Long groupId) {
+        LocalDateTime instant = (at == null || at.isBlank()) ? LocalDateTime.now() : parseInstant("at", at);
+        List<AssetStatusAsOfDto> assets = historyRepository.findStatusesAsOf(instant, groupId);
+        Map<String, Long> counts = new TreeMap<>();
+        for (AssetStatusAsOfDto asset : assets) {
+            counts.merge(asset.getStatus(), 1L, Long::sum);
+        }
+        return AssetStatusSnapshotDto.builder()
+                .at(instant)
+                .totalAssets(assets.size())
+                .counts(counts)
+                .assets(assets)
+                .build();
+    }
+
+    // ✅ ช่วง [from, to) (ไม่ส่ง to = ตอนนี้, ไม่ส่ง from = 30 วันก่อน to)
+    public AssetStatusDurationReportDto getTimeInStatus(String from, String to, Long groupId) {
+        LocalDateTime end = (to == null || to.isBlank()) ? LocalDateTime.now() : parseInstant("to", to);
+        LocalDateTime start = (from == null || from.isBlank())
+                ? end.minusDays(DEFAULT_RANGE_DAYS) : parseInstant("from", from);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("from must be before to: " + start + " >= " + end);
+        }
+        AssetStatusSweep sweep = new AssetStatusSweep(start, end, groupId);
+        historyRepository.streamEvents(start, end, sweep);
+        return AssetStatusDurationReportDto.builder()
+                .from(start)
+                .to(end)
+                .durations(sweep.finish(historyRepository.findGroupNames()))
+                .build();
+    }
+
+    private LocalDateTime parseInstant(String name, String value) {
+        String trimmed = value.trim();
+        try {
+            return trimmed.length() == 10 ? LocalDate.parse(trimmed).atStartOfDay() : LocalDateTime.parse(trimmed);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + name + " (yyyy-MM-dd or yyyy-MM-ddTHH:mm:ss): " + value);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.AssetStatusDurationDto;
+import com.organicnow.backend.repository.AssetStatusHistoryRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * รวมเวลาที่ asset อยู่ในแต่ละสถานะ (ต่อกลุ่ม) รอบเดียวบน event ที่เรียงตาม (asset, เวลา) แล้ว
+ * - ต่อ asset ถือแค่ event ก่อนหน้า: event ถัดไป (หรือเวลาสิ้นสุด) ปิดช่วง [ts ก่อนหน้า, ts นี้)
+ *   แล้วตัดให้อยู่ใน [from, to) ก่อนบวก → event ก่อน from ใช้เป็นสถานะตั้งต้นของช่วง
+ * - ช่วงนับเข้ากลุ่มของ event ที่เปิดช่วง (asset ย้ายกลุ่ม = event ใหม่)
+ * - สถานะ removed (ลบจริง) ไม่นับเวลา
+ * O(จำนวน event + จำนวน (กลุ่ม, สถานะ)) memory ไม่ขึ้นกับจำนวน asset
+ */
+final class AssetStatusSweep implements AssetStatusHistoryRepository.EventHandler {
+
+    private record Key(long groupId, String status) {}
+
+    private static final class Acc {
+        int assets;
+        long seconds;
+    }
+
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final Long groupFilter;
+    private final Map<Key, Acc> totals = new HashMap<>();
+
+    // asset ปัจจุบัน + ช่วงที่เปิดอยู่
+    private long assetId = Long.MIN_VALUE;
+    private long groupId;
+    private String status;
+    private LocalDateTime since;
+    private final Set<Key> touched = new HashSet<>();   // (กลุ่ม, สถานะ) ที่ asset นี้มีเวลาในช่วง
+
+    AssetStatusSweep(LocalDateTime from, LocalDateTime to, Long groupFilter) {
+        this.from = from;
+        this.to = to;
+        this.groupFilter = groupFilter;
+    }
+
+    @Override
+    public void accept(long assetId, long assetGroupId, String status, LocalDateTime ts) {
+        if (assetId < this.assetId) {
+            throw new IllegalStateException("Events must be sorted by asset: " + assetId);
+        }
+        if (assetId != this.assetId) {
+            finishAsset();
+            this.assetId = assetId;
+        } else {
+            closeInterval(ts);
+        }
+        this.groupId = assetGroupId;
+        this.status = status;
+        this.since = ts;
+    }
+
+    List<AssetStatusDurationDto> finish(Map<Long, String> groupNames) {
+        finishAsset();
+        List<AssetStatusDurationDto> result = new ArrayList<>(totals.size());
+        totals.forEach((key, acc) -> result.add(new AssetStatusDurationDto(
+                key.groupId(),
+                groupNames.get(key.groupId()),
+                key.status(),
+                acc.assets,
+                acc.seconds,
+                Math.round(acc.seconds / 36.0 / acc.assets) / 100.0)));
+        result.sort(Comparator.comparing(AssetStatusDurationDto::getAssetGroupId)
+                .thenComparing(AssetStatusDurationDto::getStatus));
+        return result;
+    }
+
+    private void finishAsset() {
+        if (status == null) return;
+        closeInterval(to);
+        for (Key key : touched) {
+            totals.computeIfAbsent(key, k -> new Acc()).assets++;
+        }
+        touched.clear();
+        status = null;
+    }
+
+    // ✅ บวกช่วง [since, end) ที่ตัดให้อยู่ใน [from, to) แล้ว
+    private void closeInterval(LocalDateTime end) {
+        if (AssetStatusHistoryRepository.REMOVED.equals(status)) return;
+        if (groupFilter != null && groupFilter != groupId) return;
+        LocalDateTime start = since.isBefore(from) ? from : since;
+        LocalDateTime stop = end.isAfter(to) ? to : end;
+        long seconds = Duration.between(start, stop).getSeconds();
+        if (seconds <= 0) return;
+        Key key = new Key(groupId, status);
+        totals.computeIfAbsent(key, k -> new Acc()).seconds += seconds;
+        touched.add(key);
+    }
+}
@@ -1,7 +1,9 @@
 package com.organicnow.backend.service;
 
+import com.organicnow.backend.event.ContractChangedEvent;
 import com.organicnow.backend.repository.ContractRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 public class ContractStatusScheduler {
 
     private final ContractRepository contractRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ✅ รันทุก 1 นาที (ไว้เทส) → พอชัวร์แล้วค่อยเปลี่ยนเป็น "0 0 0 * * *"
     @Scheduled(cron = "0 */1 * * * *")
@@ -18,6 +21,7 @@ public class ContractStatusScheduler {
     public void updateExpiredContracts() {
         int updated = contractRepository.updateExpiredContracts();
         if (updated > 0) {
+            eventPublisher.publishEvent(ContractChangedEvent.allRooms());
             System.out.println("🔄 Updated " + updated + " expired contracts to status=0");
         }
     }
@@ -0,0 +1,111 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.event.ContractChangedEvent;
+import com.organicnow.backend.event.InvoiceChangedEvent;
+import com.organicnow.backend.event.MaintainChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * cache ข้อมูล Dashboard ทีละ section ใน memory
+ * - ล้างเฉพาะ section ที่เกี่ยวข้องเมื่อมี event การเขียน (หลัง commit)
+ *     contract → ROOMS | maintain → ROOMS + MAINTAINS | invoice → FINANCES
+ * - max-age เป็น safety net สำหรับสิ่งที่เปลี่ยนตามเวลาโดยไม่มี event
+ *   (สัญญาเลย endDate ก่อน scheduler รัน, ขึ้นเดือนใหม่ของกราฟ 12 เดือน)
+ * - metrics: dashboard.cache.requests{section,result=hit|miss},
+ *            dashboard.cache.rebuild{section}, dashboard.cache.invalidations{section}
+ */
+@Component
+public class DashboardCache {
+
+    public enum Section { ROOMS, MAINTAINS, FINANCES }
+
+    private record Entry(long version, long loadedAtNanos, Object value) {}
+
+    private final class Slot {
+        final AtomicLong version = new AtomicLong();
+        volatile Entry entry;
+        final Counter hits;
+        final Counter misses;
+        final Counter invalidations;
+        final Timer rebuild;
+
+        Slot(Section section, MeterRegistry registry) {
+            String tag = section.name().toLowerCase();
+            hits = Counter.builder("dashboard.cache.requests")
+                    .tag("section", tag).tag("result", "hit").register(registry);
+            misses = Counter.builder("dashboard.cache.requests")
+                    .tag("section", tag).tag("result", "miss").register(registry);
+            invalidations = Counter.builder("dashboard.cache.invalidations")
+                    .tag("section", tag).register(registry);
+            rebuild = Timer.builder("dashboard.cache.rebuild")
+                    .tag("section", tag).register(registry);
+        }
+    }
+
+    private final Map<Section, Slot> slots = new EnumMap<>(Section.class);
+    private final long maxAgeNanos;
+
+    public DashboardCache(MeterRegistry meterRegistry,
+                          @Value("${dashboard.cache.max-age:PT15M}") Duration maxAge) {
+        for (Section section : Section.values()) {
+            slots.put(section, new Slot(section, meterRegistry));
+        }
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Section section, Supplier<T> loader) {
+        Slot slot = slots.get(section);
+        long version = slot.version.get();
+        Entry entry = slot.entry;
+        if (entry != null && entry.version() == version
+                && System.nanoTime() - entry.loadedAtNanos() < maxAgeNanos) {
+            slot.hits.increment();
+            return (T) entry.value();
+        }
+
+        slot.misses.increment();
+        T value = slot.rebuild.record(loader);
+        // ✅ ผูก version ที่อ่านก่อนโหลด → ถ้ามี invalidate ระหว่างโหลด ค่านี้จะไม่ถูกใช้ซ้ำ
+        slot.entry = new Entry(version, System.nanoTime(), value);
+        return value;
+    }
+
+    public void invalidate(Section... sections) {
+        for (Section section : sections) {
+            Slot slot = slots.get(section);
+            slot.version.incrementAndGet();
+            slot.invalidations.increment();
+        }
+    }
+
+    public void invalidateAll() {
+        invalidate(Section.values());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContractChanged(ContractChangedEvent event) {
+        invalidate(Section.ROOMS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMaintainChanged(MaintainChangedEvent event) {
+        invalidate(Section.ROOMS, Section.MAINTAINS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInvoiceChanged(InvoiceChangedEvent event) {
+        invalidate(Section.FINANCES);
+    }
+}
@@ -0,0 +1,116 @@
+package com.organicnow.backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * รัน section ของ Dashboard (rooms / maintains / finances) พร้อมกันบน thread pool ขนาดคงที่
+ * - แต่ละ section มี timeout ของตัวเอง (นับจากตอน submit) → section ที่ช้า/พัง ไม่ทำให้ทั้ง response ล้ม
+ *   ผลลัพธ์เป็น Outcome: value หรือ error ("timeout" / "error")
+ * - pool เต็ม → รันใน thread ของ request เอง (CallerRunsPolicy) ไม่มีคิวยาวไม่จำกัด
+ * - metrics: dashboard.section.latency{section, mode=parallel|sequential, outcome=ok|timeout|error}
+ */
+@Slf4j
+@Component
+public class DashboardSectionRunner {
+
+    public static final String TIMEOUT = "timeout";
+    public static final String ERROR = "error";
+
+    public record Outcome<T>(T value, String error) {
+        public boolean ok() {
+            return error == null;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor;
+    private final long timeoutNanos;
+
+    public DashboardSectionRunner(MeterRegistry meterRegistry,
+                                  @Value("${dashboard.parallel.section-timeout:PT3S}") Duration sectionTimeout,
+                                  @Value("${dashboard.parallel.threads:6}") int threads) {
+        this.meterRegistry = meterRegistry;
+        this.timeoutNanos = sectionTimeout.toNanos();
+        int size = Math.max(threads, 1);
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(size * 4),
+                r -> {
+                    Thread t = new Thread(r, "dashboard-section-" + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /** ✅ รันทุก section พร้อมกัน รอแต่ละตัวไม่เกิน section-timeout (นับจากตอน submit) */
+    public <K extends Enum<K>> Map<K, Outcome<Object>> runParallel(Class<K> keyType, Map<K, Supplier<?>> sections) {
+        long submitted = System.nanoTime();
+        Map<K, Future<?>> futures = new EnumMap<>(keyType);
+        sections.forEach((key, loader) -> futures.put(key, executor.submit(() -> timed(key, "parallel", loader))));
+
+        Map<K, Outcome<Object>> results = new EnumMap<>(keyType);
+        futures.forEach((key, future) -> {
+            long remaining = timeoutNanos - (System.nanoTime() - submitted);
+            try {
+                results.put(key, new Outcome<>(future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS), null));
+            } catch (TimeoutException ex) {
+                future.cancel(true);
+                log.warn("Dashboard section {} timed out after {} ms", key, Duration.ofNanos(timeoutNanos).toMillis());
+                record(key, "parallel", TIMEOUT, System.nanoTime() - submitted);
+                results.put(key, new Outcome<>(null, TIMEOUT));
+            } catch (ExecutionException ex) {
+                log.warn("Dashboard section {} failed: {}", key, ex.getCause().toString());
+                results.put(key, new Outcome<>(null, ERROR));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                results.put(key, new Outcome<>(null, ERROR));
+            }
+        });
+        return results;
+    }
+
+    /** ✅ โหมดเดิม (ทีละ section) แต่จับเวลาด้วย metric เดียวกันเพื่อเทียบกันได้ */
+    public <K extends Enum<K>, T> T runTimed(K key, Supplier<T> loader) {
+        return timed(key, "sequential", loader);
+    }
+
+    private <T> T timed(Enum<?> key, String mode, Supplier<T> loader) {
+        long started = System.nanoTime();
+        try {
+            T value = loader.get();
+            record(key, mode, "ok", System.nanoTime() - started);
+            return value;
+        } catch (RuntimeException ex) {
+            record(key, mode, ERROR, System.nanoTime() - started);
+            throw ex;
+        }
+    }
+
+    private void record(Enum<?> key, String mode, String outcome, long elapsedNanos) {
+        Timer.builder("dashboard.section.latency")
+                .tag("section", key.name().toLowerCase())
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -3,71 +3,153 @@ package com.organicnow.backend.service;
 import com.organicnow.backend.dto.DashboardDto;
 import com.organicnow.backend.dto.FinanceMonthlyDto;
 import com.organicnow.backend.dto.MaintainMonthlyDto;
-import com.organicnow.backend.repository.InvoiceRepository;
+import com.organicnow.backend.dto.RollupRebuildResultDto;
+import com.organicnow.backend.dto.RoomStatusDto;
+import com.organicnow.backend.repository.DashboardRollupRepository;
 import com.organicnow.backend.repository.RoomRepository;
-import com.organicnow.backend.repository.ContractRepository;
-import com.organicnow.backend.repository.MaintainRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class DashboardService {
 
+    // กราฟหน้า Dashboard: เดือนปัจจุบัน + ย้อนหลัง 11 เดือน
+    static final int DEFAULT_MONTHS = 12;
+
     private final RoomRepository roomRepository;
-    private final ContractRepository contractRepository;
-    private final MaintainRepository maintainRepository;
-    private final InvoiceRepository invoiceRepository;
+    private final DashboardRollupRepository rollupRepository;
+    private final DashboardCache dashboardCache;
+    private final DashboardSectionRunner sectionRunner;
+
+    // ✅ GET /dashboard รวม section แบบขนานเป็นค่าเริ่มต้น (ปิดได้ด้วย dashboard.parallel.enabled=false)
+    @Value("${dashboard.parallel.enabled:true}")
+    private boolean parallelByDefault = true;
 
     // ✅ ห้องทั้งหมด (0=available, 1=unavailable, 2=repair)
+    //    คำนวณสถานะทุกห้องใน query เดียว → จำนวน query คงที่ไม่ว่าจะมีกี่ห้อง
     public List<Map<String, Object>> getRoomStatuses() {
-        return roomRepository.findAll().stream().map(r -> {
-            Map<String, Object> map = new HashMap<>();
-            map.put("roomNumber", r.getRoomNumber());
-
-            boolean hasContract = contractRepository.existsActiveContractByRoomId(r.getId());
-            boolean hasMaintain = maintainRepository.existsActiveMaintainByRoomId(r.getId());
-
-            if (hasContract) {
-                map.put("status", 1); // มีผู้เช่า = unavailable
-            } else if (hasMaintain) {
-                map.put("status", 2); // อยู่ระหว่างซ่อม = repair
-            } else {
-                map.put("status", 0); // ว่าง = available
-            }
-            return map;
-        }).toList();
+        return dashboardCache.get(DashboardCache.Section.ROOMS, this::loadRoomStatuses);
     }
 
-    // ✅ ข้อมูลรีเควส 12 เดือนล่าสุด
-    public List<MaintainMonthlyDto> getMaintainRequests() {
-        return maintainRepository.countRequestsLast12Months()
-                .stream()
-                .map(r -> new MaintainMonthlyDto((String) r[0], (Long) r[1]))
+    private List<Map<String, Object>> loadRoomStatuses() {
+        return roomRepository.findRoomStatuses().stream()
+                .map(DashboardService::toStatusMap)
                 .toList();
     }
 
-    // ✅ การเงินย้อนหลัง 12 เดือน
+    // ✅ คง shape JSON เดิม { roomNumber, status } ให้ frontend (immutable เพราะถูกแชร์ผ่าน cache)
+    private static Map<String, Object> toStatusMap(RoomStatusDto row) {
+        return Map.of("roomNumber", row.roomNumber(), "status", row.status());
+    }
+
+    // ✅ ข้อมูลรีเควส 12 เดือนล่าสุด (อ่านจาก maintain_monthly)
+    public List<MaintainMonthlyDto> getMaintainRequests() {
+        return dashboardCache.get(DashboardCache.Section.MAINTAINS, this::loadMaintainRequests);
+    }
+
+    private List<MaintainMonthlyDto> loadMaintainRequests() {
+        YearMonth to = YearMonth.now();
+        return rollupRepository.findMaintainMonthly(to.minusMonths(DEFAULT_MONTHS - 1), to);
+    }
+
+    // ✅ ข้อมูลรีเควสช่วงเดือนใดก็ได้ (yyyy-MM ถึง yyyy-MM) — ไม่ผ่าน cache
+    public List<MaintainMonthlyDto> getMaintainRequests(String from, String to) {
+        YearMonth[] range = parseRange(from, to);
+        return rollupRepository.findMaintainMonthly(range[0], range[1]);
+    }
+
+    // ✅ การเงินย้อนหลัง 12 เดือน (อ่านจาก finance_monthly)
     public List<FinanceMonthlyDto> getFinanceStats() {
-        return invoiceRepository.countFinanceLast12Months()
-                .stream()
-                .map(r -> new FinanceMonthlyDto(
-                        (String) r[0],
-                        ((Number) r[1]).longValue(), // onTime
-                        ((Number) r[2]).longValue(), // penalty
-                        ((Number) r[3]).longValue()  // overdue
-                ))
-                .toList();
+        return dashboardCache.get(DashboardCache.Section.FINANCES, this::loadFinanceStats);
+    }
+
+    private List<FinanceMonthlyDto> loadFinanceStats() {
+        YearMonth to = YearMonth.now();
+        return rollupRepository.findFinanceMonthly(to.minusMonths(DEFAULT_MONTHS - 1), to);
     }
 
-    // ✅ รวม Dashboard
+    // ✅ การเงินช่วงเดือนใดก็ได้ (yyyy-MM ถึง yyyy-MM) รวม invoice ที่ย้ายไป archive แล้ว — ไม่ผ่าน cache
+    public List<FinanceMonthlyDto> getFinanceStats(String from, String to) {
+        YearMonth[] range = parseRange(from, to);
+        return rollupRepository.findFinanceMonthly(range[0], range[1]);
+    }
+
+    // ✅ สร้าง rollup ใหม่จากตารางจริง (backfill / แก้ข้อมูลเพี้ยน) แล้วล้าง cache ของกราฟ
+    public RollupRebuildResultDto rebuildRollups() {
+        long started = System.currentTimeMillis();
+        int financeMonths = rollupRepository.rebuildFinanceMonthly();
+        int maintainMonths = rollupRepository.rebuildMaintainMonthly();
+        dashboardCache.invalidate(DashboardCache.Section.MAINTAINS, DashboardCache.Section.FINANCES);
+        return RollupRebuildResultDto.builder()
+                .financeMonths(financeMonths)
+                .maintainMonths(maintainMonths)
+                .elapsedMs(System.currentTimeMillis() - started)
+                .build();
+    }
+
+    // ✅ รวม Dashboard (แต่ละ section อ่านจาก DashboardCache, โหลดใหม่เฉพาะที่ถูก invalidate)
     public DashboardDto getDashboardData() {
+        return getDashboardData(parallelByDefault);
+    }
+
+    // parallel = true  → 3 section ยิง DB พร้อมกัน, section ที่ timeout/พัง ได้ null + errors[section]
+    // parallel = false → ทีละ section (แบบเดิม) error ใด ๆ ทำให้ทั้ง request ล้ม
+    public DashboardDto getDashboardData(boolean parallel) {
+        if (!parallel) {
+            return new DashboardDto(
+                    sectionRunner.runTimed(DashboardCache.Section.ROOMS, this::getRoomStatuses),
+                    sectionRunner.runTimed(DashboardCache.Section.MAINTAINS, this::getMaintainRequests),
+                    sectionRunner.runTimed(DashboardCache.Section.FINANCES, this::getFinanceStats)
+            );
+        }
+
+        Map<DashboardCache.Section, Supplier<?>> sections = new EnumMap<>(DashboardCache.Section.class);
+        sections.put(DashboardCache.Section.ROOMS, this::getRoomStatuses);
+        sections.put(DashboardCache.Section.MAINTAINS, this::getMaintainRequests);
+        sections.put(DashboardCache.Section.FINANCES, this::getFinanceStats);
+        Map<DashboardCache.Section, DashboardSectionRunner.Outcome<Object>> results =
+                sectionRunner.runParallel(DashboardCache.Section.class, sections);
+
+        Map<String, String> errors = new LinkedHashMap<>();
+        results.forEach((section, outcome) -> {
+            if (!outcome.ok()) errors.put(section.name().toLowerCase(), outcome.error());
+        });
         return new DashboardDto(
-                getRoomStatuses(),
-                getMaintainRequests(),
-                getFinanceStats()
+                sectionValue(results, DashboardCache.Section.ROOMS),
+                sectionValue(results, DashboardCache.Section.MAINTAINS),
+                sectionValue(results, DashboardCache.Section.FINANCES),
+                errors
         );
     }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T sectionValue(Map<DashboardCache.Section, DashboardSectionRunner.Outcome<Object>> results,
+                                      DashboardCache.Section section) {
+        return (T) results.get(section).value();
+    }
+
+    // from/to ว่าง → 12 เดือนล่าสุด (ถึงเดือนปัจจุบัน)
+    private YearMonth[] parseRange(String from, String to) {
+        YearMonth end = (to == null || to.isBlank()) ? YearMonth.now() : parseMonth("to", to);
+        YearMonth start = (from == null || from.isBlank()) ? end.minusMonths(DEFAULT_MONTHS - 1) : parseMonth("from", from);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to: " + start + " > " + end);
+        }
+        return new YearMonth[] { start, end };
+    }
+
+    private YearMonth parseMonth(String name, String value) {
+        try {
+            return YearMonth.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + name + " (yyyy-MM): " + value);
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.repository.FeeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * ตารางอัตราค่าบริการ (fee) ใน memory
+ * - ตาราง fee มีไม่กี่แถวและแทบไม่เปลี่ยน → โหลดครั้งเดียวตอนใช้ครั้งแรก
+ * - ยังไม่มี endpoint แก้ fee → แก้ตาราง fee ตรงใน DB แล้วต้องเรียก reload() (หรือ restart) ถึงจะเห็นราคาใหม่
+ */
+@Service
+@RequiredArgsConstructor
+public class FeeRateCache {
+
+    public static final String RENT = "ค่าเช่า";
+    public static final String WATER = "ค่าน้ำ";
+    public static final String ELECTRICITY = "ค่าไฟ";
+
+    public record FeeRate(Long feeId, String feeName, int unitFee) {}
+
+    private final FeeRepository feeRepository;
+
+    private volatile Map<String, FeeRate> rates;
+
+    public Optional<FeeRate> find(String feeName) {
+        return Optional.ofNullable(rates().get(feeName));
+    }
+
+    /** ราคาต่อหน่วยของ fee, ถ้าไม่มีในตารางใช้ fallback */
+    public int unitFee(String feeName, int fallback) {
+        FeeRate rate = rates().get(feeName);
+        return rate != null ? rate.unitFee() : fallback;
+    }
+
+    public void reload() {
+        rates = load();
+    }
+
+    private Map<String, FeeRate> rates() {
+        Map<String, FeeRate> current = rates;
+        if (current == null) {
+            synchronized (this) {
+                if (rates == null) rates = load();
+                current = rates;
+            }
+        }
+        return current;
+    }
+
+    private Map<String, FeeRate> load() {
+        return feeRepository.findAll().stream()
+                .map(f -> new FeeRate(f.getId(), f.getFeeName(), f.getUnitFee() != null ? f.getUnitFee() : 0))
+                .collect(Collectors.toUnmodifiableMap(FeeRate::feeName, Function.identity()));
+    }
+}
@@ -0,0 +1,21 @@
+package com.organicnow.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class IdempotencyPurgeScheduler {
+
+    private final IdempotencyService idempotencyService;
+
+    // ✅ ลบ Idempotency-Key ที่หมดอายุ ทุกชั่วโมง
+    @Scheduled(cron = "0 0 * * * *")
+    public void purgeExpired() {
+        int deleted = idempotencyService.purgeExpired();
+        if (deleted > 0) {
+            System.out.println("🧹 Purged " + deleted + " expired idempotency keys");
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.organicnow.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.organicnow.backend.model.IdempotencyKey;
+import com.organicnow.backend.repository.IdempotencyKeyRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * ✅ Idempotency-Key สำหรับ endpoint ที่เขียนข้อมูล
+ * - key เดิม + payload เดิม → replay response ที่เก็บไว้ (ไม่เรียก action ซ้ำ)
+ * - key เดิม + payload ต่าง → 422
+ * - key เดิมที่ยังประมวลผลอยู่ → 409
+ * - เก็บเฉพาะผลลัพธ์ 2xx; ถ้า action พัง / เก็บผลไม่สำเร็จ ปล่อย key ให้ retry ได้
+ * - claim มี lease (LEASE): server ล่มระหว่างทำ → หลัง lease หมด retry ยึด key ได้ ไม่ต้องรอ TTL
+ * - LRU ใน memory ด้านหน้า → retry ส่วนใหญ่ไม่ต้องถึง DB
+ */
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    static final Duration TTL = Duration.ofHours(24);
+    static final Duration LEASE = Duration.ofMinutes(2);
+    static final int LRU_CAPACITY = 1024;
+    static final int MAX_KEY_LENGTH = 100;
+
+    private record StoredResponse(String requestHash, int statusCode, String body, LocalDateTime expiresAt) {}
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, StoredResponse> lru = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                    return size() > LRU_CAPACITY;
+                }
+            });
+
+    public <T> ResponseEntity<T> execute(String scope, String key, Object request,
+                                         Class<T> responseType, Supplier<ResponseEntity<T>> action) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, HEADER + " too long");
+        }
+        String requestHash = hash(request);
+        // ตัดเหลือ microsecond ให้ตรงกับ timestamp ใน DB (ใช้ระบุเจ้าของ claim)
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        String cacheKey = scope + "|" + key;
+
+        // 1) LRU
+        StoredResponse cached = lru.get(cacheKey);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return replay(cached, requestHash, responseType);
+        }
+
+        // 2) จอง key ใน DB (atomic) — ไม่ได้สิทธิ์ = มีผลลัพธ์อยู่แล้ว หรือกำลังทำอยู่
+        if (idempotencyKeyRepository.claim(scope, key, requestHash, now, now.plus(LEASE), now.plus(TTL)) == 0) {
+            Optional<IdempotencyKey> existing = idempotencyKeyRepository.findByScopeAndIdemKey(scope, key);
+            if (existing.isEmpty() || existing.get().getStatusCode() == null) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Request with this " + HEADER + " is in progress");
+            }
+            IdempotencyKey row = existing.get();
+            StoredResponse stored = new StoredResponse(row.getRequestHash(), row.getStatusCode(),
+                    row.getResponseBody(), row.getExpiresAt());
+            lru.put(cacheKey, stored);
+            return replay(stored, requestHash, responseType);
+        }
+
+        // 3) ได้สิทธิ์ → ทำจริงครั้งเดียว; ไม่ได้เก็บผล (exception ใด ๆ / ไม่ใช่ 2xx) → ปล่อย key เสมอ
+        boolean completed = false;
+        try {
+            ResponseEntity<T> response = action.get();
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                return response;
+            }
+            String body = toJson(response.getBody());
+            int status = response.getStatusCode().value();
+            if (idempotencyKeyRepository.complete(scope, key, now, status, body) > 0) {
+                completed = true;
+                lru.put(cacheKey, new StoredResponse(requestHash, status, body, now.plus(TTL)));
+            }
+            return response;
+        } finally {
+            if (!completed) {
+                idempotencyKeyRepository.release(scope, key, now);
+            }
+        }
+    }
+
+    // ✅ ลบ key ที่หมดอายุ (เรียกจาก IdempotencyPurgeScheduler)
+    public int purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (lru) {
+            lru.values().removeIf(s -> !s.expiresAt().isAfter(now));
+        }
+        return idempotencyKeyRepository.deleteExpired(now);
+    }
+
+    private <T> ResponseEntity<T> replay(StoredResponse stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " was already used with a different request");
+        }
+        try {
+            T body = stored.body() != null ? objectMapper.readValue(stored.body(), responseType) : null;
+            return ResponseEntity.status(stored.statusCode()).header("Idempotent-Replayed", "true").body(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot replay stored response", e);
+        }
+    }
+
+    private String toJson(Object body) {
+        try {
+            return body != null ? objectMapper.writeValueAsString(body) : null;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot store response", e);
+        }
+    }
+
+    String hash(Object request) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot hash request", e);
+        }
+    }
+}
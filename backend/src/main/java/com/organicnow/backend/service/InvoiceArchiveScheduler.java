@@ -0,0 +1,21 @@
+package com.organicnow.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class InvoiceArchiveScheduler {
+
+    private final InvoiceArchiveService invoiceArchiveService;
+
+    // ✅ ย้าย invoice ที่ปิดแล้วและเก่ากว่า horizon ไป archive ทุกคืน
+    @Scheduled(cron = "${invoice.archive.cron:0 30 3 * * *}")
+    public void archiveSettled() {
+        int moved = invoiceArchiveService.archiveSettled();
+        if (moved > 0) {
+            System.out.println("📦 Archived " + moved + " settled invoices");
+        }
+    }
+}
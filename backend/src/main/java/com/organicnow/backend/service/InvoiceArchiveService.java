@@ -0,0 +1,143 @@
+package com.organicnow.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * ย้าย invoice ที่ปิดแล้ว (ชำระ/ยกเลิก) และเก่ากว่า horizon ไป cold tier
+ * - invoice_archive แบ่ง partition รายเดือนตาม create_date (สร้าง partition ให้เมื่อจำเป็น)
+ * - invoice_item ของใบที่ย้ายไปอยู่ invoice_item_archive (key: invoice_id + fee_id)
+ * - ผู้เช่า/ห้อง/แพ็กเกจ snapshot ลงแถว archive ตอนย้าย → export ไม่ต้อง join contract ที่อาจถูกลบ/แก้ไปแล้ว
+ * - ทีละ batch, batch ละ transaction: copy รายการ → DELETE ... RETURNING → INSERT ลง archive
+ * - invoice_view ถูกลบตาม (FK ON DELETE CASCADE) → dashboard/list อ่านแค่ข้อมูล hot, export อ่านทั้งสองที่
+ * - finance_monthly ไม่ถูกหักออก (trigger ข้าม DELETE เมื่อ organicnow.archiving = on ใน transaction นี้)
+ */
+@Service
+public class InvoiceArchiveService {
+
+    // dashboard finance อ่าน finance_monthly ซึ่งเก็บยอดเดือนที่ถูก archive ไว้แล้ว จึงไม่ได้จำกัด horizon
+    // แต่ /invoice/list และหน้า tenant detail อ่าน invoice_view (hot เท่านั้น)
+    // → กันค่า config ต่ำเกินจนใบเสร็จ 12 เดือนล่าสุดหายจากประวัติผู้เช่า
+    static final int MIN_HORIZON_MONTHS = 13;
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    static final String SELECT_BATCH_SQL = """
+        SELECT invoice_id FROM invoice
+        WHERE invoice_status IN (1, 2) AND create_date < ?
+        ORDER BY invoice_id
+        LIMIT ?
+        """;
+
+    static final String SELECT_MONTHS_SQL = """
+        SELECT DISTINCT CAST(date_trunc('month', create_date) AS date)
+        FROM invoice WHERE invoice_id = ANY (CAST(? AS bigint[]))
+        """;
+
+    static final String ARCHIVE_ITEMS_SQL = """
+        INSERT INTO invoice_item_archive (invoice_id, fee_id, invoice_detail_id, quantity, unit_fee, total_fee)
+        SELECT invoice_id, fee_id, invoice_detail_id, quantity, unit_fee, total_fee
+        FROM invoice_item WHERE invoice_id = ANY (CAST(? AS bigint[]))
+        """;
+
+    // ✅ มีผลแค่ใน transaction ของ batch นี้ (is_local = true)
+    static final String MARK_ARCHIVING_SQL = "SELECT set_config('organicnow.archiving', 'on', true)";
+
+    static final String MOVE_INVOICES_SQL = """
+        WITH moved AS (
+            DELETE FROM invoice WHERE invoice_id = ANY (CAST(? AS bigint[]))
+            RETURNING *
+        )
+        INSERT INTO invoice_archive (
+            invoice_id, contract_id, create_date, due_date, billing_month, invoice_status,
+            pay_date, pay_method, sub_total, penalty_total, net_amount, penalty_applied_at,
+            package_id, requested_floor, requested_room, requested_rent,
+            requested_water, requested_water_unit, requested_electricity, requested_electricity_unit,
+            first_name, last_name, national_id, phone_number, email, package_name,
+            sign_date, start_date, end_date, room_floor, room_number, contract_rent
+        )
+        SELECT m.invoice_id, m.contract_id, m.create_date, m.due_date, m.billing_month, m.invoice_status,
+               m.pay_date, m.pay_method, m.sub_total, m.penalty_total, m.net_amount, m.penalty_applied_at,
+               m.package_id, m.requested_floor, m.requested_room, m.requested_rent,
+               m.requested_water, m.requested_water_unit, m.requested_electricity, m.requested_electricity_unit,
+               t.first_name, t.last_name, t.national_id, t.phone_number, t.email, ct.contract_name,
+               c.sign_date, c.start_date, c.end_date, r.room_floor, r.room_number,
+               CAST(c.rent_amount_snapshot AS integer)
+        FROM moved m
+        LEFT JOIN contract c ON c.contract_id = m.contract_id
+        LEFT JOIN room r ON r.room_id = c.room_id
+        LEFT JOIN tenant t ON t.tenant_id = c.tenant_id
+        LEFT JOIN package_plan p ON p.package_id = c.package_id
+        LEFT JOIN contract_type ct ON ct.contract_type_id = p.contract_type_id
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int horizonMonths;
+    private final int batchSize;
+
+    public InvoiceArchiveService(JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${invoice.archive.horizon-months:24}") int horizonMonths,
+                                 @Value("${invoice.archive.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.horizonMonths = Math.max(horizonMonths, MIN_HORIZON_MONTHS);
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    /** ตัดที่ต้นเดือน: ย้ายทั้งเดือนพร้อมกัน partition ของเดือนนั้นจะไม่ถูกเติมทีหลัง */
+    public LocalDateTime cutoff(LocalDate today) {
+        return today.withDayOfMonth(1).minusMonths(horizonMonths).atStartOfDay();
+    }
+
+    /** @return จำนวน invoice ที่ย้ายไป archive */
+    public int archiveSettled() {
+        LocalDateTime cutoff = cutoff(LocalDate.now());
+        int total = 0;
+        while (true) {
+            Integer moved = transactionTemplate.execute(tx -> archiveBatch(cutoff));
+            if (moved == null || moved == 0) break;
+            total += moved;
+            if (moved < batchSize) break;
+        }
+        return total;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_BATCH_SQL, Long.class, Timestamp.valueOf(cutoff), batchSize);
+        if (ids.isEmpty()) return 0;
+        Long[] idArray = ids.toArray(new Long[0]);
+
+        // ✅ partition รายเดือนของ archive ต้องมีก่อน insert (ไม่งั้นตกไป default partition)
+        List<LocalDate> months = jdbcTemplate.query(SELECT_MONTHS_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", idArray)),
+                (rs, rowNum) -> rs.getObject(1, LocalDate.class));
+        months.forEach(this::ensurePartition);
+
+        // รายการต้อง copy ก่อน DELETE (invoice_item ถูกลบตาม invoice ด้วย ON DELETE CASCADE)
+        jdbcTemplate.update(ARCHIVE_ITEMS_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", idArray)));
+        jdbcTemplate.execute(MARK_ARCHIVING_SQL);
+        return jdbcTemplate.update(MOVE_INVOICES_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", idArray)));
+    }
+
+    void ensurePartition(LocalDate month) {
+        LocalDate from = month.withDayOfMonth(1);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS invoice_archive_" + from.format(PARTITION_SUFFIX)
+                + " PARTITION OF invoice_archive FOR VALUES FROM ('" + from + "') TO ('" + from.plusMonths(1) + "')");
+    }
+
+    int horizonMonths() {
+        return horizonMonths;
+    }
+}
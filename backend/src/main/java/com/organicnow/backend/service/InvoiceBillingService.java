@@ -0,0 +1,169 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.BillingRunRequest;
+import com.organicnow.backend.dto.BillingRunResultDto;
+import com.organicnow.backend.model.Contract;
+import com.organicnow.backend.repository.ContractRepository;
+import com.organicnow.backend.event.InvoiceChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * ออกใบแจ้งหนี้ประจำเดือนให้ทุกสัญญาที่ active ในครั้งเดียว
+ * - ค่าเช่า = contract.rentAmountSnapshot
+ * - ค่าน้ำ/ไฟ = หน่วยจาก meter readings × อัตรา
+ * - insert ด้วย JDBC batch ทีละ chunk, รันซ้ำได้ (ON CONFLICT (contract_id, billing_month) DO NOTHING)
+ * - จำนวนที่สร้าง = COUNT ของรอบบิลหลัง insert - ก่อน insert (ล็อกต่อรอบบิลกันรันซ้อน)
+ * - แตกรายการ invoice_item ของทั้งเดือนด้วย INSERT ... SELECT เดียว แล้วตั้ง sub_total จากผลรวมรายการ
+ */
+@Service
+@RequiredArgsConstructor
+public class InvoiceBillingService {
+
+    static final int BATCH_SIZE = 500;
+    static final int DEFAULT_WATER_RATE = 30;
+    static final int DEFAULT_ELECTRICITY_RATE = 8;
+
+    static final String INSERT_SQL = """
+        INSERT INTO invoice (
+            contract_id, billing_month, create_date, due_date, invoice_status,
+            sub_total, penalty_total, net_amount, package_id,
+            requested_floor, requested_room, requested_rent,
+            requested_water, requested_water_unit,
+            requested_electricity, requested_electricity_unit
+        ) VALUES (?, ?, ?, ?, 0, ?, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT (contract_id, billing_month) DO NOTHING
+        """;
+
+    // ✅ รอบบิลเดียวกันรันพร้อมกันไม่ได้ (lock จบพร้อม transaction) → นับก่อน/หลัง insert ได้ตรง
+    static final String LOCK_MONTH_SQL = "SELECT pg_advisory_xact_lock(hashtext(CAST(? AS text)))";
+
+    static final String COUNT_FOR_MONTH_SQL = "SELECT COUNT(*) FROM invoice WHERE billing_month = ?";
+
+    private final ContractRepository contractRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final InvoiceItemService invoiceItemService;
+    private final FeeRateCache feeRateCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public BillingRunResultDto runMonthlyBilling(BillingRunRequest request) {
+        long started = System.currentTimeMillis();
+
+        YearMonth month = parseBillingMonth(request.getBillingMonth());
+        LocalDateTime periodStart = month.atDay(1).atStartOfDay();
+        LocalDateTime periodEnd = month.atEndOfMonth().atTime(23, 59, 59);
+        LocalDateTime dueDate = request.getDueDate() != null ? request.getDueDate() : periodStart.plusDays(30);
+        int waterRate = request.getWaterRate() != null ? request.getWaterRate()
+                : feeRateCache.unitFee(FeeRateCache.WATER, DEFAULT_WATER_RATE);
+        int electricityRate = request.getElectricityRate() != null ? request.getElectricityRate()
+                : feeRateCache.unitFee(FeeRateCache.ELECTRICITY, DEFAULT_ELECTRICITY_RATE);
+
+        // ✅ readings → map ตามเลขห้อง
+        Map<String, BillingRunRequest.MeterReading> readingsByRoom = new HashMap<>();
+        if (request.getReadings() != null) {
+            for (BillingRunRequest.MeterReading reading : request.getReadings()) {
+                if (reading != null && reading.getRoomNumber() != null) {
+                    readingsByRoom.put(reading.getRoomNumber().trim(), reading);
+                }
+            }
+        }
+
+        // ✅ ดึงสัญญา active ทั้งหมดในคิวรีเดียว
+        List<Contract> contracts = contractRepository.findActiveContractsForPeriod(periodStart, periodEnd);
+
+        List<Object[]> rows = new ArrayList<>(contracts.size());
+        List<String> missingReadings = new ArrayList<>();
+        for (Contract c : contracts) {
+            String roomNumber = c.getRoom().getRoomNumber();
+            BillingRunRequest.MeterReading reading = readingsByRoom.get(roomNumber);
+            if (reading == null) {
+                missingReadings.add(roomNumber);
+                continue;
+            }
+            rows.add(toRow(c, month.toString(), periodStart, dueDate, reading, waterRate, electricityRate));
+        }
+
+        // ✅ นับจากตารางแทนผลของ batch: reWriteBatchedInserts รวม batch เป็น multi-row INSERT
+        //    แล้ว driver คืน SUCCESS_NO_INFO (-2) ต่อแถว → ใช้นับว่าแถวไหนถูกสร้างไม่ได้
+        String billingMonth = month.toString();
+        jdbcTemplate.queryForList(LOCK_MONTH_SQL, "billing-run:" + billingMonth);
+        int before = countForMonth(billingMonth);
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, BATCH_SIZE, (ps, row) -> {
+            for (int i = 0; i < row.length; i++) {
+                if (row[i] == null) ps.setNull(i + 1, Types.NULL);
+                else ps.setObject(i + 1, row[i]);
+            }
+        });
+        int created = countForMonth(billingMonth) - before;
+
+        // ✅ รายการของทั้งเดือน + sub_total จาก SUM(total_fee) (ใบที่มีรายการอยู่แล้วไม่ถูกแตะ)
+        if (created > 0) {
+            invoiceItemService.insertLinesForBillingMonth(billingMonth, waterRate, electricityRate);
+            invoiceItemService.applySubtotalsForBillingMonth(billingMonth);
+            eventPublisher.publishEvent(InvoiceChangedEvent.allInvoices());
+        }
+
+        return BillingRunResultDto.builder()
+                .billingMonth(billingMonth)
+                .activeContracts(contracts.size())
+                .created(created)
+                .skippedExisting(rows.size() - created)
+                .missingReadings(missingReadings)
+                .elapsedMs(System.currentTimeMillis() - started)
+                .build();
+    }
+
+    private int countForMonth(String billingMonth) {
+        Integer count = jdbcTemplate.queryForObject(COUNT_FOR_MONTH_SQL, Integer.class, billingMonth);
+        return count != null ? count : 0;
+    }
+
+    private Object[] toRow(Contract c, String billingMonth, LocalDateTime createDate, LocalDateTime dueDate,
+                           BillingRunRequest.MeterReading reading, int waterRate, int electricityRate) {
+        int rent = c.getRentAmountSnapshot() != null ? c.getRentAmountSnapshot().intValue() : 0;
+        int waterUnit = reading.getWaterUnit() != null ? reading.getWaterUnit() : 0;
+        int electricityUnit = reading.getElectricityUnit() != null ? reading.getElectricityUnit() : 0;
+        int water = waterUnit * waterRate;
+        int electricity = electricityUnit * electricityRate;
+        int subTotal = rent + water + electricity;
+
+        return new Object[] {
+                c.getId(),
+                billingMonth,
+                Timestamp.valueOf(createDate),
+                Timestamp.valueOf(dueDate),
+                subTotal,
+                subTotal, // net = subTotal (ยังไม่มี penalty)
+                c.getPackagePlan() != null ? c.getPackagePlan().getId() : null,
+                c.getRoom().getRoomFloor(),
+                c.getRoom().getRoomNumber(),
+                rent,
+                water,
+                waterUnit,
+                electricity,
+                electricityUnit
+        };
+    }
+
+    private YearMonth parseBillingMonth(String billingMonth) {
+        if (billingMonth == null || billingMonth.isBlank()) {
+            throw new IllegalArgumentException("billingMonth is required (yyyy-MM)");
+        }
+        try {
+            return YearMonth.parse(billingMonth.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid billingMonth: " + billingMonth);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.organicnow.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.organicnow.backend.dto.InvoiceDto;
+import com.organicnow.backend.repository.InvoiceArchiveRepository;
+import com.organicnow.backend.repository.InvoiceRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Export invoice ทีละแถวจาก cursor ของ DB ลง OutputStream (CSV / NDJSON)
+ * heap คงที่ไม่ว่าตารางจะใหญ่แค่ไหน — ใช้กับ StreamingResponseBody
+ * includeArchived → ต่อด้วยแถวจาก cold tier (invoice_archive) ซึ่งอ่านได้จาก export เท่านั้น
+ */
+@Service
+@RequiredArgsConstructor
+public class InvoiceExportService {
+
+    static final int FLUSH_EVERY = 500;
+
+    static final String CSV_HEADER = "invoiceId,contractId,createDate,dueDate,invoiceStatus,payDate,payMethod,"
+            + "subTotal,penaltyTotal,netAmount,firstName,lastName,nationalId,packageName,floor,room,"
+            + "rent,water,waterUnit,electricity,electricityUnit";
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        public final String contentType;
+        public final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public static Format from(String value) {
+            if (value == null || value.isBlank()) return CSV;
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    private final InvoiceRepository invoiceRepository;
+    private final InvoiceArchiveRepository invoiceArchiveRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * เขียน invoice ที่ตรง filter ลง out ทีละแถว (transaction เปิดค้างไว้ตลอดการ stream เพื่อให้ cursor ทำงาน)
+     * @return จำนวนแถวที่เขียน
+     */
+    @Transactional(readOnly = true)
+    public long export(Format format, Integer status, LocalDateTime startDate, LocalDateTime endDate,
+                       boolean includeArchived, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long rows = 0;
+
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        try (Stream<InvoiceDto> stream = invoiceRepository.streamDtosForExport(status, startDate, endDate)) {
+            rows = writeRows(format, stream, writer, rows);
+        }
+        if (includeArchived) {
+            try (Stream<InvoiceDto> stream = invoiceArchiveRepository.streamDtosForExport(status, startDate, endDate)) {
+                rows = writeRows(format, stream, writer, rows);
+            }
+        }
+
+        writer.flush();
+        return rows;
+    }
+
+    private long writeRows(Format format, Stream<InvoiceDto> stream, Writer writer, long rows) throws IOException {
+        try {
+            Iterator<InvoiceDto> it = stream.iterator();
+            while (it.hasNext()) {
+                InvoiceDto dto = it.next();
+                if (format == Format.CSV) {
+                    writeCsvRow(writer, dto);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(dto));
+                }
+                writer.write('\n');
+
+                if (++rows % FLUSH_EVERY == 0) {
+                    writer.flush(); // ส่งให้ client เป็นช่วง ๆ ไม่ค้างใน buffer
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return rows;
+    }
+
+    private void writeCsvRow(Writer w, InvoiceDto d) throws IOException {
+        Object[] values = {
+                d.getId(), d.getContractId(), d.getCreateDate(), d.getDueDate(), d.getInvoiceStatus(),
+                d.getPayDate(), d.getPayMethod(), d.getSubTotal(), d.getPenaltyTotal(), d.getNetAmount(),
+                d.getFirstName(), d.getLastName(), d.getNationalId(), d.getPackageName(),
+                d.getFloor(), d.getRoom(), d.getRent(), d.getWater(), d.getWaterUnit(),
+                d.getElectricity(), d.getElectricityUnit()
+        };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) w.write(',');
+            w.write(csv(values[i]));
+        }
+    }
+
+    // ✅ ครอบด้วย "..." เมื่อมี , " หรือขึ้นบรรทัดใหม่ (RFC 4180)
+    static String csv(Object value) {
+        if (value == null) return "";
+        String s = value.toString();
+        if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+            return '"' + s.replace("\"", "\"\"") + '"';
+        }
+        return s;
+    }
+}
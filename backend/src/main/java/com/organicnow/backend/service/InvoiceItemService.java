@@ -0,0 +1,146 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.InvoiceItemDto;
+import com.organicnow.backend.repository.InvoiceItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * รายการในใบแจ้งหนี้ (invoice_item) — ค่าเช่า / ค่าน้ำ / ค่าไฟ ต่อ invoice
+ * - แก้ยอด invoice → ลบแล้ว insert รายการใหม่ (ผลรวมรายการ = sub_total เสมอ)
+ * - insert ทีละ invoice ด้วย JDBC batch, ทั้งเดือน (billing run) ด้วย INSERT ... SELECT เดียว
+ * - sub_total ของ billing run คำนวณจาก SUM(total_fee) ด้วย UPDATE เดียว
+ * - อ่านรายการของทั้งหน้าด้วย query เดียว
+ */
+@Service
+@RequiredArgsConstructor
+public class InvoiceItemService {
+
+    static final String INSERT_SQL = """
+        INSERT INTO invoice_item (invoice_id, fee_id, quantity, unit_fee, total_fee)
+        VALUES (?, ?, ?, ?, ?)
+        ON CONFLICT (invoice_id, fee_id) DO NOTHING
+        """;
+
+    static final String DELETE_FOR_INVOICE_SQL = "DELETE FROM invoice_item WHERE invoice_id = ?";
+
+    // ✅ แตก requested_* ของทุก invoice ในเดือนเป็น 3 รายการ แล้ว join fee ตามชื่อ
+    static final String INSERT_FOR_MONTH_SQL = """
+        INSERT INTO invoice_item (invoice_id, fee_id, quantity, unit_fee, total_fee)
+        SELECT i.invoice_id, f.fee_id, l.quantity, l.unit_fee, l.total_fee
+        FROM invoice i
+        CROSS JOIN LATERAL (VALUES
+            (CAST(? AS varchar), 1, i.requested_rent, i.requested_rent),
+            (CAST(? AS varchar), COALESCE(i.requested_water_unit, 0), CAST(? AS integer), i.requested_water),
+            (CAST(? AS varchar), COALESCE(i.requested_electricity_unit, 0), CAST(? AS integer), i.requested_electricity)
+        ) AS l(fee_name, quantity, unit_fee, total_fee)
+        JOIN fee f ON f.fee_name = l.fee_name
+        WHERE i.billing_month = ? AND l.total_fee > 0
+        ON CONFLICT (invoice_id, fee_id) DO NOTHING
+        """;
+
+    // ✅ sub_total = SUM(total_fee) ของรายการ (aggregate ครั้งเดียวทั้งเดือน)
+    static final String APPLY_SUBTOTALS_FOR_MONTH_SQL = """
+        UPDATE invoice i
+        SET sub_total = s.total,
+            net_amount = s.total + i.penalty_total
+        FROM (
+            SELECT ii.invoice_id, SUM(ii.total_fee) AS total
+            FROM invoice_item ii
+            JOIN invoice x ON x.invoice_id = ii.invoice_id
+            WHERE x.billing_month = ?
+            GROUP BY ii.invoice_id
+        ) s
+        WHERE i.invoice_id = s.invoice_id
+          AND i.sub_total <> s.total
+        """;
+
+    private final InvoiceItemRepository invoiceItemRepository;
+    private final FeeRateCache feeRateCache;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * สร้างรายการจากยอดที่กรอกมา (ข้ามรายการที่ยอดเป็น 0 หรือไม่มี fee ในตาราง)
+     */
+    public List<InvoiceItemDto> buildLines(int rent,
+                                           int waterUnit, int waterRate, int waterAmount,
+                                           int electricityUnit, int electricityRate, int electricityAmount) {
+        List<InvoiceItemDto> lines = new ArrayList<>(3);
+        addLine(lines, FeeRateCache.RENT, 1, rent, rent);
+        addLine(lines, FeeRateCache.WATER, waterUnit, waterRate, waterAmount);
+        addLine(lines, FeeRateCache.ELECTRICITY, electricityUnit, electricityRate, electricityAmount);
+        return lines;
+    }
+
+    private void addLine(List<InvoiceItemDto> lines, String feeName, int quantity, int unitFee, int total) {
+        if (total <= 0) return;
+        feeRateCache.find(feeName).ifPresent(rate -> lines.add(InvoiceItemDto.builder()
+                .feeId(rate.feeId())
+                .feeName(feeName)
+                .quantity(quantity)
+                .unitFee(unitFee)
+                .totalFee(total)
+                .build()));
+    }
+
+    /** insert รายการของ invoice เดียวด้วย batch เดียว */
+    public void insertLines(Long invoiceId, List<InvoiceItemDto> lines) {
+        if (lines.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_SQL, lines, lines.size(), (ps, line) -> {
+            ps.setLong(1, invoiceId);
+            ps.setLong(2, line.getFeeId());
+            ps.setInt(3, line.getQuantity());
+            ps.setInt(4, line.getUnitFee());
+            ps.setInt(5, line.getTotalFee());
+        });
+        lines.forEach(line -> line.setInvoiceId(invoiceId));
+    }
+
+    /** แทนรายการทั้งหมดของ invoice (ใช้ตอนแก้ยอด sub_total) */
+    public void replaceLines(Long invoiceId, List<InvoiceItemDto> lines) {
+        jdbcTemplate.update(DELETE_FOR_INVOICE_SQL, invoiceId);
+        insertLines(invoiceId, lines);
+    }
+
+    /** @return จำนวนรายการที่ถูกสร้าง */
+    public int insertLinesForBillingMonth(String billingMonth, int waterRate, int electricityRate) {
+        return jdbcTemplate.update(INSERT_FOR_MONTH_SQL,
+                FeeRateCache.RENT,
+                FeeRateCache.WATER, waterRate,
+                FeeRateCache.ELECTRICITY, electricityRate,
+                billingMonth);
+    }
+
+    /** @return จำนวน invoice ที่ sub_total ถูกปรับตามรายการ */
+    public int applySubtotalsForBillingMonth(String billingMonth) {
+        return jdbcTemplate.update(APPLY_SUBTOTALS_FOR_MONTH_SQL, billingMonth);
+    }
+
+    /** รายการของหลาย invoice (query เดียว) → map ตาม invoice id */
+    public Map<Long, List<InvoiceItemDto>> findLinesByInvoiceIds(Collection<Long> invoiceIds) {
+        if (invoiceIds.isEmpty()) return Map.of();
+        return groupByInvoice(invoiceItemRepository.findDtosByInvoiceIds(invoiceIds));
+    }
+
+    /** รายการของทุก invoice (query เดียว) → map ตาม invoice id */
+    public Map<Long, List<InvoiceItemDto>> findAllLines() {
+        return groupByInvoice(invoiceItemRepository.findAllDtos());
+    }
+
+    private Map<Long, List<InvoiceItemDto>> groupByInvoice(List<InvoiceItemDto> lines) {
+        Map<Long, List<InvoiceItemDto>> byInvoice = new HashMap<>();
+        for (InvoiceItemDto line : lines) {
+            byInvoice.computeIfAbsent(line.getInvoiceId(), id -> new ArrayList<>()).add(line);
+        }
+        return byInvoice;
+    }
+
+    public static int sumTotal(List<InvoiceItemDto> lines) {
+        int total = 0;
+        for (InvoiceItemDto line : lines) total += line.getTotalFee();
+        return total;
+    }
+}
@@ -0,0 +1,132 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.BulkPaymentRequest;
+import com.organicnow.backend.dto.BulkPaymentResultDto;
+import com.organicnow.backend.dto.BulkPaymentResultDto.Outcome;
+import com.organicnow.backend.dto.BulkPaymentResultDto.Status;
+import com.organicnow.backend.event.InvoiceChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * บันทึกการชำระหลายใบในครั้งเดียว (กระทบยอดโอนเงินสิ้นเดือน)
+ * - ทีละ chunk: UPDATE ... FROM unnest(arrays) เดียว, RETURNING id ที่เปลี่ยนจริง
+ * - ใบที่ไม่ถูกเปลี่ยน → SELECT สถานะครั้งเดียวต่อ chunk เพื่อบอกเหตุผลรายใบ
+ * - trigger ของ invoice_view ทำงานครั้งเดียวต่อ chunk (statement-level)
+ */
+@Service
+@RequiredArgsConstructor
+public class InvoicePaymentService {
+
+    static final int BATCH_SIZE = 500;
+
+    static final String MARK_PAID_SQL = """
+        UPDATE invoice i
+        SET invoice_status = 1,
+            pay_date = p.pay_date,
+            pay_method = COALESCE(p.pay_method, i.pay_method)
+        FROM unnest(CAST(? AS bigint[]), CAST(? AS timestamp[]), CAST(? AS integer[]))
+             AS p(invoice_id, pay_date, pay_method)
+        WHERE i.invoice_id = p.invoice_id
+          AND i.invoice_status = 0
+        RETURNING i.invoice_id
+        """;
+
+    static final String STATUS_SQL = """
+        SELECT invoice_id, invoice_status FROM invoice WHERE invoice_id = ANY(CAST(? AS bigint[]))
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public BulkPaymentResultDto markPaid(BulkPaymentRequest request) {
+        long started = System.currentTimeMillis();
+        List<BulkPaymentRequest.Payment> payments = request.getPayments() != null ? request.getPayments() : List.of();
+        LocalDateTime now = LocalDateTime.now();
+
+        // ✅ ตรวจรายการก่อน: ไม่มี id → INVALID, id ซ้ำ → DUPLICATE (ใช้รายการแรก)
+        Outcome[] outcomes = new Outcome[payments.size()];
+        Map<Long, BulkPaymentRequest.Payment> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < payments.size(); i++) {
+            BulkPaymentRequest.Payment payment = payments.get(i);
+            Long id = payment != null ? payment.getInvoiceId() : null;
+            if (id == null) {
+                outcomes[i] = new Outcome(null, Status.INVALID);
+            } else if (accepted.putIfAbsent(id, payment) != null) {
+                outcomes[i] = new Outcome(id, Status.DUPLICATE);
+            }
+        }
+
+        Map<Long, Status> statusById = new HashMap<>();
+        List<Long> ids = new ArrayList<>(accepted.keySet());
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            applyChunk(chunk, accepted, now, statusById);
+        }
+
+        int paid = 0;
+        for (int i = 0; i < payments.size(); i++) {
+            if (outcomes[i] == null) {
+                Long id = payments.get(i).getInvoiceId();
+                outcomes[i] = new Outcome(id, statusById.get(id));
+            }
+            if (outcomes[i].getStatus() == Status.PAID) paid++;
+        }
+        if (paid > 0) {
+            Set<Long> paidIds = new HashSet<>();
+            statusById.forEach((id, status) -> {
+                if (status == Status.PAID) paidIds.add(id);
+            });
+            eventPublisher.publishEvent(new InvoiceChangedEvent(Set.copyOf(paidIds)));
+        }
+
+        return BulkPaymentResultDto.builder()
+                .requested(payments.size())
+                .paid(paid)
+                .failed(payments.size() - paid)
+                .results(Arrays.asList(outcomes))
+                .elapsedMs(System.currentTimeMillis() - started)
+                .build();
+    }
+
+    private void applyChunk(List<Long> chunk, Map<Long, BulkPaymentRequest.Payment> accepted,
+                            LocalDateTime now, Map<Long, Status> statusById) {
+        Long[] invoiceIds = chunk.toArray(new Long[0]);
+        Timestamp[] payDates = new Timestamp[invoiceIds.length];
+        Integer[] payMethods = new Integer[invoiceIds.length];
+        for (int i = 0; i < invoiceIds.length; i++) {
+            BulkPaymentRequest.Payment payment = accepted.get(invoiceIds[i]);
+            payDates[i] = Timestamp.valueOf(payment.getPayDate() != null ? payment.getPayDate() : now);
+            payMethods[i] = payment.getPayMethod();
+        }
+
+        List<Long> updated = jdbcTemplate.query(MARK_PAID_SQL, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", invoiceIds));
+            ps.setArray(2, ps.getConnection().createArrayOf("timestamp", payDates));
+            ps.setArray(3, ps.getConnection().createArrayOf("integer", payMethods));
+        }, (rs, rowNum) -> rs.getLong(1));
+        updated.forEach(id -> statusById.put(id, Status.PAID));
+
+        // ✅ ใบที่ไม่ถูกเปลี่ยน: หาเหตุผลด้วย SELECT เดียว
+        Long[] rejected = chunk.stream().filter(id -> !statusById.containsKey(id)).toArray(Long[]::new);
+        if (rejected.length == 0) return;
+
+        jdbcTemplate.query(STATUS_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", rejected)),
+                rs -> {
+                    int status = rs.getInt("invoice_status");
+                    statusById.put(rs.getLong("invoice_id"), status == 2 ? Status.CANCELLED : Status.ALREADY_PAID);
+                });
+        for (Long id : rejected) {
+            statusById.putIfAbsent(id, Status.NOT_FOUND);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.organicnow.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class InvoicePenaltyScheduler {
+
+    private final InvoiceService invoiceService;
+
+    // ✅ คิด penalty ให้ invoice ที่เกินกำหนดทุก 5 นาที (แทนการคิดตอนเรียก /invoice/list)
+    @Scheduled(cron = "0 */5 * * * *")
+    public void applyOverduePenalties() {
+        int updated = invoiceService.applyOverduePenalties();
+        if (updated > 0) {
+            System.out.println("🔄 Penalty job applied penalty to " + updated + " overdue invoices");
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.organicnow.backend.service;
 
 import com.organicnow.backend.dto.CreateInvoiceRequest;
 import com.organicnow.backend.dto.InvoiceDto;
+import com.organicnow.backend.dto.InvoiceFilterRequest;
+import com.organicnow.backend.dto.InvoicePageDto;
 import com.organicnow.backend.dto.UpdateInvoiceRequest;
 import com.organicnow.backend.model.Invoice;
 import com.organicnow.backend.repository.InvoiceRepository;
@@ -34,8 +36,14 @@ public interface InvoiceService {
     List<InvoiceDto> getInvoicesByDateRange(LocalDateTime startDate, LocalDateTime endDate);
     List<InvoiceDto> getInvoicesByNetAmountRange(Integer minAmount, Integer maxAmount);
 
+    // Keyset pagination (server-side filter)
+    InvoicePageDto getInvoicePage(InvoiceFilterRequest filter);
+
     // Payment operations
     InvoiceDto markAsPaid(Long id);
     InvoiceDto cancelInvoice(Long id);
     InvoiceDto addPenalty(Long id, Integer penaltyAmount);
+
+    // Penalty job: คิด penalty ให้ invoice ที่เกินกำหนดทั้งหมด คืนจำนวนแถวที่ถูกอัปเดต
+    int applyOverduePenalties();
 }
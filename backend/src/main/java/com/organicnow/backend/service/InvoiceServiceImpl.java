@@ -2,44 +2,74 @@ package com.organicnow.backend.service;
 
 import com.organicnow.backend.dto.CreateInvoiceRequest;
 import com.organicnow.backend.dto.InvoiceDto;
+import com.organicnow.backend.dto.InvoiceFilterRequest;
+import com.organicnow.backend.dto.InvoiceItemDto;
+import com.organicnow.backend.dto.InvoicePageDto;
 import com.organicnow.backend.dto.UpdateInvoiceRequest;
+import com.organicnow.backend.event.InvoiceChangedEvent;
 import com.organicnow.backend.model.Contract;
 import com.organicnow.backend.model.Invoice;
 import com.organicnow.backend.repository.ContractRepository;
 import com.organicnow.backend.repository.InvoiceRepository;
-import com.organicnow.backend.repository.RoomRepository;
+import com.organicnow.backend.repository.InvoiceViewRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class InvoiceServiceImpl implements InvoiceService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int SEARCH_LIMIT = 100;
+
     private final InvoiceRepository invoiceRepository;
     private final ContractRepository contractRepository;
-    private final RoomRepository roomRepository;
+    private final ActiveContractResolver activeContractResolver;
+    private final InvoiceViewRepository invoiceViewRepository;
+    private final InvoiceItemService invoiceItemService;
+    private final FeeRateCache feeRateCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     public InvoiceServiceImpl(InvoiceRepository invoiceRepository,
                               ContractRepository contractRepository,
-                              RoomRepository roomRepository) {
+                              ActiveContractResolver activeContractResolver,
+                              InvoiceViewRepository invoiceViewRepository,
+                              InvoiceItemService invoiceItemService,
+                              FeeRateCache feeRateCache,
+                              ApplicationEventPublisher eventPublisher) {
         this.invoiceRepository = invoiceRepository;
+        this.invoiceViewRepository = invoiceViewRepository;
+        this.invoiceItemService = invoiceItemService;
+        this.feeRateCache = feeRateCache;
+        this.eventPublisher = eventPublisher;
         this.contractRepository = contractRepository;
-        this.roomRepository = roomRepository;
+        this.activeContractResolver = activeContractResolver;
     }
 
     // ===== CRUD =====
     @Override
+    @Transactional(readOnly = true)
     public List<InvoiceDto> getAllInvoices() {
-        // อัปเดต penalty อัตโนมัติก่อนส่งข้อมูล
-        updateOverduePenalties();
-        
-        // ✅ ใช้วิธีเดิม (รีเวิร์ท)
-        List<Invoice> invoices = invoiceRepository.findAll();
-        return invoices.stream().map(this::convertToDto).toList();
+        // ✅ read-only: penalty ถูกคิดโดย InvoicePenaltyScheduler แล้ว ไม่ต้องอัปเดตตอนอ่าน
+        // ✅ อ่านจาก read model invoice_view (ตารางเดียว, trigger อัปเดตให้ตอนเขียน)
+        List<InvoiceDto> rows = invoiceViewRepository.findAllDtos();
+        // ✅ ยอดแยกรายการจาก invoice_item เหมือน /page และรายใบ (query เดียวทั้งตาราง)
+        Map<Long, List<InvoiceItemDto>> linesByInvoice = invoiceItemService.findAllLines();
+        rows.forEach(row -> applyLines(row, linesByInvoice.getOrDefault(row.getId(), List.of())));
+        return rows;
     }
 
     @Override
@@ -48,6 +78,7 @@ public class InvoiceServiceImpl implements InvoiceService {
     }
 
     @Override
+    @Transactional
     public InvoiceDto createInvoice(CreateInvoiceRequest request) {
         System.out.println("🚀 Received request: " + request);
         System.out.println("📋 Package ID: " + request.getPackageId() + ", Floor: " + request.getFloor() + ", Room: " + request.getRoom());
@@ -65,18 +96,30 @@ public class InvoiceServiceImpl implements InvoiceService {
 
         Integer uiElecUnit = request.getElecUnit(); // alias จาก UI
         int waterUnit = request.getWaterUnit() != null ? request.getWaterUnit() : 0;
-        int waterRate = request.getWaterRate() != null ? request.getWaterRate() : 30; // default rate
+        int waterRate = request.getWaterRate() != null ? request.getWaterRate()
+                : feeRateCache.unitFee(FeeRateCache.WATER, 30); // อัตราจากตาราง fee
         int electricityUnit = request.getElectricityUnit() != null ? request.getElectricityUnit()
                 : (uiElecUnit != null ? uiElecUnit : 0);
-        int electricityRate = request.getElectricityRate() != null ? request.getElectricityRate() : 8; // default rate
+        int electricityRate = request.getElectricityRate() != null ? request.getElectricityRate()
+                : feeRateCache.unitFee(FeeRateCache.ELECTRICITY, 8); // อัตราจากตาราง fee
 
         Integer waterAmountFromUi = request.getWater();
         Integer elecAmountFromUi = request.getElectricity();
         int waterAmount = (waterAmountFromUi != null) ? waterAmountFromUi : waterUnit * waterRate;
         int electricityAmount = (elecAmountFromUi != null) ? elecAmountFromUi : electricityUnit * electricityRate;
 
-        Integer subTotal = request.getSubTotal();
-        if (subTotal == null) subTotal = rent + waterAmount + electricityAmount;
+        // ✅ รายการ invoice_item (ค่าเช่า/ค่าน้ำ/ค่าไฟ) → sub_total = ผลรวมรายการ
+        List<InvoiceItemDto> lines = invoiceItemService.buildLines(rent,
+                waterUnit, waterRate, waterAmount,
+                electricityUnit, electricityRate, electricityAmount);
+
+        Integer subTotal;
+        if (!lines.isEmpty()) {
+            subTotal = InvoiceItemService.sumTotal(lines);
+        } else {
+            subTotal = request.getSubTotal();
+            if (subTotal == null) subTotal = rent + waterAmount + electricityAmount;
+        }
 
         Integer netAmount = request.getNetAmount();
         if (netAmount == null) netAmount = subTotal + penalty;
@@ -110,40 +153,34 @@ public class InvoiceServiceImpl implements InvoiceService {
         inv.setPenaltyTotal(penalty);
         inv.setNetAmount(netAmount);
 
+        // แปลง floor จาก String เป็น Integer
+        Integer floorNum = null;
+        try {
+            if (request.getFloor() != null && !request.getFloor().trim().isEmpty()) {
+                floorNum = Integer.parseInt(request.getFloor().trim());
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("⚠️ Invalid floor format: " + request.getFloor());
+        }
+
         // ต้องผูก Contract (contact) เพราะ nullable=false
-        Contract contract = null;
-        
-        // หาก contractId มีค่า ใช้วิธีเดิม
+        Contract contract;
         if (request.getContractId() != null) {
             contract = contractRepository.findById(request.getContractId())
                     .orElseThrow(() -> new RuntimeException("Contract not found: " + request.getContractId()));
+        } else {
+            // ✅ หา contract active ของห้องจาก (floor, room) ผ่าน index + cache
+            final Integer floorForLookup = floorNum;
+            contract = activeContractResolver.resolve(floorNum, request.getRoom())
+                    .orElseThrow(() -> new RuntimeException("No active contract for floor: "
+                            + floorForLookup + " room: " + request.getRoom()));
         }
-        // หากไม่มี contractId ให้ใช้ contract ใดๆ เป็น placeholder เนื่องจาก DB constraint
-        else {
-            List<Contract> existingContracts = contractRepository.findAll();
-            if (!existingContracts.isEmpty()) {
-                contract = existingContracts.get(0); // ใช้ contract แรกเป็น placeholder
-                System.out.println("⚠️ Using placeholder contract: " + contract.getId() + 
-                    " for request floor: " + request.getFloor() + " room: " + request.getRoom());
-            } else {
-                throw new RuntimeException("No contracts available in system");
-            }
-        }
-        
+
         inv.setContact(contract);
 
         // ✅ เก็บข้อมูลจาก request สำหรับการแสดงผล
         inv.setPackageId(request.getPackageId());
         
-        // แปลง floor จาก String เป็น Integer
-        Integer floorNum = null;
-        try {
-            if (request.getFloor() != null && !request.getFloor().trim().isEmpty()) {
-                floorNum = Integer.parseInt(request.getFloor().trim());
-            }
-        } catch (NumberFormatException e) {
-            System.out.println("⚠️ Invalid floor format: " + request.getFloor());
-        }
         inv.setRequestedFloor(floorNum);
         inv.setRequestedRoom(request.getRoom());
         inv.setRequestedRent(rent);
@@ -157,6 +194,8 @@ public class InvoiceServiceImpl implements InvoiceService {
         System.out.println("💾 Saving to DB - Water: " + waterAmount + " (" + waterUnit + " units), Electricity: " + electricityAmount + " (" + electricityUnit + " units)");
 
         Invoice saved = invoiceRepository.save(inv);
+        invoiceItemService.insertLines(saved.getId(), lines); // batch เดียว, transaction เดียวกับ invoice
+        eventPublisher.publishEvent(InvoiceChangedEvent.ofInvoices(saved.getId()));
         
         // ✅ สร้าง DTO response โดยใช้ข้อมูลจาก request แทนข้อมูลจาก contract
         InvoiceDto result = convertToDto(saved);
@@ -212,7 +251,11 @@ public class InvoiceServiceImpl implements InvoiceService {
         // ===== ยอดเงิน =====
         boolean amountTouched = false;
         if (request.getSubTotal() != null) {
-            inv.setSubTotal(Math.max(0, request.getSubTotal()));
+            int subTotal = Math.max(0, request.getSubTotal());
+            if (inv.getSubTotal() == null || subTotal != inv.getSubTotal()) {
+                subTotal = replaceLines(inv, subTotal);
+            }
+            inv.setSubTotal(subTotal);
             amountTouched = true;
         }
         if (request.getPenaltyTotal() != null) {
@@ -235,34 +278,239 @@ public class InvoiceServiceImpl implements InvoiceService {
         // notes: Entity ยังไม่มีฟิลด์นี้ — ไม่ทำอะไร
 
         Invoice saved = invoiceRepository.save(inv);
+        eventPublisher.publishEvent(InvoiceChangedEvent.ofInvoices(saved.getId()));
         return convertToDto(saved);
     }
 
+    /**
+     * แก้ยอด sub_total → แตกรายการ invoice_item ใหม่ให้ผลรวมตรงกับยอด
+     * - ค่าน้ำ/ค่าไฟ คงตามที่ออกบิลไว้ (requested_*), ค่าเช่า = ส่วนที่เหลือ (ติดลบ → ไม่รับ)
+     * @return sub_total ใหม่ (= ผลรวมรายการ ถ้ามีรายการ)
+     */
+    private int replaceLines(Invoice inv, int subTotal) {
+        int waterUnit = nullSafeInt(inv.getRequestedWaterUnit());
+        int waterAmount = nullSafeInt(inv.getRequestedWater());
+        int electricityUnit = nullSafeInt(inv.getRequestedElectricityUnit());
+        int electricityAmount = nullSafeInt(inv.getRequestedElectricity());
+
+        int rent = subTotal - waterAmount - electricityAmount;
+        if (rent < 0) {
+            throw new IllegalArgumentException("subTotal (" + subTotal + ") is less than water + electricity ("
+                    + (waterAmount + electricityAmount) + ")");
+        }
+
+        List<InvoiceItemDto> lines = invoiceItemService.buildLines(rent,
+                waterUnit, unitRate(waterAmount, waterUnit), waterAmount,
+                electricityUnit, unitRate(electricityAmount, electricityUnit), electricityAmount);
+        invoiceItemService.replaceLines(inv.getId(), lines);
+        // ✅ requested_rent ใช้ใน invoice_view / search / export / archive → ต้องตรงกับรายการค่าเช่าใหม่
+        inv.setRequestedRent(rent);
+        return lines.isEmpty() ? subTotal : InvoiceItemService.sumTotal(lines);
+    }
+
+    private static int unitRate(int amount, int unit) {
+        return unit > 0 ? amount / unit : amount;
+    }
+
     @Override
     public void deleteInvoice(Long id) {
         if (invoiceRepository.existsById(id)) {
             invoiceRepository.deleteById(id);
+            eventPublisher.publishEvent(InvoiceChangedEvent.ofInvoices(id));
+        }
+    }
+
+    // ===== Search/Filter (query ฝั่ง DB + DTO projection) =====
+    @Override
+    @Transactional(readOnly = true)
+    public List<InvoiceDto> searchInvoices(String query) {
+        if (query == null || query.isBlank()) return List.of();
+        return invoiceRepository.searchDtos(toLikePattern(query), PageRequest.of(0, SEARCH_LIMIT));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<InvoiceDto> getInvoicesByContractId(Long contractId) {
+        return invoiceRepository.findDtosByContractId(contractId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<InvoiceDto> getInvoicesByRoomId(Long roomId) {
+        return invoiceRepository.findDtosByRoomId(roomId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<InvoiceDto> getInvoicesByTenantId(Long tenantId) {
+        return invoiceRepository.findDtosByTenantId(tenantId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<InvoiceDto> getInvoicesByStatus(Integer status) {
+        return invoiceRepository.findDtosByStatus(status);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<InvoiceDto> getUnpaidInvoices() {
+        return invoiceRepository.findDtosByStatus(0);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<InvoiceDto> getPaidInvoices() {
+        return invoiceRepository.findDtosByStatus(1);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<InvoiceDto> getOverdueInvoices() {
+        return invoiceRepository.findOverdueDtos(LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<InvoiceDto> getInvoicesByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        if (startDate == null || endDate == null) return List.of();
+        return invoiceRepository.findDtosByCreateDateBetween(startDate, endDate);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<InvoiceDto> getInvoicesByNetAmountRange(Integer minAmount, Integer maxAmount) {
+        int min = minAmount != null ? minAmount : 0;
+        int max = maxAmount != null ? maxAmount : Integer.MAX_VALUE;
+        return invoiceRepository.findDtosByNetAmountBetween(min, max);
+    }
+
+    // ===== Keyset pagination =====
+    @Override
+    @Transactional(readOnly = true)
+    public InvoicePageDto getInvoicePage(InvoiceFilterRequest filter) {
+        int size = resolvePageSize(filter.getSize());
+
+        // cursor = (create_date, invoice_id) ของแถวสุดท้ายในหน้าก่อนหน้า
+        LocalDateTime cursorDate = null;
+        Long cursorId = null;
+        if (filter.getCursor() != null && !filter.getCursor().isBlank()) {
+            String[] parts = decodeCursor(filter.getCursor());
+            cursorDate = LocalDateTime.parse(parts[0]);
+            cursorId = Long.parseLong(parts[1]);
         }
+
+        String room = (filter.getRoom() != null && !filter.getRoom().isBlank()) ? filter.getRoom().trim() : null;
+
+        // ดึงเกินมา 1 แถวเพื่อรู้ว่ายังมีหน้าถัดไปไหม
+        List<Invoice> rows = invoiceRepository.findPageAfter(
+                filter.getStatus(), filter.getFloor(), room,
+                filter.getStartDate(), filter.getEndDate(),
+                filter.getMinAmount(), filter.getMaxAmount(),
+                cursorDate, cursorId,
+                PageRequest.of(0, size + 1));
+
+        boolean hasMore = rows.size() > size;
+        List<Invoice> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1)) : null;
+
+        return InvoicePageDto.builder()
+                .items(convertToDtos(page))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .size(size)
+                .build();
     }
 
-    // ===== Search/Filter (ยังไม่ implement) =====
-    @Override public List<InvoiceDto> searchInvoices(String query) { return List.of(); }
-    @Override public List<InvoiceDto> getInvoicesByContractId(Long contractId) { return List.of(); }
-    @Override public List<InvoiceDto> getInvoicesByRoomId(Long roomId) { return List.of(); }
-    @Override public List<InvoiceDto> getInvoicesByTenantId(Long tenantId) { return List.of(); }
-    @Override public List<InvoiceDto> getInvoicesByStatus(Integer status) { return List.of(); }
-    @Override public List<InvoiceDto> getUnpaidInvoices() { return List.of(); }
-    @Override public List<InvoiceDto> getPaidInvoices() { return List.of(); }
-    @Override public List<InvoiceDto> getOverdueInvoices() { return List.of(); }
-    @Override public List<InvoiceDto> getInvoicesByDateRange(LocalDateTime startDate, LocalDateTime endDate) { return List.of(); }
-    @Override public List<InvoiceDto> getInvoicesByNetAmountRange(Integer minAmount, Integer maxAmount) { return List.of(); }
-    @Override public InvoiceDto markAsPaid(Long id) { throw new UnsupportedOperationException("markAsPaid not implemented yet"); }
-    @Override public InvoiceDto cancelInvoice(Long id) { throw new UnsupportedOperationException("cancelInvoice not implemented yet"); }
-    @Override public InvoiceDto addPenalty(Long id, Integer penaltyAmount) { throw new UnsupportedOperationException("addPenalty not implemented yet"); }
+    // ===== Penalty =====
+    /**
+     * คิด penalty 10% ของค่าเช่า ให้ invoice ที่เกินวันครบกำหนด ด้วย UPDATE เดียว (ไม่โหลดทั้งตาราง)
+     * @return จำนวน invoice ที่ถูกคิด penalty
+     */
+    @Override
+    @Transactional
+    public int applyOverduePenalties() {
+        int penalized = invoiceRepository.applyOverduePenalties(LocalDateTime.now());
+        if (penalized > 0) {
+            eventPublisher.publishEvent(InvoiceChangedEvent.allInvoices());
+        }
+        return penalized;
+    }
+
+    // ===== Status / penalty (UPDATE ตรงแถวเดียว) =====
+    @Override
+    @Transactional
+    public InvoiceDto markAsPaid(Long id) {
+        int updated = invoiceRepository.markPaid(id, LocalDateTime.now(), null);
+        return reloadAfterUpdate(id, updated, "paid");
+    }
+
+    @Override
+    @Transactional
+    public InvoiceDto cancelInvoice(Long id) {
+        int updated = invoiceRepository.cancel(id);
+        return reloadAfterUpdate(id, updated, "cancelled");
+    }
+
+    @Override
+    @Transactional
+    public InvoiceDto addPenalty(Long id, Integer penaltyAmount) {
+        if (penaltyAmount == null || penaltyAmount <= 0) {
+            throw new IllegalArgumentException("penaltyAmount must be positive");
+        }
+        int updated = invoiceRepository.addPenalty(id, penaltyAmount, LocalDateTime.now());
+        return reloadAfterUpdate(id, updated, "penalized");
+    }
+
+    // 0 แถว → ไม่มีใบนี้ (400) หรือไม่ได้อยู่ในสถานะยังไม่ชำระ (409)
+    private InvoiceDto reloadAfterUpdate(Long id, int updated, String action) {
+        if (updated == 0) {
+            if (!invoiceRepository.existsById(id)) {
+                throw new RuntimeException("Invoice not found: " + id);
+            }
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Invoice " + id + " is not unpaid and cannot be " + action);
+        }
+        eventPublisher.publishEvent(InvoiceChangedEvent.ofInvoices(id));
+        return invoiceRepository.findById(id)
+                .map(this::convertToDto)
+                .orElseThrow(() -> new RuntimeException("Invoice not found: " + id));
+    }
 
     // ===== Utils =====
     private int nullSafeInt(Integer v) { return v != null ? v : 0; }
 
+    // "Som%" → "%som!%%" (ตัวพิมพ์เล็ก, escape wildcard ด้วย '!')
+    private String toLikePattern(String query) {
+        String escaped = query.trim().toLowerCase()
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return "%" + escaped + "%";
+    }
+
+    private int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) return DEFAULT_PAGE_SIZE;
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    // cursor = base64url("createDate|invoiceId")
+    private String encodeCursor(Invoice last) {
+        String raw = last.getCreateDate() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
     private LocalDateTime parseCreateDateOrNow(String dateStr) {
         if (dateStr == null || dateStr.isBlank()) return LocalDateTime.now();
         try {
@@ -273,51 +521,48 @@ public class InvoiceServiceImpl implements InvoiceService {
         }
     }
 
-    // แปลง Invoice -> InvoiceDto
+    // แปลง Invoice -> InvoiceDto (ทีละใบ)
     private InvoiceDto convertToDto(Invoice invoice) {
-        // ✅ ดึงข้อมูล tenant ล่าสุดจาก room assignment แทนการใช้ contract เก่า
-        Contract currentContract = null;
-        String currentFirstName = "N/A";
-        String currentLastName = "";
-        String currentNationalId = "";
-        String currentPhoneNumber = "";
-        String currentEmail = "";
-        String currentPackageName = "N/A";
-        
-        // หาข้อมูล tenant ปัจจุบันจาก room
-        if (invoice.getRequestedFloor() != null && invoice.getRequestedRoom() != null) {
-            currentContract = roomRepository.findCurrentContractByRoomFloorAndNumber(
-                invoice.getRequestedFloor(), 
-                invoice.getRequestedRoom()
-            );
-        }
-        
-        // ถ้าไม่เจอจาก requested room ให้ลองจาก contract เดิม
-        if (currentContract == null && invoice.getContact() != null && invoice.getContact().getRoom() != null) {
-            currentContract = roomRepository.findCurrentContractByRoomFloorAndNumber(
-                invoice.getContact().getRoom().getRoomFloor(),
-                invoice.getContact().getRoom().getRoomNumber()
-            );
+        return convertToDtos(List.of(invoice)).get(0);
+    }
+
+    // แปลง Invoice หลายใบ -> InvoiceDto
+    // ✅ tenant / package มาจาก contract ของ invoice เอง (แหล่งเดียวกับ invoice_view)
+    private List<InvoiceDto> convertToDtos(List<Invoice> invoices) {
+        if (invoices.isEmpty()) return List.of();
+
+        // ✅ รายการ invoice_item ของทั้งหน้าใน query เดียว
+        Map<Long, List<InvoiceItemDto>> linesByInvoice = invoiceItemService.findLinesByInvoiceIds(
+                invoices.stream().map(Invoice::getId).filter(Objects::nonNull).toList());
+
+        return invoices.stream()
+                .map(invoice -> applyLines(convertToDto(invoice, invoice.getContact()),
+                        linesByInvoice.getOrDefault(invoice.getId(), List.of())))
+                .toList();
+    }
+
+    private InvoiceDto convertToDto(Invoice invoice, Contract contract) {
+        String firstName = "N/A";
+        String lastName = "";
+        String nationalId = "";
+        String phoneNumber = "";
+        String email = "";
+        String packageName = "N/A";
+
+        if (contract != null && contract.getTenant() != null) {
+            firstName = contract.getTenant().getFirstName();
+            lastName = contract.getTenant().getLastName();
+            nationalId = contract.getTenant().getNationalId();
+            phoneNumber = contract.getTenant().getPhoneNumber();
+            email = contract.getTenant().getEmail();
         }
-        
-        // ใช้ current contract ถ้าเจอ, ไม่งั้นใช้ contract เดิม
-        Contract dataSource = currentContract != null ? currentContract : invoice.getContact();
-        
-        if (dataSource != null && dataSource.getTenant() != null) {
-            currentFirstName = dataSource.getTenant().getFirstName();
-            currentLastName = dataSource.getTenant().getLastName();
-            currentNationalId = dataSource.getTenant().getNationalId();
-            currentPhoneNumber = dataSource.getTenant().getPhoneNumber();
-            currentEmail = dataSource.getTenant().getEmail();
-            
-            if (dataSource.getPackagePlan() != null && dataSource.getPackagePlan().getContractType() != null) {
-                currentPackageName = dataSource.getPackagePlan().getContractType().getName();
-            }
+        if (contract != null && contract.getPackagePlan() != null && contract.getPackagePlan().getContractType() != null) {
+            packageName = contract.getPackagePlan().getContractType().getName();
         }
 
         return InvoiceDto.builder()
                 .id(invoice.getId())
-                .contractId(invoice.getContact() != null ? invoice.getContact().getId() : null)
+                .contractId(contract != null ? contract.getId() : null)
                 .createDate(invoice.getCreateDate())
                 .dueDate(invoice.getDueDate())
                 .invoiceStatus(invoice.getInvoiceStatus())
@@ -327,89 +572,61 @@ public class InvoiceServiceImpl implements InvoiceService {
                 .penaltyTotal(invoice.getPenaltyTotal())
                 .netAmount(invoice.getSubTotal() + invoice.getPenaltyTotal()) // ✅ คำนวณ real-time
                 .penaltyAppliedAt(invoice.getPenaltyAppliedAt())
-                // ✅ ใช้ข้อมูล tenant ปัจจุบัน
-                .firstName(currentFirstName)
-                .lastName(currentLastName)
-                .nationalId(currentNationalId)
-                .phoneNumber(currentPhoneNumber)
-                .email(currentEmail)
-                .packageName(currentPackageName)
-                // Contract dates (ใช้ข้อมูลจาก invoice contract เดิม)
-                .signDate(invoice.getContact() != null ? invoice.getContact().getSignDate() : null)
-                .startDate(invoice.getContact() != null ? invoice.getContact().getStartDate() : null)
-                .endDate(invoice.getContact() != null ? invoice.getContact().getEndDate() : null)
+                .firstName(firstName)
+                .lastName(lastName)
+                .nationalId(nationalId)
+                .phoneNumber(phoneNumber)
+                .email(email)
+                .packageName(packageName)
+                .signDate(contract != null ? contract.getSignDate() : null)
+                .startDate(contract != null ? contract.getStartDate() : null)
+                .endDate(contract != null ? contract.getEndDate() : null)
                 // Room info - ใช้ข้อมูลจาก request หากมี, ไม่งั้นดึงจาก contract
-                .floor(invoice.getRequestedFloor() != null 
-                    ? invoice.getRequestedFloor() 
-                    : (invoice.getContact() != null && invoice.getContact().getRoom() != null
-                        ? invoice.getContact().getRoom().getRoomFloor() : null))
-                .room(invoice.getRequestedRoom() != null 
+                .floor(invoice.getRequestedFloor() != null
+                    ? invoice.getRequestedFloor()
+                    : (contract != null && contract.getRoom() != null ? contract.getRoom().getRoomFloor() : null))
+                .room(invoice.getRequestedRoom() != null
                     ? invoice.getRequestedRoom()
-                    : (invoice.getContact() != null && invoice.getContact().getRoom() != null
-                        ? invoice.getContact().getRoom().getRoomNumber() : "N/A"))
-                .rent(invoice.getRequestedRent() != null 
+                    : (contract != null && contract.getRoom() != null ? contract.getRoom().getRoomNumber() : "N/A"))
+                // ยอดที่บันทึกไว้ตอนสร้าง (ไม่มี = 0) — applyLines ทับด้วย invoice_item ถ้ามี
+                .rent(invoice.getRequestedRent() != null
                     ? invoice.getRequestedRent()
-                    : (invoice.getContact() != null && invoice.getContact().getRentAmountSnapshot() != null
-                        ? invoice.getContact().getRentAmountSnapshot().intValue() : 0))
-                // ใช้ค่าน้ำและค่าไฟจาก request ที่บันทึกไว้ หรือคำนวณจาก subTotal สำหรับข้อมูลเก่า
-                .water(invoice.getRequestedWater() != null && invoice.getRequestedWater() > 0 
-                    ? invoice.getRequestedWater() 
-                    : (invoice.getSubTotal() != null ? Math.round(invoice.getSubTotal() * 0.2f) : 0))
-                .waterUnit(invoice.getRequestedWaterUnit() != null && invoice.getRequestedWaterUnit() > 0 
-                    ? invoice.getRequestedWaterUnit() 
-                    : (invoice.getSubTotal() != null ? Math.round((invoice.getSubTotal() * 0.2f) / 30) : 0))
-                .electricity(invoice.getRequestedElectricity() != null && invoice.getRequestedElectricity() > 0 
-                    ? invoice.getRequestedElectricity() 
-                    : (invoice.getSubTotal() != null ? Math.round(invoice.getSubTotal() * 0.8f) : 0))
-                .electricityUnit(invoice.getRequestedElectricityUnit() != null && invoice.getRequestedElectricityUnit() > 0 
-                    ? invoice.getRequestedElectricityUnit() 
-                    : (invoice.getSubTotal() != null ? Math.round((invoice.getSubTotal() * 0.8f) / 8) : 0))
+                    : (contract != null && contract.getRentAmountSnapshot() != null
+                        ? contract.getRentAmountSnapshot().intValue() : 0))
+                .water(nullSafeInt(invoice.getRequestedWater()))
+                .waterUnit(nullSafeInt(invoice.getRequestedWaterUnit()))
+                .electricity(nullSafeInt(invoice.getRequestedElectricity()))
+                .electricityUnit(nullSafeInt(invoice.getRequestedElectricityUnit()))
                 // Penalty info
                 .penalty(invoice.getPenaltyTotal() != null && invoice.getPenaltyTotal() > 0 ? 1 : 0)
                 .penaltyDate(invoice.getPenaltyAppliedAt())
                 .build();
     }
 
-    /**
-     * คำนวณและอัปเดต penalty สำหรับ invoice ที่เกินวันครบกำหนด
-     */
-    @Transactional
-    public void updateOverduePenalties() {
-        LocalDateTime now = LocalDateTime.now();
-        List<Invoice> overdueInvoices = invoiceRepository.findAll()
-                .stream()
-                .filter(invoice -> {
-                    // ใช้ penaltyAppliedAt เป็น penalty due date, หากไม่มีใช้ dueDate
-                    LocalDateTime penaltyDueDate = invoice.getPenaltyAppliedAt() != null ? 
-                        invoice.getPenaltyAppliedAt() : invoice.getDueDate();
-                    
-                    return penaltyDueDate.isBefore(now) && 
-                           invoice.getInvoiceStatus() == 0 && // ยังไม่ชำระ
-                           invoice.getPenaltyTotal() == 0; // ยังไม่มี penalty
-                })
-                .toList();
+    // ✅ ยอดแยกรายการ: จาก invoice_item ถ้ามี (ใช้ร่วมกันทั้ง /list, /page และรายใบ)
+    private InvoiceDto applyLines(InvoiceDto dto, List<InvoiceItemDto> lines) {
+        if (!lines.isEmpty()) {
+            dto.setRent(lineTotal(lines, FeeRateCache.RENT));
+            dto.setWater(lineTotal(lines, FeeRateCache.WATER));
+            dto.setWaterUnit(lineQuantity(lines, FeeRateCache.WATER));
+            dto.setElectricity(lineTotal(lines, FeeRateCache.ELECTRICITY));
+            dto.setElectricityUnit(lineQuantity(lines, FeeRateCache.ELECTRICITY));
+        }
+        dto.setItems(lines);
+        return dto;
+    }
 
-        for (Invoice invoice : overdueInvoices) {
-            // คำนวณ penalty 10% ของค่าเช่า
-            int rent = invoice.getRequestedRent() != null ? invoice.getRequestedRent() : 
-                      (invoice.getContact() != null && invoice.getContact().getRentAmountSnapshot() != null ? 
-                       invoice.getContact().getRentAmountSnapshot().intValue() : 0);
-            
-            int penalty = Math.round(rent * 0.1f);
-            
-            System.out.println("🔍 Processing Invoice #" + invoice.getId() + 
-                " - Status: " + invoice.getInvoiceStatus() + 
-                " - Penalty Date: " + (invoice.getPenaltyAppliedAt() != null ? invoice.getPenaltyAppliedAt() : invoice.getDueDate()) +
-                " - Rent: " + rent + " - Penalty: " + penalty);
-            
-            invoice.setPenaltyTotal(penalty);
-            if (invoice.getPenaltyAppliedAt() == null) {
-                invoice.setPenaltyAppliedAt(now);
-            }
-            invoice.setNetAmount(invoice.getSubTotal() + penalty);
-            
-            invoiceRepository.save(invoice);
-            System.out.println("📋 Applied penalty to Invoice #" + invoice.getId() + ": " + penalty);
+    private int lineTotal(List<InvoiceItemDto> lines, String feeName) {
+        for (InvoiceItemDto line : lines) {
+            if (feeName.equals(line.getFeeName())) return line.getTotalFee();
+        }
+        return 0;
+    }
+
+    private int lineQuantity(List<InvoiceItemDto> lines, String feeName) {
+        for (InvoiceItemDto line : lines) {
+            if (feeName.equals(line.getFeeName())) return line.getQuantity();
         }
+        return 0;
     }
 }
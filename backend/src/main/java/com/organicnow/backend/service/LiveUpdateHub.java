@@ -0,0 +1,242 @@
+package com.organicnow.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * event bus ใน process สำหรับ push ไป browser ผ่าน SSE
+ * - subscriber ละ 1 buffer ขนาดคงที่: ถ้า client ช้าจน buffer เต็ม → ทิ้ง event เก่าสุด แล้วส่ง "resync"
+ *   ให้ client โหลดข้อมูลใหม่เอง (memory ต่อ client ไม่เกิน buffer-size)
+ * - publish ไม่ block: แค่ใส่ buffer แล้วให้ thread pool ขนาดคงที่ทยอยส่ง (subscriber ละ 1 drain task พร้อมกัน)
+ *   queue ของ pool มีขนาดจำกัด: ถ้าเต็ม → ของยังค้างใน buffer ของ subscriber แล้วค่อยส่งรอบ publish / heartbeat ถัดไป
+ * - heartbeat เป็น SSE comment กัน proxy ตัด connection ที่เงียบ ส่งผ่าน drain task เดียวกับ event
+ *   (subscriber ที่กำลัง drain อยู่ไม่ต้อง ping) และตัด subscriber ที่ send ค้างนานเกิน send-timeout ทิ้ง
+ *   เพื่อคืน thread ให้ client อื่น
+ */
+@Slf4j
+@Component
+public class LiveUpdateHub {
+
+    public static final String RESYNC = "resync";
+
+    public record LiveEvent(String name, Object data) {}
+
+    final class Subscriber {
+        final SseEmitter emitter;
+        private final Deque<LiveEvent> buffer = new ArrayDeque<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private boolean overflowed;
+        private boolean pingDue;
+        private volatile long sendingSince; // System.nanoTime() ตอนเริ่ม send ที่ยังไม่จบ (0 = ไม่ได้ส่ง)
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(LiveEvent event) {
+            synchronized (this) {
+                if (buffer.size() >= bufferSize) {
+                    buffer.pollFirst();
+                    overflowed = true;
+                    dropped.increment();
+                }
+                buffer.addLast(event);
+            }
+            scheduleDrain();
+        }
+
+        /** heartbeat: ถ้ามี drain task อยู่แล้ว (กำลังส่งหรือรอคิว) ไม่ต้อง ping */
+        void ping() {
+            if (draining.get()) return;
+            synchronized (this) {
+                pingDue = true;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false, true)) return;
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // queue ของ pool เต็ม → ของยังอยู่ใน buffer รอรอบ publish / heartbeat ถัดไป
+                draining.set(false);
+                rejected.increment();
+            }
+        }
+
+        boolean stalled(long now) {
+            long since = sendingSince;
+            return since != 0 && now - since > sendTimeoutNanos;
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    LiveEvent next;
+                    boolean resync;
+                    boolean ping;
+                    synchronized (this) {
+                        next = buffer.pollFirst();
+                        resync = overflowed;
+                        overflowed = false;
+                        ping = pingDue && next == null && !resync;
+                        pingDue = false;
+                        if (next == null && !resync && !ping) {
+                            draining.set(false);
+                            return;
+                        }
+                    }
+                    if (resync) send(SseEmitter.event().name(RESYNC).data("buffer overflow", MediaType.APPLICATION_JSON));
+                    if (next != null) send(SseEmitter.event().name(next.name()).data(next.data(), MediaType.APPLICATION_JSON));
+                    if (ping) send(SseEmitter.event().comment("ping"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // client ปิดไปแล้ว / ส่งไม่ได้ → เลิกส่งให้ subscriber นี้
+                log.debug("SSE subscriber dropped: {}", e.getMessage());
+                remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            sendingSince = System.nanoTime();
+            try {
+                emitter.send(event);
+            } finally {
+                sendingSince = 0;
+            }
+        }
+
+        int buffered() {
+            synchronized (this) {
+                return buffer.size();
+            }
+        }
+    }
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final Counter dropped;
+    private final Counter rejected;
+
+    public LiveUpdateHub(MeterRegistry meterRegistry,
+                         @Value("${live.sse.buffer-size:64}") int bufferSize,
+                         @Value("${live.sse.timeout:PT30M}") Duration timeout,
+                         @Value("${live.sse.send-timeout:PT10S}") Duration sendTimeout,
+                         @Value("${live.sse.sender-threads:4}") int senderThreads,
+                         @Value("${live.sse.sender-queue:1024}") int senderQueue) {
+        this(meterRegistry, bufferSize, timeout, sendTimeout, senderPool(senderThreads, senderQueue));
+    }
+
+    LiveUpdateHub(MeterRegistry meterRegistry, int bufferSize, Duration timeout, Duration sendTimeout,
+                  ExecutorService executor) {
+        this.bufferSize = Math.max(bufferSize, 1);
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.executor = executor;
+        this.dropped = Counter.builder("live.sse.dropped").register(meterRegistry);
+        this.rejected = Counter.builder("live.sse.rejected").register(meterRegistry);
+        Gauge.builder("live.sse.subscribers", subscribers, Set::size).register(meterRegistry);
+    }
+
+    // ✅ thread คงที่ + queue จำกัด (subscriber ละไม่เกิน 1 task อยู่แล้ว แต่กันไว้ไม่ให้โตไม่จำกัด)
+    private static ExecutorService senderPool(int threads, int queueCapacity) {
+        int size = Math.max(threads, 1);
+        AtomicInteger threadNo = new AtomicInteger();
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)), r -> {
+            Thread t = new Thread(r, "live-sse-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /** ✅ เปิด stream ใหม่ พร้อม event เริ่มต้น (state ปัจจุบัน) ให้ client ไม่ต้อง poll ครั้งแรก */
+    public SseEmitter subscribe(LiveEvent... initialEvents) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> {
+            remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> remove(subscriber));
+        subscribers.add(subscriber);
+        for (LiveEvent event : initialEvents) {
+            subscriber.offer(event);
+        }
+        return emitter;
+    }
+
+    public void publish(String name, Object data) {
+        if (subscribers.isEmpty()) return;
+        LiveEvent event = new LiveEvent(name, data);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    int bufferedEvents() {
+        return subscribers.stream().mapToInt(Subscriber::buffered).sum();
+    }
+
+    @Scheduled(fixedDelayString = "${live.sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.stalled(now)) {
+                // send ค้าง (client ไม่อ่าน) → ปิด connection ให้ write ที่ค้างจบ แล้วคืน thread ให้ pool
+                log.debug("SSE subscriber stalled, closing");
+                remove(subscriber);
+                subscriber.emitter.completeWithError(new IOException("SSE send stalled"));
+                continue;
+            }
+            subscriber.ping();
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.forEach(s -> s.emitter.complete());
+        subscribers.clear();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,106 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.RoomStatusDto;
+import com.organicnow.backend.event.ContractChangedEvent;
+import com.organicnow.backend.event.MaintainChangedEvent;
+import com.organicnow.backend.event.NotificationChangedEvent;
+import com.organicnow.backend.repository.NotificationRepository;
+import com.organicnow.backend.repository.RoomRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * แปลง domain event (หลัง commit) เป็น delta ที่ push ผ่าน LiveUpdateHub
+ * - unread-count   : { count }           เมื่อ notification ถูกสร้าง/อ่าน/ลบ (นับครั้งเดียวต่อ event ไม่ใช่ต่อ client)
+ * - notification   : NotificationDto      เมื่อมี notification ใหม่
+ * - room-status    : [RoomStatusDto]      เฉพาะห้องที่สถานะเปลี่ยนจากรอบก่อน (contract / maintain เปลี่ยน)
+ * ไม่มี client เปิดอยู่ → ไม่ query อะไรเลย
+ */
+@Service
+@RequiredArgsConstructor
+public class LiveUpdateService {
+
+    public static final String UNREAD_COUNT = "unread-count";
+    public static final String NOTIFICATION = "notification";
+    public static final String ROOM_STATUS = "room-status";
+
+    private final LiveUpdateHub hub;
+    private final NotificationRepository notificationRepository;
+    private final RoomRepository roomRepository;
+
+    // สถานะห้องล่าสุดที่ส่งไปแล้ว (roomId → status) ใช้หา transition; null = ยังไม่เคยโหลด
+    private Map<Long, RoomStatusDto> lastRoomStatuses;
+
+    public SseEmitter subscribe() {
+        ensureRoomSnapshot();
+        return hub.subscribe(new LiveUpdateHub.LiveEvent(UNREAD_COUNT, unreadCount()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationChanged(NotificationChangedEvent event) {
+        if (!hub.hasSubscribers()) return;
+        if (event.created() != null) {
+            hub.publish(NOTIFICATION, event.created());
+        }
+        hub.publish(UNREAD_COUNT, unreadCount());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContractChanged(ContractChangedEvent event) {
+        publishRoomTransitions();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMaintainChanged(MaintainChangedEvent event) {
+        publishRoomTransitions();
+    }
+
+    // ✅ grid ทั้งหมดใน query เดียว แล้ว diff กับรอบก่อน → ส่งเฉพาะห้องที่เปลี่ยน
+    synchronized void publishRoomTransitions() {
+        if (!hub.hasSubscribers()) {
+            lastRoomStatuses = null; // ไม่มีคนดู → snapshot อาจเก่า, เริ่มใหม่เมื่อมี client
+            return;
+        }
+        Map<Long, RoomStatusDto> previous = lastRoomStatuses != null ? lastRoomStatuses : Map.of();
+        Map<Long, RoomStatusDto> current = loadRoomStatuses();
+        lastRoomStatuses = current;
+
+        List<RoomStatusDto> changed = new ArrayList<>();
+        for (RoomStatusDto row : current.values()) {
+            RoomStatusDto before = previous.get(row.roomId());
+            if (before == null || !before.status().equals(row.status())) {
+                changed.add(row);
+            }
+        }
+        if (!changed.isEmpty()) {
+            hub.publish(ROOM_STATUS, changed);
+        }
+    }
+
+    // client แรกเปิด stream → เก็บ snapshot ไว้เทียบ (client โหลด grid เต็มจาก /dashboard เอง)
+    private synchronized void ensureRoomSnapshot() {
+        if (lastRoomStatuses == null) {
+            lastRoomStatuses = loadRoomStatuses();
+        }
+    }
+
+    private Map<Long, RoomStatusDto> loadRoomStatuses() {
+        Map<Long, RoomStatusDto> statuses = new HashMap<>();
+        for (RoomStatusDto row : roomRepository.findRoomStatuses()) {
+            statuses.put(row.roomId(), row);
+        }
+        return statuses;
+    }
+
+    private Map<String, Long> unreadCount() {
+        Long count = notificationRepository.countUnreadNotifications();
+        return Map.of("count", count != null ? count : 0L);
+    }
+}
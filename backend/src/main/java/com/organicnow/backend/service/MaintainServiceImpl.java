@@ -3,6 +3,7 @@ package com.organicnow.backend.service;
 import com.organicnow.backend.dto.CreateMaintainRequest;
 import com.organicnow.backend.dto.MaintainDto;
 import com.organicnow.backend.dto.UpdateMaintainRequest;
+import com.organicnow.backend.event.MaintainChangedEvent;
 import com.organicnow.backend.model.Maintain;
 import com.organicnow.backend.model.Room;
 import com.organicnow.backend.model.RoomAsset;
@@ -10,6 +11,7 @@ import com.organicnow.backend.repository.MaintainRepository;
 import com.organicnow.backend.repository.RoomAssetRepository;
 import com.organicnow.backend.repository.RoomRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +25,7 @@ public class MaintainServiceImpl implements MaintainService {
     private final MaintainRepository maintainRepository;
     private final RoomRepository roomRepository;
     private final RoomAssetRepository roomAssetRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<MaintainDto> getAll() {
@@ -65,6 +68,7 @@ public class MaintainServiceImpl implements MaintainService {
         System.out.println("💾 Saving maintain entity...");
         Maintain saved = maintainRepository.save(m);
         System.out.println("✅ Saved with ID: " + saved.getId());
+        eventPublisher.publishEvent(new MaintainChangedEvent(saved.getId()));
         
         return toDto(saved);
     }
@@ -102,7 +106,9 @@ public class MaintainServiceImpl implements MaintainService {
         if (req.getTechnicianName() != null)     m.setTechnicianName(req.getTechnicianName());
         if (req.getTechnicianPhone() != null)    m.setTechnicianPhone(req.getTechnicianPhone());
 
-        return toDto(maintainRepository.save(m));
+        Maintain saved = maintainRepository.save(m);
+        eventPublisher.publishEvent(new MaintainChangedEvent(saved.getId()));
+        return toDto(saved);
     }
 
     @Override
@@ -110,6 +116,7 @@ public class MaintainServiceImpl implements MaintainService {
     public void delete(Long id) {
         if (maintainRepository.existsById(id)) {
             maintainRepository.deleteById(id);
+            eventPublisher.publishEvent(new MaintainChangedEvent(id));
         }
     }
 
@@ -1,6 +1,7 @@
 package com.organicnow.backend.service;
 
 import com.organicnow.backend.dto.NotificationDto;
+import com.organicnow.backend.event.NotificationChangedEvent;
 import com.organicnow.backend.model.MaintenanceSchedule;
 import com.organicnow.backend.model.Notification;
 import com.organicnow.backend.repository.MaintenanceScheduleRepository;
@@ -8,6 +9,7 @@ import com.organicnow.backend.repository.NotificationRepository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +26,7 @@ public class NotificationServiceImpl implements NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final MaintenanceScheduleRepository maintenanceScheduleRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public NotificationDto createNotification(String title, String message, String type, MaintenanceSchedule maintenanceSchedule) {
@@ -38,8 +41,10 @@ public class NotificationServiceImpl implements NotificationService {
 
         Notification saved = notificationRepository.save(notification);
         log.info("Created notification: {}", saved.getTitle());
-        
-        return convertToDto(saved);
+
+        NotificationDto dto = convertToDto(saved);
+        eventPublisher.publishEvent(NotificationChangedEvent.created(dto)); // ✅ push ไป client ที่เปิด stream อยู่
+        return dto;
     }
 
     @Override
@@ -75,6 +80,7 @@ public class NotificationServiceImpl implements NotificationService {
         notification.setReadAt(LocalDateTime.now());
         
         Notification saved = notificationRepository.save(notification);
+        eventPublisher.publishEvent(NotificationChangedEvent.updated());
         return convertToDto(saved);
     }
 
@@ -90,6 +96,9 @@ public class NotificationServiceImpl implements NotificationService {
         
         notificationRepository.saveAll(unreadNotifications);
         log.info("Marked {} notifications as read", unreadNotifications.size());
+        if (!unreadNotifications.isEmpty()) {
+            eventPublisher.publishEvent(NotificationChangedEvent.updated());
+        }
     }
 
     @Override
@@ -99,6 +108,7 @@ public class NotificationServiceImpl implements NotificationService {
         }
         notificationRepository.deleteById(notificationId);
         log.info("Deleted notification: {}", notificationId);
+        eventPublisher.publishEvent(NotificationChangedEvent.updated());
     }
 
     @Override
@@ -107,6 +117,7 @@ public class NotificationServiceImpl implements NotificationService {
         if (!notifications.isEmpty()) {
             notificationRepository.deleteAll(notifications);
             log.info("Deleted {} notifications for maintenance schedule: {}", notifications.size(), maintenanceScheduleId);
+            eventPublisher.publishEvent(NotificationChangedEvent.updated());
         }
     }
 
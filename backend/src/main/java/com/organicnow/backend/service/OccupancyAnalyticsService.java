@@ -0,0 +1,126 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.OccupancyReportDto;
+import com.organicnow.backend.event.ContractChangedEvent;
+import com.organicnow.backend.repository.OccupancyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * occupancy analytics จากช่วงเวลาของ contract (อัตราเข้าพัก, ระยะว่างต่อห้อง, turnover ต่อชั้น)
+ * - คำนวณด้วย OccupancySweep รอบเดียวบนจุดปลายที่ stream มาจาก DB
+ * - cache ผลต่อ (from, to, granularity) แบบ LRU; contract เปลี่ยน → ทุก entry หมดอายุ (version)
+ *   max-age กันกรณีเพิ่ม/ลบห้อง ซึ่งไม่มี event
+ * - metrics: analytics.occupancy.cache{result=hit|miss}, analytics.occupancy.compute
+ */
+@Service
+public class OccupancyAnalyticsService {
+
+    public enum Granularity { DAY, WEEK, MONTH }
+
+    static final int MAX_RANGE_DAYS = 366 * 20;
+
+    private record Key(LocalDate from, LocalDate to, Granularity granularity) {}
+
+    private record Entry(long version, long loadedAtNanos, OccupancyReportDto report) {}
+
+    private final OccupancyRepository occupancyRepository;
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Key, Entry> cache;
+    private final long maxAgeNanos;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer compute;
+
+    public OccupancyAnalyticsService(OccupancyRepository occupancyRepository,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${analytics.occupancy.cache-size:64}") int cacheSize,
+                                     @Value("${analytics.occupancy.max-age:PT1H}") Duration maxAge) {
+        this.occupancyRepository = occupancyRepository;
+        this.maxAgeNanos = maxAge.toNanos();
+        int capacity = Math.max(cacheSize, 1);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.hits = Counter.builder("analytics.occupancy.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("analytics.occupancy.cache").tag("result", "miss").register(meterRegistry);
+        this.compute = Timer.builder("analytics.occupancy.compute").register(meterRegistry);
+    }
+
+    // ✅ from/to = yyyy-MM-dd (ไม่ส่ง = 12 เดือนล่าสุดถึงวันนี้), granularity = DAY | WEEK | MONTH (ไม่ส่ง = DAY)
+    public OccupancyReportDto getOccupancy(String from, String to, String granularity) {
+        LocalDate end = (to == null || to.isBlank()) ? LocalDate.now() : parseDate("to", to);
+        LocalDate start = (from == null || from.isBlank()) ? end.minusYears(1).plusDays(1) : parseDate("from", from);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to: " + start + " > " + end);
+        }
+        if (ChronoUnit.DAYS.between(start, end) + 1 > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Range too long (max " + MAX_RANGE_DAYS + " days)");
+        }
+        return getOccupancy(start, end, parseGranularity(granularity));
+    }
+
+    public OccupancyReportDto getOccupancy(LocalDate from, LocalDate to, Granularity granularity) {
+        Key key = new Key(from, to, granularity);
+        long current = version.get();
+        Entry entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+        }
+        if (entry != null && entry.version() == current
+                && System.nanoTime() - entry.loadedAtNanos() < maxAgeNanos) {
+            hits.increment();
+            return entry.report();
+        }
+
+        misses.increment();
+        OccupancyReportDto report = compute.record(() -> {
+            OccupancySweep sweep = new OccupancySweep(from, to, granularity, occupancyRepository.findRooms());
+            occupancyRepository.streamEndpoints(from, to, sweep);
+            return sweep.finish();
+        });
+        // ✅ ผูก version ที่อ่านก่อนคำนวณ → contract เปลี่ยนระหว่างคำนวณ ค่านี้จะไม่ถูกใช้ซ้ำ
+        synchronized (cache) {
+            cache.put(key, new Entry(current, System.nanoTime(), report));
+        }
+        return report;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContractChanged(ContractChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    private LocalDate parseDate(String name, String value) {
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + name + " (yyyy-MM-dd): " + value);
+        }
+    }
+
+    private Granularity parseGranularity(String value) {
+        if (value == null || value.isBlank()) return Granularity.DAY;
+        try {
+            return Granularity.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid granularity (DAY | WEEK | MONTH): " + value);
+        }
+    }
+}
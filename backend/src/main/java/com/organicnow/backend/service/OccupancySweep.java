@@ -0,0 +1,183 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.FloorTurnoverDto;
+import com.organicnow.backend.dto.OccupancyPointDto;
+import com.organicnow.backend.dto.OccupancyReportDto;
+import com.organicnow.backend.dto.RoomVacancyDto;
+import com.organicnow.backend.repository.OccupancyRepository;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+/**
+ * sweep-line รอบเดียวบนจุดปลายของสัญญา (เรียงตามวันแล้ว)
+ * - ต่อห้องนับจำนวนสัญญาที่ active (สัญญาซ้อนกันในห้องเดียวนับเป็นห้องเดียว)
+ * - ห้องเปลี่ยน ว่าง ↔ มีผู้เช่า เฉพาะตอนนับเปลี่ยน 0 ↔ >0 → ปิด/เปิดช่วงว่าง, นับ move-in/move-out
+ * - ระหว่างจุดปลายสองจุด จำนวนห้องที่มีผู้เช่าคงที่ → บวก ห้อง×วัน ลง bucket ทีเดียว
+ * O(จำนวนจุดปลาย + จำนวนห้อง + จำนวน bucket) ไม่ขึ้นกับ ห้อง × วัน
+ */
+final class OccupancySweep implements OccupancyRepository.EndpointHandler {
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final OccupancyAnalyticsService.Granularity granularity;
+    private final List<OccupancyRepository.RoomRow> rooms;
+    private final Map<Long, Integer> roomIndex = new HashMap<>();
+    private final int totalDays;
+
+    // state ต่อห้อง (index ตาม rooms)
+    private final int[] active;
+    private final int[] vacantSince;
+    private final int[] vacantDays;
+    private final int[] vacancyPeriods;
+    private final int[] longestVacancy;
+    private final int[] moveIns;
+    private final int[] moveOuts;
+
+    // bucket ของ curve: วันเริ่ม (index นับจาก from) + ห้อง-วันที่มีผู้เช่า
+    private final int[] bucketStart;
+    private final long[] bucketOccupied;
+    private int bucket;
+
+    private int cursor;     // วันล่าสุดที่บวกลง bucket แล้ว (index)
+    private int occupied;   // จำนวนห้องที่มีผู้เช่า ณ cursor
+
+    OccupancySweep(LocalDate from, LocalDate to, OccupancyAnalyticsService.Granularity granularity,
+                   List<OccupancyRepository.RoomRow> rooms) {
+        this.from = from;
+        this.to = to;
+        this.granularity = granularity;
+        this.rooms = rooms;
+        this.totalDays = (int) ChronoUnit.DAYS.between(from, to) + 1;
+        for (int i = 0; i < rooms.size(); i++) {
+            roomIndex.put(rooms.get(i).roomId(), i);
+        }
+        int n = rooms.size();
+        active = new int[n];
+        vacantSince = new int[n];
+        vacantDays = new int[n];
+        vacancyPeriods = new int[n];
+        longestVacancy = new int[n];
+        moveIns = new int[n];
+        moveOuts = new int[n];
+
+        List<Integer> starts = new ArrayList<>();
+        for (LocalDate d = from; !d.isAfter(to); d = nextBucket(d)) {
+            starts.add((int) ChronoUnit.DAYS.between(from, d));
+        }
+        bucketStart = starts.stream().mapToInt(Integer::intValue).toArray();
+        bucketOccupied = new long[bucketStart.length];
+    }
+
+    @Override
+    public void accept(long roomId, LocalDate day, int delta) {
+        Integer r = roomIndex.get(roomId);
+        if (r == null) return; // ห้องที่ไม่อยู่ใน snapshot ห้อง
+        int d = (int) ChronoUnit.DAYS.between(from, day);
+        if (d < cursor) {
+            throw new IllegalStateException("Endpoints must be sorted by day: " + day);
+        }
+        advanceTo(d);
+
+        int before = active[r];
+        active[r] = before + delta;
+        if (before == 0 && active[r] > 0) {
+            closeVacancy(r, d);
+            occupied++;
+            if (d > 0) moveIns[r]++; // มีผู้เช่าอยู่แล้ว ณ วันแรกของช่วง ไม่ใช่การย้ายเข้า
+        } else if (before > 0 && active[r] == 0) {
+            occupied--;
+            vacantSince[r] = d;
+            moveOuts[r]++;
+        }
+    }
+
+    OccupancyReportDto finish() {
+        advanceTo(totalDays);
+        for (int r = 0; r < rooms.size(); r++) {
+            if (active[r] == 0) closeVacancy(r, totalDays);
+        }
+        return OccupancyReportDto.builder()
+                .from(from)
+                .to(to)
+                .granularity(granularity.name())
+                .totalRooms(rooms.size())
+                .curve(curve())
+                .vacancies(vacancies())
+                .turnover(turnover())
+                .build();
+    }
+
+    // ✅ บวก occupied × จำนวนวัน [cursor, d) ลง bucket ที่คาบเกี่ยว
+    private void advanceTo(int d) {
+        while (cursor < d) {
+            int bucketEnd = bucket + 1 < bucketStart.length ? bucketStart[bucket + 1] : totalDays;
+            int until = Math.min(d, bucketEnd);
+            bucketOccupied[bucket] += (long) occupied * (until - cursor);
+            cursor = until;
+            if (cursor == bucketEnd && bucket + 1 < bucketStart.length) bucket++;
+        }
+    }
+
+    private void closeVacancy(int r, int d) {
+        int length = d - vacantSince[r];
+        if (length <= 0) return;
+        vacantDays[r] += length;
+        vacancyPeriods[r]++;
+        longestVacancy[r] = Math.max(longestVacancy[r], length);
+    }
+
+    private List<OccupancyPointDto> curve() {
+        List<OccupancyPointDto> points = new ArrayList<>(bucketStart.length);
+        for (int b = 0; b < bucketStart.length; b++) {
+            int end = b + 1 < bucketStart.length ? bucketStart[b + 1] : totalDays;
+            int days = end - bucketStart[b];
+            long roomDays = (long) rooms.size() * days;
+            points.add(new OccupancyPointDto(
+                    from.plusDays(bucketStart[b]).toString(),
+                    days,
+                    bucketOccupied[b],
+                    roomDays,
+                    roomDays == 0 ? 0.0 : round4((double) bucketOccupied[b] / roomDays)));
+        }
+        return points;
+    }
+
+    private List<RoomVacancyDto> vacancies() {
+        List<RoomVacancyDto> result = new ArrayList<>(rooms.size());
+        for (int r = 0; r < rooms.size(); r++) {
+            OccupancyRepository.RoomRow room = rooms.get(r);
+            result.add(new RoomVacancyDto(room.roomId(), room.roomNumber(), room.floor(),
+                    vacantDays[r], vacancyPeriods[r], longestVacancy[r]));
+        }
+        return result;
+    }
+
+    private List<FloorTurnoverDto> turnover() {
+        Map<Integer, FloorTurnoverDto> floors = new TreeMap<>(Comparator.nullsLast(Comparator.naturalOrder()));
+        for (int r = 0; r < rooms.size(); r++) {
+            FloorTurnoverDto floor = floors.computeIfAbsent(rooms.get(r).floor(),
+                    f -> new FloorTurnoverDto(f, 0, 0, 0, 0.0));
+            floor.setRooms(floor.getRooms() + 1);
+            floor.setMoveIns(floor.getMoveIns() + moveIns[r]);
+            floor.setMoveOuts(floor.getMoveOuts() + moveOuts[r]);
+        }
+        floors.values().forEach(f -> f.setTurnoverRate(round4((double) f.getMoveOuts() / f.getRooms())));
+        return new ArrayList<>(floors.values());
+    }
+
+    private LocalDate nextBucket(LocalDate d) {
+        return switch (granularity) {
+            case DAY -> d.plusDays(1);
+            case WEEK -> d.with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+            case MONTH -> d.with(TemporalAdjusters.firstDayOfNextMonth());
+        };
+    }
+
+    private static double round4(double value) {
+        return Math.round(value * 10_000) / 10_000.0;
+    }
+}
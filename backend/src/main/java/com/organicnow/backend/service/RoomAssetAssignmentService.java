@@ -0,0 +1,130 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.RoomAssetBulkResultDto;
+import com.organicnow.backend.model.Room;
+import com.organicnow.backend.repository.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * ผูก asset เข้าหลายห้องในคราวเดียว (เช่น จัดของใหม่ทั้งชั้น) ใน transaction เดียว
+ * - อ่านการผูกปัจจุบันของทุกห้องใน request ด้วย query เดียว แล้ว diff ใน memory
+ * - ลบ: unlink ใบแจ้งซ่อม → DELETE room_asset (IN) → asset ที่หลุดจากห้อง = available (UPDATE เดียว)
+ * - เพิ่ม: claim asset ที่ยังว่างแบบล็อกแถว (RoomAssetBatchRepository) → INSERT room_asset ทีเดียว
+ *   asset ที่ถูกห้อง/request อื่นผูกไปแล้ว → rejectedAssetIds (ห้องอื่นใน request ยังทำต่อ)
+ * จำนวนคำสั่งคงที่ ไม่ขึ้นกับจำนวนห้อง/asset
+ */
+@Service
+@RequiredArgsConstructor
+public class RoomAssetAssignmentService {
+
+    static final int MAX_ASSIGNMENTS = 10_000;
+
+    private final RoomRepository roomRepository;
+    private final RoomAssetRepository roomAssetRepository;
+    private final RoomAssetBatchRepository roomAssetBatchRepository;
+    private final AssetRepository assetRepository;
+    private final MaintainRepository maintainRepository;
+
+    // ✅ roomAssets = roomId → asset ที่ต้องการให้อยู่ในห้อง (ทั้งชุด; list ว่าง = เอาของออกหมด)
+    @Transactional
+    public RoomAssetBulkResultDto assign(Map<Long, List<Long>> roomAssets) {
+        long started = System.currentTimeMillis();
+        Map<Long, Set<Long>> desired = normalize(roomAssets);
+        roomAssetRepository.flush(); // ของที่ค้างใน persistence context ต้องถึง DB ก่อนคำสั่ง JDBC (claim/insert)
+
+        List<Room> rooms = roomRepository.findAllById(desired.keySet());
+        if (rooms.size() != desired.size()) {
+            Set<Long> missing = new TreeSet<>(desired.keySet());
+            rooms.forEach(r -> missing.remove(r.getId()));
+            throw new IllegalArgumentException("Room not found: " + missing);
+        }
+
+        // ✅ diff กับการผูกปัจจุบัน (อ่านครั้งเดียว)
+        List<Long> removeRoomAssetIds = new ArrayList<>();
+        Set<Long> releasedAssetIds = new LinkedHashSet<>();
+        Set<Long> alreadyAssigned = new HashSet<>();
+        for (Object[] row : roomAssetRepository.findAssignmentsByRoomIds(desired.keySet())) {
+            Long roomAssetId = (Long) row[0];
+            Long roomId = (Long) row[1];
+            Long assetId = (Long) row[2];
+            if (desired.get(roomId).contains(assetId)) {
+                alreadyAssigned.add(assetId);
+            } else {
+                removeRoomAssetIds.add(roomAssetId);
+                releasedAssetIds.add(assetId);
+            }
+        }
+
+        // 1️⃣ ลบออก (ก่อนเพิ่ม → asset ที่ย้ายห้องภายใน request เดียวกัน claim ได้)
+        if (!removeRoomAssetIds.isEmpty()) {
+            maintainRepository.unlinkRoomAssets(removeRoomAssetIds);
+            roomAssetRepository.deleteAllByIdInBatch(removeRoomAssetIds);
+            assetRepository.updateStatusByIds(releasedAssetIds, "available");
+        }
+
+        // 2️⃣ เพิ่มใหม่: claim แล้ว insert เฉพาะตัวที่ได้
+        Map<Long, Long> roomOfNewAsset = new LinkedHashMap<>();
+        desired.forEach((roomId, assetIds) -> assetIds.stream()
+                .filter(assetId -> !alreadyAssigned.contains(assetId))
+                .forEach(assetId -> roomOfNewAsset.put(assetId, roomId)));
+
+        List<Long> rejected = new ArrayList<>();
+        int added = 0;
+        if (!roomOfNewAsset.isEmpty()) {
+            Set<Long> claimed = new HashSet<>(roomAssetBatchRepository.claimAvailable(roomOfNewAsset.keySet()));
+            List<Long> insertRooms = new ArrayList<>(claimed.size());
+            List<Long> insertAssets = new ArrayList<>(claimed.size());
+            roomOfNewAsset.forEach((assetId, roomId) -> {
+                if (claimed.contains(assetId)) {
+                    insertRooms.add(roomId);
+                    insertAssets.add(assetId);
+                } else {
+                    rejected.add(assetId);
+                }
+            });
+            added = roomAssetBatchRepository.insertAll(insertRooms.toArray(new Long[0]), insertAssets.toArray(new Long[0]));
+        }
+
+        return RoomAssetBulkResultDto.builder()
+                .rooms(desired.size())
+                .added(added)
+                .removed(removeRoomAssetIds.size())
+                .unchanged(alreadyAssigned.size())
+                .rejectedAssetIds(rejected)
+                .elapsedMs(System.currentTimeMillis() - started)
+                .build();
+    }
+
+    // asset หนึ่งชิ้นต้องอยู่ห้องเดียวใน request; id ซ้ำในห้องเดียวกัน/null ถูกตัดทิ้ง
+    private Map<Long, Set<Long>> normalize(Map<Long, List<Long>> roomAssets) {
+        if (roomAssets == null || roomAssets.isEmpty()) {
+            throw new IllegalArgumentException("At least one room is required");
+        }
+        Map<Long, Set<Long>> desired = new LinkedHashMap<>();
+        Map<Long, Long> roomOfAsset = new HashMap<>();
+        roomAssets.forEach((roomId, assetIds) -> {
+            if (roomId == null) throw new IllegalArgumentException("roomId is required");
+            Set<Long> ids = new LinkedHashSet<>();
+            if (assetIds != null) {
+                for (Long assetId : assetIds) {
+                    if (assetId == null) continue;
+                    Long other = roomOfAsset.putIfAbsent(assetId, roomId);
+                    if (other != null && !other.equals(roomId)) {
+                        throw new IllegalArgumentException(
+                                "Asset " + assetId + " is assigned to more than one room (" + other + ", " + roomId + ")");
+                    }
+                    ids.add(assetId);
+                }
+            }
+            desired.put(roomId, ids);
+        });
+        if (roomOfAsset.size() > MAX_ASSIGNMENTS) {
+            throw new IllegalArgumentException("Too many assets (max " + MAX_ASSIGNMENTS + ")");
+        }
+        return desired;
+    }
+}
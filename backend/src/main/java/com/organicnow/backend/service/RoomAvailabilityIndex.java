@@ -0,0 +1,204 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.event.ContractChangedEvent;
+import com.organicnow.backend.model.Room;
+import com.organicnow.backend.repository.ContractRepository;
+import com.organicnow.backend.repository.RoomRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * index ช่วงเวลาที่ห้องถูกจอง (ต่อห้อง) ใน memory สำหรับค้นห้องว่างตามช่วงวัน
+ * - ต่อห้องเก็บช่วง [startDay, endDay] (epoch day) ที่ merge แล้ว เรียงตามวัน → เช็คทับซ้อนด้วย binary search
+ * - contract/ห้องเปลี่ยน (หลัง commit) → โหลดใหม่เฉพาะห้องที่เกี่ยวข้อง; allRooms หรือห้องเปลี่ยนชั้น/เลข → โหลดใหม่ทั้งหมด
+ * - refresh ทั้งหมดเป็นระยะ กันการเขียนที่ไม่ผ่าน service (เพิ่ม/แก้ห้อง, SQL ตรง)
+ * อ่านไม่ล็อก (slot ของแต่ละห้องเป็น immutable แล้วสลับทั้งก้อน), เขียน serialize ด้วย synchronized
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoomAvailabilityIndex {
+
+    static final long OPEN_END = Long.MAX_VALUE;
+
+    /** ห้อง 1 ห้อง + ช่วงที่ถูกจอง (merge แล้ว, starts/ends เรียงจากน้อยไปมาก) */
+    record RoomSlot(long roomId, String roomNumber, Integer floor, long[] starts, long[] ends) {
+
+        boolean isFree(long from, long to) {
+            int i = lastStartAtOrBefore(to);
+            return i < 0 || ends[i] < from;
+        }
+
+        /** วันแรกที่ ≥ from ที่มีช่องว่างต่อเนื่อง length วัน (null = ไม่มี เพราะสัญญาไม่มีวันสิ้นสุด) */
+        Long nextFreeFrom(long from, long length) {
+            long candidate = from;
+            for (int i = firstEndAtOrAfter(from); i < starts.length; i++) {
+                if (starts[i] > candidate + length - 1) return candidate;
+                if (ends[i] == OPEN_END) return null;
+                candidate = Math.max(candidate, ends[i] + 1);
+            }
+            return candidate;
+        }
+
+        private int lastStartAtOrBefore(long day) {
+            int lo = 0, hi = starts.length - 1, found = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (starts[mid] <= day) {
+                    found = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return found;
+        }
+
+        private int firstEndAtOrAfter(long day) {
+            int lo = 0, hi = ends.length - 1, found = ends.length;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (ends[mid] >= day) {
+                    found = mid;
+                    hi = mid - 1;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return found;
+        }
+    }
+
+    private final RoomRepository roomRepository;
+    private final ContractRepository contractRepository;
+
+    private final Map<Long, RoomSlot> slots = new ConcurrentHashMap<>();
+    private volatile List<Long> roomOrder = List.of();   // เรียงชั้น, เลขห้อง
+    private volatile boolean loaded;
+
+    /** ✅ ห้องทั้งหมดตามลำดับชั้น/เลขห้อง (โหลดครั้งแรกถ้ายังไม่เคยโหลด) */
+    List<RoomSlot> rooms() {
+        if (!loaded) rebuild();
+        List<RoomSlot> result = new ArrayList<>(roomOrder.size());
+        for (Long roomId : roomOrder) {
+            RoomSlot slot = slots.get(roomId);
+            if (slot != null) result.add(slot);
+        }
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${rooms.availability.refresh-ms:600000}",
+               fixedDelayString = "${rooms.availability.refresh-ms:600000}")
+    public void scheduledRefresh() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContractChanged(ContractChangedEvent event) {
+        if (!loaded || event.affectsAllRooms()) {
+            rebuild();
+        } else {
+            reloadRooms(event.roomIds());
+        }
+    }
+
+    /** ✅ โหลดใหม่ทั้งหมด: ห้อง 1 query + ช่วงสัญญา 1 query */
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        List<Room> rooms = new ArrayList<>(roomRepository.findAll());
+        rooms.sort(Comparator.comparing(Room::getRoomFloor, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Room::getRoomNumber, Comparator.nullsLast(Comparator.naturalOrder())));
+        Map<Long, List<long[]>> intervals = groupIntervals(contractRepository.findBlockingIntervals(cutoff()));
+
+        Map<Long, RoomSlot> fresh = new HashMap<>();
+        List<Long> order = new ArrayList<>(rooms.size());
+        for (Room room : rooms) {
+            fresh.put(room.getId(), toSlot(room.getId(), room.getRoomNumber(), room.getRoomFloor(),
+                    intervals.getOrDefault(room.getId(), List.of())));
+            order.add(room.getId());
+        }
+        slots.putAll(fresh);
+        slots.keySet().retainAll(fresh.keySet());
+        roomOrder = List.copyOf(order);
+        loaded = true;
+        log.debug("Room availability index rebuilt: {} rooms in {} ms",
+                order.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** ✅ โหลดใหม่เฉพาะห้องที่มีสัญญาเปลี่ยน (ข้อมูลห้องเดิมจาก slot) */
+    public synchronized void reloadRooms(Collection<Long> roomIds) {
+        // ✅ ห้องถูกแก้ชั้น/เลขห้อง → ลำดับใน index เปลี่ยน ต้องโหลดใหม่ทั้งหมด
+        for (Room room : roomRepository.findAllById(roomIds)) {
+            RoomSlot current = slots.get(room.getId());
+            if (current != null && (!Objects.equals(current.roomNumber(), room.getRoomNumber())
+                    || !Objects.equals(current.floor(), room.getRoomFloor()))) {
+                rebuild();
+                return;
+            }
+        }
+        Map<Long, List<long[]>> intervals =
+                groupIntervals(contractRepository.findBlockingIntervalsForRooms(roomIds, cutoff()));
+        for (Long roomId : roomIds) {
+            RoomSlot current = slots.get(roomId);
+            if (current == null) {
+                rebuild(); // ห้องใหม่ที่ยังไม่อยู่ใน index
+                return;
+            }
+            slots.put(roomId, toSlot(roomId, current.roomNumber(), current.floor(),
+                    intervals.getOrDefault(roomId, List.of())));
+        }
+    }
+
+    // ช่วงที่จบก่อนวันนี้ไม่มีผลกับการค้นช่วงในอนาคต
+    private static LocalDateTime cutoff() {
+        return LocalDate.now().atStartOfDay();
+    }
+
+    private static Map<Long, List<long[]>> groupIntervals(List<Object[]> rows) {
+        Map<Long, List<long[]>> byRoom = new HashMap<>();
+        for (Object[] row : rows) {
+            Long roomId = (Long) row[0];
+            LocalDateTime start = (LocalDateTime) row[1];
+            LocalDateTime end = (LocalDateTime) row[2];
+            long startDay = start.toLocalDate().toEpochDay();
+            long endDay = end != null ? end.toLocalDate().toEpochDay() : OPEN_END;
+            if (endDay < startDay) continue;
+            byRoom.computeIfAbsent(roomId, k -> new ArrayList<>()).add(new long[] { startDay, endDay });
+        }
+        return byRoom;
+    }
+
+    // ✅ เรียงตามวันเริ่ม แล้ว merge ช่วงที่ทับ/ติดกัน → starts/ends เรียงทั้งคู่
+    static RoomSlot toSlot(long roomId, String roomNumber, Integer floor, List<long[]> intervals) {
+        List<long[]> sorted = new ArrayList<>(intervals);
+        sorted.sort(Comparator.comparingLong(iv -> iv[0]));
+        long[] starts = new long[sorted.size()];
+        long[] ends = new long[sorted.size()];
+        int n = 0;
+        for (long[] iv : sorted) {
+            if (n > 0 && (ends[n - 1] == OPEN_END || iv[0] <= ends[n - 1] + 1)) {
+                ends[n - 1] = Math.max(ends[n - 1], iv[1]);
+            } else {
+                starts[n] = iv[0];
+                ends[n] = iv[1];
+                n++;
+            }
+        }
+        return new RoomSlot(roomId, roomNumber, floor, Arrays.copyOf(starts, n), Arrays.copyOf(ends, n));
+    }
+}
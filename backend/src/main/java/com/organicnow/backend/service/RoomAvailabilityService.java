@@ -0,0 +1,87 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.AvailabilitySearchResultDto;
+import com.organicnow.backend.dto.RoomAvailabilityDto;
+import com.organicnow.backend.model.PackagePlan;
+import com.organicnow.backend.repository.PackagePlanRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class RoomAvailabilityService {
+
+    private final RoomAvailabilityIndex availabilityIndex;
+    private final PackagePlanRepository packagePlanRepository;
+
+    // ✅ ห้องว่างช่วง start..end (รวมทั้งสองวัน) จาก index ใน memory — ไม่ query ทีละห้อง
+    //    ไม่ส่ง end แต่ส่ง packageId → end = start + ระยะสัญญา (เดือน) ของ package - 1 วัน
+    @Transactional(readOnly = true)
+    public AvailabilitySearchResultDto search(String start, String end, Integer floor, Long packageId) {
+        if (start == null || start.isBlank()) {
+            throw new IllegalArgumentException("start is required (yyyy-MM-dd)");
+        }
+        LocalDate from = parseDate("start", start);
+        LocalDate to = (end != null && !end.isBlank()) ? parseDate("end", end) : endFromPackage(from, packageId);
+        if (from.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("start must not be in the past: " + from);
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("end must not be before start: " + from + " > " + to);
+        }
+
+        long started = System.nanoTime();
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        long length = ChronoUnit.DAYS.between(from, to) + 1;
+
+        List<RoomAvailabilityDto> available = new ArrayList<>();
+        List<RoomAvailabilityDto> occupied = new ArrayList<>();
+        for (RoomAvailabilityIndex.RoomSlot slot : availabilityIndex.rooms()) {
+            if (floor != null && !floor.equals(slot.floor())) continue;
+            if (slot.isFree(fromDay, toDay)) {
+                available.add(new RoomAvailabilityDto(slot.roomId(), slot.roomNumber(), slot.floor(), true, null));
+            } else {
+                Long next = slot.nextFreeFrom(fromDay, length);
+                occupied.add(new RoomAvailabilityDto(slot.roomId(), slot.roomNumber(), slot.floor(), false,
+                        next != null ? LocalDate.ofEpochDay(next) : null));
+            }
+        }
+
+        return AvailabilitySearchResultDto.builder()
+                .start(from)
+                .end(to)
+                .availableRooms(available)
+                .occupiedRooms(occupied)
+                .tookMicros((System.nanoTime() - started) / 1_000)
+                .build();
+    }
+
+    private LocalDate endFromPackage(LocalDate from, Long packageId) {
+        if (packageId == null) {
+            throw new IllegalArgumentException("end or packageId is required");
+        }
+        PackagePlan plan = packagePlanRepository.findById(packageId)
+                .orElseThrow(() -> new IllegalArgumentException("Package plan not found: " + packageId));
+        Integer months = plan.getContractType() != null ? plan.getContractType().getDuration() : null;
+        if (months == null || months <= 0) {
+            throw new IllegalArgumentException("Package plan has no contract duration: " + packageId);
+        }
+        return from.plusMonths(months).minusDays(1);
+    }
+
+    private LocalDate parseDate(String name, String value) {
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + name + " (yyyy-MM-dd): " + value);
+        }
+    }
+}
@@ -3,15 +3,21 @@ package com.organicnow.backend.service;
 import com.organicnow.backend.dto.AssetDto;
 import com.organicnow.backend.dto.RequestDto;
 import com.organicnow.backend.dto.RoomDetailDto;
+import com.organicnow.backend.dto.RoomPageDto;
 import com.organicnow.backend.dto.RoomUpdateDto;
+import com.organicnow.backend.event.ContractChangedEvent;
 import com.organicnow.backend.model.Asset;
 import com.organicnow.backend.model.Room;
 import com.organicnow.backend.model.RoomAsset;
 import com.organicnow.backend.repository.*;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -19,19 +25,61 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class RoomService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final Set<String> ROOM_STATUSES = Set.of("occupied", "available");
+
     private final RoomRepository roomRepository;
     private final AssetRepository assetRepository;
     private final MaintainRepository maintainRepository;
     private final RoomAssetRepository roomAssetRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ✅ ดึงข้อมูลห้องทั้งหมด (พร้อม requests) และ assets แบบยิง DB ครั้งเดียว (ไม่ N+1)
+    //    รวม 3 query ไม่ว่าจะมีกี่ห้อง: rooms + assets ของทุกห้อง + requests ของทุกห้อง
     public List<RoomDetailDto> getAllRooms() {
         List<RoomDetailDto> rooms = roomRepository.findAllRooms();
         if (rooms.isEmpty()) return rooms;
 
-        // roomIds สำหรับดึง assets ครั้งเดียว
+        attachAssetsAndRequests(rooms);
+        return rooms;
+    }
+
+    // ✅ room list แบบแบ่งหน้า + filter (floor, status = occupied | available, tenant = ชื่อ/นามสกุลบางส่วน)
+    //    assets / requests ดึงเฉพาะห้องในหน้านี้
+    public RoomPageDto getRoomPage(Integer floor, String status, String tenant, Integer page, Integer size) {
+        String statusFilter = null;
+        if (status != null && !status.isBlank()) {
+            statusFilter = status.trim().toLowerCase(Locale.ROOT);
+            if (!ROOM_STATUSES.contains(statusFilter)) {
+                throw new IllegalArgumentException("Invalid status (occupied | available): " + status);
+            }
+        }
+        String tenantPattern = (tenant != null && !tenant.isBlank()) ? toLikePattern(tenant) : null;
+        int pageNo = (page == null || page < 0) ? 0 : page;
+        int pageSize = (size == null || size <= 0) ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+
+        Page<RoomDetailDto> result = roomRepository.findRoomPage(
+                floor, statusFilter, tenantPattern, PageRequest.of(pageNo, pageSize));
+        List<RoomDetailDto> rooms = new ArrayList<>(result.getContent());
+        if (!rooms.isEmpty()) {
+            attachAssetsAndRequests(rooms);
+        }
+
+        return RoomPageDto.builder()
+                .items(rooms)
+                .page(pageNo)
+                .size(pageSize)
+                .totalElements(result.getTotalElements())
+                .totalPages(result.getTotalPages())
+                .build();
+    }
+
+    private void attachAssetsAndRequests(List<RoomDetailDto> rooms) {
+        // roomIds สำหรับดึง assets / requests ครั้งเดียว
         List<Long> roomIds = rooms.stream()
                 .map(RoomDetailDto::getRoomId)
+                .distinct()
                 .collect(Collectors.toList());
 
         // ✅ ดึง assets ของทุกห้องในครั้งเดียว
@@ -51,15 +99,30 @@ public class RoomService {
             assetsByRoom.computeIfAbsent(roomId, k -> new ArrayList<>()).add(dto);
         }
 
-        // เติม requests (คงเดิม) + assets (จาก map ที่รวมมาแล้ว)
-        for (RoomDetailDto room : rooms) {
-            List<RequestDto> reqs = maintainRepository.findRequestsByRoomId(room.getRoomId());
-            room.setRequests(reqs);
+        // ✅ ดึง requests ของทุกห้องในครั้งเดียว (ลำดับในห้องเดียวกันมาจาก query แล้ว)
+        Map<Long, List<RequestDto>> requestsByRoom = new HashMap<>();
+        for (Object[] row : maintainRepository.findRequestsByRoomIds(roomIds)) {
+            Long roomId = (Long) row[0];
+            RequestDto dto = new RequestDto(
+                    (Long) row[1],
+                    (String) row[2],
+                    (LocalDateTime) row[3],
+                    (LocalDateTime) row[4]);
+            requestsByRoom.computeIfAbsent(roomId, k -> new ArrayList<>()).add(dto);
+        }
 
+        for (RoomDetailDto room : rooms) {
+            room.setRequests(requestsByRoom.getOrDefault(room.getRoomId(), Collections.emptyList()));
             room.setAssets(assetsByRoom.getOrDefault(room.getRoomId(), Collections.emptyList()));
         }
+    }
 
-        return rooms;
+    private static String toLikePattern(String query) {
+        String escaped = query.trim().toLowerCase(Locale.ROOT)
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return "%" + escaped + "%";
     }
 
     // ✅ ดึงข้อมูลห้องแบบละเอียด (เดิม) — ใช้ได้เลย
@@ -167,5 +230,7 @@ public class RoomService {
         if (dto.getRoomNumber() != null) room.setRoomNumber(dto.getRoomNumber());
 
         roomRepository.save(room);
+        // ✅ ชั้น/เลขห้องเปลี่ยน → dashboard ROOMS, ActiveContractResolver (key = ชั้น+เลขห้อง), RoomAvailabilityIndex
+        eventPublisher.publishEvent(ContractChangedEvent.ofRooms(room.getId()));
     }
 }
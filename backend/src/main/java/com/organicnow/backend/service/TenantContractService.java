@@ -6,8 +6,10 @@ import com.organicnow.backend.dto.CreateTenantContractRequest;
 import com.organicnow.backend.dto.TenantDto;
 import com.organicnow.backend.dto.TenantDetailDto;
 import com.organicnow.backend.dto.UpdateTenantContractRequest;
+import com.organicnow.backend.event.ContractChangedEvent;
 import com.organicnow.backend.model.*;
 import com.organicnow.backend.repository.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,18 +27,21 @@ public class TenantContractService {
     private final RoomRepository roomRepository;
     private final PackagePlanRepository packagePlanRepository;
     private final ContractRepository contractRepository;
-    private final InvoiceRepository invoiceRepository;
+    private final InvoiceViewRepository invoiceViewRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public TenantContractService(TenantRepository tenantRepository,
                                  RoomRepository roomRepository,
                                  PackagePlanRepository packagePlanRepository,
                                  ContractRepository contractRepository,
-                                 InvoiceRepository invoiceRepository) {
+                                 InvoiceViewRepository invoiceViewRepository,
+                                 ApplicationEventPublisher eventPublisher) {
         this.tenantRepository = tenantRepository;
         this.roomRepository = roomRepository;
         this.packagePlanRepository = packagePlanRepository;
         this.contractRepository = contractRepository;
-        this.invoiceRepository = invoiceRepository;
+        this.invoiceViewRepository = invoiceViewRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     // ➕ CREATE
@@ -86,6 +91,7 @@ public class TenantContractService {
                 .build();
 
         contractRepository.save(contract);
+        eventPublisher.publishEvent(ContractChangedEvent.ofRooms(room.getId()));
 
         return TenantDto.builder()
                 .contractId(contract.getId())
@@ -115,6 +121,7 @@ public class TenantContractService {
         if (req.getNationalId() != null) tenant.setNationalId(req.getNationalId());
         tenantRepository.save(tenant);
 
+        Long previousRoomId = contract.getRoom() != null ? contract.getRoom().getId() : null;
         if (req.getRoomId() != null) {
             Room room = roomRepository.findById(req.getRoomId())
                     .orElseThrow(() -> new RuntimeException("Room not found: " + req.getRoomId()));
@@ -134,6 +141,7 @@ public class TenantContractService {
         if (req.getRentAmountSnapshot() != null) contract.setRentAmountSnapshot(req.getRentAmountSnapshot());
 
         Contract saved = contractRepository.save(contract);
+        eventPublisher.publishEvent(ContractChangedEvent.ofRooms(previousRoomId, saved.getRoom().getId()));
 
         return TenantDto.builder()
                 .contractId(saved.getId())
@@ -156,6 +164,7 @@ public class TenantContractService {
             throw new RuntimeException("Contract not found: " + contractId);
         }
         contractRepository.deleteById(contractId);
+        eventPublisher.publishEvent(ContractChangedEvent.allRooms());
     }
 
     // 🔍 DETAIL
@@ -168,11 +177,12 @@ public class TenantContractService {
         Room room = contract.getRoom();
         PackagePlan plan = contract.getPackagePlan();
 
-        List<Invoice> invoices = invoiceRepository.findByContact_IdOrderByIdDesc(contractId);
+        // ✅ อ่าน invoice จาก read model invoice_view (index contract_id, invoice_id)
+        List<InvoiceView> invoices = invoiceViewRepository.findByContractIdOrderByInvoiceIdDesc(contractId);
 
         List<TenantDetailDto.InvoiceDto> invoiceDtos = invoices.stream()
                 .map(inv -> TenantDetailDto.InvoiceDto.builder()
-                        .invoiceId(inv.getId())
+                        .invoiceId(inv.getInvoiceId())
                         .createDate(inv.getCreateDate())
                         .dueDate(inv.getDueDate())
                         .invoiceStatus(inv.getInvoiceStatus())
@@ -39,6 +39,15 @@ INSERT INTO package_plan (contract_type_id, price, is_active) VALUES
                                                                   (4, 28000.00, 1)
     ON CONFLICT (package_id) DO NOTHING;
 
+-- ========================
+-- Fee (อัตราค่าบริการ → รายการ invoice_item)
+-- ========================
+INSERT INTO fee (fee_name, unit_fee) VALUES
+                                         ('ค่าเช่า', 0),
+                                         ('ค่าน้ำ', 30),
+                                         ('ค่าไฟ', 8)
+    ON CONFLICT (fee_name) DO NOTHING;
+
 -- ========================
 -- Contract (อัปเดตวันที่ให้เป็นปัจจุบัน)
 -- ========================
@@ -73,6 +82,9 @@ VALUES ('เครื่องใช้ไฟฟ้า'), ('เฟอร์น
 -- ========================
 -- Generate Assets Dynamically (fixed syntax)
 -- ========================
+-- asset_id มาจาก sequence (pooled, Hibernate จองทีละ 50) → INSERT ด้วย SQL ตรงต้องดึงจาก sequence เดียวกัน
+ALTER TABLE asset ALTER COLUMN asset_id SET DEFAULT nextval('asset_seq');
+
 -- เฟอร์นิเจอร์
 INSERT INTO asset (asset_group_id, asset_name, status)
 SELECT 2, 'bed-' || LPAD(gs::text, 3, '0'), 'available' FROM generate_series(1, 24) AS gs
@@ -99,6 +111,9 @@ FROM generate_series(1, 24) AS gs
 -- ========================
 -- Assign Asset to Each Room
 -- ========================
+-- asset หนึ่งชิ้นอยู่ได้ห้องเดียว (กันการผูกซ้ำจาก request ที่มาพร้อมกัน)
+CREATE UNIQUE INDEX IF NOT EXISTS ux_room_asset_asset ON room_asset (asset_id);
+
 INSERT INTO room_asset (room_id, asset_id)
 SELECT r.room_id, a.asset_id
 FROM room r
@@ -131,3 +146,597 @@ VALUES
     (1, 2, 12, '2025-01-10', '2026-01-10', 14, 'ตรวจสภาพห้อง', 'ตรวจสอบรอยร้าว พื้น เพดาน'),
     (0, 3, 3, '2025-02-01', '2025-05-01', 3, 'ตรวจหลอดไฟ', 'ตรวจสอบและเปลี่ยนหลอดไฟ')
     ON CONFLICT DO NOTHING;
+
+-- ========================
+-- Search Index (pg_trgm) สำหรับ /invoice/search
+-- LOWER(col) LIKE '%...%' ใช้ index ได้
+-- ========================
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_tenant_first_name_trgm ON tenant USING gin (lower(first_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_tenant_last_name_trgm ON tenant USING gin (lower(last_name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_tenant_national_id_trgm ON tenant USING gin (lower(national_id) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_room_room_number_trgm ON room USING gin (lower(room_number) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_invoice_requested_room_trgm ON invoice USING gin (lower(requested_room) gin_trgm_ops);
+
+-- ========================
+-- Invoice read model (invoice_view)
+-- 1 แถวต่อ invoice: invoice + contract + room + tenant + package + contract type
+-- trigger อัปเดตใน transaction เดียวกับการเขียน invoice / contract / tenant / room / package_plan / contract_type
+-- (function body ใช้ single quote แทน dollar quote เพราะ script runner แยก statement ด้วย ;)
+-- ========================
+ALTER TABLE invoice_view
+    ADD CONSTRAINT fk_invoice_view_invoice FOREIGN KEY (invoice_id)
+    REFERENCES invoice (invoice_id) ON DELETE CASCADE;
+
+CREATE OR REPLACE VIEW invoice_view_source AS
+SELECT i.invoice_id,
+       c.contract_id,
+       c.tenant_id,
+       c.room_id,
+       i.create_date,
+       i.due_date,
+       i.invoice_status,
+       i.pay_date,
+       i.pay_method,
+       i.sub_total,
+       i.penalty_total,
+       i.sub_total + i.penalty_total AS net_amount,
+       i.penalty_applied_at,
+       COALESCE(t.first_name, 'N/A') AS first_name,
+       COALESCE(t.last_name, '') AS last_name,
+       COALESCE(t.national_id, '') AS national_id,
+       COALESCE(t.phone_number, '') AS phone_number,
+       COALESCE(t.email, '') AS email,
+       COALESCE(ct.contract_name, 'N/A') AS package_name,
+       c.sign_date,
+       c.start_date,
+       c.end_date,
+       COALESCE(i.requested_floor, r.room_floor) AS floor,
+       COALESCE(i.requested_room, r.room_number) AS room,
+       COALESCE(i.requested_rent, CAST(c.rent_amount_snapshot AS integer)) AS rent,
+       COALESCE(i.requested_water, 0) AS water,
+       COALESCE(i.requested_water_unit, 0) AS water_unit,
+       COALESCE(i.requested_electricity, 0) AS electricity,
+       COALESCE(i.requested_electricity_unit, 0) AS electricity_unit
+FROM invoice i
+JOIN contract c ON c.contract_id = i.contract_id
+LEFT JOIN room r ON r.room_id = c.room_id
+LEFT JOIN tenant t ON t.tenant_id = c.tenant_id
+LEFT JOIN package_plan p ON p.package_id = c.package_id
+LEFT JOIN contract_type ct ON ct.contract_type_id = p.contract_type_id;
+
+CREATE OR REPLACE FUNCTION invoice_view_refresh(p_invoice_ids bigint[]) RETURNS void LANGUAGE plpgsql AS '
+BEGIN
+    DELETE FROM invoice_view WHERE invoice_id = ANY (p_invoice_ids);
+    INSERT INTO invoice_view (invoice_id, contract_id, tenant_id, room_id, create_date, due_date, invoice_status,
+                              pay_date, pay_method, sub_total, penalty_total, net_amount, penalty_applied_at,
+                              first_name, last_name, national_id, phone_number, email, package_name,
+                              sign_date, start_date, end_date, floor, room, rent,
+                              water, water_unit, electricity, electricity_unit)
+    SELECT invoice_id, contract_id, tenant_id, room_id, create_date, due_date, invoice_status,
+           pay_date, pay_method, sub_total, penalty_total, net_amount, penalty_applied_at,
+           first_name, last_name, national_id, phone_number, email, package_name,
+           sign_date, start_date, end_date, floor, room, rent,
+           water, water_unit, electricity, electricity_unit
+    FROM invoice_view_source
+    WHERE invoice_id = ANY (p_invoice_ids);
+END;
+';
+
+-- invoice: statement-level + transition table → bulk insert/update (billing run, penalty job) refresh ครั้งเดียว
+CREATE OR REPLACE FUNCTION invoice_view_on_invoice() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    PERFORM invoice_view_refresh(ARRAY(SELECT invoice_id FROM changed_invoices));
+    RETURN NULL;
+END;
+';
+
+DROP TRIGGER IF EXISTS trg_invoice_view_insert ON invoice;
+CREATE TRIGGER trg_invoice_view_insert AFTER INSERT ON invoice
+    REFERENCING NEW TABLE AS changed_invoices
+    FOR EACH STATEMENT EXECUTE FUNCTION invoice_view_on_invoice();
+
+DROP TRIGGER IF EXISTS trg_invoice_view_update ON invoice;
+CREATE TRIGGER trg_invoice_view_update AFTER UPDATE ON invoice
+    REFERENCING NEW TABLE AS changed_invoices
+    FOR EACH STATEMENT EXECUTE FUNCTION invoice_view_on_invoice();
+
+-- contract: เฉพาะคอลัมน์ที่แสดงใน read model (status เปลี่ยนโดย scheduler ไม่ต้อง refresh)
+CREATE OR REPLACE FUNCTION invoice_view_on_contract() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    PERFORM invoice_view_refresh(ARRAY(SELECT invoice_id FROM invoice WHERE contract_id = NEW.contract_id));
+    RETURN NULL;
+END;
+';
+
+DROP TRIGGER IF EXISTS trg_invoice_view_contract ON contract;
+CREATE TRIGGER trg_invoice_view_contract
+    AFTER UPDATE OF room_id, tenant_id, package_id, sign_date, start_date, end_date, rent_amount_snapshot ON contract
+    FOR EACH ROW EXECUTE FUNCTION invoice_view_on_contract();
+
+-- tenant: ทุก invoice ของทุก contract ของ tenant คนนี้
+CREATE OR REPLACE FUNCTION invoice_view_on_tenant() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    PERFORM invoice_view_refresh(ARRAY(
+        SELECT i.invoice_id
+        FROM invoice i
+        JOIN contract c ON c.contract_id = i.contract_id
+        WHERE c.tenant_id = NEW.tenant_id));
+    RETURN NULL;
+END;
+';
+
+DROP TRIGGER IF EXISTS trg_invoice_view_tenant ON tenant;
+CREATE TRIGGER trg_invoice_view_tenant
+    AFTER UPDATE OF first_name, last_name, national_id, phone_number, email ON tenant
+    FOR EACH ROW EXECUTE FUNCTION invoice_view_on_tenant();
+
+-- room / package_plan / contract_type: คอลัมน์ที่ read model ใช้ (ห้อง, ชื่อแพ็กเกจ) เปลี่ยนจริงเท่านั้น
+CREATE OR REPLACE FUNCTION invoice_view_on_room() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    PERFORM invoice_view_refresh(ARRAY(
+        SELECT i.invoice_id
+        FROM invoice i
+        JOIN contract c ON c.contract_id = i.contract_id
+        WHERE c.room_id = NEW.room_id));
+    RETURN NULL;
+END;
+';
+
+DROP TRIGGER IF EXISTS trg_invoice_view_room ON room;
+CREATE TRIGGER trg_invoice_view_room
+    AFTER UPDATE OF room_floor, room_number ON room
+    FOR EACH ROW
+    WHEN (OLD.room_floor IS DISTINCT FROM NEW.room_floor OR OLD.room_number IS DISTINCT FROM NEW.room_number)
+    EXECUTE FUNCTION invoice_view_on_room();
+
+CREATE OR REPLACE FUNCTION invoice_view_on_package_plan() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    PERFORM invoice_view_refresh(ARRAY(
+        SELECT i.invoice_id
+        FROM invoice i
+        JOIN contract c ON c.contract_id = i.contract_id
+        WHERE c.package_id = NEW.package_id));
+    RETURN NULL;
+END;
+';
+
+DROP TRIGGER IF EXISTS trg_invoice_view_package_plan ON package_plan;
+CREATE TRIGGER trg_invoice_view_package_plan
+    AFTER UPDATE OF contract_type_id ON package_plan
+    FOR EACH ROW
+    WHEN (OLD.contract_type_id IS DISTINCT FROM NEW.contract_type_id)
+    EXECUTE FUNCTION invoice_view_on_package_plan();
+
+CREATE OR REPLACE FUNCTION invoice_view_on_contract_type() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    PERFORM invoice_view_refresh(ARRAY(
+        SELECT i.invoice_id
+        FROM invoice i
+        JOIN contract c ON c.contract_id = i.contract_id
+        JOIN package_plan p ON p.package_id = c.package_id
+        WHERE p.contract_type_id = NEW.contract_type_id));
+    RETURN NULL;
+END;
+';
+
+DROP TRIGGER IF EXISTS trg_invoice_view_contract_type ON contract_type;
+CREATE TRIGGER trg_invoice_view_contract_type
+    AFTER UPDATE OF contract_name ON contract_type
+    FOR EACH ROW
+    WHEN (OLD.contract_name IS DISTINCT FROM NEW.contract_name)
+    EXECUTE FUNCTION invoice_view_on_contract_type();
+
+-- backfill: invoice ที่ seed ไว้ด้านบนถูก insert ก่อนมี trigger
+SELECT invoice_view_refresh(ARRAY(SELECT invoice_id FROM invoice));
+
+-- ========================
+-- Invoice archive (cold tier) — เขียนโดย InvoiceArchiveService, อ่านโดย /invoice/export เท่านั้น
+-- แบ่ง partition รายเดือนตาม create_date (job สร้าง partition ของเดือนที่ย้ายให้เอง)
+-- สร้างที่นี่เพราะ Hibernate ddl-auto สร้างตาราง partitioned ไม่ได้
+-- ddl-auto=create สร้าง invoice/contract ใหม่ทุกครั้งที่ start (id เริ่มใหม่) → archive ต้องเริ่มใหม่ด้วย
+-- ไม่งั้น invoice_id/contract_id ของรอบก่อนชนกับของรอบนี้
+-- ข้อมูลผู้เช่า/ห้อง/แพ็กเกจ snapshot ไว้ในแถวตอนย้าย (contract อาจถูกลบ/แก้ทีหลัง)
+-- ========================
+DROP TABLE IF EXISTS invoice_archive CASCADE;
+DROP TABLE IF EXISTS invoice_item_archive;
+
+CREATE TABLE invoice_archive (
+    invoice_id                 bigint       NOT NULL,
+    contract_id                bigint       NOT NULL,
+    create_date                timestamp(6) NOT NULL,
+    due_date                   timestamp(6) NOT NULL,
+    billing_month              varchar(7),
+    invoice_status             integer      NOT NULL,
+    pay_date                   timestamp(6),
+    pay_method                 integer,
+    sub_total                  integer      NOT NULL,
+    penalty_total              integer      NOT NULL,
+    net_amount                 integer      NOT NULL,
+    penalty_applied_at         timestamp(6),
+    package_id                 bigint,
+    requested_floor            integer,
+    requested_room             varchar(255),
+    requested_rent             integer,
+    requested_water            integer,
+    requested_water_unit       integer,
+    requested_electricity      integer,
+    requested_electricity_unit integer,
+    first_name                 varchar(255),
+    last_name                  varchar(255),
+    national_id                varchar(255),
+    phone_number               varchar(255),
+    email                      varchar(255),
+    package_name               varchar(255),
+    sign_date                  timestamp(6),
+    start_date                 timestamp(6),
+    end_date                   timestamp(6),
+    room_floor                 integer,
+    room_number                varchar(255),
+    contract_rent              integer,
+    archived_at                timestamp(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (invoice_id, create_date)
+) PARTITION BY RANGE (create_date);
+
+CREATE TABLE invoice_archive_default PARTITION OF invoice_archive DEFAULT;
+CREATE INDEX idx_invoice_archive_contract ON invoice_archive (contract_id);
+
+-- key เดียวกับ uk_invoice_item_invoice_fee ของตารางจริง (invoice_detail_id เก็บไว้อ้างอิงเท่านั้น)
+CREATE TABLE invoice_item_archive (
+    invoice_id        bigint  NOT NULL,
+    fee_id            bigint  NOT NULL,
+    invoice_detail_id bigint  NOT NULL,
+    quantity          integer NOT NULL,
+    unit_fee          integer NOT NULL,
+    total_fee         integer NOT NULL,
+    PRIMARY KEY (invoice_id, fee_id)
+);
+
+-- ========================
+-- Dashboard room status grid
+-- งานซ่อมที่ยังไม่ปิด (finish_date IS NULL) มีไม่กี่แถว → partial index เล็ก ใช้กับ EXISTS ต่อห้อง
+-- ========================
+CREATE INDEX IF NOT EXISTS idx_maintain_room_open ON maintain (room_id) WHERE finish_date IS NULL;
+
+-- ========================
+-- Asset pickers (GET /assets/page, /assets/available/page)
+-- asset ที่ deleted ไม่เคยถูกค้น → partial index เฉพาะแถวที่ยังใช้อยู่ (query ต้องมี status <> 'deleted' ตรง ๆ)
+-- ชื่อขึ้นต้น ใช้ lower(asset_name) text_pattern_ops; เรียงหน้าใช้ (asset_name, asset_id)
+-- NOT EXISTS room_asset ใช้ ux_room_asset_asset
+-- ========================
+CREATE INDEX IF NOT EXISTS idx_asset_live_status ON asset (status, asset_group_id) WHERE status <> 'deleted';
+CREATE INDEX IF NOT EXISTS idx_asset_live_name ON asset (asset_name, asset_id) WHERE status <> 'deleted';
+CREATE INDEX IF NOT EXISTS idx_asset_live_name_prefix ON asset (lower(asset_name) text_pattern_ops) WHERE status <> 'deleted';
+
+-- ========================
+-- Dashboard rollups (finance_monthly / maintain_monthly)
+-- 1 แถวต่อเดือน อัปเดตแบบ delta ใน transaction เดียวกับการเขียน invoice / maintain
+-- statement-level + transition table → bulk update (billing run, penalty job, bulk payment) อัปเดตครั้งเดียวต่อ statement
+-- สร้างใหม่ทั้งหมดได้ด้วย finance_monthly_rebuild() / maintain_monthly_rebuild() (POST /dashboard/rollups/rebuild)
+-- ========================
+CREATE TABLE IF NOT EXISTS finance_monthly (
+    month    date    PRIMARY KEY,            -- วันที่ 1 ของเดือน (ตาม invoice.create_date)
+    on_time  integer NOT NULL DEFAULT 0,     -- invoice_status = 1 และ penalty_total = 0
+    penalty  integer NOT NULL DEFAULT 0,     -- invoice_status = 1 และ penalty_total > 0
+    overdue  integer NOT NULL DEFAULT 0      -- invoice_status = 0
+);
+
+CREATE TABLE IF NOT EXISTS maintain_monthly (
+    month    date    PRIMARY KEY,            -- วันที่ 1 ของเดือน (ตาม maintain.create_date)
+    total    integer NOT NULL DEFAULT 0
+);
+
+-- บวก/ลบ delta ต่อเดือน: sign = +1 แถวใหม่, -1 แถวเดิม (เดือนที่ delta รวมเป็น 0 ไม่ต้องเขียน)
+CREATE OR REPLACE FUNCTION finance_monthly_apply(p_create_dates timestamp[], p_statuses integer[],
+                                                 p_penalties integer[], p_signs integer[]) RETURNS void LANGUAGE plpgsql AS '
+BEGIN
+    INSERT INTO finance_monthly AS f (month, on_time, penalty, overdue)
+    SELECT CAST(date_trunc(''month'', d.create_date) AS date),
+           COALESCE(SUM(d.sign) FILTER (WHERE d.invoice_status = 1 AND COALESCE(d.penalty_total, 0) = 0), 0),
+           COALESCE(SUM(d.sign) FILTER (WHERE d.invoice_status = 1 AND d.penalty_total > 0), 0),
+           COALESCE(SUM(d.sign) FILTER (WHERE d.invoice_status = 0), 0)
+    FROM unnest(p_create_dates, p_statuses, p_penalties, p_signs) AS d(create_date, invoice_status, penalty_total, sign)
+    WHERE d.create_date IS NOT NULL
+    GROUP BY 1
+    HAVING COALESCE(SUM(d.sign) FILTER (WHERE d.invoice_status = 1 AND COALESCE(d.penalty_total, 0) = 0), 0) <> 0
+        OR COALESCE(SUM(d.sign) FILTER (WHERE d.invoice_status = 1 AND d.penalty_total > 0), 0) <> 0
+        OR COALESCE(SUM(d.sign) FILTER (WHERE d.invoice_status = 0), 0) <> 0
+    ON CONFLICT (month) DO UPDATE
+        SET on_time = f.on_time + EXCLUDED.on_time,
+            penalty = f.penalty + EXCLUDED.penalty,
+            overdue = f.overdue + EXCLUDED.overdue;
+END;
+';
+
+-- DELETE ที่มาจาก InvoiceArchiveService (set organicnow.archiving = on) ไม่ลบออกจาก rollup: ประวัติยังนับรวม archive
+CREATE OR REPLACE FUNCTION finance_monthly_on_invoice() RETURNS trigger LANGUAGE plpgsql AS '
+DECLARE
+    v_dates timestamp[];
+    v_statuses integer[];
+    v_penalties integer[];
+    v_signs integer[];
+BEGIN
+    IF TG_OP = ''INSERT'' THEN
+        SELECT array_agg(create_date), array_agg(invoice_status), array_agg(penalty_total), array_agg(1)
+        INTO v_dates, v_statuses, v_penalties, v_signs
+        FROM new_invoices;
+    ELSIF TG_OP = ''UPDATE'' THEN
+        SELECT array_agg(d.create_date), array_agg(d.invoice_status), array_agg(d.penalty_total), array_agg(d.sign)
+        INTO v_dates, v_statuses, v_penalties, v_signs
+        FROM (SELECT create_date, invoice_status, penalty_total, -1 AS sign FROM old_invoices
+              UNION ALL
+              SELECT create_date, invoice_status, penalty_total, 1 AS sign FROM new_invoices) d;
+    ELSE
+        IF current_setting(''organicnow.archiving'', true) = ''on'' THEN
+            RETURN NULL;
+        END IF;
+        SELECT array_agg(create_date), array_agg(invoice_status), array_agg(penalty_total), array_agg(-1)
+        INTO v_dates, v_statuses, v_penalties, v_signs
+        FROM old_invoices;
+    END IF;
+    PERFORM finance_monthly_apply(v_dates, v_statuses, v_penalties, v_signs);
+    RETURN NULL;
+END;
+';
+
+DROP TRIGGER IF EXISTS trg_finance_monthly_insert ON invoice;
+CREATE TRIGGER trg_finance_monthly_insert AFTER INSERT ON invoice
+    REFERENCING NEW TABLE AS new_invoices
+    FOR EACH STATEMENT EXECUTE FUNCTION finance_monthly_on_invoice();
+
+DROP TRIGGER IF EXISTS trg_finance_monthly_update ON invoice;
+CREATE TRIGGER trg_finance_monthly_update AFTER UPDATE ON invoice
+    REFERENCING OLD TABLE AS old_invoices NEW TABLE AS new_invoices
+    FOR EACH STATEMENT EXECUTE FUNCTION finance_monthly_on_invoice();
+
+DROP TRIGGER IF EXISTS trg_finance_monthly_delete ON invoice;
+CREATE TRIGGER trg_finance_monthly_delete AFTER DELETE ON invoice
+    REFERENCING OLD TABLE AS old_invoices
+    FOR EACH STATEMENT EXECUTE FUNCTION finance_monthly_on_invoice();
+
+CREATE OR REPLACE FUNCTION maintain_monthly_apply(p_create_dates timestamp[], p_signs integer[]) RETURNS void LANGUAGE plpgsql AS '
+BEGIN
+    INSERT INTO maintain_monthly AS m (month, total)
+    SELECT CAST(date_trunc(''month'', d.create_date) AS date), SUM(d.sign)
+    FROM unnest(p_create_dates, p_signs) AS d(create_date, sign)
+    WHERE d.create_date IS NOT NULL
+    GROUP BY 1
+    HAVING SUM(d.sign) <> 0
+    ON CONFLICT (month) DO UPDATE SET total = m.total + EXCLUDED.total;
+END;
+';
+
+CREATE OR REPLACE FUNCTION maintain_monthly_on_maintain() RETURNS trigger LANGUAGE plpgsql AS '
+DECLARE
+    v_dates timestamp[];
+    v_signs integer[];
+BEGIN
+    IF TG_OP = ''INSERT'' THEN
+        SELECT array_agg(create_date), array_agg(1) INTO v_dates, v_signs FROM new_maintains;
+    ELSIF TG_OP = ''UPDATE'' THEN
+        SELECT array_agg(d.create_date), array_agg(d.sign) INTO v_dates, v_signs
+        FROM (SELECT create_date, -1 AS sign FROM old_maintains
+              UNION ALL
+              SELECT create_date, 1 AS sign FROM new_maintains) d;
+    ELSE
+        SELECT array_agg(create_date), array_agg(-1) INTO v_dates, v_signs FROM old_maintains;
+    END IF;
+    PERFORM maintain_monthly_apply(v_dates, v_signs);
+    RETURN NULL;
+END;
+';
+
+DROP TRIGGER IF EXISTS trg_maintain_monthly_insert ON maintain;
+CREATE TRIGGER trg_maintain_monthly_insert AFTER INSERT ON maintain
+    REFERENCING NEW TABLE AS new_maintains
+    FOR EACH STATEMENT EXECUTE FUNCTION maintain_monthly_on_maintain();
+
+DROP TRIGGER IF EXISTS trg_maintain_monthly_update ON maintain;
+CREATE TRIGGER trg_maintain_monthly_update AFTER UPDATE ON maintain
+    REFERENCING OLD TABLE AS old_maintains NEW TABLE AS new_maintains
+    FOR EACH STATEMENT EXECUTE FUNCTION maintain_monthly_on_maintain();
+
+DROP TRIGGER IF EXISTS trg_maintain_monthly_delete ON maintain;
+CREATE TRIGGER trg_maintain_monthly_delete AFTER DELETE ON maintain
+    REFERENCING OLD TABLE AS old_maintains
+    FOR EACH STATEMENT EXECUTE FUNCTION maintain_monthly_on_maintain();
+
+-- rebuild: นับใหม่จากตารางจริง (finance รวม invoice_archive ด้วย)
+-- SHARE ROW EXCLUSIVE: trigger ของ transaction อื่นรอจนสร้างเสร็จ แต่ dashboard ยังอ่านได้
+CREATE OR REPLACE FUNCTION finance_monthly_rebuild() RETURNS integer LANGUAGE plpgsql AS '
+DECLARE
+    v_rows integer;
+BEGIN
+    LOCK TABLE finance_monthly IN SHARE ROW EXCLUSIVE MODE;
+    DELETE FROM finance_monthly;
+    INSERT INTO finance_monthly (month, on_time, penalty, overdue)
+    SELECT CAST(date_trunc(''month'', s.create_date) AS date),
+           COUNT(*) FILTER (WHERE s.invoice_status = 1 AND COALESCE(s.penalty_total, 0) = 0),
+           COUNT(*) FILTER (WHERE s.invoice_status = 1 AND s.penalty_total > 0),
+           COUNT(*) FILTER (WHERE s.invoice_status = 0)
+    FROM (SELECT create_date, invoice_status, penalty_total FROM invoice
+          UNION ALL
+          SELECT create_date, invoice_status, penalty_total FROM invoice_archive) s
+    WHERE s.create_date IS NOT NULL
+    GROUP BY 1;
+    GET DIAGNOSTICS v_rows = ROW_COUNT;
+    RETURN v_rows;
+END;
+';
+
+CREATE OR REPLACE FUNCTION maintain_monthly_rebuild() RETURNS integer LANGUAGE plpgsql AS '
+DECLARE
+    v_rows integer;
+BEGIN
+    LOCK TABLE maintain_monthly IN SHARE ROW EXCLUSIVE MODE;
+    DELETE FROM maintain_monthly;
+    INSERT INTO maintain_monthly (month, total)
+    SELECT CAST(date_trunc(''month'', create_date) AS date), COUNT(*)
+    FROM maintain
+    WHERE create_date IS NOT NULL
+    GROUP BY 1;
+    GET DIAGNOSTICS v_rows = ROW_COUNT;
+    RETURN v_rows;
+END;
+';
+
+-- backfill: แถวที่ seed ไว้ด้านบนถูก insert ก่อนมี trigger (และตาราง rollup อยู่ข้าม restart)
+SELECT finance_monthly_rebuild();
+SELECT maintain_monthly_rebuild();
+
+-- ========================
+-- Asset numbering (bulk create: name-001, name-002, ...)
+-- ========================
+-- เลขล่าสุดต่อ (กลุ่ม, ชื่อขึ้นต้น) → bulk create จองช่วงเลขด้วย upsert แถวเดียว ไม่ต้อง scan asset ทั้งกลุ่ม
+CREATE TABLE IF NOT EXISTS asset_name_counter (
+    asset_group_id bigint       NOT NULL,
+    name_prefix    varchar(120) NOT NULL,
+    last_no        integer      NOT NULL,
+    PRIMARY KEY (asset_group_id, name_prefix)
+);
+
+-- ชื่อที่สร้าง/แก้นอก bulk (เช่น table-050) ดันเลขขึ้นตาม → bulk ครั้งถัดไปไม่ได้ชื่อซ้ำ
+-- UPDATE: เฉพาะแถวที่ชื่อ/กลุ่มเปลี่ยน (แก้ status ทั้งกลุ่มไม่ต้อง regex + upsert ทุกแถว)
+CREATE OR REPLACE FUNCTION asset_name_counter_on_asset() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    IF TG_OP = ''INSERT'' THEN
+        INSERT INTO asset_name_counter AS c (asset_group_id, name_prefix, last_no)
+        SELECT n.asset_group_id, m[1], MAX(CAST(m[2] AS integer))
+        FROM new_assets n, regexp_match(n.asset_name, ''^(.+)-([0-9]{1,9})$'') AS m
+        WHERE m IS NOT NULL
+        GROUP BY n.asset_group_id, m[1]
+        ON CONFLICT (asset_group_id, name_prefix) DO UPDATE SET last_no = GREATEST(c.last_no, EXCLUDED.last_no);
+    ELSE
+        INSERT INTO asset_name_counter AS c (asset_group_id, name_prefix, last_no)
+        SELECT n.asset_group_id, m[1], MAX(CAST(m[2] AS integer))
+        FROM new_assets n
+        JOIN old_assets o ON o.asset_id = n.asset_id,
+             regexp_match(n.asset_name, ''^(.+)-([0-9]{1,9})$'') AS m
+        WHERE m IS NOT NULL
+          AND (o.asset_name IS DISTINCT FROM n.asset_name
+               OR o.asset_group_id IS DISTINCT FROM n.asset_group_id)
+        GROUP BY n.asset_group_id, m[1]
+        ON CONFLICT (asset_group_id, name_prefix) DO UPDATE SET last_no = GREATEST(c.last_no, EXCLUDED.last_no);
+    END IF;
+    RETURN NULL;
+END;
+';
+
+DROP TRIGGER IF EXISTS trg_asset_name_counter_insert ON asset;
+CREATE TRIGGER trg_asset_name_counter_insert AFTER INSERT ON asset
+    REFERENCING NEW TABLE AS new_assets
+    FOR EACH STATEMENT EXECUTE FUNCTION asset_name_counter_on_asset();
+
+DROP TRIGGER IF EXISTS trg_asset_name_counter_update ON asset;
+CREATE TRIGGER trg_asset_name_counter_update AFTER UPDATE ON asset
+    REFERENCING OLD TABLE AS old_assets NEW TABLE AS new_assets
+    FOR EACH STATEMENT EXECUTE FUNCTION asset_name_counter_on_asset();
+
+CREATE OR REPLACE FUNCTION asset_name_counter_rebuild() RETURNS integer LANGUAGE plpgsql AS '
+DECLARE
+    v_rows integer;
+BEGIN
+    LOCK TABLE asset_name_counter IN SHARE ROW EXCLUSIVE MODE;
+    DELETE FROM asset_name_counter;
+    INSERT INTO asset_name_counter (asset_group_id, name_prefix, last_no)
+    SELECT a.asset_group_id, m[1], MAX(CAST(m[2] AS integer))
+    FROM asset a, regexp_match(a.asset_name, ''^(.+)-([0-9]{1,9})$'') AS m
+    WHERE m IS NOT NULL
+    GROUP BY a.asset_group_id, m[1];
+    GET DIAGNOSTICS v_rows = ROW_COUNT;
+    RETURN v_rows;
+END;
+';
+
+-- backfill: asset ที่ seed ไว้ด้านบนถูก insert ก่อนมี trigger (และตาราง counter อยู่ข้าม restart)
+SELECT asset_name_counter_rebuild();
+
+-- ========================
+-- Asset status history (append-only)
+-- ทุกครั้งที่ status / กลุ่ม / ชื่อของ asset เปลี่ยน → 1 แถวใน asset_status_event (ลบจริง = status 'removed')
+-- statement-level + transition table → bulk update / bulk insert เขียน event ครั้งเดียวต่อ statement
+--   ครอบคลุมทุกทางที่เขียน asset (JPA, @Modifying bulk, JdbcTemplate) ใน transaction เดียวกัน
+-- ชื่อ asset snapshot ไว้ใน event → as-of แสดงชื่อ ณ เวลานั้น ไม่ join asset ปัจจุบัน
+-- asset ถูกสร้างใหม่ทุก restart (ddl-auto=create, asset_id เริ่มใหม่) → ประวัติเริ่มใหม่พร้อมกัน
+--   ไม่งั้น event ของ asset_id เดิมจากรอบก่อนปนกับ asset คนละชิ้นที่ได้ id เดียวกัน
+-- ไม่มี PK: (asset_id, ts) ใช้กับ as-of (DISTINCT ON) และ event ล่าสุดก่อนช่วงต่อ asset; (ts) ใช้กับ event ในช่วง
+-- event_id ใช้เรียงใน ts เดียวกัน
+-- ========================
+DROP TABLE IF EXISTS asset_status_event;
+
+CREATE TABLE asset_status_event (
+    event_id       bigint       GENERATED ALWAYS AS IDENTITY,
+    asset_id       bigint       NOT NULL,
+    asset_group_id bigint       NOT NULL,
+    asset_name     varchar(120) NOT NULL,
+    status         varchar(20)  NOT NULL,
+    ts             timestamp    NOT NULL
+);
+
+CREATE INDEX idx_asset_status_event_asset_ts ON asset_status_event (asset_id, ts);
+CREATE INDEX idx_asset_status_event_ts ON asset_status_event (ts);
+
+CREATE OR REPLACE FUNCTION asset_status_event_on_asset() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    IF TG_OP = ''INSERT'' THEN
+        INSERT INTO asset_status_event (asset_id, asset_group_id, asset_name, status, ts)
+        SELECT n.asset_id, n.asset_group_id, n.asset_name, n.status, CAST(statement_timestamp() AS timestamp)
+        FROM new_assets n;
+    ELSIF TG_OP = ''UPDATE'' THEN
+        INSERT INTO asset_status_event (asset_id, asset_group_id, asset_name, status, ts)
+        SELECT n.asset_id, n.asset_group_id, n.asset_name, n.status, CAST(statement_timestamp() AS timestamp)
+        FROM new_assets n
+        JOIN old_assets o ON o.asset_id = n.asset_id
+        WHERE o.status IS DISTINCT FROM n.status
+           OR o.asset_group_id IS DISTINCT FROM n.asset_group_id
+           OR o.asset_name IS DISTINCT FROM n.asset_name;
+    ELSE
+        INSERT INTO asset_status_event (asset_id, asset_group_id, asset_name, status, ts)
+        SELECT o.asset_id, o.asset_group_id, o.asset_name, ''removed'', CAST(statement_timestamp() AS timestamp)
+        FROM old_assets o;
+    END IF;
+    RETURN NULL;
+END;
+';
+
+DROP TRIGGER IF EXISTS trg_asset_status_event_insert ON asset;
+CREATE TRIGGER trg_asset_status_event_insert AFTER INSERT ON asset
+    REFERENCING NEW TABLE AS new_assets
+    FOR EACH STATEMENT EXECUTE FUNCTION asset_status_event_on_asset();
+
+DROP TRIGGER IF EXISTS trg_asset_status_event_update ON asset;
+CREATE TRIGGER trg_asset_status_event_update AFTER UPDATE ON asset
+    REFERENCING OLD TABLE AS old_assets NEW TABLE AS new_assets
+    FOR EACH STATEMENT EXECUTE FUNCTION asset_status_event_on_asset();
+
+DROP TRIGGER IF EXISTS trg_asset_status_event_delete ON asset;
+CREATE TRIGGER trg_asset_status_event_delete AFTER DELETE ON asset
+    REFERENCING OLD TABLE AS old_assets
+    FOR EACH STATEMENT EXECUTE FUNCTION asset_status_event_on_asset();
+
+-- ✅ เติม event ให้ asset ที่ event ล่าสุดไม่ตรงกับแถวจริง (append เท่านั้น ไม่แก้/ลบ event เดิม)
+--    ใช้ตอน start: asset ที่ seed ไว้ด้านบนถูก insert ก่อนมี trigger
+CREATE OR REPLACE FUNCTION asset_status_event_reconcile() RETURNS integer LANGUAGE plpgsql AS '
+DECLARE
+    v_rows integer;
+BEGIN
+    INSERT INTO asset_status_event (asset_id, asset_group_id, asset_name, status, ts)
+    SELECT COALESCE(a.asset_id, l.asset_id),
+           COALESCE(a.asset_group_id, l.asset_group_id),
+           COALESCE(a.asset_name, l.asset_name),
+           COALESCE(a.status, ''removed''),
+           CAST(statement_timestamp() AS timestamp)
+    FROM asset a
+    FULL JOIN (SELECT DISTINCT ON (asset_id) asset_id, asset_group_id, asset_name, status
+               FROM asset_status_event
+               ORDER BY asset_id, ts DESC, event_id DESC) l ON l.asset_id = a.asset_id
+    WHERE l.asset_id IS NULL
+       OR (a.asset_id IS NULL AND l.status <> ''removed'')
+       OR (a.asset_id IS NOT NULL AND (a.status <> l.status OR a.asset_group_id <> l.asset_group_id
+                                       OR a.asset_name <> l.asset_name));
+    GET DIAGNOSTICS v_rows = ROW_COUNT;
+    RETURN v_rows;
+END;
+';
+
+SELECT asset_status_event_reconcile();
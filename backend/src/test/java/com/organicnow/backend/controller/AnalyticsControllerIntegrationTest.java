@@ -0,0 +1,257 @@
+package com.organicnow.backend.controller;
+
+import com.organicnow.backend.model.ContractType;
+import com.organicnow.backend.model.PackagePlan;
+import com.organicnow.backend.model.Room;
+import com.organicnow.backend.model.Tenant;
+import com.organicnow.backend.repository.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+class AnalyticsControllerIntegrationTest {
+
+    // 🐘 PostgreSQL จำลองจริงด้วย Testcontainers
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17-alpine")
+            .withDatabaseName("organicnow_test")
+            .withUsername("testuser")
+            .withPassword("testpass");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private MaintainRepository maintainRepository;
+    @Autowired private RoomAssetRepository roomAssetRepository;
+    @Autowired private InvoiceRepository invoiceRepository;
+    @Autowired private ContractRepository contractRepository;
+    @Autowired private RoomRepository roomRepository;
+    @Autowired private TenantRepository tenantRepository;
+    @Autowired private PackagePlanRepository packagePlanRepository;
+    @Autowired private ContractTypeRepository contractTypeRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private MeterRegistry meterRegistry;
+
+    private Tenant tenant;
+    private PackagePlan pkg;
+
+    @BeforeEach
+    void setup() {
+        // 🧹 ลบข้อมูลเรียงตามลำดับ FK ป้องกัน constraint error
+        maintainRepository.deleteAll();
+        roomAssetRepository.deleteAll();
+        invoiceRepository.deleteAll();
+        contractRepository.deleteAll();
+        roomRepository.deleteAll();
+
+        ContractType type = contractTypeRepository.save(ContractType.builder()
+                .name("Analytics Plan")
+                .duration(6)
+                .build());
+        pkg = packagePlanRepository.save(PackagePlan.builder()
+                .contractType(type)
+                .price(BigDecimal.valueOf(5000))
+                .isActive(1)
+                .build());
+        tenant = tenantRepository.save(Tenant.builder()
+                .firstName("Occu")
+                .lastName("Pancy")
+                .phoneNumber("0800000001")
+                .email("occupancy@example.com")
+                .nationalId(String.valueOf(System.nanoTime()).substring(0, 13))
+                .build());
+    }
+
+    // ✅ 1. อัตราเข้าพักรายเดือน / ระยะว่าง / turnover ตรงกับที่คำนวณมือ (ปี 2024 มี 366 วัน)
+    @Test
+    void testOccupancy_MonthlyCurveVacancyAndTurnover() throws Exception {
+        Room a = roomRepository.save(Room.builder().roomNumber("O101").roomFloor(1).build());
+        Room b = roomRepository.save(Room.builder().roomNumber("O102").roomFloor(1).build());
+        insertContract(a, "2024-01-01", "2024-06-30", 2);
+        insertContract(a, "2024-07-01", "2024-12-31", 1);   // ต่อกันพอดี → ไม่ว่าง
+        insertContract(b, "2024-03-01", "2024-03-31", 2);
+        insertContract(b, "2024-05-01", "2024-05-31", 3);   // ยกเลิก → ไม่นับ
+
+        mockMvc.perform(get("/analytics/occupancy")
+                        .param("from", "2024-01-01")
+                        .param("to", "2024-12-31")
+                        .param("granularity", "MONTH"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalRooms").value(2))
+                .andExpect(jsonPath("$.curve.length()").value(12))
+                .andExpect(jsonPath("$.curve[0].occupancyRate").value(0.5))
+                .andExpect(jsonPath("$.curve[2].occupancyRate").value(1.0))
+                .andExpect(jsonPath("$.curve[4].occupancyRate").value(0.5))
+                .andExpect(jsonPath("$.vacancies[0].vacantDays").value(0))
+                .andExpect(jsonPath("$.vacancies[1].vacantDays").value(335))
+                .andExpect(jsonPath("$.vacancies[1].vacancyPeriods").value(2))
+                .andExpect(jsonPath("$.vacancies[1].longestVacancyDays").value(275))
+                .andExpect(jsonPath("$.turnover[0].moveIns").value(1))
+                .andExpect(jsonPath("$.turnover[0].moveOuts").value(1));
+    }
+
+    // ✅ 2. ช่วง/รูปแบบผิด → 400
+    @Test
+    void testOccupancy_InvalidParams() throws Exception {
+        mockMvc.perform(get("/analytics/occupancy").param("from", "2024-12-31").param("to", "2024-01-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/analytics/occupancy").param("granularity", "HOUR"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ✅ 3. 5 ปีรายวัน × 2,000 ห้อง (~18,000 สัญญา) ตอบในรอบเดียว แล้วครั้งถัดไปมาจาก cache
+    @Test
+    void testOccupancy_MultiYearDailyAt2000Rooms() throws Exception {
+        jdbcTemplate.update("""
+            INSERT INTO room (room_number, room_floor)
+            SELECT 'P' || g, (g / 100) + 1 FROM generate_series(1, 2000) g
+            """);
+        jdbcTemplate.update("""
+            INSERT INTO contract (room_id, tenant_id, package_id, start_date, end_date, status)
+            SELECT r.room_id, ?, ?, s, s + interval '6 months' - interval '1 day', 2
+            FROM room r
+            CROSS JOIN generate_series(timestamp '2020-01-01', timestamp '2024-12-31', interval '7 months') s
+            """, tenant.getId(), pkg.getId());
+
+        long start = System.nanoTime();
+        mockMvc.perform(get("/analytics/occupancy")
+                        .param("from", "2020-01-01")
+                        .param("to", "2024-12-31")
+                        .param("granularity", "DAY"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalRooms").value(2000))
+                .andExpect(jsonPath("$.curve.length()").value(1827))
+                .andExpect(jsonPath("$.curve[0].occupancyRate").value(1.0));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("⏱️ occupancy 5 years daily (2,000 rooms): " + elapsedMs + " ms");
+        assertThat(elapsedMs).isLessThan(2_000);
+
+        double hitsBefore = meterRegistry.get("analytics.occupancy.cache").tag("result", "hit").counter().count();
+        mockMvc.perform(get("/analytics/occupancy")
+                        .param("from", "2020-01-01")
+                        .param("to", "2024-12-31")
+                        .param("granularity", "DAY"))
+                .andExpect(status().isOk());
+        assertThat(meterRegistry.get("analytics.occupancy.cache").tag("result", "hit").counter().count())
+                .isEqualTo(hitsBefore + 1);
+    }
+
+    // ✅ 4. trigger บน asset เขียน event เฉพาะตอนสถานะ/ชื่อเปลี่ยน (ลบจริง = removed) พร้อม snapshot ชื่อ
+    @Test
+    void testAssetStatusEvents_WrittenByTrigger() {
+        Long groupId = insertAssetGroup();
+        Long assetId = jdbcTemplate.queryForObject(
+                "INSERT INTO asset (asset_group_id, asset_name, status) VALUES (?, 'drill-001', 'available') RETURNING asset_id",
+                Long.class, groupId);
+        jdbcTemplate.update("UPDATE asset SET status = 'broken' WHERE asset_id = ?", assetId);
+        jdbcTemplate.update("UPDATE asset SET status = 'broken' WHERE asset_id = ?", assetId);  // ไม่มีอะไรเปลี่ยน → ไม่มี event
+        jdbcTemplate.update("UPDATE asset SET asset_name = 'drill-002' WHERE asset_id = ?", assetId);
+        jdbcTemplate.update("DELETE FROM asset WHERE asset_id = ?", assetId);
+
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT status || ':' || asset_name FROM asset_status_event WHERE asset_id = ? ORDER BY ts, event_id",
+                String.class, assetId))
+                .containsExactly("available:drill-001", "broken:drill-001", "broken:drill-002", "removed:drill-002");
+    }
+
+    // ✅ 5. สถานะ ณ เวลาที่ผ่านมา + เวลาที่อยู่ในแต่ละสถานะต่อกลุ่ม
+    @Test
+    void testAssetStatusAsOfAndTimeInStatus() throws Exception {
+        Long groupId = insertAssetGroup();
+        long assetId = 9_000_001L;   // asset ที่ถูกลบไปแล้ว เหลือแต่ประวัติ
+        insertAssetEvent(assetId, groupId, "available", "2024-01-01T00:00:00");
+        insertAssetEvent(assetId, groupId, "maintenance", "2024-03-01T00:00:00");
+        insertAssetEvent(assetId, groupId, "available", "2024-03-11T00:00:00");
+        insertAssetEvent(assetId, groupId, "removed", "2024-06-01T00:00:00");
+
+        mockMvc.perform(get("/analytics/assets/status")
+                        .param("at", "2024-03-05")
+                        .param("groupId", String.valueOf(groupId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalAssets").value(1))
+                .andExpect(jsonPath("$.counts.maintenance").value(1))
+                .andExpect(jsonPath("$.assets[0].assetId").value(assetId))
+                .andExpect(jsonPath("$.assets[0].assetName").value("saw-001"));  // snapshot ใน event (asset ถูกลบแล้ว)
+
+        mockMvc.perform(get("/analytics/assets/status")
+                        .param("at", "2024-07-01")
+                        .param("groupId", String.valueOf(groupId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalAssets").value(0));
+
+        mockMvc.perform(get("/analytics/assets/time-in-status")
+                        .param("from", "2024-03-01")
+                        .param("to", "2024-04-01")
+                        .param("groupId", String.valueOf(groupId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.durations.length()").value(2))
+                .andExpect(jsonPath("$.durations[0].status").value("available"))
+                .andExpect(jsonPath("$.durations[0].totalSeconds").value(21 * 86_400))
+                .andExpect(jsonPath("$.durations[1].status").value("maintenance"))
+                .andExpect(jsonPath("$.durations[1].totalSeconds").value(10 * 86_400))
+                .andExpect(jsonPath("$.durations[1].avgHoursPerAsset").value(240.0));
+
+        // ช่วงที่ไม่มี event เลย → สถานะตั้งต้นมาจาก event ล่าสุดก่อน from (asset ถูกลบหลัง to)
+        mockMvc.perform(get("/analytics/assets/time-in-status")
+                        .param("from", "2024-04-01")
+                        .param("to", "2024-05-01")
+                        .param("groupId", String.valueOf(groupId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.durations.length()").value(1))
+                .andExpect(jsonPath("$.durations[0].status").value("available"))
+                .andExpect(jsonPath("$.durations[0].totalSeconds").value(30 * 86_400));
+
+        mockMvc.perform(get("/analytics/assets/time-in-status").param("from", "2024-04-01").param("to", "2024-03-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Long insertAssetGroup() {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO asset_group (asset_group_name) VALUES (?) RETURNING asset_group_id",
+                Long.class, "History " + System.nanoTime());
+    }
+
+    private void insertAssetEvent(long assetId, Long groupId, String status, String ts) {
+        jdbcTemplate.update("""
+            INSERT INTO asset_status_event (asset_id, asset_group_id, asset_name, status, ts)
+            VALUES (?, ?, 'saw-001', ?, ?)
+            """, assetId, groupId, status, Timestamp.valueOf(LocalDateTime.parse(ts)));
+    }
+
+    private void insertContract(Room room, String startDate, String endDate, int status) {
+        jdbcTemplate.update("""
+            INSERT INTO contract (room_id, tenant_id, package_id, start_date, end_date, status)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """,
+                room.getId(), tenant.getId(), pkg.getId(),
+                Timestamp.valueOf(LocalDateTime.parse(startDate + "T00:00:00")),
+                Timestamp.valueOf(LocalDateTime.parse(endDate + "T00:00:00")),
+                status);
+    }
+}
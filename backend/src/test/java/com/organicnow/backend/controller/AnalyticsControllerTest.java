@@ -0,0 +1,113 @@
+package com.organicnow.backend.controller;
+
+import com.organicnow.backend.dto.AssetStatusAsOfDto;
+import com.organicnow.backend.dto.AssetStatusDurationDto;
+import com.organicnow.backend.dto.AssetStatusDurationReportDto;
+import com.organicnow.backend.dto.AssetStatusSnapshotDto;
+import com.organicnow.backend.dto.OccupancyPointDto;
+import com.organicnow.backend.dto.OccupancyReportDto;
+import com.organicnow.backend.service.AssetStatusHistoryService;
+import com.organicnow.backend.service.OccupancyAnalyticsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AnalyticsControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private OccupancyAnalyticsService occupancyAnalyticsService;
+
+    @Mock
+    private AssetStatusHistoryService assetStatusHistoryService;
+
+    @InjectMocks
+    private AnalyticsController analyticsController;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        mockMvc = MockMvcBuilders.standaloneSetup(analyticsController).build();
+    }
+
+    @Test
+    void getOccupancy_shouldReturnReport() throws Exception {
+        OccupancyReportDto report = OccupancyReportDto.builder()
+                .granularity("MONTH")
+                .totalRooms(10)
+                .curve(List.of(new OccupancyPointDto("2025-01-01", 31, 155, 310, 0.5)))
+                .vacancies(List.of())
+                .turnover(List.of())
+                .build();
+        when(occupancyAnalyticsService.getOccupancy("2025-01-01", "2025-01-31", "MONTH")).thenReturn(report);
+
+        mockMvc.perform(get("/analytics/occupancy")
+                        .param("from", "2025-01-01").param("to", "2025-01-31").param("granularity", "MONTH"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalRooms").value(10))
+                .andExpect(jsonPath("$.curve[0].occupancyRate").value(0.5));
+    }
+
+    @Test
+    void getOccupancy_invalidRange_shouldReturnBadRequest() throws Exception {
+        when(occupancyAnalyticsService.getOccupancy("bad", null, null))
+                .thenThrow(new IllegalArgumentException("Invalid from"));
+
+        mockMvc.perform(get("/analytics/occupancy").param("from", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAssetStatusesAsOf_shouldReturnSnapshot() throws Exception {
+        LocalDateTime at = LocalDateTime.of(2025, 3, 5, 0, 0);
+        AssetStatusSnapshotDto snapshot = AssetStatusSnapshotDto.builder()
+                .at(at)
+                .totalAssets(1)
+                .counts(Map.of("broken", 1L))
+                .assets(List.of(new AssetStatusAsOfDto(7L, "fan-007", 1L, "broken", at.minusDays(2))))
+                .build();
+        when(assetStatusHistoryService.getStatusesAsOf("2025-03-05", 1L)).thenReturn(snapshot);
+
+        mockMvc.perform(get("/analytics/assets/status").param("at", "2025-03-05").param("groupId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalAssets").value(1))
+                .andExpect(jsonPath("$.counts.broken").value(1))
+                .andExpect(jsonPath("$.assets[0].assetName").value("fan-007"));
+    }
+
+    @Test
+    void getAssetTimeInStatus_shouldReturnDurations() throws Exception {
+        AssetStatusDurationReportDto report = AssetStatusDurationReportDto.builder()
+                .durations(List.of(new AssetStatusDurationDto(1L, "Electric", "maintenance", 2, 172_800L, 24.0)))
+                .build();
+        when(assetStatusHistoryService.getTimeInStatus("2025-01-01", "2025-02-01", null)).thenReturn(report);
+
+        mockMvc.perform(get("/analytics/assets/time-in-status").param("from", "2025-01-01").param("to", "2025-02-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.durations[0].status").value("maintenance"))
+                .andExpect(jsonPath("$.durations[0].avgHoursPerAsset").value(24.0));
+    }
+
+    @Test
+    void getAssetTimeInStatus_invalidRange_shouldReturnBadRequest() throws Exception {
+        when(assetStatusHistoryService.getTimeInStatus("2025-02-01", "2025-01-01", null))
+                .thenThrow(new IllegalArgumentException("from must be before to"));
+
+        mockMvc.perform(get("/analytics/assets/time-in-status").param("from", "2025-02-01").param("to", "2025-01-01"))
+                .andExpect(status().isBadRequest());
+    }
+}
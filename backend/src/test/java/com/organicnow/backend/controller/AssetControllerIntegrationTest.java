@@ -2,6 +2,8 @@ package com.organicnow.backend.controller;
 
 import com.organicnow.backend.model.Asset;
 import com.organicnow.backend.model.AssetGroup;
+import com.organicnow.backend.model.Room;
+import com.organicnow.backend.model.RoomAsset;
 import com.organicnow.backend.repository.*;
 import com.organicnow.backend.service.NotificationServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -51,6 +53,8 @@ class AssetControllerIntegrationTest {
     @Autowired private RoomAssetRepository roomAssetRepository;
     @Autowired private MaintenanceScheduleRepository maintenanceScheduleRepository;
     @Autowired private NotificationRepository notificationRepository;
+    @Autowired private RoomRepository roomRepository;
+    @Autowired private org.springframework.jdbc.core.JdbcTemplate jdbcTemplate;
 
     private AssetGroup group;
 
@@ -178,4 +182,148 @@ class AssetControllerIntegrationTest {
         assert exists;
     }
 
+    // ✅ 8. POST /assets/bulk — ต่อเลขจากชื่อที่มีอยู่ (รวมชื่อที่สร้างเดี่ยวนอก bulk)
+    @Test
+    void testCreateBulkAssets_ShouldContinueNumbering() throws Exception {
+        Asset desk = new Asset();
+        desk.setAssetName("Desk-010");
+        desk.setAssetGroup(group);
+        desk.setStatus("available");
+        assetRepository.save(desk);
+
+        mockMvc.perform(post("/assets/bulk")
+                        .param("assetGroupId", group.getId().toString())
+                        .param("name", "Desk")
+                        .param("qty", "3"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.result").value(3));
+
+        assert assetRepository.findAll().stream()
+                .map(Asset::getAssetName)
+                .filter(n -> n.startsWith("Desk-"))
+                .sorted()
+                .toList()
+                .equals(java.util.List.of("Desk-010", "Desk-011", "Desk-012", "Desk-013"));
+    }
+
+    // ✅ 9. POST /assets/bulk — 10,000 ชิ้น (JDBC batch) ชื่อไม่ซ้ำ
+    @Test
+    void testCreateBulkAssets_TenThousand() throws Exception {
+        mockMvc.perform(post("/assets/bulk")
+                        .param("assetGroupId", group.getId().toString())
+                        .param("name", "Bulb")
+                        .param("qty", "10000"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.result").value(10000));
+
+        long distinct = assetRepository.findByAssetGroupId(group.getId()).stream()
+                .map(Asset::getAssetName)
+                .filter(n -> n.startsWith("Bulb-"))
+                .distinct()
+                .count();
+        assert distinct == 10000;
+    }
+
+    // ✅ 10. POST /assets/bulk-delete — ตัดออกจากห้อง + soft delete ทั้งชุด
+    @Test
+    void testSoftDeleteBulk_ShouldDetachFromRooms() throws Exception {
+        Room room = roomRepository.save(Room.builder().roomNumber("B901").roomFloor(9).build());
+        java.util.List<Asset> assets = assetRepository.findAll();
+        roomAssetRepository.save(RoomAsset.builder().room(room).asset(assets.get(0)).build());
+
+        mockMvc.perform(post("/assets/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(String.format("{\"assetIds\":[%d,%d]}", assets.get(0).getId(), assets.get(1).getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.requested").value(2))
+                .andExpect(jsonPath("$.result.affected").value(2))
+                .andExpect(jsonPath("$.result.detachedFromRooms").value(1));
+
+        assert roomAssetRepository.findByRoomId(room.getId()).isEmpty();
+        assert assetRepository.findAll().stream().allMatch(a -> a.getStatus().equals("deleted"));
+    }
+
+    // ✅ 11. PATCH /assets/bulk-status
+    @Test
+    void testUpdateStatusBulk_ShouldChangeAll() throws Exception {
+        java.util.List<Asset> assets = assetRepository.findAll();
+
+        mockMvc.perform(patch("/assets/bulk-status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(String.format("{\"assetIds\":[%d,%d],\"status\":\"broken\"}",
+                                assets.get(0).getId(), assets.get(1).getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.affected").value(2));
+
+        assert assetRepository.findAll().stream().allMatch(a -> a.getStatus().equals("broken"));
+
+        mockMvc.perform(patch("/assets/bulk-status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(String.format("{\"assetIds\":[%d],\"status\":\"in_use\"}", assets.get(0).getId())))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ✅ 12. GET /assets/available/page — ไม่รวมของที่อยู่ในห้อง / deleted, กรองชื่อขึ้นต้น
+    @Test
+    void testGetAvailableAssetPage_ShouldExcludeAssignedAndDeleted() throws Exception {
+        Room room = roomRepository.save(Room.builder().roomNumber("B902").roomFloor(9).build());
+        Asset chair = assetRepository.findAll().stream()
+                .filter(a -> a.getAssetName().equals("Chair")).findFirst().orElseThrow();
+        roomAssetRepository.save(RoomAsset.builder().room(room).asset(chair).build());
+        assetRepository.save(Asset.builder().assetName("Chaise").assetGroup(group).status("available").build());
+        assetRepository.save(Asset.builder().assetName("Chart").assetGroup(group).status("deleted").build());
+
+        mockMvc.perform(get("/assets/available/page")
+                        .param("groupId", String.valueOf(group.getId()))
+                        .param("name", "CH"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.totalElements").value(1))
+                .andExpect(jsonPath("$.result.items[0].assetName").value("Chaise"));
+
+        mockMvc.perform(get("/assets/page").param("name", "ch"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.totalElements").value(2))
+                .andExpect(jsonPath("$.result.items[0].assetName").value("Chair"))
+                .andExpect(jsonPath("$.result.items[0].room").value("B902"))
+                .andExpect(jsonPath("$.result.items[1].assetName").value("Chaise"));
+    }
+
+    // ✅ 13. GET /assets/page — กรอง status + แบ่งหน้า
+    @Test
+    void testGetAssetOptionPage_ShouldFilterStatusAndPage() throws Exception {
+        assetRepository.save(Asset.builder().assetName("Lamp").assetGroup(group).status("broken").build());
+
+        mockMvc.perform(get("/assets/page")
+                        .param("status", "available")
+                        .param("page", "1")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.totalElements").value(2))
+                .andExpect(jsonPath("$.result.totalPages").value(2))
+                .andExpect(jsonPath("$.result.items[0].assetName").value("Table"));
+
+        mockMvc.perform(get("/assets/page").param("status", "deleted"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ✅ 14. asset_name_counter: UPDATE นับเฉพาะแถวที่ชื่อ/กลุ่มเปลี่ยน (แก้ status ไม่แตะ counter)
+    @Test
+    void testNameCounter_OnlyFollowsRenames() throws Exception {
+        Asset chair = assetRepository.findAll().stream()
+                .filter(a -> a.getAssetName().equals("Chair")).findFirst().orElseThrow();
+        chair.setAssetName("Chair-020");
+        assetRepository.save(chair);
+
+        String counterSql = "SELECT last_no FROM asset_name_counter WHERE asset_group_id = ? AND name_prefix = 'Chair'";
+        assert jdbcTemplate.queryForObject(counterSql, Integer.class, group.getId()) == 20;
+
+        // status เปลี่ยนอย่างเดียว → counter ไม่ถูกดันกลับจากชื่อเดิม
+        jdbcTemplate.update("UPDATE asset_name_counter SET last_no = 5 WHERE asset_group_id = ? AND name_prefix = 'Chair'",
+                group.getId());
+        mockMvc.perform(patch("/assets/bulk-status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(String.format("{\"assetIds\":[%d],\"status\":\"broken\"}", chair.getId())))
+                .andExpect(status().isOk());
+        assert jdbcTemplate.queryForObject(counterSql, Integer.class, group.getId()) == 5;
+    }
 }
@@ -1,7 +1,9 @@
 package com.organicnow.backend.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.organicnow.backend.dto.AssetBulkResultDto;
 import com.organicnow.backend.dto.AssetDto;
+import com.organicnow.backend.dto.AssetPageDto;
 import com.organicnow.backend.model.Asset;
 import com.organicnow.backend.service.AssetService;
 import org.junit.jupiter.api.BeforeEach;
@@ -143,4 +145,59 @@ class AssetControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value("maintenance"));
     }
+
+    // ✅ Test: POST /assets/bulk-delete
+    @Test
+    void testSoftDeleteBulk() throws Exception {
+        Mockito.when(assetService.softDeleteAssets(List.of(1L, 2L)))
+                .thenReturn(AssetBulkResultDto.builder().requested(2).affected(2).detachedFromRooms(1).build());
+
+        mockMvc.perform(post("/assets/bulk-delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"assetIds\":[1,2]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.affected").value(2))
+                .andExpect(jsonPath("$.result.detachedFromRooms").value(1));
+    }
+
+    // ❌ Test: PATCH /assets/bulk-status — สถานะไม่ถูกต้อง → 400
+    @Test
+    void testUpdateStatusBulk_InvalidStatus() throws Exception {
+        Mockito.when(assetService.updateStatuses(List.of(1L), "in_use"))
+                .thenThrow(new IllegalArgumentException("bad status"));
+
+        mockMvc.perform(patch("/assets/bulk-status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"assetIds\":[1],\"status\":\"in_use\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ✅ Test: GET /assets/available/page
+    @Test
+    void testGetAvailableAssetPage() throws Exception {
+        Mockito.when(assetService.getAvailableAssetPage(2L, "tab", 1, 20))
+                .thenReturn(AssetPageDto.builder()
+                        .items(List.of(new AssetDto(7L, "table-007", "Furniture", null, null, "available")))
+                        .page(1).size(20).totalElements(21).totalPages(2)
+                        .build());
+
+        mockMvc.perform(get("/assets/available/page")
+                        .param("groupId", "2")
+                        .param("name", "tab")
+                        .param("page", "1")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.items[0].assetName").value("table-007"))
+                .andExpect(jsonPath("$.result.totalElements").value(21));
+    }
+
+    // ❌ Test: GET /assets/page — status ไม่ถูกต้อง → 400
+    @Test
+    void testGetAssetOptionPage_InvalidStatus() throws Exception {
+        Mockito.when(assetService.getAssetOptionPage(isNull(), isNull(), eq("deleted"), isNull(), isNull()))
+                .thenThrow(new IllegalArgumentException("Invalid status"));
+
+        mockMvc.perform(get("/assets/page").param("status", "deleted"))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -1,5 +1,6 @@
 package com.organicnow.backend.controller;
 
+import com.organicnow.backend.dto.AssetBulkResultDto;
 import com.organicnow.backend.model.AssetGroup;
 import com.organicnow.backend.service.AssetGroupService;
 import org.junit.jupiter.api.BeforeEach;
@@ -80,7 +81,8 @@ class AssetGroupControllerTest {
     // ✅ ทดสอบ deleteAssetGroup()
     @Test
     void testDeleteAssetGroup() {
-        when(assetGroupService.deleteAssetGroup(1L)).thenReturn(3); // mock ว่าลบ asset ไป 3 ตัว
+        when(assetGroupService.deleteAssetGroup(1L)) // mock ว่าลบ asset ไป 3 ตัว (อยู่ในห้อง 1 ตัว)
+                .thenReturn(AssetBulkResultDto.builder().requested(1).affected(3).detachedFromRooms(1).build());
 
         ResponseEntity<Map<String, Object>> response = assetGroupController.deleteAssetGroup(1L);
 
@@ -88,6 +90,7 @@ class AssetGroupControllerTest {
         assertNotNull(response.getBody());
         assertEquals("deleted_group", response.getBody().get("message"));
         assertEquals(3, response.getBody().get("deletedAssets"));
+        assertEquals(1, response.getBody().get("detachedFromRooms"));
         verify(assetGroupService, times(1)).deleteAssetGroup(1L);
     }
 
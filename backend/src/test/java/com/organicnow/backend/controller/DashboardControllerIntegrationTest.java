@@ -1,17 +1,33 @@
 package com.organicnow.backend.controller;
 
+import com.organicnow.backend.model.Contract;
+import com.organicnow.backend.model.ContractType;
+import com.organicnow.backend.model.Invoice;
+import com.organicnow.backend.model.Maintain;
+import com.organicnow.backend.model.PackagePlan;
 import com.organicnow.backend.model.Room;
+import com.organicnow.backend.model.Tenant;
+import com.organicnow.backend.repository.ContractTypeRepository;
 import com.organicnow.backend.repository.MaintainRepository;
+import com.organicnow.backend.repository.PackagePlanRepository;
+import com.organicnow.backend.repository.TenantRepository;
+import com.organicnow.backend.service.DashboardCache;
+import com.organicnow.backend.service.DashboardService;
 import com.organicnow.backend.repository.RoomAssetRepository;
 import com.organicnow.backend.repository.InvoiceRepository;
 import com.organicnow.backend.repository.ContractRepository;
 import com.organicnow.backend.repository.RoomRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
@@ -19,7 +35,16 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
@@ -39,6 +64,7 @@ class DashboardControllerIntegrationTest {
         registry.add("spring.datasource.url", postgres::getJdbcUrl);
         registry.add("spring.datasource.username", postgres::getUsername);
         registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
     }
 
     @Autowired private MockMvc mockMvc;
@@ -47,6 +73,14 @@ class DashboardControllerIntegrationTest {
     @Autowired private InvoiceRepository invoiceRepository;
     @Autowired private ContractRepository contractRepository;
     @Autowired private RoomRepository roomRepository;
+    @Autowired private TenantRepository tenantRepository;
+    @Autowired private PackagePlanRepository packagePlanRepository;
+    @Autowired private ContractTypeRepository contractTypeRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private DashboardService dashboardService;
+    @Autowired private DashboardCache dashboardCache;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private MeterRegistry meterRegistry;
 
     @BeforeEach
     void setup() {
@@ -68,8 +102,12 @@ class DashboardControllerIntegrationTest {
 
         roomRepository.save(r1);
         roomRepository.save(r2);
+
+        // เขียนผ่าน repository ตรง ๆ ไม่มี domain event → ล้าง cache เอง
+        dashboardCache.invalidateAll();
     }
 
+    // ✅ 1. GET /dashboard — โครงสร้าง JSON หลัก
     @Test
     void testDashboardController_UsesRealPostgresContainer() throws Exception {
         mockMvc.perform(get("/dashboard")
@@ -81,4 +119,208 @@ class DashboardControllerIntegrationTest {
                 .andExpect(jsonPath("$.maintains").isArray())
                 .andExpect(jsonPath("$.finances").isArray());
     }
+
+    // ✅ 2. สถานะห้อง: สัญญา active = 1, งานซ่อมค้าง = 2, ว่าง = 0
+    @Test
+    void testRoomStatuses_ComputedInDatabase() throws Exception {
+        Room occupied = roomRepository.findByRoomNumber("A101").orElseThrow();
+        Room repair = roomRepository.findByRoomNumber("A102").orElseThrow();
+        roomRepository.save(Room.builder().roomNumber("A103").roomFloor(1).build());
+
+        createActiveContract(occupied);
+
+        // งานซ่อมที่ปิดแล้วต้องไม่นับ มีแค่งานที่ยังไม่ปิดเท่านั้น
+        maintainRepository.save(Maintain.builder()
+                .targetType(1).room(repair).issueCategory(0).issueTitle("ปิดแล้ว")
+                .createDate(LocalDateTime.now().minusDays(10))
+                .finishDate(LocalDateTime.now().minusDays(5))
+                .build());
+        maintainRepository.save(Maintain.builder()
+                .targetType(1).room(repair).issueCategory(2).issueTitle("ท่อรั่ว")
+                .createDate(LocalDateTime.now())
+                .build());
+        dashboardCache.invalidateAll();
+
+        mockMvc.perform(get("/dashboard"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rooms.length()").value(3))
+                .andExpect(jsonPath("$.rooms[?(@.roomNumber == 'A101')].status").value(1))
+                .andExpect(jsonPath("$.rooms[?(@.roomNumber == 'A102')].status").value(2))
+                .andExpect(jsonPath("$.rooms[?(@.roomNumber == 'A103')].status").value(0));
+    }
+
+    // ✅ 3. grid สถานะห้องใช้ 1 statement เท่าเดิม แม้มี 2,000 ห้อง
+    @Test
+    void testRoomStatuses_SingleQueryAt2000Rooms() {
+        long smallGridStatements = countStatementsForRoomStatuses();
+        assertThat(smallGridStatements).isEqualTo(1);
+
+        jdbcTemplate.update("""
+            INSERT INTO room (room_number, room_floor)
+            SELECT 'B' || g, (g / 100) + 1 FROM generate_series(1, 2000) g
+            """);
+
+        long start = System.nanoTime();
+        long largeGridStatements = countStatementsForRoomStatuses();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("⏱️ room status grid (2,002 rooms): " + elapsedMs + " ms");
+
+        assertThat(largeGridStatements).isEqualTo(smallGridStatements);
+        assertThat(dashboardService.getRoomStatuses()).hasSize(2002);
+        assertThat(elapsedMs).isLessThan(2_000);
+    }
+
+    // ✅ 4. อ่านซ้ำจาก cache (0 statement) จนกว่าจะมีการเขียนผ่าน service → โหลดใหม่
+    @Test
+    void testDashboard_CachedUntilMaintainWrite() throws Exception {
+        mockMvc.perform(get("/dashboard")).andExpect(status().isOk());
+
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        mockMvc.perform(get("/dashboard")).andExpect(status().isOk());
+        assertThat(stats.getPrepareStatementCount()).isZero();
+
+        Room room = roomRepository.findByRoomNumber("A102").orElseThrow();
+        mockMvc.perform(post("/maintain/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {"targetType":1,"roomId":%d,"issueCategory":2,"issueTitle":"ท่อรั่ว"}
+                            """.formatted(room.getId())))
+                .andExpect(status().is2xxSuccessful());
+
+        mockMvc.perform(get("/dashboard"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rooms[?(@.roomNumber == 'A102')].status").value(2));
+    }
+
+    // ✅ 5. finance_monthly / maintain_monthly ตามการเขียนทุกแบบ และตรงกับ rebuild
+    @Test
+    void testRollups_IncrementalMatchesRebuild() throws Exception {
+        Contract contract = createActiveContract(roomRepository.findByRoomNumber("A101").orElseThrow());
+        Room room = roomRepository.findByRoomNumber("A102").orElseThrow();
+        LocalDateTime thisMonth = LocalDateTime.now();
+        LocalDateTime lastMonth = thisMonth.minusMonths(1);
+
+        Invoice paid = invoiceRepository.save(unpaidInvoice(contract, lastMonth));
+        invoiceRepository.save(unpaidInvoice(contract, thisMonth));
+        Invoice deleted = invoiceRepository.save(unpaidInvoice(contract, thisMonth));
+        jdbcTemplate.update("UPDATE invoice SET invoice_status = 1, pay_date = now() WHERE invoice_id = ?", paid.getId());
+        invoiceRepository.deleteById(deleted.getId());
+
+        Maintain moved = maintainRepository.save(Maintain.builder()
+                .targetType(1).room(room).issueCategory(0).issueTitle("ย้ายเดือน").createDate(lastMonth).build());
+        maintainRepository.save(Maintain.builder()
+                .targetType(1).room(room).issueCategory(1).issueTitle("ไฟดับ").createDate(thisMonth).build());
+        jdbcTemplate.update("UPDATE maintain SET create_date = ? WHERE maintain_id = ?",
+                Timestamp.valueOf(thisMonth), moved.getId());
+
+        List<Map<String, Object>> financeIncremental = jdbcTemplate.queryForList(FINANCE_ROWS_SQL);
+        List<Map<String, Object>> maintainIncremental = jdbcTemplate.queryForList(MAINTAIN_ROWS_SQL);
+
+        mockMvc.perform(post("/dashboard/rollups/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.financeMonths").value(2))
+                .andExpect(jsonPath("$.maintainMonths").value(1));
+
+        assertThat(jdbcTemplate.queryForList(FINANCE_ROWS_SQL)).isEqualTo(financeIncremental);
+        assertThat(jdbcTemplate.queryForList(MAINTAIN_ROWS_SQL)).isEqualTo(maintainIncremental);
+
+        mockMvc.perform(get("/dashboard/finances")
+                        .param("from", YearMonth.from(lastMonth).toString())
+                        .param("to", YearMonth.from(thisMonth).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].onTime").value(1))
+                .andExpect(jsonPath("$[0].overdue").value(0))
+                .andExpect(jsonPath("$[1].overdue").value(1));
+
+        mockMvc.perform(get("/dashboard/maintains")
+                        .param("from", YearMonth.from(lastMonth).toString())
+                        .param("to", YearMonth.from(thisMonth).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].total").value(2));
+
+        mockMvc.perform(get("/dashboard/finances").param("from", "2025-06").param("to", "2025-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ✅ 6. โหมดขนานได้ผลเท่ากับโหมดทีละ section และมี latency timer ต่อ section
+    @Test
+    void testDashboard_ParallelMatchesSequential() throws Exception {
+        dashboardCache.invalidateAll();
+        String sequential = mockMvc.perform(get("/dashboard").param("parallel", "false"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        dashboardCache.invalidateAll();
+        String parallel = mockMvc.perform(get("/dashboard").param("parallel", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errors").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(parallel).isEqualTo(sequential);
+        for (String section : List.of("rooms", "maintains", "finances")) {
+            assertThat(meterRegistry.get("dashboard.section.latency")
+                    .tags("section", section, "mode", "parallel").timer().count()).isPositive();
+        }
+    }
+
+    private static final String FINANCE_ROWS_SQL = """
+        SELECT month, on_time, penalty, overdue FROM finance_monthly
+        WHERE on_time <> 0 OR penalty <> 0 OR overdue <> 0 ORDER BY month
+        """;
+
+    private static final String MAINTAIN_ROWS_SQL =
+            "SELECT month, total FROM maintain_monthly WHERE total <> 0 ORDER BY month";
+
+    private Contract createActiveContract(Room room) {
+        ContractType type = contractTypeRepository.save(ContractType.builder()
+                .name("Dashboard Plan")
+                .duration(12)
+                .build());
+        PackagePlan pkg = packagePlanRepository.save(PackagePlan.builder()
+                .contractType(type)
+                .price(BigDecimal.valueOf(5000))
+                .isActive(1)
+                .build());
+        Tenant tenant = tenantRepository.save(Tenant.builder()
+                .firstName("Dash")
+                .lastName("Board")
+                .phoneNumber("0800000000")
+                .email("dash@example.com")
+                .nationalId(String.valueOf(System.nanoTime()).substring(0, 13))
+                .build());
+        return contractRepository.save(Contract.builder()
+                .room(room)
+                .tenant(tenant)
+                .packagePlan(pkg)
+                .status(1)
+                .signDate(LocalDateTime.now().minusMonths(1))
+                .startDate(LocalDateTime.now().minusMonths(1))
+                .endDate(LocalDateTime.now().plusMonths(11))
+                .deposit(BigDecimal.valueOf(2000))
+                .rentAmountSnapshot(BigDecimal.valueOf(5000))
+                .build());
+    }
+
+    private static Invoice unpaidInvoice(Contract contract, LocalDateTime createDate) {
+        return Invoice.builder()
+                .contact(contract)
+                .createDate(createDate)
+                .dueDate(createDate.plusDays(5))
+                .invoiceStatus(0)
+                .subTotal(5000)
+                .penaltyTotal(0)
+                .netAmount(5000)
+                .build();
+    }
+
+    private long countStatementsForRoomStatuses() {
+        dashboardCache.invalidate(DashboardCache.Section.ROOMS);
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        dashboardService.getRoomStatuses();
+        return stats.getPrepareStatementCount();
+    }
 }
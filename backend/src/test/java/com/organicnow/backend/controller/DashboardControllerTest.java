@@ -1,6 +1,8 @@
 package com.organicnow.backend.controller;
 
 import com.organicnow.backend.dto.DashboardDto;
+import com.organicnow.backend.dto.FinanceMonthlyDto;
+import com.organicnow.backend.dto.RollupRebuildResultDto;
 import com.organicnow.backend.service.DashboardService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,9 +13,12 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
@@ -52,4 +57,46 @@ class DashboardControllerTest {
                 .andExpect(jsonPath("$.maintains").isArray())  // Check if maintains is an array
                 .andExpect(jsonPath("$.finances").isArray());  // Check if finances is an array
     }
+
+    @Test
+    void getDashboardData_partial_shouldExposeSectionErrors() throws Exception {
+        DashboardDto partial = new DashboardDto(new ArrayList<>(), new ArrayList<>(), null, Map.of("finances", "timeout"));
+        when(dashboardService.getDashboardData(true)).thenReturn(partial);
+
+        mockMvc.perform(get("/dashboard").param("parallel", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rooms").isArray())
+                .andExpect(jsonPath("$.finances").doesNotExist())
+                .andExpect(jsonPath("$.errors.finances").value("timeout"));
+    }
+
+    @Test
+    void getFinanceStats_withRange_shouldReturnMonths() throws Exception {
+        when(dashboardService.getFinanceStats("2023-01", "2024-12"))
+                .thenReturn(List.of(new FinanceMonthlyDto("2023-01", 4L, 1L, 0L)));
+
+        mockMvc.perform(get("/dashboard/finances").param("from", "2023-01").param("to", "2024-12"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].month").value("2023-01"))
+                .andExpect(jsonPath("$[0].onTime").value(4));
+    }
+
+    @Test
+    void getMaintainRequests_invalidRange_shouldReturnBadRequest() throws Exception {
+        when(dashboardService.getMaintainRequests("bad", null)).thenThrow(new IllegalArgumentException("Invalid from"));
+
+        mockMvc.perform(get("/dashboard/maintains").param("from", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void rebuildRollups_shouldReturnSummary() throws Exception {
+        when(dashboardService.rebuildRollups())
+                .thenReturn(RollupRebuildResultDto.builder().financeMonths(24).maintainMonths(12).elapsedMs(5).build());
+
+        mockMvc.perform(post("/dashboard/rollups/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.financeMonths").value(24))
+                .andExpect(jsonPath("$.maintainMonths").value(12));
+    }
 }
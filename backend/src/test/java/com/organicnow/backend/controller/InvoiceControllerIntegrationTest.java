@@ -1,9 +1,14 @@
 package com.organicnow.backend.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.organicnow.backend.dto.CreateInvoiceRequest;
 import com.organicnow.backend.model.*;
 import com.organicnow.backend.repository.*;
+import com.organicnow.backend.service.InvoiceArchiveService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,13 +20,18 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -47,6 +57,7 @@ class InvoiceControllerIntegrationTest {
         registry.add("spring.datasource.url", postgres::getJdbcUrl);
         registry.add("spring.datasource.username", postgres::getUsername);
         registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> "true");
     }
 
     @Autowired private MockMvc mockMvc;
@@ -59,6 +70,8 @@ class InvoiceControllerIntegrationTest {
     @Autowired private PackagePlanRepository packagePlanRepository;
     @Autowired private ContractTypeRepository contractTypeRepository;
     @Autowired private InvoiceRepository invoiceRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private InvoiceArchiveService invoiceArchiveService;
 
     private Contract contract;
 
@@ -220,27 +233,35 @@ class InvoiceControllerIntegrationTest {
 
     // ✅ 9. PUT /invoice/pay/{id}
     @Test
-    void testMarkAsPaid_ShouldReturnBadRequestUntilImplemented() throws Exception {
+    void testMarkAsPaid_ShouldSetPaidStatus() throws Exception {
         Invoice inv = invoiceRepository.findAll().get(0);
         mockMvc.perform(put("/invoice/pay/" + inv.getId()))
-                .andExpect(status().isBadRequest()); // 🔹 changed
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.invoiceStatus", is(1)));
+
+        // ชำระซ้ำ → 409
+        mockMvc.perform(put("/invoice/pay/" + inv.getId()))
+                .andExpect(status().isConflict());
     }
 
     // ✅ 10. PUT /invoice/cancel/{id}
     @Test
-    void testCancelInvoice_ShouldReturnBadRequestUntilImplemented() throws Exception {
+    void testCancelInvoice_ShouldSetCancelledStatus() throws Exception {
         Invoice inv = invoiceRepository.findAll().get(0);
         mockMvc.perform(put("/invoice/cancel/" + inv.getId()))
-                .andExpect(status().isBadRequest()); // 🔹 changed
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.invoiceStatus", is(2)));
     }
 
     // ✅ 11. PUT /invoice/penalty/{id}
     @Test
-    void testAddPenalty_ShouldReturnBadRequestUntilImplemented() throws Exception {
+    void testAddPenalty_ShouldIncreaseNetAmount() throws Exception {
         Invoice inv = invoiceRepository.findAll().get(0);
         mockMvc.perform(put("/invoice/penalty/" + inv.getId())
                         .param("penaltyAmount", "200"))
-                .andExpect(status().isBadRequest()); // 🔹 changed
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.penaltyTotal", is(200)))
+                .andExpect(jsonPath("$.netAmount", is(5200)));
     }
 
     // ✅ 12. GET /invoice/date-range
@@ -263,4 +284,483 @@ class InvoiceControllerIntegrationTest {
                         .param("maxAmount", "7000"))
                 .andExpect(status().isOk());
     }
+
+    // ✅ 15. GET /invoice/search — ค้นหาจากชื่อ tenant / เลขห้อง / เลขบัตร
+    @Test
+    void testSearchInvoices_ShouldMatchTenantNameAndRoom() throws Exception {
+        mockMvc.perform(get("/invoice/search").param("query", "joh"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].firstName", is("John")))
+                .andExpect(jsonPath("$[0].room", is("101")));
+
+        mockMvc.perform(get("/invoice/search").param("query", "101"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        mockMvc.perform(get("/invoice/search").param("query", "nobody"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    // ✅ 16. GET /invoice/unpaid — คืนเฉพาะ status = 0
+    @Test
+    void testGetUnpaidInvoices_ShouldReturnProjectedRows() throws Exception {
+        mockMvc.perform(get("/invoice/unpaid"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].invoiceStatus", is(0)))
+                .andExpect(jsonPath("$[0].packageName", is("Monthly Plan")));
+    }
+
+    // ✅ 14. GET /invoice/list — จำนวน SQL statement ต้องคงที่ ไม่ขึ้นกับจำนวน invoice
+    //    invoice ใหม่กระจายอยู่ 5 ห้อง/5 สัญญา/5 ผู้เช่า → N+1 ต่อสัญญาหรือต่อห้องจะทำให้จำนวน statement เพิ่ม
+    @Test
+    void testGetAllInvoices_StatementCountIndependentOfListSize() throws Exception {
+        long smallListStatements = countStatementsForInvoiceList();
+
+        seedInvoicesAcrossContracts();
+
+        long largeListStatements = countStatementsForInvoiceList();
+
+        assertThat(largeListStatements).isEqualTo(smallListStatements);
+        mockMvc.perform(get("/invoice/list"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(21)))
+                .andExpect(jsonPath("$[*].firstName", hasItems("Tenant0", "Tenant4")));
+    }
+
+    // ✅ 27. GET /invoice/page — convertToDtos: จำนวน statement คงที่ และ tenant / ยอดตรงกับ /invoice/list
+    @Test
+    void testGetInvoicePage_StatementCountIndependentOfPageSizeAndMatchesList() throws Exception {
+        long smallPageStatements = countStatements("/invoice/page?size=50");
+
+        seedInvoicesAcrossContracts();
+
+        long largePageStatements = countStatements("/invoice/page?size=50");
+
+        assertThat(largePageStatements).isEqualTo(smallPageStatements);
+        mockMvc.perform(get("/invoice/page").param("size", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(21)))
+                .andExpect(jsonPath("$.items[*].firstName", hasItems("John", "Tenant0", "Tenant4")));
+
+        // ✅ แหล่งข้อมูลเดียว: tenant และยอดของทุกใบใน /page ตรงกับ /invoice/list
+        MvcResult list = mockMvc.perform(get("/invoice/list")).andExpect(status().isOk()).andReturn();
+        MvcResult page = mockMvc.perform(get("/invoice/page").param("size", "50")).andExpect(status().isOk()).andReturn();
+        JsonNode listRows = objectMapper.readTree(list.getResponse().getContentAsString());
+        Map<Long, JsonNode> listById = new HashMap<>();
+        listRows.forEach(row -> listById.put(row.get("id").asLong(), row));
+        for (JsonNode row : objectMapper.readTree(page.getResponse().getContentAsString()).get("items")) {
+            JsonNode fromList = listById.get(row.get("id").asLong());
+            assertThat(fromList).isNotNull();
+            for (String field : List.of("firstName", "lastName", "packageName", "rent", "water", "electricity")) {
+                assertThat(row.get(field)).as(field).isEqualTo(fromList.get(field));
+            }
+        }
+    }
+
+    // ✅ 17. POST /invoice/billing-run — รันซ้ำรอบเดิมต้องไม่ออกบิลซ้ำ
+    @Test
+    void testBillingRun_IsIdempotentPerContractAndMonth() throws Exception {
+        String month = java.time.YearMonth.now().toString();
+        String body = """
+            {"billingMonth":"%s","readings":[{"roomNumber":"101","waterUnit":10,"electricityUnit":100}]}
+            """.formatted(month);
+
+        mockMvc.perform(post("/invoice/billing-run")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.activeContracts", is(1)))
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.skippedExisting", is(0)));
+
+        mockMvc.perform(post("/invoice/billing-run")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(0)))
+                .andExpect(jsonPath("$.skippedExisting", is(1)));
+
+        assertThat(invoiceRepository.findByContact_Id(contract.getId()))
+                .singleElement()
+                .satisfies(inv -> {
+                    assertThat(inv.getSubTotal()).isEqualTo(5000 + 10 * 30 + 100 * 8);
+                    assertThat(inv.getBillingMonth()).isEqualTo(month);
+                });
+    }
+
+    // ✅ 25. POST /invoice/billing-run หลายห้องในรอบเดียว — batch ถูกรวมเป็น multi-row INSERT (reWriteBatchedInserts)
+    //    จำนวนที่สร้างและรายการ invoice_item ต้องครบทุกใบ
+    @Test
+    void testBillingRun_MultipleContracts_CreatesInvoicesAndLines() throws Exception {
+        for (int r = 2; r <= 3; r++) {
+            Room room = roomRepository.save(Room.builder()
+                    .roomNumber("10" + r)
+                    .roomFloor(1)
+                    .build());
+            Tenant tenant = tenantRepository.save(Tenant.builder()
+                    .firstName("Billing" + r)
+                    .lastName("Run")
+                    .phoneNumber("082000000" + r)
+                    .email("billing" + r + "@example.com")
+                    .nationalId("800000000000" + r)
+                    .build());
+            contractRepository.save(Contract.builder()
+                    .room(room)
+                    .tenant(tenant)
+                    .packagePlan(contract.getPackagePlan())
+                    .status(1)
+                    .signDate(LocalDateTime.now().minusMonths(1))
+                    .startDate(LocalDateTime.now().minusMonths(1))
+                    .endDate(LocalDateTime.now().plusMonths(11))
+                    .deposit(BigDecimal.valueOf(2000))
+                    .rentAmountSnapshot(BigDecimal.valueOf(4000))
+                    .build());
+        }
+        String month = java.time.YearMonth.now().toString();
+        String body = """
+            {"billingMonth":"%s","readings":[
+              {"roomNumber":"101","waterUnit":10,"electricityUnit":100},
+              {"roomNumber":"102","waterUnit":5,"electricityUnit":50},
+              {"roomNumber":"103","waterUnit":1,"electricityUnit":10}]}
+            """.formatted(month);
+
+        mockMvc.perform(post("/invoice/billing-run")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.activeContracts", is(3)))
+                .andExpect(jsonPath("$.created", is(3)))
+                .andExpect(jsonPath("$.skippedExisting", is(0)));
+
+        assertThat(jdbcTemplate.queryForObject("""
+            SELECT COUNT(*) FROM invoice_item ii
+            JOIN invoice i ON i.invoice_id = ii.invoice_id
+            WHERE i.billing_month = ?
+            """, Integer.class, month)).isEqualTo(9);
+        assertThat(jdbcTemplate.queryForObject("""
+            SELECT COUNT(*) FROM invoice i
+            WHERE i.billing_month = ?
+              AND i.sub_total = (SELECT SUM(ii.total_fee) FROM invoice_item ii WHERE ii.invoice_id = i.invoice_id)
+            """, Integer.class, month)).isEqualTo(3);
+
+        mockMvc.perform(post("/invoice/billing-run")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(0)))
+                .andExpect(jsonPath("$.skippedExisting", is(3)));
+    }
+
+    // ✅ 18. POST /invoice/create ไม่ส่ง contractId → ผูกกับ contract active ของห้องจาก (floor, room)
+    @Test
+    void testCreateInvoice_WithoutContractId_LinksActiveContractOfRoom() throws Exception {
+        CreateInvoiceRequest req = CreateInvoiceRequest.builder()
+                .floor("1")
+                .room("101")
+                .rentAmount(5000)
+                .build();
+
+        mockMvc.perform(post("/invoice/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contractId", is(contract.getId().intValue())));
+
+        CreateInvoiceRequest unknownRoom = CreateInvoiceRequest.builder()
+                .floor("9")
+                .room("999")
+                .rentAmount(5000)
+                .build();
+
+        mockMvc.perform(post("/invoice/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(unknownRoom)))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ✅ 19. invoice_view: trigger อัปเดต read model เมื่อ invoice / tenant เปลี่ยน
+    @Test
+    void testInvoiceView_FollowsInvoiceAndTenantWrites() throws Exception {
+        Invoice inv = invoiceRepository.findAll().get(0);
+        inv.setSubTotal(7000);
+        invoiceRepository.save(inv);
+
+        Tenant tenant = tenantRepository.findAll().get(0);
+        tenant.setFirstName("Johnny");
+        tenantRepository.save(tenant);
+
+        mockMvc.perform(get("/invoice/list"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].subTotal", is(7000)))
+                .andExpect(jsonPath("$[0].firstName", is("Johnny")))
+                .andExpect(jsonPath("$[0].room", is("101")));
+
+        invoiceRepository.deleteById(inv.getId());
+
+        mockMvc.perform(get("/invoice/list"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    // ✅ 24. invoice_view: แก้เลขห้อง / ชื่อประเภทสัญญา → read model ตามทันที
+    @Test
+    void testInvoiceView_FollowsRoomAndContractTypeWrites() throws Exception {
+        Room room = roomRepository.findAll().get(0);
+        room.setRoomNumber("105");
+        room.setRoomFloor(3);
+        roomRepository.save(room);
+
+        ContractType type = contractTypeRepository.findAll().get(0);
+        type.setName("Yearly Plan");
+        contractTypeRepository.save(type);
+
+        mockMvc.perform(get("/invoice/list"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].room", is("105")))
+                .andExpect(jsonPath("$[0].floor", is(3)))
+                .andExpect(jsonPath("$[0].packageName", is("Yearly Plan")));
+    }
+
+    // ✅ 20. POST /invoice/create + Idempotency-Key — retry ไม่สร้าง invoice ซ้ำ
+    @Test
+    void testCreateInvoice_WithIdempotencyKey_RetryDoesNotDuplicate() throws Exception {
+        String body = objectMapper.writeValueAsString(CreateInvoiceRequest.builder()
+                .contractId(contract.getId())
+                .floor("1")
+                .room("101")
+                .rentAmount(5000)
+                .build());
+
+        String first = mockMvc.perform(post("/invoice/create")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(post("/invoice/create")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id", is(objectMapper.readTree(first).get("id").asInt())));
+
+        // 1 ใบจาก setup + 1 ใบจาก create
+        assertThat(invoiceRepository.count()).isEqualTo(2);
+    }
+
+    // ✅ 21. invoice_item: create และ billing run บันทึกรายการ, sub_total = ผลรวมรายการ
+    @Test
+    void testInvoiceItems_WrittenOnCreateAndBillingRun() throws Exception {
+        CreateInvoiceRequest req = CreateInvoiceRequest.builder()
+                .contractId(contract.getId())
+                .floor("1")
+                .room("101")
+                .rentAmount(5000)
+                .waterUnit(10)
+                .electricityUnit(100)
+                .build();
+
+        String created = mockMvc.perform(post("/invoice/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.subTotal", is(5000 + 10 * 30 + 100 * 8)))
+                .andReturn().getResponse().getContentAsString();
+        long invoiceId = objectMapper.readTree(created).get("id").asLong();
+
+        mockMvc.perform(get("/invoice/" + invoiceId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(3)))
+                .andExpect(jsonPath("$.water", is(300)))
+                .andExpect(jsonPath("$.electricityUnit", is(100)));
+
+        String month = java.time.YearMonth.now().plusMonths(1).toString();
+        mockMvc.perform(post("/invoice/billing-run")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                            {"billingMonth":"%s","waterRate":20,"readings":[{"roomNumber":"101","waterUnit":5,"electricityUnit":0}]}
+                            """.formatted(month)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)));
+
+        Integer lineTotal = jdbcTemplate.queryForObject("""
+            SELECT SUM(ii.total_fee) FROM invoice_item ii
+            JOIN invoice i ON i.invoice_id = ii.invoice_id
+            WHERE i.billing_month = ?
+            """, Integer.class, month);
+        Integer subTotal = jdbcTemplate.queryForObject(
+                "SELECT sub_total FROM invoice WHERE billing_month = ?", Integer.class, month);
+        assertThat(lineTotal).isEqualTo(5000 + 5 * 20);
+        assertThat(subTotal).isEqualTo(lineTotal);
+    }
+
+    // ✅ 26. แก้ subTotal → ค่าเช่าใน /invoice/list (requested_rent) และ /invoice/{id} (รายการ) ตรงกัน
+    @Test
+    void testUpdateSubTotal_RentConsistentAcrossListAndDetail() throws Exception {
+        CreateInvoiceRequest req = CreateInvoiceRequest.builder()
+                .contractId(contract.getId())
+                .floor("1")
+                .room("101")
+                .rentAmount(5000)
+                .waterUnit(10)
+                .electricityUnit(100)
+                .build();
+        String created = mockMvc.perform(post("/invoice/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long invoiceId = objectMapper.readTree(created).get("id").asLong();
+
+        mockMvc.perform(put("/invoice/update/" + invoiceId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"subTotal\": 6500}"))
+                .andExpect(status().isOk());
+
+        int rent = 6500 - 10 * 30 - 100 * 8;
+        mockMvc.perform(get("/invoice/list"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == " + invoiceId + ")].rent", contains(rent)))
+                .andExpect(jsonPath("$[?(@.id == " + invoiceId + ")].subTotal", contains(6500)));
+        mockMvc.perform(get("/invoice/" + invoiceId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rent", is(rent)))
+                .andExpect(jsonPath("$.subTotal", is(6500)));
+    }
+
+    // ✅ 22. POST /invoice/payments/bulk — ผลลัพธ์รายใบ
+    @Test
+    void testBulkPayment_ReportsOutcomePerInvoice() throws Exception {
+        Invoice inv = invoiceRepository.findAll().get(0);
+        String body = """
+            {"payments":[
+              {"invoiceId":%d,"payDate":"2025-10-05T10:00:00","payMethod":2},
+              {"invoiceId":%d},
+              {"invoiceId":999999}
+            ]}
+            """.formatted(inv.getId(), inv.getId());
+
+        mockMvc.perform(post("/invoice/payments/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paid", is(1)))
+                .andExpect(jsonPath("$.results[0].status", is("PAID")))
+                .andExpect(jsonPath("$.results[1].status", is("DUPLICATE")))
+                .andExpect(jsonPath("$.results[2].status", is("NOT_FOUND")));
+
+        Invoice paid = invoiceRepository.findById(inv.getId()).orElseThrow();
+        assertThat(paid.getInvoiceStatus()).isEqualTo(1);
+        assertThat(paid.getPayMethod()).isEqualTo(2);
+        assertThat(paid.getPayDate()).isEqualTo(LocalDateTime.of(2025, 10, 5, 10, 0));
+    }
+
+    // ✅ 23. archive: ใบที่ปิดแล้วและเก่ากว่า horizon ย้ายไป invoice_archive → list ไม่เห็น, export เห็น
+    @Test
+    void testArchive_MovesSettledInvoicesToColdTierReadOnlyByExport() throws Exception {
+        jdbcTemplate.execute("TRUNCATE TABLE invoice_archive, invoice_item_archive");
+        Invoice old = invoiceRepository.save(Invoice.builder()
+                .contact(contract)
+                .createDate(LocalDateTime.of(2020, 3, 15, 0, 0))
+                .dueDate(LocalDateTime.of(2020, 4, 15, 0, 0))
+                .invoiceStatus(1)
+                .subTotal(4000)
+                .penaltyTotal(0)
+                .netAmount(4000)
+                .requestedRoom("101")
+                .build());
+        jdbcTemplate.update("""
+            INSERT INTO invoice_item (invoice_id, fee_id, quantity, unit_fee, total_fee)
+            SELECT ?, fee_id, 1, 4000, 4000 FROM fee WHERE fee_name = 'ค่าเช่า'
+            """, old.getId());
+
+        assertThat(invoiceArchiveService.archiveSettled()).isEqualTo(1);
+
+        assertThat(invoiceRepository.existsById(old.getId())).isFalse();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM invoice_archive_2020_03 WHERE invoice_id = ?", Integer.class, old.getId()))
+                .isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM invoice_item_archive WHERE invoice_id = ?", Integer.class, old.getId()))
+                .isEqualTo(1);
+
+        // ผู้เช่าถูกแก้ชื่อหลังย้าย → archive ยังแสดงชื่อตอนย้าย (snapshot ไม่ join tenant ปัจจุบัน)
+        Tenant tenant = tenantRepository.findAll().get(0);
+        tenant.setFirstName("Renamed");
+        tenantRepository.save(tenant);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT first_name FROM invoice_archive WHERE invoice_id = ?", String.class, old.getId()))
+                .isEqualTo("John");
+
+        mockMvc.perform(get("/invoice/list"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+
+        MvcResult export = mockMvc.perform(get("/invoice/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String csv = mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(csv.split("\n")).hasSize(3); // header + ใบปัจจุบัน + ใบใน archive
+    }
+
+    private long countStatementsForInvoiceList() throws Exception {
+        return countStatements("/invoice/list");
+    }
+
+    private long countStatements(String url) throws Exception {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        return stats.getPrepareStatementCount();
+    }
+
+    // invoice ใหม่ 20 ใบกระจายอยู่ 5 ห้อง/5 สัญญา/5 ผู้เช่า
+    private void seedInvoicesAcrossContracts() {
+        for (int r = 0; r < 5; r++) {
+            Room room = roomRepository.save(Room.builder()
+                    .roomNumber("20" + r)
+                    .roomFloor(2)
+                    .build());
+            Tenant tenant = tenantRepository.save(Tenant.builder()
+                    .firstName("Tenant" + r)
+                    .lastName("Spread")
+                    .phoneNumber("081000000" + r)
+                    .email("spread" + r + "@example.com")
+                    .nationalId("900000000000" + r)
+                    .build());
+            Contract other = contractRepository.save(Contract.builder()
+                    .room(room)
+                    .tenant(tenant)
+                    .packagePlan(contract.getPackagePlan())
+                    .status(1)
+                    .signDate(LocalDateTime.now().minusMonths(1))
+                    .startDate(LocalDateTime.now().minusMonths(1))
+                    .endDate(LocalDateTime.now().plusMonths(11))
+                    .deposit(BigDecimal.valueOf(2000))
+                    .rentAmountSnapshot(BigDecimal.valueOf(5000))
+                    .build());
+            for (int i = 0; i < 4; i++) {
+                invoiceRepository.save(Invoice.builder()
+                        .contact(other)
+                        .createDate(LocalDateTime.now().minusDays(i))
+                        .dueDate(LocalDateTime.now().plusDays(5))
+                        .invoiceStatus(0)
+                        .subTotal(5000)
+                        .penaltyTotal(0)
+                        .netAmount(5000)
+                        .requestedFloor(2)
+                        .requestedRoom(room.getRoomNumber())
+                        .build());
+            }
+        }
+
+    }
 }
@@ -1,18 +1,33 @@
 package com.organicnow.backend.controller;
 
+import com.organicnow.backend.dto.BillingRunRequest;
+import com.organicnow.backend.dto.BillingRunResultDto;
+import com.organicnow.backend.dto.BulkPaymentRequest;
+import com.organicnow.backend.dto.BulkPaymentResultDto;
 import com.organicnow.backend.dto.CreateInvoiceRequest;
 import com.organicnow.backend.dto.InvoiceDto;
+import com.organicnow.backend.dto.InvoiceFilterRequest;
+import com.organicnow.backend.dto.InvoicePageDto;
 import com.organicnow.backend.dto.UpdateInvoiceRequest;
+import com.organicnow.backend.service.InvoiceBillingService;
+import com.organicnow.backend.service.InvoiceExportService;
+import com.organicnow.backend.service.IdempotencyService;
+import com.organicnow.backend.service.InvoicePaymentService;
 import com.organicnow.backend.service.InvoiceService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,6 +38,18 @@ class InvoiceControllerTest {
     @Mock
     private InvoiceService invoiceService;
 
+    @Mock
+    private InvoiceBillingService invoiceBillingService;
+
+    @Mock
+    private InvoiceExportService invoiceExportService;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private InvoicePaymentService invoicePaymentService;
+
     @InjectMocks
     private InvoiceController invoiceController;
 
@@ -146,9 +173,36 @@ class InvoiceControllerTest {
     void testCreateInvoice() {
         CreateInvoiceRequest req = new CreateInvoiceRequest();
         when(invoiceService.createInvoice(req)).thenReturn(sampleInvoice);
-        ResponseEntity<?> response = invoiceController.createInvoice(req);
+        ResponseEntity<?> response = invoiceController.createInvoice(req, null);
         assertEquals(200, response.getStatusCode().value());
         verify(invoiceService).createInvoice(req);
+        verifyNoInteractions(idempotencyService);
+    }
+
+    // ✅ Create with Idempotency-Key → ผ่าน IdempotencyService
+    @Test
+    void testCreateInvoice_WithIdempotencyKey_DelegatesToIdempotencyService() {
+        CreateInvoiceRequest req = new CreateInvoiceRequest();
+        when(idempotencyService.execute(eq("POST /invoice/create"), eq("key-1"), eq(req), eq(InvoiceDto.class), any()))
+                .thenReturn(ResponseEntity.ok(sampleInvoice));
+
+        ResponseEntity<?> response = invoiceController.createInvoice(req, "key-1");
+
+        assertEquals(200, response.getStatusCode().value());
+        assertSame(sampleInvoice, response.getBody());
+        verify(invoiceService, never()).createInvoice(any());
+    }
+
+    // ❌ Create with Idempotency-Key ที่ยังประมวลผลอยู่ → 409
+    @Test
+    void testCreateInvoice_WithIdempotencyKeyInProgress_ReturnsConflict() {
+        CreateInvoiceRequest req = new CreateInvoiceRequest();
+        when(idempotencyService.execute(anyString(), anyString(), any(), any(), any()))
+                .thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, "in progress"));
+
+        ResponseEntity<?> response = invoiceController.createInvoice(req, "key-1");
+
+        assertEquals(409, response.getStatusCode().value());
     }
 
     // ✅ Update invoice
@@ -156,11 +210,24 @@ class InvoiceControllerTest {
     void testUpdateInvoice() {
         UpdateInvoiceRequest req = new UpdateInvoiceRequest();
         when(invoiceService.updateInvoice(1L, req)).thenReturn(sampleInvoice);
-        ResponseEntity<InvoiceDto> response = invoiceController.updateInvoice(1L, req);
+        ResponseEntity<InvoiceDto> response = invoiceController.updateInvoice(1L, req, null);
         assertEquals(200, response.getStatusCode().value());
         verify(invoiceService).updateInvoice(1L, req);
     }
 
+    // ✅ Update with Idempotency-Key → scope ผูกกับ id
+    @Test
+    void testUpdateInvoice_WithIdempotencyKey_ScopedById() {
+        UpdateInvoiceRequest req = new UpdateInvoiceRequest();
+        when(idempotencyService.execute(eq("PUT /invoice/update/1"), eq("key-2"), eq(req), eq(InvoiceDto.class), any()))
+                .thenReturn(ResponseEntity.ok(sampleInvoice));
+
+        ResponseEntity<InvoiceDto> response = invoiceController.updateInvoice(1L, req, "key-2");
+
+        assertEquals(200, response.getStatusCode().value());
+        verify(invoiceService, never()).updateInvoice(any(), any());
+    }
+
     // ✅ Mark as paid
     @Test
     void testMarkAsPaid() {
@@ -188,6 +255,116 @@ class InvoiceControllerTest {
         verify(invoiceService).addPenalty(1L, 200);
     }
 
+    // ✅ Mark as paid: ใบที่ไม่ได้อยู่ในสถานะยังไม่ชำระ → 409
+    @Test
+    void testMarkAsPaid_Conflict() {
+        when(invoiceService.markAsPaid(1L)).thenThrow(new ResponseStatusException(HttpStatus.CONFLICT));
+        ResponseEntity<InvoiceDto> response = invoiceController.markAsPaid(1L);
+        assertEquals(409, response.getStatusCode().value());
+    }
+
+    // ✅ Bulk payment
+    @Test
+    void testMarkPaidBulk() {
+        BulkPaymentRequest request = BulkPaymentRequest.builder()
+                .payments(List.of(BulkPaymentRequest.Payment.builder().invoiceId(1L).payMethod(2).build()))
+                .build();
+        BulkPaymentResultDto result = BulkPaymentResultDto.builder().requested(1).paid(1).build();
+        when(invoicePaymentService.markPaid(request)).thenReturn(result);
+
+        ResponseEntity<BulkPaymentResultDto> response = invoiceController.markPaidBulk(request, null);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(1, response.getBody().getPaid());
+        verifyNoInteractions(idempotencyService);
+    }
+
+    // ✅ Bulk payment with Idempotency-Key → ผ่าน IdempotencyService (retry ได้ผลรายใบชุดเดิม)
+    @Test
+    void testMarkPaidBulk_WithIdempotencyKey_DelegatesToIdempotencyService() {
+        BulkPaymentRequest request = BulkPaymentRequest.builder()
+                .payments(List.of(BulkPaymentRequest.Payment.builder().invoiceId(1L).payMethod(2).build()))
+                .build();
+        BulkPaymentResultDto result = BulkPaymentResultDto.builder().requested(1).paid(1).build();
+        when(idempotencyService.execute(eq("POST /invoice/payments/bulk"), eq("key-3"), eq(request),
+                eq(BulkPaymentResultDto.class), any()))
+                .thenReturn(ResponseEntity.ok(result));
+
+        ResponseEntity<BulkPaymentResultDto> response = invoiceController.markPaidBulk(request, "key-3");
+
+        assertEquals(200, response.getStatusCode().value());
+        assertSame(result, response.getBody());
+        verify(invoicePaymentService, never()).markPaid(any());
+    }
+
+    // ❌ Bulk payment with Idempotency-Key ที่ยังประมวลผลอยู่ → 409
+    @Test
+    void testMarkPaidBulk_WithIdempotencyKeyInProgress_ReturnsConflict() {
+        BulkPaymentRequest request = BulkPaymentRequest.builder().payments(List.of()).build();
+        when(idempotencyService.execute(anyString(), anyString(), any(), any(), any()))
+                .thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, "in progress"));
+
+        ResponseEntity<BulkPaymentResultDto> response = invoiceController.markPaidBulk(request, "key-3");
+
+        assertEquals(409, response.getStatusCode().value());
+    }
+
+    // ✅ Run penalty job
+    @Test
+    void testApplyOverduePenalties() {
+        when(invoiceService.applyOverduePenalties()).thenReturn(4);
+        ResponseEntity<Map<String, Object>> response = invoiceController.applyOverduePenalties();
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(4, response.getBody().get("updated"));
+        verify(invoiceService).applyOverduePenalties();
+    }
+
+    // ✅ Export invoices (streaming)
+    @Test
+    void testExportInvoices_StreamsThroughExportService() throws Exception {
+        ResponseEntity<StreamingResponseBody> response =
+                invoiceController.exportInvoices("ndjson", 1, "2025-01-01", "2025-01-31", true);
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("application/x-ndjson", response.getHeaders().getContentType().toString());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        verify(invoiceExportService).export(InvoiceExportService.Format.NDJSON, 1,
+                LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2025, 1, 31, 23, 59, 59), true, out);
+    }
+
+    // ❌ Export with unsupported format
+    @Test
+    void testExportInvoices_UnsupportedFormat() {
+        ResponseEntity<StreamingResponseBody> response =
+                invoiceController.exportInvoices("xlsx", null, null, null, true);
+        assertEquals(400, response.getStatusCode().value());
+        verifyNoInteractions(invoiceExportService);
+    }
+
+    // ✅ Monthly billing run
+    @Test
+    void testRunMonthlyBilling() {
+        BillingRunRequest request = BillingRunRequest.builder().billingMonth("2025-10").build();
+        BillingRunResultDto result = BillingRunResultDto.builder()
+                .billingMonth("2025-10").activeContracts(3).created(3).missingReadings(List.of()).build();
+        when(invoiceBillingService.runMonthlyBilling(request)).thenReturn(result);
+
+        ResponseEntity<BillingRunResultDto> response = invoiceController.runMonthlyBilling(request);
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(3, response.getBody().getCreated());
+    }
+
+    // ❌ Billing run with invalid month
+    @Test
+    void testRunMonthlyBilling_InvalidMonth() {
+        BillingRunRequest request = BillingRunRequest.builder().billingMonth("bad").build();
+        when(invoiceBillingService.runMonthlyBilling(request)).thenThrow(new IllegalArgumentException("Invalid billingMonth"));
+
+        ResponseEntity<BillingRunResultDto> response = invoiceController.runMonthlyBilling(request);
+        assertEquals(400, response.getStatusCode().value());
+    }
+
     // ✅ Delete invoice
     @Test
     void testDeleteInvoice() {
@@ -218,4 +395,34 @@ class InvoiceControllerTest {
         assertEquals(200, response.getStatusCode().value());
         verify(invoiceService).getInvoicesByNetAmountRange(1000, 5000);
     }
+
+    // ✅ Get invoice page (keyset)
+    @Test
+    void testGetInvoicePage() {
+        InvoicePageDto page = InvoicePageDto.builder()
+                .items(List.of(sampleInvoice))
+                .nextCursor("abc")
+                .hasMore(true)
+                .size(1)
+                .build();
+        when(invoiceService.getInvoicePage(any(InvoiceFilterRequest.class))).thenReturn(page);
+
+        ResponseEntity<InvoicePageDto> response = invoiceController.getInvoicePage(
+                null, 1, 0, 1, "101", "2025-01-01", "2025-01-31", null, null);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("abc", response.getBody().getNextCursor());
+        verify(invoiceService).getInvoicePage(argThat(f ->
+                f.getStatus() == 0 && f.getFloor() == 1 && "101".equals(f.getRoom())
+                        && f.getStartDate().equals(LocalDateTime.of(2025, 1, 1, 0, 0))));
+    }
+
+    // ✅ Get invoice page (invalid date → 400)
+    @Test
+    void testGetInvoicePage_InvalidDate() {
+        ResponseEntity<InvoicePageDto> response = invoiceController.getInvoicePage(
+                null, null, null, null, null, "not-a-date", null, null, null);
+        assertEquals(400, response.getStatusCode().value());
+        verify(invoiceService, never()).getInvoicePage(any());
+    }
 }
@@ -1,6 +1,9 @@
 package com.organicnow.backend.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.organicnow.backend.dto.RequestDto;
+import com.organicnow.backend.dto.RoomDetailDto;
 import com.organicnow.backend.model.*;
 import com.organicnow.backend.repository.*;
 import com.organicnow.backend.service.RoomService;
@@ -17,6 +20,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -37,6 +41,7 @@ class RoomControllerIntegrationTest {
     @Autowired private AssetRepository assetRepository;
     @Autowired private RoomAssetRepository roomAssetRepository;
     @Autowired private AssetGroupRepository assetGroupRepository;
+    @Autowired private MaintainRepository maintainRepository;
 
     private Room testRoom;
     private Asset testAsset;
@@ -130,6 +135,53 @@ class RoomControllerIntegrationTest {
                 .andExpect(content().string("Room assets updated successfully"));
     }
 
+    @Test
+    @DisplayName("GET /room - requests ของแต่ละห้องมาจาก query เดียว และอยู่ถูกห้อง")
+    void testGetAllRooms_ShouldAttachRequestsPerRoom() throws Exception {
+        roomRepository.save(Room.builder().roomFloor(42).roomNumber("Z4201").build());
+        maintainRepository.save(Maintain.builder()
+                .targetType(1).room(testRoom).issueCategory(0).issueTitle("แอร์ไม่เย็น")
+                .createDate(LocalDateTime.now())
+                .build());
+
+        String json = mockMvc.perform(get("/room"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<RoomDetailDto> rooms = objectMapper.readValue(json, new TypeReference<List<RoomDetailDto>>() {});
+
+        RoomDetailDto withRequest = rooms.stream().filter(r -> "B201".equals(r.getRoomNumber())).findFirst().orElseThrow();
+        RoomDetailDto withoutRequest = rooms.stream().filter(r -> "Z4201".equals(r.getRoomNumber())).findFirst().orElseThrow();
+        assertThat(withRequest.getRequests()).extracting(RequestDto::getIssueTitle).containsExactly("แอร์ไม่เย็น");
+        assertThat(withoutRequest.getRequests()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("GET /room/page - filter ชั้น/สถานะ และแบ่งหน้า")
+    void testGetRoomPage_ShouldFilterAndPaginate() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            roomRepository.save(Room.builder().roomFloor(42).roomNumber("Z420" + i).build());
+        }
+
+        mockMvc.perform(get("/room/page")
+                        .param("floor", "42")
+                        .param("status", "available")
+                        .param("page", "1")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.totalPages").value(2))
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].roomNumber").value("Z4203"))
+                .andExpect(jsonPath("$.items[0].assets").isArray());
+
+        mockMvc.perform(get("/room/page").param("floor", "42").param("status", "occupied"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(0));
+
+        mockMvc.perform(get("/room/page").param("status", "repair"))
+                .andExpect(status().isBadRequest());
+    }
+
     // ===========================
     // 🧩 ROOM SERVICE INTEGRATION TEST
     // ===========================
@@ -230,4 +282,37 @@ class RoomControllerIntegrationTest {
             assertThat(hasA2).isTrue();
         }
     }
+
+    @Test
+    @DisplayName("PUT /room/assets/bulk - ย้าย asset ข้ามห้อง + asset ที่อยู่ห้องอื่นถูก reject")
+    void testUpdateRoomAssetsBulk_ShouldMoveAndReject() throws Exception {
+        Room other = roomRepository.save(Room.builder().roomFloor(2).roomNumber("B202").build());
+        Room outside = roomRepository.save(Room.builder().roomFloor(3).roomNumber("B301").build());
+        Asset desk = assetRepository.save(Asset.builder().assetName("Desk").status("available").assetGroup(testGroup).build());
+        Asset lamp = assetRepository.save(Asset.builder().assetName("Lamp").status("in_use").assetGroup(testGroup).build());
+        testAsset.setStatus("in_use");
+        assetRepository.save(testAsset);
+        roomAssetRepository.save(RoomAsset.builder().room(testRoom).asset(testAsset).build());
+        roomAssetRepository.save(RoomAsset.builder().room(outside).asset(lamp).build());
+
+        // testAsset: testRoom → other, desk → testRoom, lamp อยู่ห้อง outside (ไม่อยู่ใน request) → reject
+        String json = objectMapper.writeValueAsString(java.util.Map.of(
+                testRoom.getId(), List.of(desk.getId()),
+                other.getId(), List.of(testAsset.getId(), lamp.getId())));
+
+        mockMvc.perform(put("/room/assets/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rooms").value(2))
+                .andExpect(jsonPath("$.removed").value(1))
+                .andExpect(jsonPath("$.added").value(2))
+                .andExpect(jsonPath("$.rejectedAssetIds[0]").value(lamp.getId()));
+
+        assertThat(roomAssetRepository.existsByRoomIdAndAssetId(testRoom.getId(), desk.getId())).isTrue();
+        assertThat(roomAssetRepository.existsByRoomIdAndAssetId(other.getId(), testAsset.getId())).isTrue();
+        assertThat(roomAssetRepository.existsByRoomIdAndAssetId(testRoom.getId(), testAsset.getId())).isFalse();
+        assertThat(roomAssetRepository.existsByRoomIdAndAssetId(outside.getId(), lamp.getId())).isTrue();
+        assertThat(assetRepository.findById(desk.getId()).orElseThrow().getStatus()).isEqualTo("in_use");
+    }
 }
@@ -1,6 +1,11 @@
 package com.organicnow.backend.controller;
 
+import com.organicnow.backend.dto.AvailabilitySearchResultDto;
+import com.organicnow.backend.dto.RoomAssetBulkResultDto;
 import com.organicnow.backend.dto.RoomDetailDto;
+import com.organicnow.backend.dto.RoomPageDto;
+import com.organicnow.backend.service.RoomAssetAssignmentService;
+import com.organicnow.backend.service.RoomAvailabilityService;
 import com.organicnow.backend.service.RoomService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,6 +15,7 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.http.ResponseEntity;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -19,6 +25,12 @@ class RoomControllerTest {
     @Mock
     private RoomService roomService;
 
+    @Mock
+    private RoomAvailabilityService roomAvailabilityService;
+
+    @Mock
+    private RoomAssetAssignmentService roomAssetAssignmentService;
+
     @InjectMocks
     private RoomController roomController;
 
@@ -89,4 +101,77 @@ class RoomControllerTest {
         assertNull(response.getBody());
         verify(roomService, times(1)).getAllRooms();
     }
+
+    // ✅ GET /room/page - filter ผิด → 400
+    @Test
+    void testGetRoomPage_InvalidStatus() {
+        when(roomService.getRoomPage(null, "repair", null, null, null))
+                .thenThrow(new IllegalArgumentException("Invalid status"));
+
+        ResponseEntity<RoomPageDto> response = roomController.getRoomPage(null, "repair", null, null, null);
+
+        assertEquals(400, response.getStatusCode().value());
+    }
+
+    // ✅ GET /room/page - มีข้อมูล
+    @Test
+    void testGetRoomPage_WithData() {
+        RoomPageDto page = RoomPageDto.builder().items(List.of(sampleRoom)).page(0).size(50).totalElements(1).totalPages(1).build();
+        when(roomService.getRoomPage(1, "occupied", null, 0, 50)).thenReturn(page);
+
+        ResponseEntity<RoomPageDto> response = roomController.getRoomPage(1, "occupied", null, 0, 50);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(1, response.getBody().getItems().size());
+    }
+
+    // ✅ GET /room/availability - ช่วงวันผิด → 400
+    @Test
+    void testSearchAvailability_InvalidRange() {
+        when(roomAvailabilityService.search("2026-02-01", "2026-01-01", null, null))
+                .thenThrow(new IllegalArgumentException("end must not be before start"));
+
+        ResponseEntity<AvailabilitySearchResultDto> response =
+                roomController.searchAvailability("2026-02-01", "2026-01-01", null, null);
+
+        assertEquals(400, response.getStatusCode().value());
+    }
+
+    // ✅ GET /room/availability - ผลจาก service
+    @Test
+    void testSearchAvailability_Ok() {
+        AvailabilitySearchResultDto result = AvailabilitySearchResultDto.builder()
+                .availableRooms(List.of())
+                .occupiedRooms(List.of())
+                .build();
+        when(roomAvailabilityService.search("2026-01-01", null, 2, 3L)).thenReturn(result);
+
+        ResponseEntity<AvailabilitySearchResultDto> response =
+                roomController.searchAvailability("2026-01-01", null, 2, 3L);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertSame(result, response.getBody());
+    }
+
+    // ✅ PUT /room/assets/bulk
+    @Test
+    void testUpdateRoomAssetsBulk() {
+        Map<Long, List<Long>> body = Map.of(1L, List.of(10L, 11L));
+        RoomAssetBulkResultDto result = RoomAssetBulkResultDto.builder().rooms(1).added(2).rejectedAssetIds(List.of()).build();
+        when(roomAssetAssignmentService.assign(body)).thenReturn(result);
+
+        ResponseEntity<RoomAssetBulkResultDto> response = roomController.updateRoomAssetsBulk(body);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertSame(result, response.getBody());
+    }
+
+    // ❌ PUT /room/assets/bulk - asset ซ้ำหลายห้อง → 400
+    @Test
+    void testUpdateRoomAssetsBulk_Invalid() {
+        Map<Long, List<Long>> body = Map.of(1L, List.of(10L), 2L, List.of(10L));
+        when(roomAssetAssignmentService.assign(body)).thenThrow(new IllegalArgumentException("dup"));
+
+        assertEquals(400, roomController.updateRoomAssetsBulk(body).getStatusCode().value());
+    }
 }
@@ -0,0 +1,86 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.event.ContractChangedEvent;
+import com.organicnow.backend.model.Contract;
+import com.organicnow.backend.repository.ContractRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ActiveContractResolverTest {
+
+    @Mock
+    private ContractRepository contractRepository;
+
+    @InjectMocks
+    private ActiveContractResolver activeContractResolver;
+
+    private Contract contract;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        contract = new Contract();
+        contract.setId(7L);
+        contract.setEndDate(LocalDateTime.now().plusMonths(6));
+    }
+
+    // ✅ ครั้งแรก query DB, ครั้งถัดไปใช้ cache (getReferenceById ไม่ยิง select)
+    @Test
+    void testResolve_CachesContractIdPerRoom() {
+        when(contractRepository.findActiveContractByRoom(1, "101")).thenReturn(Optional.of(contract));
+        when(contractRepository.getReferenceById(7L)).thenReturn(contract);
+
+        assertEquals(Optional.of(contract), activeContractResolver.resolve(1, "101"));
+        assertEquals(Optional.of(contract), activeContractResolver.resolve(1, " 101 "));
+
+        verify(contractRepository, times(1)).findActiveContractByRoom(1, "101");
+        verify(contractRepository, times(1)).getReferenceById(7L);
+        assertEquals(1, activeContractResolver.cachedRooms());
+    }
+
+    // ✅ ContractChangedEvent → ล้าง cache แล้ว query ใหม่
+    @Test
+    void testOnContractChanged_InvalidatesCache() {
+        when(contractRepository.findActiveContractByRoom(1, "101")).thenReturn(Optional.of(contract));
+
+        activeContractResolver.resolve(1, "101");
+        activeContractResolver.onContractChanged(ContractChangedEvent.ofRooms(1L));
+        assertEquals(0, activeContractResolver.cachedRooms());
+
+        activeContractResolver.resolve(1, "101");
+        verify(contractRepository, times(2)).findActiveContractByRoom(1, "101");
+    }
+
+    // ✅ contract ใน cache หมดอายุแล้ว → ไม่ใช้ cache
+    @Test
+    void testResolve_ExpiredCachedContract_RequeriesDb() {
+        contract.setEndDate(LocalDateTime.now().minusSeconds(1));
+        when(contractRepository.findActiveContractByRoom(1, "101"))
+                .thenReturn(Optional.of(contract))
+                .thenReturn(Optional.empty());
+
+        activeContractResolver.resolve(1, "101");
+        assertTrue(activeContractResolver.resolve(1, "101").isEmpty());
+        verify(contractRepository, never()).getReferenceById(anyLong());
+    }
+
+    // ✅ ไม่พบห้อง/ไม่ส่งเลขห้อง → empty และไม่ cache
+    @Test
+    void testResolve_NotFoundOrBlank() {
+        when(contractRepository.findActiveContractByRoom(2, "999")).thenReturn(Optional.empty());
+
+        assertTrue(activeContractResolver.resolve(2, "999").isEmpty());
+        assertTrue(activeContractResolver.resolve(2, " ").isEmpty());
+        assertEquals(0, activeContractResolver.cachedRooms());
+        verify(contractRepository, times(1)).findActiveContractByRoom(anyInt(), anyString());
+    }
+}
@@ -1,10 +1,14 @@
 package com.organicnow.backend.service;
 
+import com.organicnow.backend.dto.AssetBulkResultDto;
 import com.organicnow.backend.dto.AssetGroupDropdownDto;
 import com.organicnow.backend.model.Asset;
 import com.organicnow.backend.model.AssetGroup;
 import com.organicnow.backend.repository.AssetGroupRepository;
+import com.organicnow.backend.repository.AssetNumberingRepository;
 import com.organicnow.backend.repository.AssetRepository;
+import com.organicnow.backend.repository.MaintainRepository;
+import com.organicnow.backend.repository.RoomAssetRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -25,6 +29,15 @@ class AssetGroupServiceTest {
     @Mock
     private AssetRepository assetRepository;
 
+    @Mock
+    private RoomAssetRepository roomAssetRepository;
+
+    @Mock
+    private MaintainRepository maintainRepository;
+
+    @Mock
+    private AssetNumberingRepository assetNumberingRepository;
+
     @InjectMocks
     private AssetGroupService assetGroupService;
 
@@ -144,27 +157,36 @@ class AssetGroupServiceTest {
         assertEquals("duplicate_group_name", exception.getMessage());
     }
 
-    // ✅ deleteAssetGroup() - with assets
+    // ✅ deleteAssetGroup() - with assets: set-based ไม่โหลด asset
     @Test
     void testDeleteAssetGroup_WithAssets() {
-        when(assetRepository.findByAssetGroupId(1L)).thenReturn(List.of(sampleAsset));
-
-        int deletedCount = assetGroupService.deleteAssetGroup(1L);
-
-        assertEquals(1, deletedCount);
-        verify(assetRepository, times(1)).deleteAll(any());
-        verify(assetGroupRepository, times(1)).deleteById(1L);
+        when(roomAssetRepository.deleteByAssetGroupId(1L)).thenReturn(1);
+        when(assetRepository.deleteAllInGroup(1L)).thenReturn(3);
+        when(assetGroupRepository.deleteGroupById(1L)).thenReturn(1);
+
+        AssetBulkResultDto result = assetGroupService.deleteAssetGroup(1L);
+
+        assertEquals(3, result.getAffected());
+        assertEquals(1, result.getDetachedFromRooms());
+        var order = inOrder(maintainRepository, roomAssetRepository, assetRepository, assetGroupRepository);
+        order.verify(maintainRepository).unlinkRoomAssetsOfGroup(1L);
+        order.verify(roomAssetRepository).deleteByAssetGroupId(1L);
+        order.verify(assetRepository).deleteAllInGroup(1L);
+        order.verify(assetGroupRepository).deleteGroupById(1L);
+        verify(assetNumberingRepository).deleteGroup(1L);
+        verify(assetRepository, never()).findByAssetGroupId(any());
+        verify(assetRepository, never()).deleteAll(any());
     }
 
     // ✅ deleteAssetGroup() - no assets
     @Test
     void testDeleteAssetGroup_NoAssets() {
-        when(assetRepository.findByAssetGroupId(1L)).thenReturn(List.of());
+        when(assetGroupRepository.deleteGroupById(1L)).thenReturn(1);
 
-        int deletedCount = assetGroupService.deleteAssetGroup(1L);
+        AssetBulkResultDto result = assetGroupService.deleteAssetGroup(1L);
 
-        assertEquals(0, deletedCount);
-        verify(assetRepository, never()).deleteAll(any());
-        verify(assetGroupRepository, times(1)).deleteById(1L);
+        assertEquals(0, result.getAffected());
+        assertEquals(0, result.getDetachedFromRooms());
+        verify(assetGroupRepository, times(1)).deleteGroupById(1L);
     }
 }
@@ -1,17 +1,25 @@
 package com.organicnow.backend.service;
 
+import com.organicnow.backend.dto.AssetBulkResultDto;
 import com.organicnow.backend.dto.AssetDto;
+import com.organicnow.backend.dto.AssetPageDto;
 import com.organicnow.backend.model.Asset;
 import com.organicnow.backend.model.AssetGroup;
 import com.organicnow.backend.repository.AssetGroupRepository;
+import com.organicnow.backend.repository.AssetNumberingRepository;
 import com.organicnow.backend.repository.AssetRepository;
+import com.organicnow.backend.repository.MaintainRepository;
 import com.organicnow.backend.repository.RoomAssetRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.*;
 
@@ -32,6 +40,15 @@ class AssetServiceTest {
     @Mock
     private RoomAssetRepository roomAssetRepository;
 
+    @Mock
+    private AssetNumberingRepository assetNumberingRepository;
+
+    @Mock
+    private MaintainRepository maintainRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private AssetService assetService;
 
@@ -164,11 +181,62 @@ class AssetServiceTest {
         verify(assetRepository).save(asset);
     }
 
+    // ✅ softDeleteAssets() — ตัดออกจากห้องแล้ว soft delete ทั้งชุด (id ซ้ำ/null ถูกกรอง)
+    @Test
+    void testSoftDeleteAssets() {
+        Set<Long> ids = new LinkedHashSet<>(List.of(1L, 2L, 3L));
+        when(roomAssetRepository.deleteByAssetIds(ids)).thenReturn(2);
+        when(assetRepository.softDeleteByIds(ids)).thenReturn(3);
+
+        AssetBulkResultDto result = assetService.softDeleteAssets(Arrays.asList(1L, 2L, null, 2L, 3L));
+
+        assertThat(result.getRequested()).isEqualTo(3);
+        assertThat(result.getAffected()).isEqualTo(3);
+        assertThat(result.getDetachedFromRooms()).isEqualTo(2);
+        var order = inOrder(maintainRepository, roomAssetRepository, assetRepository);
+        order.verify(maintainRepository).unlinkRoomAssetsOfAssets(ids);
+        order.verify(roomAssetRepository).deleteByAssetIds(ids);
+        order.verify(assetRepository).softDeleteByIds(ids);
+        verify(assetRepository, never()).findById(any());
+    }
+
+    // ✅ updateStatuses() — เปลี่ยนสถานะทั้งชุด
+    @Test
+    void testUpdateStatuses() {
+        Set<Long> ids = Set.of(5L);
+        when(assetRepository.updateStatusByIds(ids, "broken")).thenReturn(1);
+
+        AssetBulkResultDto result = assetService.updateStatuses(List.of(5L), " Broken ");
+
+        assertThat(result.getAffected()).isEqualTo(1);
+        verify(roomAssetRepository).deleteByAssetIds(ids);
+    }
+
+    // ✅ updateStatuses("deleted") → soft delete
+    @Test
+    void testUpdateStatuses_Deleted() {
+        assetService.updateStatuses(List.of(5L), "deleted");
+
+        verify(assetRepository).softDeleteByIds(Set.of(5L));
+        verify(assetRepository, never()).updateStatusByIds(any(), any());
+    }
+
+    // ❌ updateStatuses() — in_use / ไม่มี id → throw
+    @Test
+    void testUpdateStatuses_Invalid() {
+        assertThatThrownBy(() -> assetService.updateStatuses(List.of(1L), "in_use"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> assetService.updateStatuses(List.of(), "broken"))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(roomAssetRepository, maintainRepository);
+    }
+
     // ✅ createBulk() — สร้างหลายชิ้นพร้อมรันชื่อ table-001, table-002
     @Test
     void testCreateBulk() {
+        group.setId(2L);
         when(assetGroupRepository.findById(2L)).thenReturn(Optional.of(group));
-        when(assetRepository.findByAssetGroupId(2L)).thenReturn(List.of());
+        when(assetNumberingRepository.reserve(2L, "table", 2)).thenReturn(2);
 
         List<Asset> toSave = new ArrayList<>();
         when(assetRepository.saveAll(anyList())).thenAnswer(invocation -> {
@@ -182,6 +250,39 @@ class AssetServiceTest {
         assertThat(result.get(0).getAssetName()).isEqualTo("table-001");
         assertThat(result.get(1).getStatus()).isEqualTo("available");
         verify(assetRepository).saveAll(anyList());
+        verify(assetRepository, never()).findByAssetGroupId(any());
+    }
+
+    // ✅ createBulk() — ต่อเลขจาก counter (ไม่ scan asset ในกลุ่ม)
+    @Test
+    void testCreateBulk_ContinuesFromReservedCounter() {
+        group.setId(2L);
+        when(assetGroupRepository.findById(2L)).thenReturn(Optional.of(group));
+        when(assetNumberingRepository.reserve(2L, "table", 3)).thenReturn(27);
+        when(assetRepository.saveAll(anyList())).thenAnswer(invocation -> new ArrayList<>(invocation.<List<Asset>>getArgument(0)));
+
+        List<Asset> result = assetService.createBulk(2L, "table", 3);
+
+        assertThat(result).extracting(Asset::getAssetName)
+                .containsExactly("table-025", "table-026", "table-027");
+    }
+
+    // ✅ createBulk() — จำนวนมาก → saveAll/flush/clear ทีละ BULK_FLUSH_SIZE
+    @Test
+    void testCreateBulk_FlushesAndClearsPerChunk() {
+        group.setId(2L);
+        int qty = AssetService.BULK_FLUSH_SIZE * 2 + 7;
+        when(assetGroupRepository.findById(2L)).thenReturn(Optional.of(group));
+        when(assetNumberingRepository.reserve(2L, "bulb", qty)).thenReturn(qty);
+        when(assetRepository.saveAll(anyList())).thenAnswer(invocation -> new ArrayList<>(invocation.<List<Asset>>getArgument(0)));
+
+        List<Asset> result = assetService.createBulk(2L, "bulb", qty);
+
+        assertThat(result).hasSize(qty);
+        assertThat(result.get(qty - 1).getAssetName()).isEqualTo("bulb-" + qty);
+        verify(assetRepository, times(3)).saveAll(anyList());
+        verify(assetRepository, times(3)).flush();
+        verify(entityManager, times(3)).clear();
     }
 
     // ❌ createBulk() — qty <= 0 → ต้อง throw
@@ -209,4 +310,57 @@ class AssetServiceTest {
         assertThat(result.get(0).getAssetName()).isEqualTo("Fan");
         verify(assetRepository).findAvailableAssets();
     }
+
+    // ✅ getAvailableAssetPage() — ชื่อ → prefix pattern (lowercase, escape), page/size ปรับค่า
+    @Test
+    void testGetAvailableAssetPage_BuildsPrefixPatternAndClampsSize() {
+        AssetDto dto = new AssetDto(5L, "table-005", "Furniture", null, null, "available");
+        PageRequest expected = PageRequest.of(0, AssetService.MAX_PAGE_SIZE);
+        when(assetRepository.findAvailablePage(2L, "tab!_le%", expected))
+                .thenReturn(new PageImpl<>(List.of(dto), expected, 1));
+
+        AssetPageDto result = assetService.getAvailableAssetPage(2L, " Tab_le ", -1, 10_000);
+
+        assertThat(result.getItems()).containsExactly(dto);
+        assertThat(result.getPage()).isZero();
+        assertThat(result.getSize()).isEqualTo(AssetService.MAX_PAGE_SIZE);
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getTotalPages()).isEqualTo(1);
+    }
+
+    // ✅ getAssetOptionPage() — ไม่ส่ง filter → null ทั้งหมด, ขนาดหน้า default
+    @Test
+    void testGetAssetOptionPage_DefaultsWithoutFilters() {
+        PageRequest expected = PageRequest.of(3, AssetService.DEFAULT_PAGE_SIZE);
+        when(assetRepository.findOptionPage(null, null, null, expected))
+                .thenReturn(new PageImpl<>(List.of(), expected, 120));
+
+        AssetPageDto result = assetService.getAssetOptionPage(null, " ", null, 3, null);
+
+        assertThat(result.getItems()).isEmpty();
+        assertThat(result.getPage()).isEqualTo(3);
+        assertThat(result.getTotalElements()).isEqualTo(120);
+        assertThat(result.getTotalPages()).isEqualTo(3);
+    }
+
+    @Test
+    void testGetAssetOptionPage_NormalizesStatus() {
+        PageRequest expected = PageRequest.of(0, AssetService.DEFAULT_PAGE_SIZE);
+        when(assetRepository.findOptionPage(null, null, "in_use", expected))
+                .thenReturn(Page.empty(expected));
+
+        assetService.getAssetOptionPage(null, null, " IN_USE ", null, null);
+
+        verify(assetRepository).findOptionPage(null, null, "in_use", expected);
+    }
+
+    // ❌ getAssetOptionPage() — status deleted / ไม่รู้จัก → throw ไม่ query
+    @Test
+    void testGetAssetOptionPage_InvalidStatus() {
+        assertThatThrownBy(() -> assetService.getAssetOptionPage(null, null, "deleted", 0, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> assetService.getAssetOptionPage(null, null, "lost", 0, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(assetRepository);
+    }
 }
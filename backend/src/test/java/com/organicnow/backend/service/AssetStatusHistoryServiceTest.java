@@ -0,0 +1,87 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.AssetStatusAsOfDto;
+import com.organicnow.backend.dto.AssetStatusDurationReportDto;
+import com.organicnow.backend.dto.AssetStatusSnapshotDto;
+import com.organicnow.backend.repository.AssetStatusHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AssetStatusHistoryServiceTest {
+
+    @Mock
+    private AssetStatusHistoryRepository historyRepository;
+
+    @InjectMocks
+    private AssetStatusHistoryService historyService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void getStatusesAsOf_shouldCountPerStatus() {
+        LocalDateTime at = LocalDateTime.of(2025, 3, 5, 12, 30);
+        when(historyRepository.findStatusesAsOf(at, 2L)).thenReturn(List.of(
+                new AssetStatusAsOfDto(1L, "table-001", 2L, "in_use", at.minusDays(10)),
+                new AssetStatusAsOfDto(2L, "table-002", 2L, "broken", at.minusDays(1)),
+                new AssetStatusAsOfDto(3L, null, 2L, "in_use", at.minusDays(3))));
+
+        AssetStatusSnapshotDto snapshot = historyService.getStatusesAsOf("2025-03-05T12:30", 2L);
+
+        assertEquals(at, snapshot.getAt());
+        assertEquals(3, snapshot.getTotalAssets());
+        assertEquals(Map.of("in_use", 2L, "broken", 1L), snapshot.getCounts());
+    }
+
+    // ✅ yyyy-MM-dd = ต้นวัน
+    @Test
+    void getStatusesAsOf_dateOnly_shouldUseStartOfDay() {
+        when(historyRepository.findStatusesAsOf(any(), any())).thenReturn(List.of());
+
+        historyService.getStatusesAsOf("2025-03-05", null);
+
+        verify(historyRepository).findStatusesAsOf(LocalDateTime.of(2025, 3, 5, 0, 0), null);
+    }
+
+    @Test
+    void getTimeInStatus_shouldStreamRangeOnce() {
+        LocalDateTime from = LocalDateTime.of(2025, 3, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 4, 1, 0, 0);
+        doAnswer(invocation -> {
+            AssetStatusHistoryRepository.EventHandler handler = invocation.getArgument(2);
+            handler.accept(1L, 1L, "maintenance", LocalDateTime.of(2025, 3, 30, 0, 0));
+            return null;
+        }).when(historyRepository).streamEvents(eq(from), eq(to), any());
+        when(historyRepository.findGroupNames()).thenReturn(Map.of(1L, "Furniture"));
+
+        AssetStatusDurationReportDto report = historyService.getTimeInStatus("2025-03-01", "2025-04-01", null);
+
+        assertEquals(LocalDateTime.of(2025, 3, 1, 0, 0), report.getFrom());
+        assertEquals(1, report.getDurations().size());
+        assertEquals(2 * 86_400L, report.getDurations().get(0).getTotalSeconds());
+        assertEquals("Furniture", report.getDurations().get(0).getAssetGroupName());
+        verify(historyRepository, times(1)).streamEvents(eq(from), eq(to), any());
+    }
+
+    @Test
+    void invalidParams_shouldThrowWithoutQuery() {
+        assertThrows(IllegalArgumentException.class, () -> historyService.getStatusesAsOf("05/03/2025", null));
+        assertThrows(IllegalArgumentException.class, () -> historyService.getTimeInStatus("2025-04-01", "2025-03-01", null));
+        assertThrows(IllegalArgumentException.class, () -> historyService.getTimeInStatus("2025-03-01", "2025-03-01", null));
+        verifyNoInteractions(historyRepository);
+    }
+}
@@ -0,0 +1,91 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.AssetStatusDurationDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetStatusSweepTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2025, 1, 11, 0, 0);
+    private static final Map<Long, String> GROUPS = Map.of(1L, "Furniture", 2L, "Electric");
+
+    private static LocalDateTime day(int d) {
+        return LocalDateTime.of(2025, 1, d, 0, 0);
+    }
+
+    // event ตามลำดับที่ DB ส่งมา (asset, เวลา)
+    //  asset 1 (กลุ่ม 1): available ตั้งแต่ปีก่อน → broken 01-03 → maintenance 01-05 → available 01-08
+    //  asset 2 (กลุ่ม 1): สร้าง 01-02 available → ลบจริง 01-06
+    //  asset 3 (กลุ่ม 2): maintenance 01-09 (ยังเปิดอยู่ถึง to)
+    private static List<AssetStatusDurationDto> sweep(Long groupFilter) {
+        AssetStatusSweep sweep = new AssetStatusSweep(FROM, TO, groupFilter);
+        sweep.accept(1L, 1L, "available", LocalDateTime.of(2024, 12, 1, 0, 0));
+        sweep.accept(1L, 1L, "broken", day(3));
+        sweep.accept(1L, 1L, "maintenance", day(5));
+        sweep.accept(1L, 1L, "available", day(8));
+        sweep.accept(2L, 1L, "available", day(2));
+        sweep.accept(2L, 1L, "removed", day(6));
+        sweep.accept(3L, 2L, "maintenance", day(9));
+        return sweep.finish(GROUPS);
+    }
+
+    @Test
+    void finish_shouldSumClippedSecondsPerGroupAndStatus() {
+        List<AssetStatusDurationDto> result = sweep(null);
+
+        assertEquals(4, result.size());
+        AssetStatusDurationDto available = result.get(0);
+        assertEquals(1L, available.getAssetGroupId());
+        assertEquals("Furniture", available.getAssetGroupName());
+        assertEquals("available", available.getStatus());
+        assertEquals(2, available.getAssets());
+        assertEquals((2 + 3 + 4) * 86_400L, available.getTotalSeconds());   // asset 1: 01-01..03 + 01-08..11, asset 2: 01-02..06
+        assertEquals(108.0, available.getAvgHoursPerAsset());
+
+        assertEquals("broken", result.get(1).getStatus());
+        assertEquals(2 * 86_400L, result.get(1).getTotalSeconds());
+        assertEquals("maintenance", result.get(2).getStatus());
+        assertEquals(3 * 86_400L, result.get(2).getTotalSeconds());
+
+        AssetStatusDurationDto open = result.get(3);
+        assertEquals(2L, open.getAssetGroupId());
+        assertEquals(2 * 86_400L, open.getTotalSeconds());                  // เปิดค้าง → ตัดที่ to
+        assertEquals(1, open.getAssets());
+    }
+
+    @Test
+    void finish_withGroupFilter_shouldOnlyCountThatGroup() {
+        List<AssetStatusDurationDto> result = sweep(2L);
+
+        assertEquals(1, result.size());
+        assertEquals("Electric", result.get(0).getAssetGroupName());
+        assertEquals("maintenance", result.get(0).getStatus());
+    }
+
+    // ✅ asset ย้ายกลุ่ม → เวลาหลังย้ายนับเข้ากลุ่มใหม่
+    @Test
+    void groupChange_shouldSplitTimeBetweenGroups() {
+        AssetStatusSweep sweep = new AssetStatusSweep(FROM, TO, null);
+        sweep.accept(5L, 1L, "in_use", day(1));
+        sweep.accept(5L, 2L, "in_use", day(4));
+
+        List<AssetStatusDurationDto> result = sweep.finish(GROUPS);
+
+        assertEquals(3 * 86_400L, result.get(0).getTotalSeconds());
+        assertEquals(7 * 86_400L, result.get(1).getTotalSeconds());
+    }
+
+    @Test
+    void accept_unsortedAssets_shouldThrow() {
+        AssetStatusSweep sweep = new AssetStatusSweep(FROM, TO, null);
+        sweep.accept(2L, 1L, "available", day(1));
+
+        assertThrows(IllegalStateException.class, () -> sweep.accept(1L, 1L, "available", day(2)));
+    }
+}
@@ -1,11 +1,13 @@
 package com.organicnow.backend.service;
 
+import com.organicnow.backend.event.ContractChangedEvent;
 import com.organicnow.backend.repository.ContractRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import static org.mockito.Mockito.*;
 
@@ -14,6 +16,9 @@ class ContractStatusSchedulerTest {
     @Mock
     private ContractRepository contractRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ContractStatusScheduler contractStatusScheduler;
 
@@ -31,6 +36,7 @@ class ContractStatusSchedulerTest {
         contractStatusScheduler.updateExpiredContracts();
 
         verify(contractRepository, times(1)).updateExpiredContracts();
+        verify(eventPublisher).publishEvent(ContractChangedEvent.allRooms());
     }
 
     // ✅ กรณีไม่มี expired contracts ถูกอัปเดต (updated = 0)
@@ -42,5 +48,6 @@ class ContractStatusSchedulerTest {
         contractStatusScheduler.updateExpiredContracts();
 
         verify(contractRepository, times(1)).updateExpiredContracts();
+        verifyNoInteractions(eventPublisher);
     }
 }
@@ -0,0 +1,92 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.event.ContractChangedEvent;
+import com.organicnow.backend.event.InvoiceChangedEvent;
+import com.organicnow.backend.event.MaintainChangedEvent;
+import com.organicnow.backend.service.DashboardCache.Section;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DashboardCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private DashboardCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new DashboardCache(registry, Duration.ofMinutes(15));
+    }
+
+    private Integer load() {
+        return loads.incrementAndGet();
+    }
+
+    private double requests(Section section, String result) {
+        return registry.get("dashboard.cache.requests")
+                .tag("section", section.name().toLowerCase()).tag("result", result)
+                .counter().count();
+    }
+
+    // ✅ โหลดครั้งแรก (miss) แล้วอ่านจาก memory (hit) + จับเวลา rebuild
+    @Test
+    void get_shouldLoadOnceAndRecordMetrics() {
+        assertEquals(1, cache.get(Section.ROOMS, this::load));
+        assertEquals(1, cache.get(Section.ROOMS, this::load));
+        assertEquals(1, cache.get(Section.ROOMS, this::load));
+
+        assertEquals(1, loads.get());
+        assertEquals(1.0, requests(Section.ROOMS, "miss"));
+        assertEquals(2.0, requests(Section.ROOMS, "hit"));
+        assertEquals(1L, registry.get("dashboard.cache.rebuild").tag("section", "rooms").timer().count());
+    }
+
+    // ✅ event ล้างเฉพาะ section ที่เกี่ยวข้อง
+    @Test
+    void events_shouldInvalidateOnlyAffectedSections() {
+        for (Section s : Section.values()) cache.get(s, this::load);
+
+        cache.onInvoiceChanged(InvoiceChangedEvent.ofInvoices(1L));
+        cache.get(Section.ROOMS, this::load);
+        cache.get(Section.MAINTAINS, this::load);
+        cache.get(Section.FINANCES, this::load);
+        assertEquals(4, loads.get()); // โหลดใหม่แค่ FINANCES
+
+        cache.onMaintainChanged(new MaintainChangedEvent(1L));
+        for (Section s : Section.values()) cache.get(s, this::load);
+        assertEquals(6, loads.get()); // ROOMS + MAINTAINS
+
+        cache.onContractChanged(ContractChangedEvent.ofRooms(1L));
+        for (Section s : Section.values()) cache.get(s, this::load);
+        assertEquals(7, loads.get()); // ROOMS
+    }
+
+    // ✅ invalidate ระหว่างโหลด → ค่าที่โหลดมาก่อนหน้าไม่ถูกใช้ซ้ำ
+    @Test
+    void invalidateDuringLoad_shouldNotKeepStaleValue() {
+        cache.get(Section.FINANCES, () -> {
+            cache.invalidate(Section.FINANCES);
+            return load();
+        });
+
+        assertEquals(2, cache.get(Section.FINANCES, this::load));
+    }
+
+    // ✅ เกิน max-age → โหลดใหม่แม้ไม่มี event
+    @Test
+    void get_shouldReloadAfterMaxAge() {
+        DashboardCache expiring = new DashboardCache(registry, Duration.ZERO);
+
+        expiring.get(Section.MAINTAINS, this::load);
+        expiring.get(Section.MAINTAINS, this::load);
+
+        assertEquals(2, loads.get());
+    }
+}
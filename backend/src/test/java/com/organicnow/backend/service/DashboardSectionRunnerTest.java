@@ -0,0 +1,93 @@
+package com.organicnow.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DashboardSectionRunnerTest {
+
+    private SimpleMeterRegistry registry;
+    private DashboardSectionRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        runner = new DashboardSectionRunner(registry, Duration.ofMillis(300), 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        runner.shutdown();
+    }
+
+    // ✅ 3 section ช้า 200ms ต่อกัน → รวมแบบขนานต้องเร็วกว่าผลรวม
+    @Test
+    void runParallel_shouldOverlapSections() {
+        Map<DashboardCache.Section, Supplier<?>> sections = new EnumMap<>(DashboardCache.Section.class);
+        for (DashboardCache.Section section : DashboardCache.Section.values()) {
+            sections.put(section, () -> {
+                sleep(200);
+                return List.of(section.name());
+            });
+        }
+
+        long start = System.nanoTime();
+        var results = runner.runParallel(DashboardCache.Section.class, sections);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(results.values().stream().allMatch(DashboardSectionRunner.Outcome::ok));
+        assertEquals(List.of("ROOMS"), results.get(DashboardCache.Section.ROOMS).value());
+        assertTrue(elapsedMs < 500, "elapsed " + elapsedMs + " ms");
+    }
+
+    @Test
+    void runParallel_shouldFlagSlowSectionAsTimeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        Map<DashboardCache.Section, Supplier<?>> sections = new EnumMap<>(DashboardCache.Section.class);
+        sections.put(DashboardCache.Section.ROOMS, () -> "rooms");
+        sections.put(DashboardCache.Section.FINANCES, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "late";
+        });
+
+        var results = runner.runParallel(DashboardCache.Section.class, sections);
+        release.countDown();
+
+        assertEquals("rooms", results.get(DashboardCache.Section.ROOMS).value());
+        assertNull(results.get(DashboardCache.Section.FINANCES).value());
+        assertEquals(DashboardSectionRunner.TIMEOUT, results.get(DashboardCache.Section.FINANCES).error());
+        assertEquals(1, registry.get("dashboard.section.latency")
+                .tags("section", "finances", "mode", "parallel", "outcome", "timeout").timer().count());
+    }
+
+    @Test
+    void runTimed_shouldRecordSequentialLatency() {
+        assertEquals("ok", runner.runTimed(DashboardCache.Section.MAINTAINS, () -> "ok"));
+
+        assertEquals(1, registry.get("dashboard.section.latency")
+                .tags("section", "maintains", "mode", "sequential", "outcome", "ok").timer().count());
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
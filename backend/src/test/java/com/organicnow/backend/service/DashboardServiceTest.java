@@ -3,17 +3,20 @@ package com.organicnow.backend.service;
 import com.organicnow.backend.dto.DashboardDto;
 import com.organicnow.backend.dto.FinanceMonthlyDto;
 import com.organicnow.backend.dto.MaintainMonthlyDto;
-import com.organicnow.backend.model.Room;
-import com.organicnow.backend.repository.ContractRepository;
-import com.organicnow.backend.repository.InvoiceRepository;
-import com.organicnow.backend.repository.MaintainRepository;
+import com.organicnow.backend.dto.RollupRebuildResultDto;
+import com.organicnow.backend.dto.RoomStatusDto;
+import com.organicnow.backend.repository.DashboardRollupRepository;
 import com.organicnow.backend.repository.RoomRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import java.time.Duration;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
 
@@ -26,13 +29,13 @@ class DashboardServiceTest {
     private RoomRepository roomRepository;
 
     @Mock
-    private ContractRepository contractRepository;
+    private DashboardRollupRepository rollupRepository;
 
-    @Mock
-    private MaintainRepository maintainRepository;
+    @Spy
+    private DashboardCache dashboardCache = new DashboardCache(new SimpleMeterRegistry(), Duration.ofMinutes(15));
 
-    @Mock
-    private InvoiceRepository invoiceRepository;
+    @Spy
+    private DashboardSectionRunner sectionRunner = new DashboardSectionRunner(new SimpleMeterRegistry(), Duration.ofSeconds(2), 3);
 
     @InjectMocks
     private DashboardService dashboardService;
@@ -44,98 +47,121 @@ class DashboardServiceTest {
 
     @Test
     void getRoomStatuses_shouldReturnCorrectStatuses() {
-        Room room1 = Room.builder().id(1L).roomNumber("101").build();
-        Room room2 = Room.builder().id(2L).roomNumber("102").build();
-        Room room3 = Room.builder().id(3L).roomNumber("103").build();
-
-        // Mock repository method calls
-        when(roomRepository.findAll()).thenReturn(List.of(room1, room2, room3));
-        when(contractRepository.existsActiveContractByRoomId(1L)).thenReturn(true);
-        when(contractRepository.existsActiveContractByRoomId(2L)).thenReturn(false);
-        when(contractRepository.existsActiveContractByRoomId(3L)).thenReturn(false);
-
-        when(maintainRepository.existsActiveMaintainByRoomId(2L)).thenReturn(true);
-        when(maintainRepository.existsActiveMaintainByRoomId(3L)).thenReturn(false);
+        // Mock single aggregate query (status computed in DB)
+        when(roomRepository.findRoomStatuses()).thenReturn(List.of(
+                new RoomStatusDto(1L, "101", RoomStatusDto.UNAVAILABLE),
+                new RoomStatusDto(2L, "102", RoomStatusDto.REPAIR),
+                new RoomStatusDto(3L, "103", RoomStatusDto.AVAILABLE)
+        ));
 
         // Call service method to test
         List<Map<String, Object>> result = dashboardService.getRoomStatuses();
 
         // Assertions for expected results
         assertEquals(3, result.size());
+        assertEquals("101", result.get(0).get("roomNumber"));
         assertEquals(1, result.get(0).get("status")); // room1 occupied
         assertEquals(2, result.get(1).get("status")); // room2 repair
         assertEquals(0, result.get(2).get("status")); // room3 available
     }
 
     @Test
-    void getMaintainRequests_shouldReturnMappedDtos() {
-        // Mock repository to return raw data (likely Object[] or similar)
-        Object[] maintain1 = {"2025-01", 5L};
-        Object[] maintain2 = {"2025-02", 3L};
+    void getRoomStatuses_shouldNotQueryPerRoom() {
+        when(roomRepository.findRoomStatuses()).thenReturn(List.of(
+                new RoomStatusDto(1L, "101", RoomStatusDto.AVAILABLE),
+                new RoomStatusDto(2L, "102", RoomStatusDto.AVAILABLE)
+        ));
 
-        // Mock repository method to return sample data
-        when(maintainRepository.countRequestsLast12Months()).thenReturn(List.of(maintain1, maintain2));
+        dashboardService.getRoomStatuses();
+
+        verify(roomRepository, times(1)).findRoomStatuses();
+        verify(roomRepository, never()).findAll();
+    }
+
+    @Test
+    void getMaintainRequests_shouldReadLast12MonthsFromRollup() {
+        YearMonth now = YearMonth.now();
+        when(rollupRepository.findMaintainMonthly(now.minusMonths(11), now)).thenReturn(List.of(
+                new MaintainMonthlyDto("2025-01", 5L),
+                new MaintainMonthlyDto("2025-02", 3L)));
 
-        // Call the service method to test
         List<MaintainMonthlyDto> result = dashboardService.getMaintainRequests();
 
-        // Assertions for correct mapping of data
         assertEquals(2, result.size());
         assertEquals("2025-01", result.get(0).getMonth());
-        assertEquals(5L, result.get(0).getTotal());  // Use getTotal() since it's defined in the DTO
+        assertEquals(5L, result.get(0).getTotal());
         assertEquals("2025-02", result.get(1).getMonth());
-        assertEquals(3L, result.get(1).getTotal());  // Use getTotal() here as well
+        assertEquals(3L, result.get(1).getTotal());
     }
 
     @Test
-    void getFinanceStats_shouldReturnMappedDtos() {
-        // Mock repository to return raw data (likely Object[] or similar)
-        Object[] finance1 = {"2025-01", 10L, 2L, 1L};
-        Object[] finance2 = {"2025-02", 8L, 0L, 3L};
-
-        // Mock repository method to return sample data
-        when(invoiceRepository.countFinanceLast12Months()).thenReturn(List.of(finance1, finance2));
+    void getFinanceStats_shouldReadLast12MonthsFromRollup() {
+        YearMonth now = YearMonth.now();
+        when(rollupRepository.findFinanceMonthly(now.minusMonths(11), now)).thenReturn(List.of(
+                new FinanceMonthlyDto("2025-01", 10L, 2L, 1L),
+                new FinanceMonthlyDto("2025-02", 8L, 0L, 3L)));
 
-        // Call the service method to test
         List<FinanceMonthlyDto> result = dashboardService.getFinanceStats();
 
-        // Assertions for correct mapping of data
         assertEquals(2, result.size());
         assertEquals("2025-01", result.get(0).getMonth());
         assertEquals(10L, result.get(0).getOnTime());
         assertEquals(2L, result.get(0).getPenalty());
         assertEquals(1L, result.get(0).getOverdue());
-
         assertEquals("2025-02", result.get(1).getMonth());
-        assertEquals(8L, result.get(1).getOnTime());
-        assertEquals(0L, result.get(1).getPenalty());
         assertEquals(3L, result.get(1).getOverdue());
     }
 
+    // ✅ ช่วงเดือนใดก็ได้ (เกิน 12 เดือน) อ่านจาก rollup ตรง ไม่ผ่าน cache
+    @Test
+    void getFinanceStats_withRange_shouldQueryGivenMonths() {
+        when(rollupRepository.findFinanceMonthly(YearMonth.of(2022, 1), YearMonth.of(2024, 12)))
+                .thenReturn(List.of(new FinanceMonthlyDto("2022-01", 1L, 0L, 0L)));
+
+        List<FinanceMonthlyDto> result = dashboardService.getFinanceStats("2022-01", "2024-12");
+
+        assertEquals(1, result.size());
+        verify(dashboardCache, never()).get(any(), any());
+    }
+
+    @Test
+    void getMaintainRequests_withInvalidRange_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> dashboardService.getMaintainRequests("2025-06", "2025-01"));
+        assertThrows(IllegalArgumentException.class, () -> dashboardService.getMaintainRequests("2025/01", null));
+        verifyNoInteractions(rollupRepository);
+    }
+
+    @Test
+    void rebuildRollups_shouldRebuildBothAndInvalidateCharts() {
+        when(rollupRepository.rebuildFinanceMonthly()).thenReturn(24);
+        when(rollupRepository.rebuildMaintainMonthly()).thenReturn(18);
+
+        RollupRebuildResultDto result = dashboardService.rebuildRollups();
+
+        assertEquals(24, result.getFinanceMonths());
+        assertEquals(18, result.getMaintainMonths());
+        verify(dashboardCache).invalidate(DashboardCache.Section.MAINTAINS, DashboardCache.Section.FINANCES);
+    }
+
     @Test
     void getDashboardData_shouldReturnAllSections() {
         // Mock room statuses
-        Room room = Room.builder().id(1L).roomNumber("101").build();
-        when(roomRepository.findAll()).thenReturn(List.of(room));
-        when(contractRepository.existsActiveContractByRoomId(1L)).thenReturn(false);
-        when(maintainRepository.existsActiveMaintainByRoomId(1L)).thenReturn(false);
-
-        // Mock maintain data (raw data from repository)
-        Object[] maintain1 = {"2025-01", 5L};
-        Object[] maintain2 = {"2025-02", 3L};
-        when(maintainRepository.countRequestsLast12Months())
-                .thenReturn(List.of(maintain1, maintain2));  // Return raw data
-
-        // Mock finance data (raw data from repository)
-        Object[] finance1 = {"2025-01", 10L, 2L, 1L};
-        when(invoiceRepository.countFinanceLast12Months())
-                .thenReturn(java.util.Collections.singletonList(finance1));  // Return raw data
+        when(roomRepository.findRoomStatuses())
+                .thenReturn(List.of(new RoomStatusDto(1L, "101", RoomStatusDto.AVAILABLE)));
+
+        // Mock monthly rollups
+        when(rollupRepository.findMaintainMonthly(any(), any())).thenReturn(List.of(
+                new MaintainMonthlyDto("2025-01", 5L),
+                new MaintainMonthlyDto("2025-02", 3L)));
+        when(rollupRepository.findFinanceMonthly(any(), any()))
+                .thenReturn(List.of(new FinanceMonthlyDto("2025-01", 10L, 2L, 1L)));
 
         // Call the service method to get the complete dashboard data
         DashboardDto dashboard = dashboardService.getDashboardData();
 
         // Assertions for correct results
         assertNotNull(dashboard);
+        assertTrue(dashboard.getErrors().isEmpty());
         assertEquals(1, dashboard.getRooms().size());  // Check room statuses
         assertEquals(2, dashboard.getMaintains().size());  // Ensure 2 items in maintain requests
         assertEquals(1, dashboard.getFinances().size());  // Check finance stats
@@ -153,4 +179,44 @@ class DashboardServiceTest {
         assertEquals(1L, financeDto.getOverdue());
     }
 
-}
\ No newline at end of file
+    // ✅ section ที่พังได้ null + errors แทนการล้มทั้ง response
+    @Test
+    void getDashboardData_parallel_shouldReturnPartialDataWhenSectionFails() {
+        when(roomRepository.findRoomStatuses())
+                .thenReturn(List.of(new RoomStatusDto(1L, "101", RoomStatusDto.AVAILABLE)));
+        when(rollupRepository.findMaintainMonthly(any(), any())).thenReturn(List.of());
+        when(rollupRepository.findFinanceMonthly(any(), any())).thenThrow(new RuntimeException("db down"));
+
+        DashboardDto dashboard = dashboardService.getDashboardData(true);
+
+        assertEquals(1, dashboard.getRooms().size());
+        assertNotNull(dashboard.getMaintains());
+        assertNull(dashboard.getFinances());
+        assertEquals(Map.of("finances", DashboardSectionRunner.ERROR), dashboard.getErrors());
+    }
+
+    @Test
+    void getDashboardData_sequential_shouldPropagateSectionFailure() {
+        when(roomRepository.findRoomStatuses()).thenReturn(List.of());
+        when(rollupRepository.findMaintainMonthly(any(), any())).thenReturn(List.of());
+        when(rollupRepository.findFinanceMonthly(any(), any())).thenThrow(new RuntimeException("db down"));
+
+        assertThrows(RuntimeException.class, () -> dashboardService.getDashboardData(false));
+    }
+
+    @Test
+    void getRoomStatuses_shouldServeFromCacheUntilInvalidated() {
+        when(roomRepository.findRoomStatuses())
+                .thenReturn(List.of(new RoomStatusDto(1L, "101", RoomStatusDto.AVAILABLE)))
+                .thenReturn(List.of(new RoomStatusDto(1L, "101", RoomStatusDto.REPAIR)));
+
+        assertEquals(0, dashboardService.getRoomStatuses().get(0).get("status"));
+        assertEquals(0, dashboardService.getRoomStatuses().get(0).get("status")); // hit
+        verify(roomRepository, times(1)).findRoomStatuses();
+
+        dashboardCache.invalidate(DashboardCache.Section.ROOMS);
+
+        assertEquals(2, dashboardService.getRoomStatuses().get(0).get("status"));
+        verify(roomRepository, times(2)).findRoomStatuses();
+    }
+}
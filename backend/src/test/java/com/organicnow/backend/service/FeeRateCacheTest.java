@@ -0,0 +1,51 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.model.Fee;
+import com.organicnow.backend.repository.FeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FeeRateCacheTest {
+
+    @Mock
+    private FeeRepository feeRepository;
+
+    @InjectMocks
+    private FeeRateCache feeRateCache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(feeRepository.findAll()).thenReturn(List.of(
+                Fee.builder().id(2L).feeName(FeeRateCache.WATER).unitFee(35).build()));
+    }
+
+    // ✅ โหลดตาราง fee ครั้งเดียว ใช้ซ้ำจาก memory
+    @Test
+    void unitFee_shouldLoadOnceAndFallbackForUnknownFee() {
+        assertEquals(35, feeRateCache.unitFee(FeeRateCache.WATER, 30));
+        assertEquals(8, feeRateCache.unitFee(FeeRateCache.ELECTRICITY, 8));
+        assertEquals(2L, feeRateCache.find(FeeRateCache.WATER).orElseThrow().feeId());
+
+        verify(feeRepository, times(1)).findAll();
+    }
+
+    @Test
+    void reload_shouldPickUpNewRates() {
+        assertEquals(35, feeRateCache.unitFee(FeeRateCache.WATER, 30));
+
+        when(feeRepository.findAll()).thenReturn(List.of(
+                Fee.builder().id(2L).feeName(FeeRateCache.WATER).unitFee(40).build()));
+        feeRateCache.reload();
+
+        assertEquals(40, feeRateCache.unitFee(FeeRateCache.WATER, 30));
+    }
+}
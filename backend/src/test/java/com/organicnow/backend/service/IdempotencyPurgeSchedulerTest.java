@@ -0,0 +1,33 @@
+package com.organicnow.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.mockito.Mockito.*;
+
+class IdempotencyPurgeSchedulerTest {
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @InjectMocks
+    private IdempotencyPurgeScheduler idempotencyPurgeScheduler;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    // ✅ ลบ key ที่หมดอายุ
+    @Test
+    void testPurgeExpired() {
+        when(idempotencyService.purgeExpired()).thenReturn(2);
+
+        idempotencyPurgeScheduler.purgeExpired();
+
+        verify(idempotencyService, times(1)).purgeExpired();
+    }
+}
@@ -0,0 +1,152 @@
+package com.organicnow.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.organicnow.backend.dto.InvoiceDto;
+import com.organicnow.backend.model.IdempotencyKey;
+import com.organicnow.backend.repository.IdempotencyKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    private static final String SCOPE = "POST /invoice/create";
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private IdempotencyService idempotencyService;
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        idempotencyService = new IdempotencyService(idempotencyKeyRepository, objectMapper);
+        when(idempotencyKeyRepository.complete(any(), any(), any(), any(), any())).thenReturn(1);
+    }
+
+    private static InvoiceDto invoice(long id) {
+        return InvoiceDto.builder().id(id).netAmount(5000).build();
+    }
+
+    // ✅ ครั้งแรกทำจริง, retry ซ้ำ replay จาก LRU โดยไม่เรียก action / DB อีก
+    @Test
+    void testExecute_FirstCallRunsActionThenReplaysFromLru() {
+        when(idempotencyKeyRepository.claim(eq(SCOPE), eq("k1"), anyString(), any(), any(), any())).thenReturn(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        ResponseEntity<InvoiceDto> first = idempotencyService.execute(SCOPE, "k1", Map.of("room", "101"),
+                InvoiceDto.class, () -> { calls.incrementAndGet(); return ResponseEntity.ok(invoice(1L)); });
+        ResponseEntity<InvoiceDto> retry = idempotencyService.execute(SCOPE, "k1", Map.of("room", "101"),
+                InvoiceDto.class, () -> { calls.incrementAndGet(); return ResponseEntity.ok(invoice(2L)); });
+
+        assertEquals(1, calls.get());
+        assertEquals(1L, first.getBody().getId());
+        assertEquals(1L, retry.getBody().getId());
+        assertEquals("true", retry.getHeaders().getFirst("Idempotent-Replayed"));
+        verify(idempotencyKeyRepository, times(1)).claim(any(), any(), any(), any(), any(), any());
+        verify(idempotencyKeyRepository).complete(eq(SCOPE), eq("k1"), any(), eq(200), contains("\"id\":1"));
+    }
+
+    // ✅ LRU ไม่มี (เช่น instance อื่น/restart) → replay จาก DB
+    @Test
+    void testExecute_ReplaysStoredResponseFromDb() throws Exception {
+        Map<String, String> request = Map.of("room", "101");
+        when(idempotencyKeyRepository.claim(eq(SCOPE), eq("k2"), anyString(), any(), any(), any())).thenReturn(0);
+        when(idempotencyKeyRepository.findByScopeAndIdemKey(SCOPE, "k2")).thenReturn(Optional.of(IdempotencyKey.builder()
+                .scope(SCOPE).idemKey("k2").requestHash(idempotencyService.hash(request))
+                .statusCode(200).responseBody(objectMapper.writeValueAsString(invoice(7L)))
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build()));
+
+        ResponseEntity<InvoiceDto> replayed = idempotencyService.execute(SCOPE, "k2", request, InvoiceDto.class,
+                () -> { throw new AssertionError("must not run"); });
+
+        assertEquals(7L, replayed.getBody().getId());
+    }
+
+    // ❌ key เดิมแต่ payload ต่าง → 422
+    @Test
+    void testExecute_SameKeyDifferentPayload_Unprocessable() {
+        when(idempotencyKeyRepository.claim(eq(SCOPE), eq("k3"), anyString(), any(), any(), any())).thenReturn(1);
+        idempotencyService.execute(SCOPE, "k3", Map.of("room", "101"), InvoiceDto.class,
+                () -> ResponseEntity.ok(invoice(1L)));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () ->
+                idempotencyService.execute(SCOPE, "k3", Map.of("room", "102"), InvoiceDto.class,
+                        () -> ResponseEntity.ok(invoice(2L))));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, ex.getStatusCode());
+    }
+
+    // ❌ action พัง → ปล่อย key ให้ retry ได้ และไม่เก็บผลลัพธ์
+    @Test
+    void testExecute_ActionFails_ReleasesKey() {
+        when(idempotencyKeyRepository.claim(eq(SCOPE), eq("k4"), anyString(), any(), any(), any())).thenReturn(1);
+
+        assertThrows(RuntimeException.class, () -> idempotencyService.execute(SCOPE, "k4", Map.of(), InvoiceDto.class,
+                () -> { throw new RuntimeException("db down"); }));
+
+        verify(idempotencyKeyRepository).release(eq(SCOPE), eq("k4"), any());
+        verify(idempotencyKeyRepository, never()).complete(any(), any(), any(), any(), any());
+    }
+
+    // ❌ Error (ไม่ใช่ RuntimeException) / เก็บผลไม่สำเร็จ → ก็ต้องปล่อย key ด้วย claim เดียวกัน
+    @Test
+    void testExecute_ErrorOrCompleteFailure_ReleasesOwnClaim() {
+        when(idempotencyKeyRepository.claim(eq(SCOPE), anyString(), anyString(), any(), any(), any())).thenReturn(1);
+        when(idempotencyKeyRepository.complete(eq(SCOPE), eq("k6"), any(), any(), any()))
+                .thenThrow(new RuntimeException("db down"));
+
+        assertThrows(StackOverflowError.class, () -> idempotencyService.execute(SCOPE, "k5", Map.of(), InvoiceDto.class,
+                () -> { throw new StackOverflowError(); }));
+        assertThrows(RuntimeException.class, () -> idempotencyService.execute(SCOPE, "k6", Map.of(), InvoiceDto.class,
+                () -> ResponseEntity.ok(invoice(1L))));
+
+        ArgumentCaptor<LocalDateTime> claimedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(idempotencyKeyRepository).claim(eq(SCOPE), eq("k5"), anyString(), claimedAt.capture(), any(), any());
+        verify(idempotencyKeyRepository).release(SCOPE, "k5", claimedAt.getValue());
+        verify(idempotencyKeyRepository).release(eq(SCOPE), eq("k6"), any());
+    }
+
+    // ✅ claim ได้ lease สั้น ๆ (ยึดคืนได้หลัง server ล่ม) ส่วนผลลัพธ์เก็บตาม TTL
+    @Test
+    void testExecute_ClaimsWithShortLease() {
+        when(idempotencyKeyRepository.claim(eq(SCOPE), eq("k7"), anyString(), any(), any(), any())).thenReturn(1);
+        idempotencyService.execute(SCOPE, "k7", Map.of(), InvoiceDto.class, () -> ResponseEntity.ok(invoice(1L)));
+
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> lockedUntil = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> expiresAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(idempotencyKeyRepository).claim(eq(SCOPE), eq("k7"), anyString(),
+                now.capture(), lockedUntil.capture(), expiresAt.capture());
+        assertEquals(now.getValue().plus(IdempotencyService.LEASE), lockedUntil.getValue());
+        assertEquals(now.getValue().plus(IdempotencyService.TTL), expiresAt.getValue());
+        verify(idempotencyKeyRepository, never()).release(any(), any(), any());
+    }
+
+    // ✅ purge
+    @Test
+    void testPurgeExpired_DelegatesToRepository() {
+        when(idempotencyKeyRepository.deleteExpired(any(LocalDateTime.class))).thenReturn(3);
+        assertEquals(3, idempotencyService.purgeExpired());
+    }
+}
@@ -0,0 +1,78 @@
+package com.organicnow.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InvoiceArchiveServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionTemplate.execute(any(TransactionCallback.class)))
+                .thenAnswer(inv -> ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+    }
+
+    // ✅ horizon ต่ำกว่า 13 เดือนถูกปัดขึ้น (ประวัติผู้เช่า 12 เดือนยังอยู่ใน invoice_view), ตัดที่ต้นเดือน
+    @Test
+    void cutoff_shouldClampHorizonAndStartOfMonth() {
+        InvoiceArchiveService service = new InvoiceArchiveService(jdbcTemplate, transactionTemplate, 3, 100);
+
+        assertEquals(InvoiceArchiveService.MIN_HORIZON_MONTHS, service.horizonMonths());
+        assertEquals(LocalDateTime.of(2024, 9, 1, 0, 0), service.cutoff(LocalDate.of(2025, 10, 18)));
+    }
+
+    // ✅ ทีละ batch: สร้าง partition → copy รายการ → ย้าย invoice, หยุดเมื่อ batch ไม่เต็ม
+    @Test
+    @SuppressWarnings("unchecked")
+    void archiveSettled_shouldMoveInBatchesUntilShortBatch() {
+        InvoiceArchiveService service = new InvoiceArchiveService(jdbcTemplate, transactionTemplate, 24, 2);
+        when(jdbcTemplate.queryForList(eq(InvoiceArchiveService.SELECT_BATCH_SQL), eq(Long.class), any(), eq(2)))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+        when(jdbcTemplate.query(eq(InvoiceArchiveService.SELECT_MONTHS_SQL), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenReturn(List.of(LocalDate.of(2023, 1, 1)));
+        when(jdbcTemplate.update(eq(InvoiceArchiveService.MOVE_INVOICES_SQL), any(PreparedStatementSetter.class)))
+                .thenReturn(2, 1);
+
+        int moved = service.archiveSettled();
+
+        assertEquals(3, moved);
+        verify(transactionTemplate, times(2)).execute(any(TransactionCallback.class));
+        verify(jdbcTemplate, times(2)).update(eq(InvoiceArchiveService.ARCHIVE_ITEMS_SQL), any(PreparedStatementSetter.class));
+        verify(jdbcTemplate, times(2)).execute(InvoiceArchiveService.MARK_ARCHIVING_SQL);
+        verify(jdbcTemplate, times(2)).execute(
+                "CREATE TABLE IF NOT EXISTS invoice_archive_2023_01 PARTITION OF invoice_archive"
+                        + " FOR VALUES FROM ('2023-01-01') TO ('2023-02-01')");
+    }
+
+    @Test
+    void archiveSettled_nothingToMove_shouldStop() {
+        InvoiceArchiveService service = new InvoiceArchiveService(jdbcTemplate, transactionTemplate, 24, 100);
+        when(jdbcTemplate.queryForList(eq(InvoiceArchiveService.SELECT_BATCH_SQL), eq(Long.class), any(), any()))
+                .thenReturn(List.of());
+
+        assertEquals(0, service.archiveSettled());
+        verify(jdbcTemplate, never()).update(anyString(), any(PreparedStatementSetter.class));
+    }
+}
@@ -0,0 +1,180 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.BillingRunRequest;
+import com.organicnow.backend.dto.BillingRunResultDto;
+import com.organicnow.backend.event.InvoiceChangedEvent;
+import com.organicnow.backend.model.Contract;
+import com.organicnow.backend.model.PackagePlan;
+import com.organicnow.backend.model.Room;
+import com.organicnow.backend.repository.ContractRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InvoiceBillingServiceTest {
+
+    @Mock
+    private ContractRepository contractRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private InvoiceItemService invoiceItemService;
+
+    @Mock
+    private FeeRateCache feeRateCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private InvoiceBillingService invoiceBillingService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(feeRateCache.unitFee(anyString(), anyInt())).thenAnswer(inv -> inv.getArgument(1));
+    }
+
+    private Contract contract(long id, int floor, String roomNumber, String rent) {
+        Room room = new Room();
+        room.setRoomFloor(floor);
+        room.setRoomNumber(roomNumber);
+        PackagePlan plan = new PackagePlan();
+        plan.setId(9L);
+        Contract c = new Contract();
+        c.setId(id);
+        c.setRoom(room);
+        c.setPackagePlan(plan);
+        c.setRentAmountSnapshot(new BigDecimal(rent));
+        return c;
+    }
+
+    private static BillingRunRequest.MeterReading reading(String room, int water, int elec) {
+        return BillingRunRequest.MeterReading.builder()
+                .roomNumber(room).waterUnit(water).electricityUnit(elec).build();
+    }
+
+    // ✅ ออกบิลจาก rentAmountSnapshot + meter readings, ห้องที่ไม่มี reading ถูกรายงาน
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRunMonthlyBilling_BuildsRowsAndSummary() {
+        when(contractRepository.findActiveContractsForPeriod(
+                LocalDateTime.of(2025, 10, 1, 0, 0), LocalDateTime.of(2025, 10, 31, 23, 59, 59)))
+                .thenReturn(List.of(
+                        contract(1L, 1, "101", "5000.00"),
+                        contract(2L, 1, "102", "4500.00"),
+                        contract(3L, 2, "201", "6000.00")));
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1, 0}});
+        when(jdbcTemplate.queryForObject(InvoiceBillingService.COUNT_FOR_MONTH_SQL, Integer.class, "2025-10"))
+                .thenReturn(5, 6);
+
+        BillingRunRequest request = BillingRunRequest.builder()
+                .billingMonth("2025-10")
+                .readings(List.of(reading("101", 10, 100), reading("102", 5, 50)))
+                .build();
+
+        BillingRunResultDto result = invoiceBillingService.runMonthlyBilling(request);
+
+        ArgumentCaptor<Collection<Object[]>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(eq(InvoiceBillingService.INSERT_SQL), rows.capture(),
+                eq(InvoiceBillingService.BATCH_SIZE), any(ParameterizedPreparedStatementSetter.class));
+
+        List<Object[]> captured = List.copyOf(rows.getValue());
+        assertEquals(2, captured.size());
+        Object[] first = captured.get(0);
+        assertEquals(1L, first[0]);
+        assertEquals("2025-10", first[1]);
+        assertEquals(5000 + 10 * 30 + 100 * 8, first[4]); // subTotal
+        assertEquals(first[4], first[5]);                 // net = subTotal
+        assertEquals(9L, first[6]);
+        assertEquals("101", first[8]);
+
+        assertEquals("2025-10", result.getBillingMonth());
+        assertEquals(3, result.getActiveContracts());
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getSkippedExisting());
+        assertEquals(List.of("201"), result.getMissingReadings());
+
+        // ✅ รายการของทั้งเดือน + sub_total จากผลรวมรายการ
+        verify(invoiceItemService).insertLinesForBillingMonth("2025-10", 30, 8);
+        verify(invoiceItemService).applySubtotalsForBillingMonth("2025-10");
+        verify(eventPublisher).publishEvent(InvoiceChangedEvent.allInvoices());
+    }
+
+    // ✅ ไม่มี invoice ใหม่ → ไม่แตะ invoice_item
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRunMonthlyBilling_NothingCreated_SkipsLines() {
+        when(contractRepository.findActiveContractsForPeriod(any(), any()))
+                .thenReturn(List.of(contract(1L, 1, "101", "5000.00")));
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{0}});
+        when(jdbcTemplate.queryForObject(InvoiceBillingService.COUNT_FOR_MONTH_SQL, Integer.class, "2025-10"))
+                .thenReturn(3, 3);
+
+        BillingRunResultDto result = invoiceBillingService.runMonthlyBilling(BillingRunRequest.builder()
+                .billingMonth("2025-10")
+                .readings(List.of(reading("101", 10, 100)))
+                .build());
+
+        assertEquals(0, result.getCreated());
+        verifyNoInteractions(invoiceItemService, eventPublisher);
+    }
+
+    // ✅ reWriteBatchedInserts: driver คืน SUCCESS_NO_INFO (-2) ทุกแถว → จำนวนที่สร้างมาจาก COUNT ก่อน/หลัง
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRunMonthlyBilling_MultiRowBatchWithoutCounts_StillCreatesLines() {
+        when(contractRepository.findActiveContractsForPeriod(any(), any()))
+                .thenReturn(List.of(
+                        contract(1L, 1, "101", "5000.00"),
+                        contract(2L, 1, "102", "4500.00"),
+                        contract(3L, 2, "201", "6000.00")));
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{-2, -2, -2}});
+        when(jdbcTemplate.queryForObject(InvoiceBillingService.COUNT_FOR_MONTH_SQL, Integer.class, "2025-10"))
+                .thenReturn(1, 3);
+
+        BillingRunResultDto result = invoiceBillingService.runMonthlyBilling(BillingRunRequest.builder()
+                .billingMonth("2025-10")
+                .readings(List.of(reading("101", 10, 100), reading("102", 5, 50), reading("201", 1, 10)))
+                .build());
+
+        assertEquals(2, result.getCreated());
+        assertEquals(1, result.getSkippedExisting());
+        var inOrder = inOrder(jdbcTemplate, invoiceItemService);
+        inOrder.verify(jdbcTemplate).queryForList(InvoiceBillingService.LOCK_MONTH_SQL, "billing-run:2025-10");
+        inOrder.verify(jdbcTemplate).batchUpdate(eq(InvoiceBillingService.INSERT_SQL), anyCollection(),
+                eq(InvoiceBillingService.BATCH_SIZE), any(ParameterizedPreparedStatementSetter.class));
+        inOrder.verify(invoiceItemService).insertLinesForBillingMonth("2025-10", 30, 8);
+        inOrder.verify(invoiceItemService).applySubtotalsForBillingMonth("2025-10");
+        verify(eventPublisher).publishEvent(InvoiceChangedEvent.allInvoices());
+    }
+
+    // ✅ billingMonth ไม่ถูกต้อง → IllegalArgumentException และไม่แตะ DB
+    @Test
+    void testRunMonthlyBilling_InvalidMonth_Throws() {
+        BillingRunRequest request = BillingRunRequest.builder().billingMonth("10/2025").build();
+
+        assertThrows(IllegalArgumentException.class, () -> invoiceBillingService.runMonthlyBilling(request));
+        verifyNoInteractions(contractRepository, jdbcTemplate, invoiceItemService);
+    }
+}
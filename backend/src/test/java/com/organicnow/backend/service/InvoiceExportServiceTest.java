@@ -0,0 +1,120 @@
+package com.organicnow.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.organicnow.backend.dto.InvoiceDto;
+import com.organicnow.backend.repository.InvoiceArchiveRepository;
+import com.organicnow.backend.repository.InvoiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InvoiceExportServiceTest {
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+
+    @Mock
+    private InvoiceArchiveRepository invoiceArchiveRepository;
+
+    private InvoiceExportService invoiceExportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        invoiceExportService = new InvoiceExportService(invoiceRepository, invoiceArchiveRepository, objectMapper);
+    }
+
+    private InvoiceDto dto(long id, String firstName) {
+        return InvoiceDto.builder()
+                .id(id)
+                .contractId(1L)
+                .createDate(LocalDateTime.of(2025, 1, 1, 0, 0))
+                .invoiceStatus(1)
+                .netAmount(5000)
+                .firstName(firstName)
+                .room("101")
+                .build();
+    }
+
+    // ✅ CSV: header + แถวละ invoice, escape , และ "
+    @Test
+    void testExportCsv_WritesHeaderRowsAndEscapes() throws Exception {
+        when(invoiceRepository.streamDtosForExport(null, null, null))
+                .thenReturn(Stream.of(dto(1L, "John"), dto(2L, "Smith, \"JJ\"")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = invoiceExportService.export(InvoiceExportService.Format.CSV, null, null, null, false, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(3, lines.length);
+        assertEquals(InvoiceExportService.CSV_HEADER, lines[0]);
+        assertTrue(lines[1].startsWith("1,1,2025-01-01T00:00,"));
+        assertTrue(lines[2].contains("\"Smith, \"\"JJ\"\"\""));
+    }
+
+    // ✅ NDJSON: 1 บรรทัด = 1 JSON object และปิด Stream หลังใช้
+    @Test
+    void testExportNdjson_OneObjectPerLineAndClosesStream() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        when(invoiceRepository.streamDtosForExport(0, null, null))
+                .thenReturn(Stream.of(dto(1L, "John"), dto(2L, "Jane")).onClose(() -> closed.set(true)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        invoiceExportService.export(InvoiceExportService.Format.NDJSON, 0, null, null, false, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"firstName\":\"John\""));
+        assertTrue(lines[1].contains("\"id\":2"));
+        assertTrue(closed.get());
+    }
+
+    // ✅ includeArchived: ต่อแถวจาก invoice_archive หลังแถวปัจจุบัน
+    @Test
+    void testExport_IncludeArchived_AppendsArchiveRows() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        when(invoiceRepository.streamDtosForExport(null, start, null)).thenReturn(Stream.of(dto(5L, "John")));
+        when(invoiceArchiveRepository.streamDtosForExport(null, start, null)).thenReturn(Stream.of(dto(1L, "Old")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = invoiceExportService.export(InvoiceExportService.Format.CSV, null, start, null, true, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertTrue(lines[1].startsWith("5,"));
+        assertTrue(lines[2].startsWith("1,"));
+    }
+
+    @Test
+    void testExport_WithoutArchived_DoesNotReadArchive() throws Exception {
+        when(invoiceRepository.streamDtosForExport(null, null, null)).thenReturn(Stream.empty());
+
+        invoiceExportService.export(InvoiceExportService.Format.CSV, null, null, null, false, new ByteArrayOutputStream());
+
+        verifyNoInteractions(invoiceArchiveRepository);
+    }
+
+    // ✅ format parsing
+    @Test
+    void testFormatFrom() {
+        assertEquals(InvoiceExportService.Format.CSV, InvoiceExportService.Format.from(null));
+        assertEquals(InvoiceExportService.Format.NDJSON, InvoiceExportService.Format.from("NdJson"));
+        assertThrows(IllegalArgumentException.class, () -> InvoiceExportService.Format.from("xml"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.InvoiceItemDto;
+import com.organicnow.backend.repository.InvoiceItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InvoiceItemServiceTest {
+
+    @Mock
+    private InvoiceItemRepository invoiceItemRepository;
+
+    @Mock
+    private FeeRateCache feeRateCache;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private InvoiceItemService invoiceItemService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(feeRateCache.find(FeeRateCache.RENT)).thenReturn(Optional.of(new FeeRateCache.FeeRate(1L, FeeRateCache.RENT, 0)));
+        when(feeRateCache.find(FeeRateCache.WATER)).thenReturn(Optional.of(new FeeRateCache.FeeRate(2L, FeeRateCache.WATER, 30)));
+        when(feeRateCache.find(FeeRateCache.ELECTRICITY)).thenReturn(Optional.empty());
+    }
+
+    // ✅ ข้ามรายการที่ยอดเป็น 0 และ fee ที่ไม่มีในตาราง
+    @Test
+    void buildLines_shouldSkipZeroTotalsAndUnknownFees() {
+        List<InvoiceItemDto> lines = invoiceItemService.buildLines(5000, 0, 30, 0, 100, 8, 800);
+
+        assertEquals(1, lines.size());
+        assertEquals(1L, lines.get(0).getFeeId());
+        assertEquals(1, lines.get(0).getQuantity());
+        assertEquals(5000, lines.get(0).getTotalFee());
+        assertEquals(5000, InvoiceItemService.sumTotal(lines));
+    }
+
+    // ✅ insert ทุกรายการของ invoice ใน batch เดียว
+    @Test
+    @SuppressWarnings("unchecked")
+    void insertLines_shouldUseSingleBatch() {
+        List<InvoiceItemDto> lines = invoiceItemService.buildLines(5000, 10, 30, 300, 0, 8, 0);
+
+        invoiceItemService.insertLines(7L, lines);
+
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(InvoiceItemService.INSERT_SQL), eq(lines), eq(2),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertTrue(lines.stream().allMatch(l -> l.getInvoiceId() == 7L));
+    }
+
+    @Test
+    void insertLines_empty_shouldNotTouchDb() {
+        invoiceItemService.insertLines(7L, List.of());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    // ✅ แก้ยอด → ลบรายการเดิมของ invoice แล้ว insert ใหม่
+    @Test
+    @SuppressWarnings("unchecked")
+    void replaceLines_shouldDeleteThenInsert() {
+        List<InvoiceItemDto> lines = invoiceItemService.buildLines(5000, 10, 30, 300, 0, 8, 0);
+
+        invoiceItemService.replaceLines(7L, lines);
+
+        var inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).update(InvoiceItemService.DELETE_FOR_INVOICE_SQL, 7L);
+        inOrder.verify(jdbcTemplate).batchUpdate(eq(InvoiceItemService.INSERT_SQL), eq(lines), eq(2),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    // ✅ รายการหลาย invoice ด้วย query เดียว แล้วจัดกลุ่มตาม invoice id
+    @Test
+    void findLinesByInvoiceIds_shouldGroupByInvoice() {
+        when(invoiceItemRepository.findDtosByInvoiceIds(List.of(1L, 2L))).thenReturn(List.of(
+                InvoiceItemDto.builder().invoiceId(1L).feeName(FeeRateCache.RENT).totalFee(5000).build(),
+                InvoiceItemDto.builder().invoiceId(1L).feeName(FeeRateCache.WATER).totalFee(300).build(),
+                InvoiceItemDto.builder().invoiceId(2L).feeName(FeeRateCache.RENT).totalFee(4500).build()));
+
+        Map<Long, List<InvoiceItemDto>> result = invoiceItemService.findLinesByInvoiceIds(List.of(1L, 2L));
+
+        assertEquals(2, result.get(1L).size());
+        assertEquals(1, result.get(2L).size());
+        verify(invoiceItemRepository, times(1)).findDtosByInvoiceIds(anyCollection());
+    }
+
+    @Test
+    void findLinesByInvoiceIds_empty_shouldNotQuery() {
+        assertTrue(invoiceItemService.findLinesByInvoiceIds(List.of()).isEmpty());
+        verifyNoInteractions(invoiceItemRepository);
+    }
+
+    @Test
+    void findAllLines_shouldGroupByInvoice() {
+        when(invoiceItemRepository.findAllDtos()).thenReturn(List.of(
+                InvoiceItemDto.builder().invoiceId(1L).feeName(FeeRateCache.RENT).totalFee(5000).build(),
+                InvoiceItemDto.builder().invoiceId(3L).feeName(FeeRateCache.RENT).totalFee(4000).build()));
+
+        Map<Long, List<InvoiceItemDto>> result = invoiceItemService.findAllLines();
+
+        assertEquals(1, result.get(1L).size());
+        assertEquals(1, result.get(3L).size());
+        verify(invoiceItemRepository, never()).findDtosByInvoiceIds(any());
+    }
+
+    @Test
+    void insertLinesForBillingMonth_shouldPassRatesAndMonth() {
+        when(jdbcTemplate.update(eq(InvoiceItemService.INSERT_FOR_MONTH_SQL), any(Object[].class))).thenReturn(6);
+
+        int inserted = invoiceItemService.insertLinesForBillingMonth("2025-10", 30, 8);
+
+        assertEquals(6, inserted);
+        verify(jdbcTemplate).update(InvoiceItemService.INSERT_FOR_MONTH_SQL,
+                FeeRateCache.RENT, FeeRateCache.WATER, 30, FeeRateCache.ELECTRICITY, 8, "2025-10");
+    }
+}
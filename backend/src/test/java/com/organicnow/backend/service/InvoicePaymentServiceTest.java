@@ -0,0 +1,109 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.BulkPaymentRequest;
+import com.organicnow.backend.dto.BulkPaymentResultDto;
+import com.organicnow.backend.dto.BulkPaymentResultDto.Status;
+import com.organicnow.backend.event.InvoiceChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InvoicePaymentServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private InvoicePaymentService invoicePaymentService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private static BulkPaymentRequest.Payment payment(Long invoiceId) {
+        return BulkPaymentRequest.Payment.builder().invoiceId(invoiceId).payMethod(2).build();
+    }
+
+    // ✅ ผลลัพธ์รายใบตามลำดับ request: PAID / ALREADY_PAID / CANCELLED / NOT_FOUND / DUPLICATE / INVALID
+    @Test
+    @SuppressWarnings("unchecked")
+    void markPaid_shouldReportOutcomePerItem() throws Exception {
+        when(jdbcTemplate.query(eq(InvoicePaymentService.MARK_PAID_SQL), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenReturn(List.of(1L));
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(2);
+            ResultSet paid = mock(ResultSet.class);
+            when(paid.getLong("invoice_id")).thenReturn(2L);
+            when(paid.getInt("invoice_status")).thenReturn(1);
+            handler.processRow(paid);
+            ResultSet cancelled = mock(ResultSet.class);
+            when(cancelled.getLong("invoice_id")).thenReturn(3L);
+            when(cancelled.getInt("invoice_status")).thenReturn(2);
+            handler.processRow(cancelled);
+            return null;
+        }).when(jdbcTemplate).query(eq(InvoicePaymentService.STATUS_SQL), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+
+        List<BulkPaymentRequest.Payment> payments = new ArrayList<>();
+        payments.add(payment(1L));
+        payments.add(payment(2L));
+        payments.add(payment(3L));
+        payments.add(payment(4L));
+        payments.add(payment(1L));
+        payments.add(payment(null));
+
+        BulkPaymentResultDto result = invoicePaymentService.markPaid(new BulkPaymentRequest(payments));
+
+        assertEquals(6, result.getRequested());
+        assertEquals(1, result.getPaid());
+        assertEquals(5, result.getFailed());
+        assertEquals(List.of(Status.PAID, Status.ALREADY_PAID, Status.CANCELLED, Status.NOT_FOUND, Status.DUPLICATE, Status.INVALID),
+                result.getResults().stream().map(BulkPaymentResultDto.Outcome::getStatus).toList());
+        // ✅ แจ้งเฉพาะใบที่ชำระสำเร็จจริง
+        verify(eventPublisher).publishEvent(new InvoiceChangedEvent(Set.of(1L)));
+    }
+
+    // ✅ UPDATE เดียวต่อ chunk
+    @Test
+    @SuppressWarnings("unchecked")
+    void markPaid_shouldIssueOneUpdatePerChunk() {
+        List<Long> ids = LongStream.rangeClosed(1, InvoicePaymentService.BATCH_SIZE + 1).boxed().toList();
+        when(jdbcTemplate.query(eq(InvoicePaymentService.MARK_PAID_SQL), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenReturn(ids.subList(0, InvoicePaymentService.BATCH_SIZE), ids.subList(InvoicePaymentService.BATCH_SIZE, ids.size()));
+
+        BulkPaymentResultDto result = invoicePaymentService.markPaid(
+                new BulkPaymentRequest(ids.stream().map(InvoicePaymentServiceTest::payment).toList()));
+
+        assertEquals(ids.size(), result.getPaid());
+        verify(jdbcTemplate, times(2)).query(eq(InvoicePaymentService.MARK_PAID_SQL), any(PreparedStatementSetter.class), any(RowMapper.class));
+        verify(jdbcTemplate, never()).query(eq(InvoicePaymentService.STATUS_SQL), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void markPaid_emptyRequest_shouldNotTouchDb() {
+        BulkPaymentResultDto result = invoicePaymentService.markPaid(new BulkPaymentRequest(null));
+
+        assertEquals(0, result.getRequested());
+        verifyNoInteractions(jdbcTemplate, eventPublisher);
+    }
+}
@@ -0,0 +1,43 @@
+package com.organicnow.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.mockito.Mockito.*;
+
+class InvoicePenaltySchedulerTest {
+
+    @Mock
+    private InvoiceService invoiceService;
+
+    @InjectMocks
+    private InvoicePenaltyScheduler invoicePenaltyScheduler;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    // ✅ กรณีมี invoice ถูกคิด penalty
+    @Test
+    void testApplyOverduePenalties_WithUpdates() {
+        when(invoiceService.applyOverduePenalties()).thenReturn(7);
+
+        invoicePenaltyScheduler.applyOverduePenalties();
+
+        verify(invoiceService, times(1)).applyOverduePenalties();
+    }
+
+    // ✅ กรณีไม่มี invoice เกินกำหนด
+    @Test
+    void testApplyOverduePenalties_NoUpdates() {
+        when(invoiceService.applyOverduePenalties()).thenReturn(0);
+
+        invoicePenaltyScheduler.applyOverduePenalties();
+
+        verify(invoiceService, times(1)).applyOverduePenalties();
+    }
+}
@@ -1,13 +1,18 @@
 package com.organicnow.backend.service;
 
 import com.organicnow.backend.dto.*;
+import com.organicnow.backend.event.InvoiceChangedEvent;
 import com.organicnow.backend.model.*;
 import com.organicnow.backend.repository.ContractRepository;
 import com.organicnow.backend.repository.InvoiceRepository;
-import com.organicnow.backend.repository.RoomRepository;
+import com.organicnow.backend.repository.InvoiceViewRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -20,7 +25,11 @@ class InvoiceServiceTest {
 
     @Mock private InvoiceRepository invoiceRepository;
     @Mock private ContractRepository contractRepository;
-    @Mock private RoomRepository roomRepository;
+    @Mock private ActiveContractResolver activeContractResolver;
+    @Mock private InvoiceViewRepository invoiceViewRepository;
+    @Mock private InvoiceItemService invoiceItemService;
+    @Mock private FeeRateCache feeRateCache;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks private InvoiceServiceImpl invoiceService;
 
@@ -34,6 +43,8 @@ class InvoiceServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        // ตาราง fee ว่าง → ใช้อัตรา fallback
+        when(feeRateCache.unitFee(anyString(), anyInt())).thenAnswer(inv -> inv.getArgument(1));
 
         tenant = new Tenant();
         tenant.setId(1L);
@@ -77,18 +88,94 @@ class InvoiceServiceTest {
         invoice.setNetAmount(6000);
     }
 
-    // ✅ getAllInvoices
+    // ✅ getAllInvoices: อ่านจาก invoice_view + ยอดแยกรายการจาก invoice_item (เหมือน /page และรายใบ)
     @Test
     void testGetAllInvoices() {
-        InvoiceServiceImpl spyService = Mockito.spy(invoiceService);
-        when(invoiceRepository.findAll()).thenReturn(List.of(invoice));
-        doNothing().when(spyService).updateOverduePenalties();
+        InvoiceDto row = InvoiceDto.builder().id(1L).netAmount(6000).rent(5000).water(0).electricity(0).build();
+        InvoiceDto legacy = InvoiceDto.builder().id(2L).netAmount(4000).rent(4000).water(0).electricity(0).build();
+        when(invoiceViewRepository.findAllDtos()).thenReturn(List.of(row, legacy));
+        when(invoiceItemService.findAllLines()).thenReturn(Map.of(1L, List.of(
+                InvoiceItemDto.builder().invoiceId(1L).feeName(FeeRateCache.RENT).quantity(1).unitFee(5400).totalFee(5400).build(),
+                InvoiceItemDto.builder().invoiceId(1L).feeName(FeeRateCache.WATER).quantity(10).unitFee(30).totalFee(300).build())));
+
+        List<InvoiceDto> result = invoiceService.getAllInvoices();
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).getRent()).isEqualTo(5400);
+        assertThat(result.get(0).getWater()).isEqualTo(300);
+        assertThat(result.get(0).getWaterUnit()).isEqualTo(10);
+        assertThat(result.get(0).getItems()).hasSize(2);
+        // ไม่มี invoice_item → ใช้ยอดจาก view
+        assertThat(result.get(1).getRent()).isEqualTo(4000);
+        assertThat(result.get(1).getItems()).isEmpty();
+        verify(invoiceViewRepository, times(1)).findAllDtos();
+        verify(invoiceItemService, times(1)).findAllLines();
+        // ✅ read-only: ไม่คิด penalty / ไม่ save / ไม่ join ตารางต้นทาง
+        verify(invoiceRepository, never()).applyOverduePenalties(any());
+        verify(invoiceRepository, never()).save(any());
+        verify(invoiceRepository, never()).findAll();
+    }
 
-        List<InvoiceDto> result = spyService.getAllInvoices();
+    // ✅ convertToDtos: tenant มาจาก contract ของ invoice เอง (แหล่งเดียวกับ invoice_view)
+    @Test
+    void testGetInvoicePage_UsesInvoiceContractTenant() {
+        Tenant previousTenant = new Tenant();
+        previousTenant.setFirstName("Jane");
+        Contract previous = new Contract();
+        previous.setId(9L);
+        previous.setRoom(room);
+        previous.setTenant(previousTenant);
+        previous.setPackagePlan(packagePlan);
+
+        Invoice old = new Invoice();
+        old.setId(2L);
+        old.setContact(previous);
+        old.setCreateDate(LocalDateTime.now().minusMonths(2));
+        old.setSubTotal(1000);
+        old.setPenaltyTotal(0);
+        old.setRequestedFloor(1);
+        old.setRequestedRoom("101");
+
+        when(invoiceRepository.findPageAfter(any(), any(), any(), any(), any(), any(), any(),
+                isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(List.of(invoice, old));
+
+        InvoicePageDto page = invoiceService.getInvoicePage(InvoiceFilterRequest.builder().size(10).build());
+
+        assertThat(page.getItems()).extracting(InvoiceDto::getFirstName).containsExactly("John", "Jane");
+        assertThat(page.getItems()).extracting(InvoiceDto::getContractId).containsExactly(1L, 9L);
+        assertThat(page.getItems()).allSatisfy(dto -> assertThat(dto.getPackageName()).isEqualTo("Monthly"));
+    }
 
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getId()).isEqualTo(1L);
-        verify(invoiceRepository, times(1)).findAll();
+    // ✅ รายการ invoice_item ของทั้งหน้าโหลดด้วย query เดียว แล้วใช้เป็นยอดแยกรายการ
+    @Test
+    void testGetInvoicePage_LoadsLinesInSingleBatch() {
+        Invoice second = new Invoice();
+        second.setId(2L);
+        second.setContact(contract);
+        second.setCreateDate(LocalDateTime.now().minusDays(1));
+        second.setSubTotal(5000);
+        second.setPenaltyTotal(0);
+
+        when(invoiceRepository.findPageAfter(any(), any(), any(), any(), any(), any(), any(),
+                isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(List.of(invoice, second));
+        when(invoiceItemService.findLinesByInvoiceIds(List.of(1L, 2L))).thenReturn(Map.of(1L, List.of(
+                InvoiceItemDto.builder().invoiceId(1L).feeName(FeeRateCache.RENT).quantity(1).unitFee(5000).totalFee(5000).build(),
+                InvoiceItemDto.builder().invoiceId(1L).feeName(FeeRateCache.WATER).quantity(10).unitFee(30).totalFee(300).build(),
+                InvoiceItemDto.builder().invoiceId(1L).feeName(FeeRateCache.ELECTRICITY).quantity(87).unitFee(8).totalFee(696).build())));
+
+        InvoicePageDto page = invoiceService.getInvoicePage(InvoiceFilterRequest.builder().size(10).build());
+
+        InvoiceDto withLines = page.getItems().get(0);
+        assertThat(withLines.getItems()).hasSize(3);
+        assertThat(withLines.getRent()).isEqualTo(5000);
+        assertThat(withLines.getWater()).isEqualTo(300);
+        assertThat(withLines.getWaterUnit()).isEqualTo(10);
+        assertThat(withLines.getElectricity()).isEqualTo(696);
+        assertThat(withLines.getElectricityUnit()).isEqualTo(87);
+        assertThat(page.getItems().get(1).getItems()).isEmpty();
+        verify(invoiceItemService, times(1)).findLinesByInvoiceIds(anyCollection());
     }
 
     // ✅ getInvoiceById
@@ -124,6 +211,33 @@ class InvoiceServiceTest {
         verify(invoiceRepository).save(any());
     }
 
+    // ✅ createInvoice: บันทึกรายการ invoice_item และ sub_total = ผลรวมรายการ
+    @Test
+    void testCreateInvoice_InsertsLinesAndUsesLineSubtotal() {
+        CreateInvoiceRequest req = CreateInvoiceRequest.builder()
+                .contractId(1L)
+                .rentAmount(5000)
+                .waterUnit(10)
+                .electricityUnit(100)
+                .subTotal(1) // ถูกแทนด้วยผลรวมรายการ
+                .build();
+        List<InvoiceItemDto> lines = List.of(
+                InvoiceItemDto.builder().feeId(1L).feeName(FeeRateCache.RENT).quantity(1).unitFee(5000).totalFee(5000).build(),
+                InvoiceItemDto.builder().feeId(2L).feeName(FeeRateCache.WATER).quantity(10).unitFee(30).totalFee(300).build(),
+                InvoiceItemDto.builder().feeId(3L).feeName(FeeRateCache.ELECTRICITY).quantity(100).unitFee(8).totalFee(800).build());
+
+        when(contractRepository.findById(1L)).thenReturn(Optional.of(contract));
+        when(invoiceItemService.buildLines(5000, 10, 30, 300, 100, 8, 800)).thenReturn(lines);
+        when(invoiceRepository.save(any())).thenReturn(invoice);
+
+        invoiceService.createInvoice(req);
+
+        ArgumentCaptor<Invoice> saved = ArgumentCaptor.forClass(Invoice.class);
+        verify(invoiceRepository).save(saved.capture());
+        assertThat(saved.getValue().getSubTotal()).isEqualTo(6100);
+        verify(invoiceItemService).insertLines(1L, lines);
+    }
+
     @Test
     void testCreateInvoice_ContractNotFound_Throws() {
         CreateInvoiceRequest req = CreateInvoiceRequest.builder()
@@ -138,33 +252,35 @@ class InvoiceServiceTest {
 
     // ✅ createInvoice (ไม่มี contractId → ใช้ placeholder)
     @Test
-    void testCreateInvoice_WithoutContractId_UsesPlaceholderContract() {
+    void testCreateInvoice_WithoutContractId_ResolvesContractFromRoom() {
         CreateInvoiceRequest req = CreateInvoiceRequest.builder()
                 .floor("2")
                 .room("A201")
                 .rentAmount(3000)
                 .build();
 
-        when(contractRepository.findAll()).thenReturn(List.of(contract));
+        when(activeContractResolver.resolve(2, "A201")).thenReturn(Optional.of(contract));
         when(invoiceRepository.save(any())).thenReturn(invoice);
 
         InvoiceDto result = invoiceService.createInvoice(req);
 
         assertThat(result).isNotNull();
-        verify(contractRepository).findAll();
-        verify(invoiceRepository).save(any());
+        verify(activeContractResolver).resolve(2, "A201");
+        verify(contractRepository, never()).findAll();
+        verify(invoiceRepository).save(argThat((Invoice inv) -> inv.getContact() == contract));
     }
 
     @Test
-    void testCreateInvoice_NoContractsAvailable_Throws() {
+    void testCreateInvoice_NoActiveContractForRoom_Throws() {
         CreateInvoiceRequest req = CreateInvoiceRequest.builder()
                 .room("B202")
                 .build();
 
-        when(contractRepository.findAll()).thenReturn(Collections.emptyList());
+        when(activeContractResolver.resolve(null, "B202")).thenReturn(Optional.empty());
         assertThatThrownBy(() -> invoiceService.createInvoice(req))
                 .isInstanceOf(RuntimeException.class)
-                .hasMessageContaining("No contracts available");
+                .hasMessageContaining("No active contract");
+        verify(invoiceRepository, never()).save(any());
     }
 
     // ✅ updateInvoice
@@ -187,6 +303,55 @@ class InvoiceServiceTest {
         verify(invoiceRepository).save(any());
     }
 
+    @Test
+    void testUpdateInvoice_SubTotalChanged_ReplacesLines() {
+        invoice.setRequestedWater(300);
+        invoice.setRequestedWaterUnit(10);
+        invoice.setRequestedElectricity(400);
+        invoice.setRequestedElectricityUnit(50);
+        UpdateInvoiceRequest req = UpdateInvoiceRequest.builder().subTotal(6500).build();
+        List<InvoiceItemDto> lines = List.of(
+                InvoiceItemDto.builder().feeId(1L).feeName(FeeRateCache.RENT).quantity(1).unitFee(5800).totalFee(5800).build(),
+                InvoiceItemDto.builder().feeId(2L).feeName(FeeRateCache.WATER).quantity(10).unitFee(30).totalFee(300).build(),
+                InvoiceItemDto.builder().feeId(3L).feeName(FeeRateCache.ELECTRICITY).quantity(50).unitFee(8).totalFee(400).build());
+
+        when(invoiceRepository.findById(1L)).thenReturn(Optional.of(invoice));
+        when(invoiceRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        // ✅ ค่าเช่า = 6500 - น้ำ 300 - ไฟ 400
+        when(invoiceItemService.buildLines(5800, 10, 30, 300, 50, 8, 400)).thenReturn(lines);
+
+        InvoiceDto dto = invoiceService.updateInvoice(1L, req);
+
+        verify(invoiceItemService).replaceLines(1L, lines);
+        assertThat(invoice.getRequestedRent()).isEqualTo(5800);
+        assertThat(dto.getSubTotal()).isEqualTo(6500);
+        assertThat(dto.getNetAmount()).isEqualTo(6500);
+    }
+
+    @Test
+    void testUpdateInvoice_SubTotalUnchanged_KeepsLines() {
+        UpdateInvoiceRequest req = UpdateInvoiceRequest.builder().subTotal(6000).invoiceStatus(1).build();
+        when(invoiceRepository.findById(1L)).thenReturn(Optional.of(invoice));
+        when(invoiceRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        invoiceService.updateInvoice(1L, req);
+
+        verify(invoiceItemService, never()).replaceLines(anyLong(), anyList());
+    }
+
+    @Test
+    void testUpdateInvoice_SubTotalBelowUtilities_Throws() {
+        invoice.setRequestedWater(300);
+        invoice.setRequestedElectricity(800);
+        UpdateInvoiceRequest req = UpdateInvoiceRequest.builder().subTotal(1000).build();
+        when(invoiceRepository.findById(1L)).thenReturn(Optional.of(invoice));
+
+        assertThatThrownBy(() -> invoiceService.updateInvoice(1L, req))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(invoiceItemService, never()).replaceLines(anyLong(), anyList());
+        verify(invoiceRepository, never()).save(any());
+    }
+
     @Test
     void testUpdateInvoice_NotFound_Throws() {
         when(invoiceRepository.findById(99L)).thenReturn(Optional.empty());
@@ -202,6 +367,7 @@ class InvoiceServiceTest {
         when(invoiceRepository.existsById(1L)).thenReturn(true);
         invoiceService.deleteInvoice(1L);
         verify(invoiceRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(InvoiceChangedEvent.ofInvoices(1L));
     }
 
     @Test
@@ -209,44 +375,152 @@ class InvoiceServiceTest {
         when(invoiceRepository.existsById(99L)).thenReturn(false);
         invoiceService.deleteInvoice(99L);
         verify(invoiceRepository, never()).deleteById(any());
+        verifyNoInteractions(eventPublisher);
     }
 
-    // ✅ updateOverduePenalties
+    // ✅ applyOverduePenalties (set-based UPDATE)
     @Test
-    void testUpdateOverduePenalties_ApplyPenalty() {
-        Invoice inv = new Invoice();
-        inv.setId(5L);
-        inv.setInvoiceStatus(0);
-        inv.setPenaltyTotal(0);
-        inv.setSubTotal(1000); // ✅ fix
-        inv.setDueDate(LocalDateTime.now().minusDays(5));
-        inv.setRequestedRent(1000);
+    void testApplyOverduePenalties_ReturnsUpdatedCount() {
+        when(invoiceRepository.applyOverduePenalties(any(LocalDateTime.class))).thenReturn(3);
 
-        when(invoiceRepository.findAll()).thenReturn(List.of(inv));
+        int updated = invoiceService.applyOverduePenalties();
 
-        invoiceService.updateOverduePenalties();
+        assertThat(updated).isEqualTo(3);
+        verify(invoiceRepository).applyOverduePenalties(any(LocalDateTime.class));
+        verify(eventPublisher).publishEvent(InvoiceChangedEvent.allInvoices());
+        verify(invoiceRepository, never()).findAll();
+    }
 
-        assertThat(inv.getPenaltyTotal()).isEqualTo(100);
-        verify(invoiceRepository, atLeastOnce()).save(inv);
+    // ✅ getInvoicePage (keyset)
+    @Test
+    void testGetInvoicePage_HasMoreAndCursorRoundTrip() {
+        Invoice second = new Invoice();
+        second.setId(2L);
+        second.setContact(contract);
+        second.setCreateDate(invoice.getCreateDate().minusDays(1));
+        second.setDueDate(invoice.getDueDate());
+        second.setInvoiceStatus(0);
+        second.setSubTotal(6000);
+        second.setPenaltyTotal(0);
+        second.setNetAmount(6000);
+
+        when(invoiceRepository.findPageAfter(any(), any(), any(), any(), any(), any(), any(),
+                isNull(), isNull(), any(Pageable.class)))
+                .thenReturn(List.of(invoice, second));
+
+        InvoicePageDto first = invoiceService.getInvoicePage(InvoiceFilterRequest.builder().size(1).build());
+
+        assertThat(first.getItems()).hasSize(1);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(first.getNextCursor()).isNotBlank();
+
+        // ใช้ cursor ดึงหน้าถัดไป → ต้องส่ง (createDate, id) ของแถวสุดท้ายไปที่ repository
+        when(invoiceRepository.findPageAfter(any(), any(), any(), any(), any(), any(), any(),
+                eq(invoice.getCreateDate()), eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(second));
+
+        InvoicePageDto next = invoiceService.getInvoicePage(
+                InvoiceFilterRequest.builder().size(1).cursor(first.getNextCursor()).build());
+
+        assertThat(next.getItems()).extracting(InvoiceDto::getId).containsExactly(2L);
+        assertThat(next.isHasMore()).isFalse();
+        assertThat(next.getNextCursor()).isNull();
     }
 
-    // ✅ unimplemented methods
     @Test
-    void testUnimplementedMethods_ReturnEmptyOrThrow() {
-        assertThat(invoiceService.searchInvoices("test")).isEmpty();
-        assertThat(invoiceService.getInvoicesByContractId(1L)).isEmpty();
-        assertThat(invoiceService.getInvoicesByTenantId(1L)).isEmpty();
-        assertThat(invoiceService.getInvoicesByRoomId(1L)).isEmpty();
-        assertThat(invoiceService.getOverdueInvoices()).isEmpty();
-        assertThat(invoiceService.getUnpaidInvoices()).isEmpty();
+    void testGetInvoicePage_InvalidCursor_Throws() {
+        InvoiceFilterRequest filter = InvoiceFilterRequest.builder().cursor("!!not-base64!!").build();
+        assertThatThrownBy(() -> invoiceService.getInvoicePage(filter))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // ✅ search/filter → query ฝั่ง DB (DTO projection)
+    @Test
+    void testSearchInvoices_EscapesAndLowercasesPattern() {
+        InvoiceDto row = InvoiceDto.builder().id(1L).firstName("Somchai").build();
+        when(invoiceRepository.searchDtos(eq("%som!%chai%"), any(Pageable.class))).thenReturn(List.of(row));
+
+        List<InvoiceDto> result = invoiceService.searchInvoices("  SOM%chai ");
+
+        assertThat(result).containsExactly(row);
+        verify(invoiceRepository, never()).findAll();
+    }
+
+    @Test
+    void testSearchInvoices_BlankQuery_ReturnsEmptyWithoutQuery() {
+        assertThat(invoiceService.searchInvoices("   ")).isEmpty();
+        verify(invoiceRepository, never()).searchDtos(any(), any());
+    }
+
+    @Test
+    void testFilterMethods_DelegateToProjectionQueries() {
+        InvoiceDto row = InvoiceDto.builder().id(1L).build();
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 1, 31, 23, 59);
+
+        when(invoiceRepository.findDtosByContractId(1L)).thenReturn(List.of(row));
+        when(invoiceRepository.findDtosByRoomId(2L)).thenReturn(List.of(row));
+        when(invoiceRepository.findDtosByTenantId(3L)).thenReturn(List.of(row));
+        when(invoiceRepository.findDtosByStatus(0)).thenReturn(List.of(row));
+        when(invoiceRepository.findDtosByStatus(1)).thenReturn(List.of(row, row));
+        when(invoiceRepository.findOverdueDtos(any(LocalDateTime.class))).thenReturn(List.of(row));
+        when(invoiceRepository.findDtosByCreateDateBetween(start, end)).thenReturn(List.of(row));
+        when(invoiceRepository.findDtosByNetAmountBetween(1000, 5000)).thenReturn(List.of(row));
+
+        assertThat(invoiceService.getInvoicesByContractId(1L)).hasSize(1);
+        assertThat(invoiceService.getInvoicesByRoomId(2L)).hasSize(1);
+        assertThat(invoiceService.getInvoicesByTenantId(3L)).hasSize(1);
+        assertThat(invoiceService.getInvoicesByStatus(0)).hasSize(1);
+        assertThat(invoiceService.getUnpaidInvoices()).hasSize(1);
+        assertThat(invoiceService.getPaidInvoices()).hasSize(2);
+        assertThat(invoiceService.getOverdueInvoices()).hasSize(1);
+        assertThat(invoiceService.getInvoicesByDateRange(start, end)).hasSize(1);
+        assertThat(invoiceService.getInvoicesByNetAmountRange(1000, 5000)).hasSize(1);
         assertThat(invoiceService.getInvoicesByDateRange(null, null)).isEmpty();
 
-        assertThatThrownBy(() -> invoiceService.markAsPaid(1L))
-                .isInstanceOf(UnsupportedOperationException.class);
+        // ✅ ไม่ hydrate entity ทั้งตาราง
+        verify(invoiceRepository, never()).findAll();
+    }
+
+    // ✅ markAsPaid / cancelInvoice / addPenalty: UPDATE ตรงแถวเดียว ไม่ save ทั้ง entity
+    @Test
+    void testMarkAsPaid_UsesTargetedUpdate() {
+        when(invoiceRepository.markPaid(eq(1L), any(LocalDateTime.class), isNull())).thenReturn(1);
+        when(invoiceRepository.findById(1L)).thenReturn(Optional.of(invoice));
+
+        InvoiceDto result = invoiceService.markAsPaid(1L);
+
+        assertThat(result.getId()).isEqualTo(1L);
+        verify(invoiceRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(InvoiceChangedEvent.ofInvoices(1L));
+    }
+
+    @Test
+    void testCancelInvoice_NotUnpaid_Conflict() {
+        when(invoiceRepository.cancel(1L)).thenReturn(0);
+        when(invoiceRepository.existsById(1L)).thenReturn(true);
+
         assertThatThrownBy(() -> invoiceService.cancelInvoice(1L))
-                .isInstanceOf(UnsupportedOperationException.class);
-        assertThatThrownBy(() -> invoiceService.addPenalty(1L, 100))
-                .isInstanceOf(UnsupportedOperationException.class);
+                .isInstanceOf(ResponseStatusException.class)
+                .satisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void testAddPenalty_NotFound_Throws() {
+        when(invoiceRepository.addPenalty(eq(99L), eq(100), any(LocalDateTime.class))).thenReturn(0);
+        when(invoiceRepository.existsById(99L)).thenReturn(false);
+
+        assertThatThrownBy(() -> invoiceService.addPenalty(99L, 100))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Invoice not found");
+    }
+
+    @Test
+    void testAddPenalty_NonPositiveAmount_Throws() {
+        assertThatThrownBy(() -> invoiceService.addPenalty(1L, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(invoiceRepository, never()).addPenalty(any(), any(), any());
     }
 
     // ✅ convertToDto tests
@@ -289,4 +563,18 @@ class InvoiceServiceTest {
         assertThat(result).isPresent();
         assertThat(result.get().getFirstName()).isEqualTo("N/A");
     }
+
+    // ✅ ไม่มีรายการและไม่มีค่าที่บันทึกไว้ → 0 (ไม่ประมาณจาก subTotal)
+    @Test
+    void testConvertToDto_NoLines_DoesNotEstimateFromSubtotal() {
+        when(invoiceRepository.findById(1L)).thenReturn(Optional.of(invoice));
+
+        InvoiceDto dto = invoiceService.getInvoiceById(1L).orElseThrow();
+
+        assertThat(dto.getRent()).isEqualTo(5000);
+        assertThat(dto.getWater()).isZero();
+        assertThat(dto.getWaterUnit()).isZero();
+        assertThat(dto.getElectricity()).isZero();
+        assertThat(dto.getElectricityUnit()).isZero();
+    }
 }
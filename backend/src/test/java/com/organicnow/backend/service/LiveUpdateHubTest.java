@@ -0,0 +1,118 @@
+package com.organicnow.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveUpdateHubTest {
+
+    /** executor ที่ยังไม่รันงาน → จำลอง client ช้า (ไม่มีการ drain) */
+    static class HeldExecutor extends AbstractExecutorService {
+        final List<Runnable> tasks = new ArrayList<>();
+        boolean full; // จำลอง queue ของ pool เต็ม
+        public void execute(Runnable command) {
+            if (full) throw new RejectedExecutionException("queue full");
+            tasks.add(command);
+        }
+        public void shutdown() { }
+        public List<Runnable> shutdownNow() { return tasks; }
+        public boolean isShutdown() { return false; }
+        public boolean isTerminated() { return false; }
+        public boolean awaitTermination(long timeout, TimeUnit unit) { return true; }
+    }
+
+    private SimpleMeterRegistry registry;
+    private HeldExecutor executor;
+    private LiveUpdateHub hub;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        executor = new HeldExecutor();
+        hub = new LiveUpdateHub(registry, 3, Duration.ofMinutes(1), Duration.ofSeconds(10), executor);
+    }
+
+    @Test
+    void publish_withoutSubscribers_shouldDoNothing() {
+        hub.publish("unread-count", 1);
+
+        assertFalse(hub.hasSubscribers());
+        assertTrue(executor.tasks.isEmpty());
+    }
+
+    @Test
+    void subscribe_shouldQueueInitialEvents() {
+        hub.subscribe(new LiveUpdateHub.LiveEvent("unread-count", 2));
+
+        assertEquals(1, hub.subscriberCount());
+        assertEquals(1, hub.bufferedEvents());
+        assertEquals(1, registry.get("live.sse.subscribers").gauge().value());
+    }
+
+    // ✅ client ช้า: buffer ไม่เกินขนาดที่กำหนด ทิ้งของเก่าแล้วนับ dropped
+    @Test
+    void slowSubscriber_shouldKeepBufferBoundedAndCountDrops() {
+        hub.subscribe();
+
+        for (int i = 0; i < 10; i++) {
+            hub.publish("room-status", i);
+        }
+
+        assertEquals(3, hub.bufferedEvents());
+        assertEquals(7, registry.get("live.sse.dropped").counter().count());
+        assertEquals(1, executor.tasks.size()); // drain task เดียวต่อ subscriber
+    }
+
+    @Test
+    void publish_shouldFanOutToEverySubscriber() {
+        hub.subscribe();
+        hub.subscribe();
+
+        hub.publish("notification", "x");
+
+        assertEquals(2, hub.subscriberCount());
+        assertEquals(2, hub.bufferedEvents());
+    }
+
+    // ✅ heartbeat ผ่าน drain task เดิม: subscriber ที่มี task รออยู่แล้วไม่ถูกเพิ่มงานซ้ำทุกรอบ
+    @Test
+    void heartbeat_shouldNotQueueMoreThanOneTaskPerSubscriber() {
+        hub.subscribe();
+        hub.subscribe(new LiveUpdateHub.LiveEvent("unread-count", 1));
+
+        hub.heartbeat();
+        hub.heartbeat();
+        hub.heartbeat();
+
+        assertEquals(2, executor.tasks.size());
+    }
+
+    // ✅ queue ของ pool เต็ม: publish ไม่ throw, event ยังอยู่ใน buffer แล้วส่งรอบถัดไป
+    @Test
+    void saturatedPool_shouldKeepEventsBufferedAndRetryLater() {
+        hub.subscribe();
+        executor.full = true;
+
+        hub.publish("room-status", 1);
+        hub.heartbeat();
+
+        assertEquals(1, hub.bufferedEvents());
+        assertEquals(2, registry.get("live.sse.rejected").counter().count());
+        assertTrue(executor.tasks.isEmpty());
+
+        executor.full = false;
+        hub.publish("room-status", 2);
+
+        assertEquals(2, hub.bufferedEvents());
+        assertEquals(1, executor.tasks.size());
+    }
+}
@@ -0,0 +1,104 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.NotificationDto;
+import com.organicnow.backend.dto.RoomStatusDto;
+import com.organicnow.backend.event.ContractChangedEvent;
+import com.organicnow.backend.event.MaintainChangedEvent;
+import com.organicnow.backend.event.NotificationChangedEvent;
+import com.organicnow.backend.repository.NotificationRepository;
+import com.organicnow.backend.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class LiveUpdateServiceTest {
+
+    @Mock
+    private LiveUpdateHub hub;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @InjectMocks
+    private LiveUpdateService liveUpdateService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void subscribe_shouldSendCurrentUnreadCount() {
+        when(notificationRepository.countUnreadNotifications()).thenReturn(4L);
+        when(roomRepository.findRoomStatuses()).thenReturn(List.of());
+
+        liveUpdateService.subscribe();
+
+        verify(hub).subscribe(new LiveUpdateHub.LiveEvent(LiveUpdateService.UNREAD_COUNT, Map.of("count", 4L)));
+    }
+
+    @Test
+    void onNotificationChanged_shouldPushNotificationAndCountOnce() {
+        NotificationDto dto = NotificationDto.builder().id(1L).title("Due").build();
+        when(hub.hasSubscribers()).thenReturn(true);
+        when(notificationRepository.countUnreadNotifications()).thenReturn(5L);
+
+        liveUpdateService.onNotificationChanged(NotificationChangedEvent.created(dto));
+
+        verify(hub).publish(LiveUpdateService.NOTIFICATION, dto);
+        verify(hub).publish(LiveUpdateService.UNREAD_COUNT, Map.of("count", 5L));
+        verify(notificationRepository, times(1)).countUnreadNotifications();
+    }
+
+    @Test
+    void onNotificationChanged_withoutSubscribers_shouldNotQuery() {
+        when(hub.hasSubscribers()).thenReturn(false);
+
+        liveUpdateService.onNotificationChanged(NotificationChangedEvent.updated());
+
+        verifyNoInteractions(notificationRepository);
+        verify(hub, never()).publish(anyString(), any());
+    }
+
+    // ✅ ส่งเฉพาะห้องที่สถานะเปลี่ยนจาก snapshot ตอน subscribe
+    @Test
+    void roomChanges_shouldPushOnlyTransitions() {
+        RoomStatusDto r1 = new RoomStatusDto(1L, "101", RoomStatusDto.AVAILABLE);
+        RoomStatusDto r2 = new RoomStatusDto(2L, "102", RoomStatusDto.AVAILABLE);
+        RoomStatusDto r2Occupied = new RoomStatusDto(2L, "102", RoomStatusDto.UNAVAILABLE);
+        when(roomRepository.findRoomStatuses())
+                .thenReturn(List.of(r1, r2))
+                .thenReturn(List.of(r1, r2Occupied))
+                .thenReturn(List.of(r1, r2Occupied));
+        when(notificationRepository.countUnreadNotifications()).thenReturn(0L);
+        when(hub.hasSubscribers()).thenReturn(true);
+
+        liveUpdateService.subscribe();
+        liveUpdateService.onContractChanged(ContractChangedEvent.allRooms());
+        liveUpdateService.onMaintainChanged(new MaintainChangedEvent(9L)); // ไม่มีอะไรเปลี่ยน
+
+        verify(hub, times(1)).publish(LiveUpdateService.ROOM_STATUS, List.of(r2Occupied));
+        verify(hub, times(1)).publish(eq(LiveUpdateService.ROOM_STATUS), any());
+    }
+
+    @Test
+    void roomChanges_withoutSubscribers_shouldNotQuery() {
+        when(hub.hasSubscribers()).thenReturn(false);
+
+        liveUpdateService.onContractChanged(ContractChangedEvent.allRooms());
+
+        verifyNoInteractions(roomRepository);
+    }
+}
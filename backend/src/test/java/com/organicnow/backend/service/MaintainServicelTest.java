@@ -3,6 +3,7 @@ package com.organicnow.backend.service;
 import com.organicnow.backend.dto.CreateMaintainRequest;
 import com.organicnow.backend.dto.MaintainDto;
 import com.organicnow.backend.dto.UpdateMaintainRequest;
+import com.organicnow.backend.event.MaintainChangedEvent;
 import com.organicnow.backend.model.Maintain;
 import com.organicnow.backend.model.Room;
 import com.organicnow.backend.model.RoomAsset;
@@ -15,6 +16,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -38,6 +40,9 @@ class MaintainServicelTest {
     @Mock
     private RoomAssetRepository roomAssetRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private MaintainServiceImpl maintainService;
 
@@ -301,6 +306,7 @@ class MaintainServicelTest {
         // Assert
         verify(maintainRepository, times(1)).existsById(1L);
         verify(maintainRepository, times(1)).deleteById(1L);
+        verify(eventPublisher).publishEvent(new MaintainChangedEvent(1L));
     }
 
     @Test
@@ -314,5 +320,6 @@ class MaintainServicelTest {
         // Assert
         verify(maintainRepository, times(1)).existsById(999L);
         verify(maintainRepository, never()).deleteById(anyLong());
+        verifyNoInteractions(eventPublisher);
     }
 }
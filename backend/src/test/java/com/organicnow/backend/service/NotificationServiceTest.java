@@ -1,6 +1,7 @@
 package com.organicnow.backend.service;
 
 import com.organicnow.backend.dto.NotificationDto;
+import com.organicnow.backend.event.NotificationChangedEvent;
 import com.organicnow.backend.model.MaintenanceSchedule;
 import com.organicnow.backend.model.Notification;
 import com.organicnow.backend.repository.MaintenanceScheduleRepository;
@@ -11,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -33,6 +35,9 @@ class NotificationServiceTest {
     @Mock
     private MaintenanceScheduleRepository maintenanceScheduleRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private NotificationServiceImpl notificationService;
 
@@ -70,6 +75,7 @@ class NotificationServiceTest {
         assertThat(result.getTitle()).isEqualTo("Test");
         assertThat(result.getMaintenanceScheduleId()).isEqualTo(1L);
         verify(notificationRepository, times(1)).save(any(Notification.class));
+        verify(eventPublisher).publishEvent(NotificationChangedEvent.created(result));
     }
 
     // ---------------------------------------------------------
@@ -131,6 +137,7 @@ class NotificationServiceTest {
 
         assertThat(dto.getIsRead()).isTrue();
         verify(notificationRepository).save(any(Notification.class));
+        verify(eventPublisher).publishEvent(NotificationChangedEvent.updated());
     }
 
     // ---------------------------------------------------------
@@ -148,6 +155,7 @@ class NotificationServiceTest {
         verify(notificationRepository).saveAll(anyList());
         assertThat(n1.getIsRead()).isTrue();
         assertThat(n2.getIsRead()).isTrue();
+        verify(eventPublisher).publishEvent(NotificationChangedEvent.updated());
     }
 
     // ---------------------------------------------------------
@@ -160,6 +168,7 @@ class NotificationServiceTest {
         notificationService.deleteNotification(10L);
 
         verify(notificationRepository).deleteById(10L);
+        verify(eventPublisher).publishEvent(NotificationChangedEvent.updated());
     }
 
     @Test
@@ -188,6 +197,7 @@ class NotificationServiceTest {
         when(notificationRepository.findByMaintenanceScheduleId(1L)).thenReturn(List.of());
         notificationService.deleteNotificationsByMaintenanceSchedule(1L);
         verify(notificationRepository, never()).deleteAll(anyList());
+        verifyNoInteractions(eventPublisher);
     }
 
     // ---------------------------------------------------------
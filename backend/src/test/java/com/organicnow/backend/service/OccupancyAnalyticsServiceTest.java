@@ -0,0 +1,75 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.OccupancyReportDto;
+import com.organicnow.backend.event.ContractChangedEvent;
+import com.organicnow.backend.repository.OccupancyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OccupancyAnalyticsServiceTest {
+
+    @Mock
+    private OccupancyRepository occupancyRepository;
+
+    private OccupancyAnalyticsService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        service = new OccupancyAnalyticsService(occupancyRepository, new SimpleMeterRegistry(), 2, Duration.ofHours(1));
+        when(occupancyRepository.findRooms()).thenReturn(List.of(new OccupancyRepository.RoomRow(1L, "101", 1)));
+        doAnswer(inv -> {
+            OccupancyRepository.EndpointHandler handler = inv.getArgument(2);
+            handler.accept(1L, inv.getArgument(0), 1);
+            return null;
+        }).when(occupancyRepository).streamEndpoints(any(), any(), any());
+    }
+
+    @Test
+    void getOccupancy_shouldParseRangeAndGranularity() {
+        OccupancyReportDto report = service.getOccupancy("2024-01-01", "2024-12-31", "month");
+
+        assertEquals(LocalDate.of(2024, 1, 1), report.getFrom());
+        assertEquals("MONTH", report.getGranularity());
+        assertEquals(12, report.getCurve().size());
+        assertEquals(1.0, report.getCurve().get(1).getOccupancyRate());
+        verify(occupancyRepository).streamEndpoints(eq(LocalDate.of(2024, 1, 1)), eq(LocalDate.of(2024, 12, 31)), any());
+    }
+
+    @Test
+    void getOccupancy_invalidInput_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> service.getOccupancy("2024-12-31", "2024-01-01", null));
+        assertThrows(IllegalArgumentException.class, () -> service.getOccupancy("2024/01/01", null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.getOccupancy(null, null, "HOUR"));
+        assertThrows(IllegalArgumentException.class, () -> service.getOccupancy("1900-01-01", "2024-01-01", null));
+        verifyNoInteractions(occupancyRepository);
+    }
+
+    // ✅ ช่วงเดิมซ้ำ → ไม่ query ใหม่ จนกว่า contract จะเปลี่ยน
+    @Test
+    void getOccupancy_shouldCachePerRangeUntilContractChanges() {
+        OccupancyReportDto first = service.getOccupancy("2024-01-01", "2024-03-31", "WEEK");
+        OccupancyReportDto second = service.getOccupancy("2024-01-01", "2024-03-31", "WEEK");
+        assertSame(first, second);
+        verify(occupancyRepository, times(1)).streamEndpoints(any(), any(), any());
+
+        service.getOccupancy("2024-01-01", "2024-03-31", "DAY"); // granularity ต่าง = key ต่าง
+        verify(occupancyRepository, times(2)).streamEndpoints(any(), any(), any());
+
+        service.onContractChanged(ContractChangedEvent.allRooms());
+        assertNotSame(first, service.getOccupancy("2024-01-01", "2024-03-31", "WEEK"));
+        verify(occupancyRepository, times(3)).streamEndpoints(any(), any(), any());
+    }
+}
@@ -0,0 +1,102 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.FloorTurnoverDto;
+import com.organicnow.backend.dto.OccupancyReportDto;
+import com.organicnow.backend.dto.RoomVacancyDto;
+import com.organicnow.backend.repository.OccupancyRepository.RoomRow;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OccupancySweepTest {
+
+    private static final LocalDate FROM = LocalDate.of(2025, 1, 1);  // วันพุธ
+    private static final LocalDate TO = LocalDate.of(2025, 1, 10);
+
+    private static final List<RoomRow> ROOMS = List.of(
+            new RoomRow(1L, "101", 1),
+            new RoomRow(2L, "102", 1),
+            new RoomRow(3L, "201", 2));
+
+    // จุดปลายตามลำดับที่ DB ส่งมา (วัน, +1 ก่อน -1)
+    //  ห้อง 1: สัญญาต่อกันพอดี 01-04 → มีผู้เช่าตลอดช่วง
+    //  ห้อง 2: 01-03..01-05 แล้ว 01-09..(ไม่มีวันสิ้นสุด)
+    //  ห้อง 3: ไม่มีสัญญา
+    private static OccupancyReportDto sweep(OccupancyAnalyticsService.Granularity granularity) {
+        OccupancySweep sweep = new OccupancySweep(FROM, TO, granularity, ROOMS);
+        sweep.accept(1L, LocalDate.of(2025, 1, 1), 1);
+        sweep.accept(2L, LocalDate.of(2025, 1, 3), 1);
+        sweep.accept(1L, LocalDate.of(2025, 1, 4), 1);
+        sweep.accept(1L, LocalDate.of(2025, 1, 4), -1);
+        sweep.accept(2L, LocalDate.of(2025, 1, 6), -1);
+        sweep.accept(2L, LocalDate.of(2025, 1, 9), 1);
+        return sweep.finish();
+    }
+
+    @Test
+    void dailyCurve_shouldCountOccupiedRoomsPerDay() {
+        OccupancyReportDto report = sweep(OccupancyAnalyticsService.Granularity.DAY);
+
+        assertEquals(3, report.getTotalRooms());
+        assertEquals(10, report.getCurve().size());
+        long[] expected = {1, 1, 2, 2, 2, 1, 1, 1, 2, 2};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], report.getCurve().get(i).getOccupiedRoomDays(), "day " + (i + 1));
+            assertEquals(3, report.getCurve().get(i).getRoomDays());
+        }
+        assertEquals("2025-01-01", report.getCurve().get(0).getPeriod());
+        assertEquals(0.6667, report.getCurve().get(2).getOccupancyRate());
+    }
+
+    // ✅ bucket รายสัปดาห์เริ่มวันจันทร์ ช่วงแรกถูกตัดตาม from
+    @Test
+    void weeklyCurve_shouldSplitOnMondays() {
+        OccupancyReportDto report = sweep(OccupancyAnalyticsService.Granularity.WEEK);
+
+        assertEquals(2, report.getCurve().size());
+        assertEquals("2025-01-01", report.getCurve().get(0).getPeriod());
+        assertEquals(5, report.getCurve().get(0).getDays());
+        assertEquals(8, report.getCurve().get(0).getOccupiedRoomDays());
+        assertEquals("2025-01-06", report.getCurve().get(1).getPeriod());
+        assertEquals(7, report.getCurve().get(1).getOccupiedRoomDays());
+        assertEquals(0.4667, report.getCurve().get(1).getOccupancyRate());
+    }
+
+    @Test
+    void vacancies_shouldTrackGapsPerRoom() {
+        List<RoomVacancyDto> vacancies = sweep(OccupancyAnalyticsService.Granularity.MONTH).getVacancies();
+
+        assertEquals(0, vacancies.get(0).getVacantDays());          // สัญญาต่อกันพอดี ไม่นับว่าว่าง
+        assertEquals(0, vacancies.get(0).getVacancyPeriods());
+        assertEquals(5, vacancies.get(1).getVacantDays());          // 01-01..02 + 01-06..08
+        assertEquals(2, vacancies.get(1).getVacancyPeriods());
+        assertEquals(3, vacancies.get(1).getLongestVacancyDays());
+        assertEquals(10, vacancies.get(2).getVacantDays());
+        assertEquals(10, vacancies.get(2).getLongestVacancyDays());
+    }
+
+    @Test
+    void turnover_shouldAggregatePerFloor() {
+        List<FloorTurnoverDto> turnover = sweep(OccupancyAnalyticsService.Granularity.MONTH).getTurnover();
+
+        assertEquals(2, turnover.size());
+        FloorTurnoverDto first = turnover.get(0);
+        assertEquals(1, first.getFloor());
+        assertEquals(2, first.getRooms());
+        assertEquals(2, first.getMoveIns());   // ห้อง 1 มีผู้เช่าตั้งแต่วันแรก ไม่นับ
+        assertEquals(1, first.getMoveOuts());
+        assertEquals(0.5, first.getTurnoverRate());
+        assertEquals(0, turnover.get(1).getMoveOuts());
+    }
+
+    @Test
+    void unsortedEndpoints_shouldFail() {
+        OccupancySweep sweep = new OccupancySweep(FROM, TO, OccupancyAnalyticsService.Granularity.DAY, ROOMS);
+        sweep.accept(1L, LocalDate.of(2025, 1, 5), 1);
+
+        assertThrows(IllegalStateException.class, () -> sweep.accept(2L, LocalDate.of(2025, 1, 2), 1));
+    }
+}
@@ -0,0 +1,114 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.RoomAssetBulkResultDto;
+import com.organicnow.backend.model.Room;
+import com.organicnow.backend.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RoomAssetAssignmentServiceTest {
+
+    @Mock private RoomRepository roomRepository;
+    @Mock private RoomAssetRepository roomAssetRepository;
+    @Mock private RoomAssetBatchRepository roomAssetBatchRepository;
+    @Mock private AssetRepository assetRepository;
+    @Mock private MaintainRepository maintainRepository;
+
+    @InjectMocks private RoomAssetAssignmentService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private static Room room(long id) {
+        return Room.builder().id(id).roomNumber("R" + id).roomFloor(1).build();
+    }
+
+    private static Map<Long, List<Long>> request(Object... pairs) {
+        Map<Long, List<Long>> map = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            @SuppressWarnings("unchecked")
+            List<Long> ids = (List<Long>) pairs[i + 1];
+            map.put((Long) pairs[i], ids);
+        }
+        return map;
+    }
+
+    // ✅ diff ใน memory: คงของเดิม, ลบที่ไม่ต้องการ, เพิ่มใหม่ทีเดียว (ไม่ save/delete ทีละแถว)
+    @Test
+    void assign_shouldDiffAgainstCurrentRowsAndApplyInBatch() {
+        when(roomRepository.findAllById(any())).thenReturn(List.of(room(1L), room(2L)));
+        // room 1 มี asset 10 (คงไว้), 11 (เอาออก); room 2 มี asset 20 (เอาออก)
+        when(roomAssetRepository.findAssignmentsByRoomIds(any())).thenReturn(List.of(
+                new Object[] { 100L, 1L, 10L },
+                new Object[] { 101L, 1L, 11L },
+                new Object[] { 200L, 2L, 20L }));
+        when(roomAssetBatchRepository.claimAvailable(any())).thenReturn(List.of(12L, 11L));
+        when(roomAssetBatchRepository.insertAll(any(), any())).thenAnswer(inv -> inv.<Long[]>getArgument(0).length);
+
+        // asset 11 ย้ายจาก room 1 → room 2 ภายใน request เดียวกัน
+        RoomAssetBulkResultDto result = service.assign(request(1L, List.of(10L, 12L), 2L, List.of(11L)));
+
+        assertThat(result.getRooms()).isEqualTo(2);
+        assertThat(result.getUnchanged()).isEqualTo(1);
+        assertThat(result.getRemoved()).isEqualTo(2);
+        assertThat(result.getAdded()).isEqualTo(2);
+        assertThat(result.getRejectedAssetIds()).isEmpty();
+
+        var order = inOrder(maintainRepository, roomAssetRepository, assetRepository, roomAssetBatchRepository);
+        order.verify(maintainRepository).unlinkRoomAssets(List.of(101L, 200L));
+        order.verify(roomAssetRepository).deleteAllByIdInBatch(List.of(101L, 200L));
+        order.verify(assetRepository).updateStatusByIds(Set.of(11L, 20L), "available");
+        order.verify(roomAssetBatchRepository).claimAvailable(Set.of(12L, 11L));
+
+        ArgumentCaptor<Long[]> rooms = ArgumentCaptor.forClass(Long[].class);
+        ArgumentCaptor<Long[]> assets = ArgumentCaptor.forClass(Long[].class);
+        verify(roomAssetBatchRepository).insertAll(rooms.capture(), assets.capture());
+        assertThat(rooms.getValue()).containsExactly(1L, 2L);
+        assertThat(assets.getValue()).containsExactly(12L, 11L);
+        verify(roomAssetRepository, never()).save(any());
+        verify(assetRepository, never()).save(any());
+    }
+
+    // ✅ asset ที่ถูกผูกไปแล้ว (เช่น request อื่นพร้อมกัน) → rejected ห้องอื่นยังทำต่อ
+    @Test
+    void assign_shouldRejectAssetsThatCouldNotBeClaimed() {
+        when(roomRepository.findAllById(any())).thenReturn(List.of(room(1L)));
+        when(roomAssetRepository.findAssignmentsByRoomIds(any())).thenReturn(List.of());
+        when(roomAssetBatchRepository.claimAvailable(any())).thenReturn(List.of(30L));
+        when(roomAssetBatchRepository.insertAll(any(), any())).thenReturn(1);
+
+        RoomAssetBulkResultDto result = service.assign(request(1L, List.of(30L, 31L)));
+
+        assertThat(result.getAdded()).isEqualTo(1);
+        assertThat(result.getRejectedAssetIds()).containsExactly(31L);
+        verify(roomAssetRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void assign_invalidRequest_shouldThrow() {
+        assertThatThrownBy(() -> service.assign(Map.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.assign(request(1L, List.of(5L), 2L, List.of(5L))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("more than one room");
+
+        when(roomRepository.findAllById(any())).thenReturn(List.of(room(1L)));
+        assertThatThrownBy(() -> service.assign(request(1L, List.of(), 9L, List.of())))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("9");
+        verifyNoInteractions(roomAssetBatchRepository);
+    }
+}
@@ -0,0 +1,148 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.event.ContractChangedEvent;
+import com.organicnow.backend.model.Room;
+import com.organicnow.backend.repository.ContractRepository;
+import com.organicnow.backend.repository.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class RoomAvailabilityIndexTest {
+
+    @Mock
+    private RoomRepository roomRepository;
+
+    @Mock
+    private ContractRepository contractRepository;
+
+    @InjectMocks
+    private RoomAvailabilityIndex index;
+
+    private static final LocalDate BASE = LocalDate.now().plusDays(10);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private static long day(int offset) {
+        return BASE.plusDays(offset).toEpochDay();
+    }
+
+    private static Object[] row(long roomId, int startOffset, Integer endOffset) {
+        return new Object[] {
+                roomId,
+                BASE.plusDays(startOffset).atTime(12, 0),
+                endOffset != null ? BASE.plusDays(endOffset).atStartOfDay() : null
+        };
+    }
+
+    // ✅ ช่วงที่ทับ/ติดกัน merge เป็นช่วงเดียว
+    @Test
+    void toSlot_shouldMergeOverlappingAndAdjacentIntervals() {
+        RoomAvailabilityIndex.RoomSlot slot = RoomAvailabilityIndex.toSlot(1L, "101", 1, List.of(
+                new long[] { day(20), day(30) },
+                new long[] { day(0), day(9) },
+                new long[] { day(10), day(12) },
+                new long[] { day(5), day(7) }));
+
+        assertArrayEquals(new long[] { day(0), day(20) }, slot.starts());
+        assertArrayEquals(new long[] { day(12), day(30) }, slot.ends());
+    }
+
+    @Test
+    void isFree_shouldDetectOverlapAtBoundaries() {
+        RoomAvailabilityIndex.RoomSlot slot = RoomAvailabilityIndex.toSlot(1L, "101", 1, List.of(
+                new long[] { day(10), day(20) }));
+
+        assertTrue(slot.isFree(day(0), day(9)));
+        assertFalse(slot.isFree(day(0), day(10)));
+        assertFalse(slot.isFree(day(15), day(16)));
+        assertFalse(slot.isFree(day(20), day(25)));
+        assertTrue(slot.isFree(day(21), day(40)));
+    }
+
+    // ✅ วันว่างถัดไปต้องยาวพอสำหรับช่วงที่ค้น (ข้ามช่องว่างที่สั้นเกินไป)
+    @Test
+    void nextFreeFrom_shouldSkipGapsThatAreTooShort() {
+        RoomAvailabilityIndex.RoomSlot slot = RoomAvailabilityIndex.toSlot(1L, "101", 1, List.of(
+                new long[] { day(0), day(9) },
+                new long[] { day(13), day(19) }));   // ช่องว่าง 3 วัน (10..12)
+
+        assertEquals(day(10), slot.nextFreeFrom(day(5), 3));
+        assertEquals(day(20), slot.nextFreeFrom(day(5), 4));
+
+        RoomAvailabilityIndex.RoomSlot openEnded = RoomAvailabilityIndex.toSlot(2L, "102", 1, List.of(
+                new long[] { day(0), RoomAvailabilityIndex.OPEN_END }));
+        assertNull(openEnded.nextFreeFrom(day(5), 1));
+    }
+
+    // ✅ contract ของห้องเดียวเปลี่ยน → โหลดใหม่เฉพาะห้องนั้น
+    @Test
+    void onContractChanged_shouldReloadOnlyAffectedRooms() {
+        when(roomRepository.findAll()).thenReturn(new ArrayList<>(List.of(
+                Room.builder().id(2L).roomNumber("201").roomFloor(2).build(),
+                Room.builder().id(1L).roomNumber("101").roomFloor(1).build())));
+        List<Object[]> initial = new ArrayList<>();
+        initial.add(row(1L, 0, 30));
+        when(contractRepository.findBlockingIntervals(any())).thenReturn(initial);
+        index.rebuild();
+
+        assertEquals(List.of(1L, 2L), index.rooms().stream().map(RoomAvailabilityIndex.RoomSlot::roomId).toList());
+        assertTrue(index.rooms().get(1).isFree(day(0), day(30)));
+
+        List<Object[]> room2 = new ArrayList<>();
+        room2.add(row(2L, 5, null));
+        when(contractRepository.findBlockingIntervalsForRooms(anyCollection(), any())).thenReturn(room2);
+        index.onContractChanged(ContractChangedEvent.ofRooms(2L));
+
+        assertFalse(index.rooms().get(1).isFree(day(100), day(101)));
+        assertFalse(index.rooms().get(0).isFree(day(0), day(1)));
+        verify(roomRepository, times(1)).findAll();
+        verify(contractRepository, times(1)).findBlockingIntervals(any());
+    }
+
+    // ✅ ห้องถูกแก้ชั้น/เลขห้อง → โหลดใหม่ทั้งหมด (ลำดับ/ชื่อห้องใน index ต้องตาม)
+    @Test
+    void onContractChanged_roomRenamed_shouldRebuild() {
+        when(roomRepository.findAll()).thenReturn(new ArrayList<>(List.of(
+                Room.builder().id(1L).roomNumber("101").roomFloor(1).build(),
+                Room.builder().id(2L).roomNumber("201").roomFloor(2).build())));
+        when(contractRepository.findBlockingIntervals(any())).thenReturn(List.of());
+        index.rebuild();
+
+        Room renamed = Room.builder().id(1L).roomNumber("301").roomFloor(3).build();
+        when(roomRepository.findAllById(anyCollection())).thenReturn(List.of(renamed));
+        when(roomRepository.findAll()).thenReturn(new ArrayList<>(List.of(
+                renamed, Room.builder().id(2L).roomNumber("201").roomFloor(2).build())));
+        index.onContractChanged(ContractChangedEvent.ofRooms(1L));
+
+        assertEquals(List.of(2L, 1L), index.rooms().stream().map(RoomAvailabilityIndex.RoomSlot::roomId).toList());
+        assertEquals("301", index.rooms().get(1).roomNumber());
+        verify(contractRepository, never()).findBlockingIntervalsForRooms(anyCollection(), any());
+    }
+
+    @Test
+    void onContractChanged_allRooms_shouldRebuild() {
+        when(roomRepository.findAll()).thenReturn(List.of());
+        when(contractRepository.findBlockingIntervals(any())).thenReturn(List.of());
+        index.rebuild();
+
+        index.onContractChanged(ContractChangedEvent.allRooms());
+
+        verify(roomRepository, times(2)).findAll();
+        verify(contractRepository, never()).findBlockingIntervalsForRooms(anyCollection(), any());
+    }
+}
@@ -0,0 +1,80 @@
+package com.organicnow.backend.service;
+
+import com.organicnow.backend.dto.AvailabilitySearchResultDto;
+import com.organicnow.backend.model.ContractType;
+import com.organicnow.backend.model.PackagePlan;
+import com.organicnow.backend.repository.PackagePlanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RoomAvailabilityServiceTest {
+
+    @Mock
+    private RoomAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private PackagePlanRepository packagePlanRepository;
+
+    @InjectMocks
+    private RoomAvailabilityService service;
+
+    private final LocalDate start = LocalDate.now().plusDays(30);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void search_shouldSplitFreeAndOccupiedRoomsWithNextFreeDate() {
+        long s = start.toEpochDay();
+        when(availabilityIndex.rooms()).thenReturn(List.of(
+                RoomAvailabilityIndex.toSlot(1L, "101", 1, List.of()),
+                RoomAvailabilityIndex.toSlot(2L, "102", 1, List.<long[]>of(new long[] { s - 10, s + 5 })),
+                RoomAvailabilityIndex.toSlot(3L, "201", 2, List.of())));
+
+        AvailabilitySearchResultDto result = service.search(start.toString(), start.plusDays(9).toString(), 1, null);
+
+        assertEquals(1, result.getAvailableRooms().size());
+        assertEquals("101", result.getAvailableRooms().get(0).getRoomNumber());
+        assertEquals(1, result.getOccupiedRooms().size());
+        assertEquals(start.plusDays(6), result.getOccupiedRooms().get(0).getNextAvailableFrom());
+    }
+
+    // ✅ ไม่ส่ง end → ใช้ระยะสัญญาของ package
+    @Test
+    void search_withPackage_shouldDeriveEndFromDuration() {
+        PackagePlan plan = PackagePlan.builder().id(3L)
+                .contractType(ContractType.builder().id(1L).name("6 เดือน").duration(6).build())
+                .build();
+        when(packagePlanRepository.findById(3L)).thenReturn(Optional.of(plan));
+        when(availabilityIndex.rooms()).thenReturn(List.of());
+
+        AvailabilitySearchResultDto result = service.search(start.toString(), null, null, 3L);
+
+        assertEquals(start.plusMonths(6).minusDays(1), result.getEnd());
+    }
+
+    @Test
+    void search_invalidInput_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> service.search(null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.search(start.toString(), null, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.search(start.toString(), start.minusDays(1).toString(), null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.search(LocalDate.now().minusDays(1).toString(), start.toString(), null, null));
+        when(packagePlanRepository.findById(99L)).thenReturn(Optional.empty());
+        assertThrows(IllegalArgumentException.class, () -> service.search(start.toString(), null, null, 99L));
+        verifyNoInteractions(availabilityIndex);
+    }
+}
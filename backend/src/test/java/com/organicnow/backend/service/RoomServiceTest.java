@@ -1,11 +1,15 @@
 package com.organicnow.backend.service;
 
 import com.organicnow.backend.dto.*;
+import com.organicnow.backend.event.ContractChangedEvent;
 import com.organicnow.backend.model.*;
 import com.organicnow.backend.repository.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.*;
 
@@ -18,6 +22,7 @@ class RoomServiceTest {
     @Mock private AssetRepository assetRepository;
     @Mock private MaintainRepository maintainRepository;
     @Mock private RoomAssetRepository roomAssetRepository;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks private RoomService roomService;
 
@@ -40,19 +45,72 @@ class RoomServiceTest {
         rows.add(new Object[]{1L, 10L, "Bed", "Furniture", 1, "A101"});
         when(roomAssetRepository.findAssetsByRoomIds(anyList())).thenReturn(rows);
 
-        // mock requests
-        RequestDto req = new RequestDto();
-        req.setId(100L);
-        when(maintainRepository.findRequestsByRoomId(1L)).thenReturn(List.of(req));
+        // mock requests (ทุกห้องใน query เดียว)
+        List<Object[]> requestRows = new ArrayList<>();
+        requestRows.add(new Object[]{1L, 100L, "แอร์เสีย", null, null});
+        when(maintainRepository.findRequestsByRoomIds(anyCollection())).thenReturn(requestRows);
 
         List<RoomDetailDto> result = roomService.getAllRooms();
 
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getAssets()).hasSize(1);
         assertThat(result.get(0).getRequests()).hasSize(1);
+        assertThat(result.get(0).getRequests().get(0).getId()).isEqualTo(100L);
         assertThat(result.get(0).getAssets().get(0).getAssetName()).isEqualTo("Bed");
     }
 
+    // ✅ 1.1 getAllRooms() — requests ของทุกห้องมาจาก query เดียว ไม่ยิงทีละห้อง
+    @Test
+    void getAllRooms_shouldBatchRequestsForAllRooms() {
+        RoomDetailDto room1 = new RoomDetailDto();
+        room1.setRoomId(1L);
+        RoomDetailDto room2 = new RoomDetailDto();
+        room2.setRoomId(2L);
+        RoomDetailDto room3 = new RoomDetailDto();
+        room3.setRoomId(3L);
+        when(roomRepository.findAllRooms()).thenReturn(List.of(room1, room2, room3));
+        when(roomAssetRepository.findAssetsByRoomIds(anyList())).thenReturn(List.of());
+
+        List<Object[]> requestRows = new ArrayList<>();
+        requestRows.add(new Object[]{1L, 10L, "ท่อรั่ว", null, null});
+        requestRows.add(new Object[]{1L, 11L, "ไฟดับ", null, null});
+        requestRows.add(new Object[]{3L, 12L, "ประตูพัง", null, null});
+        when(maintainRepository.findRequestsByRoomIds(anyCollection())).thenReturn(requestRows);
+
+        List<RoomDetailDto> result = roomService.getAllRooms();
+
+        assertThat(result.get(0).getRequests()).extracting(RequestDto::getId).containsExactly(10L, 11L);
+        assertThat(result.get(1).getRequests()).isEmpty();
+        assertThat(result.get(2).getRequests()).extracting(RequestDto::getId).containsExactly(12L);
+        verify(maintainRepository, times(1)).findRequestsByRoomIds(List.of(1L, 2L, 3L));
+        verify(maintainRepository, never()).findRequestsByRoomId(anyLong());
+    }
+
+    // ✅ 1.2 getRoomPage() — ส่ง filter ลง query และดึง assets / requests เฉพาะห้องในหน้า
+    @Test
+    void getRoomPage_shouldFilterAndAttachOnlyPageRooms() {
+        RoomDetailDto room = new RoomDetailDto();
+        room.setRoomId(5L);
+        when(roomRepository.findRoomPage(eq(2), eq("occupied"), eq("%som!_a%"), any()))
+                .thenReturn(new PageImpl<>(List.of(room), PageRequest.of(1, 10), 11));
+        when(roomAssetRepository.findAssetsByRoomIds(anyList())).thenReturn(List.of());
+        when(maintainRepository.findRequestsByRoomIds(anyCollection())).thenReturn(List.of());
+
+        RoomPageDto page = roomService.getRoomPage(2, "Occupied", " Som_A ", 1, 10);
+
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getTotalElements()).isEqualTo(11);
+        assertThat(page.getTotalPages()).isEqualTo(2);
+        verify(maintainRepository).findRequestsByRoomIds(List.of(5L));
+    }
+
+    @Test
+    void getRoomPage_shouldRejectUnknownStatus() {
+        assertThatThrownBy(() -> roomService.getRoomPage(null, "repair", null, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(roomRepository);
+    }
+
     // ✅ 2. getAllRooms() — ไม่มีห้อง
     @Test
     void getAllRooms_shouldReturnEmptyListIfNoRooms() {
@@ -221,6 +279,7 @@ class RoomServiceTest {
         verify(roomRepository).save(room);
         assertThat(room.getRoomNumber()).isEqualTo("B202");
         assertThat(room.getRoomFloor()).isEqualTo(2);
+        verify(eventPublisher).publishEvent(ContractChangedEvent.ofRooms(1L));
     }
 
     // ❌ 14. updateRoom() — ไม่เจอห้อง
@@ -231,5 +290,6 @@ class RoomServiceTest {
         assertThatThrownBy(() -> roomService.updateRoom(1L, dto))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessage("Room not found");
+        verifyNoInteractions(eventPublisher);
     }
 }
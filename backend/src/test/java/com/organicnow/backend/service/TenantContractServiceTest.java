@@ -4,6 +4,7 @@ import com.organicnow.backend.dto.CreateTenantContractRequest;
 import com.organicnow.backend.dto.TenantDetailDto;
 import com.organicnow.backend.dto.TenantDto;
 import com.organicnow.backend.dto.UpdateTenantContractRequest;
+import com.organicnow.backend.event.ContractChangedEvent;
 import com.organicnow.backend.model.*;
 import com.organicnow.backend.repository.*;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -31,7 +33,9 @@ class TenantContractServiceTest {
     @Mock
     private ContractRepository contractRepository;
     @Mock
-    private InvoiceRepository invoiceRepository;
+    private InvoiceViewRepository invoiceViewRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private TenantContractService tenantContractService;
@@ -123,6 +127,7 @@ class TenantContractServiceTest {
         tenantContractService.delete(10L);
 
         verify(contractRepository).deleteById(10L);
+        verify(eventPublisher).publishEvent(ContractChangedEvent.allRooms());
     }
 
     @Test
@@ -150,16 +155,17 @@ class TenantContractServiceTest {
                 .status(1).deposit(BigDecimal.valueOf(5000)).rentAmountSnapshot(BigDecimal.valueOf(10000))
                 .build();
 
-        // Mock invoice
-        Invoice invoice = Invoice.builder()
-                .id(100L)
+        // Mock invoice (read model)
+        InvoiceView invoice = InvoiceView.builder()
+                .invoiceId(100L)
+                .contractId(10L)
                 .invoiceStatus(1)
                 .subTotal(1000)
                 .build();
 
         // 🔹 Mock repository responses
         when(contractRepository.findById(10L)).thenReturn(Optional.of(contract));
-        when(invoiceRepository.findByContact_IdOrderByIdDesc(10L)).thenReturn(List.of(invoice)); // <-- ต้องตรงกับ service
+        when(invoiceViewRepository.findByContractIdOrderByInvoiceIdDesc(10L)).thenReturn(List.of(invoice)); // <-- ต้องตรงกับ service
 
         // Call service
         TenantDetailDto detail = tenantContractService.getDetail(10L);
@@ -173,7 +179,7 @@ class TenantContractServiceTest {
 
         // Verify repository interactions
         verify(contractRepository).findById(10L);
-        verify(invoiceRepository).findByContact_IdOrderByIdDesc(10L);
+        verify(invoiceViewRepository).findByContractIdOrderByInvoiceIdDesc(10L);
     }
 
 }